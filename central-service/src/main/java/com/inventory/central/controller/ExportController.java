@@ -0,0 +1,75 @@
+package com.inventory.central.controller;
+
+import com.inventory.central.dto.ExportManifestDTO;
+import com.inventory.central.dto.ExportStatusDTO;
+import com.inventory.central.exception.NotFoundException;
+import com.inventory.central.service.StockExportService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/export/stock")
+public class ExportController {
+    private final StockExportService stockExportService;
+
+    public ExportController(StockExportService stockExportService) {
+        this.stockExportService = stockExportService;
+    }
+
+    @GetMapping
+    public ResponseEntity<ExportStatusDTO> status() {
+        return ResponseEntity.ok(status(stockExportService.isRunning()));
+    }
+
+    /**
+     * Lanza la exportación en segundo plano: 202 si arrancó, 409 si ya había una en curso.
+     */
+    @PostMapping
+    public ResponseEntity<ExportStatusDTO> start() {
+        boolean started = stockExportService.startAsync();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(status(true));
+    }
+
+    @GetMapping("/latest/manifest")
+    public ResponseEntity<ExportManifestDTO> latestManifest() {
+        ExportManifestDTO manifest = stockExportService.latest();
+        if (manifest == null) {
+            throw new NotFoundException("No hay snapshot de exportación");
+        }
+        return ResponseEntity.ok().eTag(manifest.getSha256()).body(manifest);
+    }
+
+    /**
+     * Último snapshot completo. Acepta Range (206 con el tramo pedido) para reanudar descargas grandes.
+     */
+    @GetMapping("/latest")
+    public ResponseEntity<Resource> latest() {
+        // un solo read del manifiesto: ETag, nombre y bytes del mismo snapshot
+        ExportManifestDTO manifest = stockExportService.latest();
+        if (manifest == null) {
+            throw new NotFoundException("No hay snapshot de exportación");
+        }
+        Path file = stockExportService.fileOf(manifest);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .eTag(manifest.getSha256())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(manifest.getFile()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
+    private ExportStatusDTO status(boolean running) {
+        return ExportStatusDTO.builder().running(running).latest(stockExportService.latest()).build();
+    }
+}
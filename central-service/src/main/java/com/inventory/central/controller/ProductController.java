@@ -1,12 +1,23 @@
 package com.inventory.central.controller;
 
+import com.inventory.central.dto.CatalogDeltaDTO;
+import com.inventory.central.dto.ProductUpsertRequestDTO;
 import com.inventory.central.entity.ProductEntity;
 import com.inventory.central.service.ProductService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.validation.Valid;
+
 import java.util.List;
 
 @RestController
@@ -19,9 +30,26 @@ public class ProductController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductEntity>> findAll() {
-        return ResponseEntity.ok(productService.findAll());
+    public ResponseEntity<List<ProductEntity>> findAll(@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String current = productService.matchNotModified(ifNoneMatch);
+        if (current != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+        }
+        List<ProductEntity> products = productService.findAll();
+        return ResponseEntity.ok().eTag(ProductService.eTagOf(products)).body(products);
     }
-}
 
+    /**
+     * GET /products/changes?after=<catalogVersion>&limit=500 → delta de catálogo para las tiendas.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<CatalogDeltaDTO> changes(@RequestParam(defaultValue = "0") long after,
+                                                   @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(productService.changesSince(after, limit));
+    }
 
+    @PutMapping("/{id}")
+    public ResponseEntity<ProductEntity> upsert(@PathVariable String id, @Valid @RequestBody ProductUpsertRequestDTO request) {
+        return ResponseEntity.ok(productService.upsert(id, request));
+    }
+}
@@ -1,10 +1,15 @@
 package com.inventory.central.controller;
 
 import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.StockSummaryDTO;
+import com.inventory.central.service.StockETagCache;
 import com.inventory.central.service.StockService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,10 +22,25 @@ public class StockController {
         this.stockService = stockService;
     }
 
+    /**
+     * Agregados servidos desde el modelo de lectura en memoria (sin acceso a la base).
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<StockSummaryDTO> getSummary() {
+        return ResponseEntity.ok(stockService.getSummary());
+    }
+
+    /**
+     * ETag fuerte derivado de updatedAt. Con If-None-Match vigente devuelve 304 sin leer la base.
+     */
     @GetMapping("/{productId}")
-    public ResponseEntity<StockSnapshotDTO> getSnapshot(@PathVariable String productId) {
-        return ResponseEntity.ok(stockService.getSnapshot(productId));
+    public ResponseEntity<StockSnapshotDTO> getSnapshot(@PathVariable String productId,
+                                                        @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String current = stockService.matchNotModified(productId, ifNoneMatch);
+        if (current != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+        }
+        StockSnapshotDTO dto = stockService.getSnapshot(productId);
+        return ResponseEntity.ok().eTag(StockETagCache.eTagOf(dto.getUpdatedAt())).body(dto);
     }
 }
-
-
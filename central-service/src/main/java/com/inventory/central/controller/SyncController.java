@@ -1,30 +1,129 @@
 package com.inventory.central.controller;
 
+import com.inventory.central.dto.ChangeFeedDTO;
+import com.inventory.central.dto.MerkleBucketDTO;
+import com.inventory.central.dto.MerkleNodesDTO;
+import com.inventory.central.dto.MerkleQueryDTO;
+import com.inventory.central.dto.PartitionMapDTO;
 import com.inventory.central.dto.SyncBatchDTO;
 import com.inventory.central.dto.SyncResultDTO;
+import com.inventory.central.exception.ConflictException;
+import com.inventory.central.jfr.SyncPullBatchEvent;
+import com.inventory.central.service.ChangeFeedService;
+import com.inventory.central.service.PartitionMap;
 import com.inventory.central.service.SyncService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import jakarta.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/sync")
 public class SyncController {
+    public static final String PARTITION_EPOCH_HEADER = "X-Partition-Epoch";
+    private static final long MAX_POLL_TIMEOUT_MS = 60_000;
+
     private final SyncService syncService;
+    private final ChangeFeedService changeFeedService;
+    private final PartitionMap partitionMap;
 
-    public SyncController(SyncService syncService) {
+    public SyncController(SyncService syncService, ChangeFeedService changeFeedService, PartitionMap partitionMap) {
         this.syncService = syncService;
+        this.changeFeedService = changeFeedService;
+        this.partitionMap = partitionMap;
     }
 
     @PostMapping("/pull")
-    public ResponseEntity<SyncResultDTO> pull(@Valid @RequestBody SyncBatchDTO batch) {
-        SyncResultDTO result = syncService.applyBatchLWW(batch);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<SyncResultDTO> pull(@Valid @RequestBody SyncBatchDTO batch,
+                                              @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength) {
+        SyncPullBatchEvent event = new SyncPullBatchEvent();
+        event.begin();
+        event.outcome = "error";
+        try {
+            SyncResultDTO result = syncService.applyBatchLWW(batch);
+            event.outcome = "ok";
+            event.received = result.getReceived();
+            event.applied = result.getApplied();
+            event.skipped = result.getSkipped();
+            event.rejected = result.getRejected();
+            event.duplicate = result.isDuplicate();
+            return ResponseEntity.ok().header(PARTITION_EPOCH_HEADER, String.valueOf(partitionMap.epoch())).body(result);
+        } catch (ConflictException ex) {
+            event.outcome = "wrong_partition";
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.storeId = batch.getStoreId();
+                event.batchSeq = batch.getBatchSeq() == null ? 0 : batch.getBatchSeq();
+                event.bytes = contentLength == null ? -1 : contentLength;
+                if (!"ok".equals(event.outcome)) {
+                    event.received = batch.getItems() == null ? 0 : batch.getItems().size();
+                }
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Mapa de particiones: qué nodo es dueño de cada rango de productIds. Cualquier nodo lo sirve.
+     */
+    @GetMapping("/partitions")
+    public ResponseEntity<PartitionMapDTO> partitions() {
+        return ResponseEntity.ok(partitionMap.toDTO());
     }
-}
 
+    /**
+     * Anti-entropía: hashes de nodos del árbol (nivel 0 = raíz). La tienda desciende sólo por
+     * los nodos que difieren.
+     */
+    @PostMapping("/merkle/nodes")
+    public ResponseEntity<MerkleNodesDTO> merkleNodes(@Valid @RequestBody MerkleQueryDTO query) {
+        return ResponseEntity.ok(syncService.merkleNodes(query));
+    }
 
+    @PostMapping("/merkle/buckets")
+    public ResponseEntity<MerkleBucketDTO> merkleBuckets(@Valid @RequestBody MerkleQueryDTO query) {
+        return ResponseEntity.ok(syncService.merkleBuckets(query));
+    }
+
+    /**
+     * GET /sync/changes?after=0&limit=500 → cambios aplicados con seq > after, en orden.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeFeedDTO> changes(@RequestParam(defaultValue = "0") long after,
+                                                 @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(changeFeedService.read(after, limit));
+    }
+
+    /**
+     * Long-poll: responde apenas haya cambios con seq > after, o una página vacía al vencer timeoutMs.
+     */
+    @GetMapping("/changes/poll")
+    public DeferredResult<ResponseEntity<ChangeFeedDTO>> pollChanges(@RequestParam(defaultValue = "0") long after,
+                                                                     @RequestParam(defaultValue = "500") int limit,
+                                                                     @RequestParam(defaultValue = "30000") long timeoutMs) {
+        Supplier<ResponseEntity<ChangeFeedDTO>> page = () -> ResponseEntity.ok(changeFeedService.read(after, limit));
+        DeferredResult<ResponseEntity<ChangeFeedDTO>> result =
+                new DeferredResult<>(Math.min(Math.max(timeoutMs, 1), MAX_POLL_TIMEOUT_MS), page);
+        CompletableFuture<Void> waiting = changeFeedService.awaitAfter(after).thenRunAsync(() -> {
+            if (!result.isSetOrExpired()) {
+                result.setResult(page.get());
+            }
+        }, changeFeedService.notifyExecutor());
+        // vencido o cortado: que el próximo append no arme una página que nadie lee
+        result.onTimeout(() -> waiting.cancel(false));
+        result.onError(ex -> waiting.cancel(false));
+        return result;
+    }
+}
@@ -0,0 +1,22 @@
+package com.inventory.central.dto;
+
+import com.inventory.central.entity.ProductEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de cambios de catálogo con catalogVersion > after, en orden de versión.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogDeltaDTO {
+    private long lastVersion;
+    private boolean hasMore;
+    private List<ProductEntity> items;
+}
@@ -0,0 +1,27 @@
+package com.inventory.central.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página del feed de cambios. El consumidor guarda lastSeq y pide la siguiente con after=lastSeq.
+ * epoch cambia si central reinicia (la numeración vuelve a empezar). truncated indica que hubo
+ * entradas posteriores a after que ya se descartaron (sólo con el stock mapeado): hay que partir de
+ * un snapshot completo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDTO {
+    private long epoch;
+    private long lastSeq;
+    private long headSeq;
+    private boolean hasMore;
+    private boolean truncated;
+    private List<ChangeFeedEntryDTO> changes;
+}
@@ -0,0 +1,19 @@
+package com.inventory.central.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedEntryDTO {
+    private long seq;
+    private String productId;
+    private int quantity;
+    private Instant updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.inventory.central.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportManifestDTO {
+    private String snapshotId;
+    private String file;
+    private String format;
+    private List<String> columns;
+    private int rowGroupSize;
+    private long rows;
+    private long bytes;
+    private String sha256;
+    private Instant startedAt;
+    private Instant completedAt;
+    private long durationMs;
+}
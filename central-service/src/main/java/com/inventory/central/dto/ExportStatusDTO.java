@@ -0,0 +1,15 @@
+package com.inventory.central.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportStatusDTO {
+    private boolean running;
+    private ExportManifestDTO latest;
+}
@@ -0,0 +1,24 @@
+package com.inventory.central.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Consulta de nodos del árbol de reconciliación: nivel (0 = raíz) e índices dentro del nivel.
+ * Para /sync/merkle/buckets los índices son buckets hoja y el nivel se ignora.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerkleQueryDTO {
+    private int level;
+
+    @NotNull
+    private List<Integer> indexes;
+}
@@ -0,0 +1,22 @@
+package com.inventory.central.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionMapDTO {
+    /** Huella de la topología (nodos + vnodes); cambia cuando cambia el reparto. */
+    private long epoch;
+    private int vnodes;
+    /** Índice de este nodo en nodes. */
+    private int self;
+    /** URL base de cada nodo; la posición es el índice usado por el anillo. */
+    private List<String> nodes;
+}
@@ -0,0 +1,24 @@
+package com.inventory.central.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductUpsertRequestDTO {
+    @NotBlank
+    private String name;
+
+    @NotNull
+    @DecimalMin(value = "0.00", message = "price no puede ser negativo")
+    private BigDecimal price;
+}
@@ -0,0 +1,20 @@
+package com.inventory.central.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSummaryDTO {
+    private int skuCount;
+    private long totalQuantity;
+    private int outOfStockCount;
+    private long version;
+    private Instant publishedAt;
+}
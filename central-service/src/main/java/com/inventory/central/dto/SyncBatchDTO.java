@@ -15,6 +15,10 @@ import java.util.List;
 public class SyncBatchDTO {
     @NotEmpty(message = "items no puede ser vacío")
     private List<StockSnapshotDTO> items;
+
+    /** Tienda emisora y número de lote; juntos identifican un reenvío. Opcionales. */
+    private String storeId;
+    private Long batchSeq;
 }
 
 
@@ -0,0 +1,19 @@
+package com.inventory.central.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ítem de un lote de sync que central no aplicó; index es su posición en items.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncItemRejectionDTO {
+    private int index;
+    private String productId;
+    private String reason;
+}
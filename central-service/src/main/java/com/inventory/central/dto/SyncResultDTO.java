@@ -5,14 +5,27 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class SyncResultDTO {
+    public static final char APPLIED = 'A';
+    public static final char SKIPPED = 'S';
+    public static final char REJECTED = 'R';
+
     private int received;
     private int applied;
     private int skipped;
+    private int rejected;
+    /** true si el lote ya se había aplicado y se devolvió el resultado original. */
+    private boolean duplicate;
+    /** Un carácter por ítem, en el orden de items: A aplicado, S descartado por LWW, R rechazado. */
+    private String outcomes;
+    /** Motivo de cada ítem rechazado; el resto quedó confirmado. */
+    @Builder.Default
+    private List<SyncItemRejectionDTO> rejections = new ArrayList<>();
 }
-
-
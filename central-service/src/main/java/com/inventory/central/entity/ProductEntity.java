@@ -3,6 +3,7 @@ package com.inventory.central.entity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,7 +18,9 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_catalog_version", columnList = "catalog_version")
+})
 public class ProductEntity {
     @Id
     @Column(name = "id", nullable = false, updatable = false, length = 64)
@@ -31,6 +34,10 @@ public class ProductEntity {
 
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
+
+    // versión monótona del catálogo; las tiendas piden deltas con catalog_version > última vista
+    @Column(name = "catalog_version", nullable = false)
+    private long catalogVersion;
 }
 
 
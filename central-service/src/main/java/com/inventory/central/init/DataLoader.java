@@ -4,40 +4,107 @@ import com.inventory.central.entity.ProductEntity;
 import com.inventory.central.entity.StockEntity;
 import com.inventory.central.repository.ProductRepository;
 import com.inventory.central.repository.StockRepository;
+import com.inventory.central.service.MappedStockStore;
+import com.inventory.central.service.StockStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.List;
 
+/**
+ * Siembra inicial. central.seed.mode: always (por defecto), if-empty (no toca una base con datos)
+ * o none. Con central.seed.file carga ese CSV en bloque; sin archivo, los tres productos de demo.
+ * Con el stock mapeado (central.storage.engine=mmap) el stock de demo se escribe en el archivo;
+ * el CSV sólo carga la tabla JPA.
+ */
 @Component
 public class DataLoader implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
     private final ProductRepository productRepository;
     private final StockRepository stockRepository;
+    private final StockStorage stockStorage;
+    private final BulkSeedLoader bulkSeedLoader;
+    private final StartupTimings startupTimings;
+    private final String mode;
+    private final String seedFile;
 
-    public DataLoader(ProductRepository productRepository, StockRepository stockRepository) {
+    public DataLoader(ProductRepository productRepository,
+                      StockRepository stockRepository,
+                      StockStorage stockStorage,
+                      BulkSeedLoader bulkSeedLoader,
+                      StartupTimings startupTimings,
+                      @Value("${central.seed.mode:always}") String mode,
+                      @Value("${central.seed.file:}") String seedFile) {
         this.productRepository = productRepository;
         this.stockRepository = stockRepository;
+        this.stockStorage = stockStorage;
+        this.bulkSeedLoader = bulkSeedLoader;
+        this.startupTimings = startupTimings;
+        this.mode = mode;
+        this.seedFile = seedFile;
     }
 
     @Override
-    public void run(String... args) {
-        Instant now = Instant.now();
+    public void run(String... args) throws Exception {
+        long start = System.nanoTime();
+        switch (mode) {
+            case "none" -> {
+                log.info("siembra deshabilitada (central.seed.mode=none)");
+                return;
+            }
+            case "if-empty" -> {
+                if (productRepository.count() > 0) {
+                    log.info("siembra omitida: la base ya tiene datos");
+                    startupTimings.record("seed-skip-check", System.nanoTime() - start);
+                    return;
+                }
+            }
+            case "always" -> {
+            }
+            default -> throw new IllegalArgumentException("central.seed.mode desconocido: " + mode);
+        }
 
-        productRepository.save(ProductEntity.builder()
-                .id("ABC-001").name("Laptop Lenovo ThinkPad X1").price(new BigDecimal("1500.00")).updatedAt(now)
-                .build());
-        productRepository.save(ProductEntity.builder()
-                .id("ABC-002").name("Smartphone Samsung Galaxy S23").price(new BigDecimal("899.99")).updatedAt(now)
-                .build());
-        productRepository.save(ProductEntity.builder()
-                .id("ABC-003").name("Auriculares Sony WH-1000XM5").price(new BigDecimal("349.99")).updatedAt(now)
-                .build());
-
-        stockRepository.save(StockEntity.builder().productId("ABC-001").quantity(10).updatedAt(now).build());
-        stockRepository.save(StockEntity.builder().productId("ABC-002").quantity(28).updatedAt(now).build());
-        stockRepository.save(StockEntity.builder().productId("ABC-003").quantity(18).updatedAt(now).build());
+        if (!seedFile.isBlank()) {
+            if (stockStorage.isMapped()) {
+                log.warn("central.seed.file carga la tabla JPA; con central.storage.engine=mmap el stock llega por sync");
+            }
+            bulkSeedLoader.load(Paths.get(seedFile));
+        } else {
+            seedDemo();
+        }
+        startupTimings.record("seed", System.nanoTime() - start);
     }
-}
 
+    private void seedDemo() {
+        Instant now = Instant.now();
 
+        productRepository.saveAll(List.of(
+                ProductEntity.builder()
+                        .id("ABC-001").name("Laptop Lenovo ThinkPad X1").price(new BigDecimal("1500.00")).updatedAt(now).catalogVersion(1)
+                        .build(),
+                ProductEntity.builder()
+                        .id("ABC-002").name("Smartphone Samsung Galaxy S23").price(new BigDecimal("899.99")).updatedAt(now).catalogVersion(2)
+                        .build(),
+                ProductEntity.builder()
+                        .id("ABC-003").name("Auriculares Sony WH-1000XM5").price(new BigDecimal("349.99")).updatedAt(now).catalogVersion(3)
+                        .build()));
+
+        List<StockEntity> stock = List.of(
+                StockEntity.builder().productId("ABC-001").quantity(10).updatedAt(now).build(),
+                StockEntity.builder().productId("ABC-002").quantity(28).updatedAt(now).build(),
+                StockEntity.builder().productId("ABC-003").quantity(18).updatedAt(now).build());
+        MappedStockStore mapped = stockStorage.mapped();
+        if (mapped == null) {
+            stockRepository.saveAll(stock);
+            return;
+        }
+        stock.forEach(s -> mapped.applyLww(s.getProductId(), s.getQuantity(), s.getUpdatedAt()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.inventory.central.init;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duración de las fases de arranque (siembra, índices, ...) y tiempo total hasta ready.
+ * Se publica como métrica y en una sola línea de log al terminar el arranque.
+ */
+@Component
+public class StartupTimings {
+    private static final Logger log = LoggerFactory.getLogger(StartupTimings.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Long> phasesMs = new LinkedHashMap<>();
+    private volatile long readyMs = -1;
+    private long startedMs;
+    private long startedNanos;
+
+    public StartupTimings(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("inventory_startup_ready_seconds", this, t -> t.readyMs < 0 ? Double.NaN : t.readyMs / 1000.0).register(meterRegistry);
+    }
+
+    public synchronized void record(String phase, long nanos) {
+        phasesMs.merge(phase, TimeUnit.NANOSECONDS.toMillis(nanos), Long::sum);
+        Timer.builder("inventory_startup_phase_duration_seconds").tag("phase", phase).register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized Map<String, Long> phasesMs() {
+        return new LinkedHashMap<>(phasesMs);
+    }
+
+    public long readyMs() {
+        return readyMs;
+    }
+
+    // primero de los listeners de ApplicationReadyEvent; los demás reconstruyen estado en memoria
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void started(ApplicationReadyEvent event) {
+        startedMs = event.getTimeTaken() != null ? event.getTimeTaken().toMillis()
+                : System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        startedNanos = System.nanoTime();
+    }
+
+    // Spring Boot publica ACCEPTING_TRAFFIC después de todos los listeners de ApplicationReadyEvent
+    @EventListener
+    public void ready(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || readyMs >= 0 || startedNanos == 0) {
+            return;
+        }
+        long listenersNanos = System.nanoTime() - startedNanos;
+        record("ready-listeners", listenersNanos);
+        readyMs = startedMs + TimeUnit.NANOSECONDS.toMillis(listenersNanos);
+        log.info("arranque listo: readyMs={} fases={}", readyMs, phasesMs());
+    }
+}
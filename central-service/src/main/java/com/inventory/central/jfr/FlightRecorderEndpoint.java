@@ -0,0 +1,161 @@
+package com.inventory.central.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * /actuator/jfr: grabaciones de Flight Recorder acotadas, a disco local.
+ * <p>
+ * POST inicia una grabación (durationSeconds, maxSizeMb, settings=default|profile) con tope de
+ * duración y tamaño; al vencer JFR la vuelca sola en dir. DELETE la corta y la vuelca ya. GET
+ * informa la grabación actual y los archivos en dir. Hay una sola grabación a la vez y en dir
+ * se conservan los últimos maxFiles volcados. Los eventos inventory.* están siempre habilitados.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final List<String> EVENTS = List.of("inventory.SyncPullBatch", "inventory.LwwDecision");
+
+    private final Path dir;
+    private final long maxDurationSeconds;
+    private final long maxSizeMb;
+    private final int maxFiles;
+    private Recording recording;
+
+    public FlightRecorderEndpoint(@Value("${central.jfr.dir:${java.io.tmpdir}/central-jfr}") String dir,
+                                  @Value("${central.jfr.maxDurationSeconds:300}") long maxDurationSeconds,
+                                  @Value("${central.jfr.maxSizeMb:100}") long maxSizeMb,
+                                  @Value("${central.jfr.maxFiles:10}") int maxFiles) {
+        this.dir = Path.of(dir);
+        this.maxDurationSeconds = Math.max(1, maxDurationSeconds);
+        this.maxSizeMb = Math.max(1, maxSizeMb);
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("recording", describe(recording));
+        body.put("files", files().map(p -> p.getFileName().toString()).toList());
+        return body;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Long durationSeconds,
+                                                                      @Nullable Long maxSizeMb,
+                                                                      @Nullable String settings) throws IOException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(Map.of("error", "ya hay una grabación en curso", "recording", describe(recording)),
+                    HttpStatus.CONFLICT.value());
+        }
+        if (recording != null) {
+            // la anterior ya terminó por duración y JFR la volcó sola
+            recording.close();
+            recording = null;
+        }
+        String config = settings == null ? "default" : settings;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(config);
+        } catch (ParseException | IOException ex) {
+            return new WebEndpointResponse<>(Map.of("error", "settings inválido: " + config), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        long seconds = Math.min(durationSeconds == null ? maxDurationSeconds : Math.max(1, durationSeconds), maxDurationSeconds);
+        long megabytes = Math.min(maxSizeMb == null ? this.maxSizeMb : Math.max(1, maxSizeMb), this.maxSizeMb);
+
+        Files.createDirectories(dir);
+        prune(maxFiles - 1);
+        Recording r = new Recording(configuration);
+        String name = "central-" + FILE_TIME.format(Instant.now());
+        r.setName(name);
+        r.setToDisk(true);
+        r.setMaxSize(megabytes * 1024 * 1024);
+        r.setDuration(Duration.ofSeconds(seconds));
+        r.setDestination(dir.resolve(name + ".jfr"));
+        EVENTS.forEach(e -> r.enable(e).withThreshold(Duration.ZERO));
+        r.start();
+        recording = r;
+        log.info("grabación JFR iniciada: name={} settings={} durationSeconds={} maxSizeMb={}", name, config, seconds, megabytes);
+        return new WebEndpointResponse<>(describe(r), WebEndpointResponse.STATUS_OK);
+    }
+
+    @DeleteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> stop() throws IOException {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(Map.of("error", "no hay grabación en curso"), WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Recording r = recording;
+        // stop() vuelca a la destination configurada al iniciar
+        r.stop();
+        Map<String, Object> body = describe(r);
+        r.close();
+        recording = null;
+        log.info("grabación JFR volcada: {}", body.get("file"));
+        return new WebEndpointResponse<>(body, WebEndpointResponse.STATUS_OK);
+    }
+
+    private Map<String, Object> describe(Recording r) throws IOException {
+        if (r == null) {
+            return null;
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", r.getName());
+        body.put("state", r.getState().name());
+        body.put("startTime", r.getStartTime());
+        body.put("durationSeconds", r.getDuration() == null ? null : r.getDuration().toSeconds());
+        body.put("maxSizeBytes", r.getMaxSize());
+        body.put("file", r.getDestination() == null ? null : r.getDestination().toString());
+        if (r.getDestination() != null && Files.exists(r.getDestination())) {
+            body.put("fileBytes", Files.size(r.getDestination()));
+        }
+        return body;
+    }
+
+    private Stream<Path> files() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return Stream.empty();
+        }
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.filter(p -> p.getFileName().toString().endsWith(".jfr"))
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList()
+                    .stream();
+        }
+    }
+
+    private void prune(int keep) throws IOException {
+        List<Path> all = files().toList();
+        for (int i = 0; i < all.size() - keep; i++) {
+            Files.deleteIfExists(all.get(i));
+        }
+    }
+}
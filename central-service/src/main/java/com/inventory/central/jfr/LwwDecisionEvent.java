@@ -0,0 +1,34 @@
+package com.inventory.central.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+
+/**
+ * Decisión Last-Write-Wins de un ítem: created, applied o skipped (el de central es igual o más nuevo).
+ * existingUpdatedAt sólo viene en skipped: applied se resuelve con un UPDATE condicional sin leer antes.
+ */
+@Name("inventory.LwwDecision")
+@Label("LWW Decision")
+@Category({"Inventory", "Central"})
+@StackTrace(false)
+public class LwwDecisionEvent extends jdk.jfr.Event {
+    @Label("Product Id")
+    public String productId;
+
+    @Label("Decision")
+    public String decision;
+
+    @Label("Quantity")
+    public int quantity;
+
+    @Label("Incoming Updated At")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long incomingUpdatedAt;
+
+    @Label("Existing Updated At")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long existingUpdatedAt;
+}
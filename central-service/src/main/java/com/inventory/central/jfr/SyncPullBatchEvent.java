@@ -0,0 +1,45 @@
+package com.inventory.central.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Un lote recibido en /sync/pull, desde el lote ya deserializado hasta el resultado LWW.
+ * bytes es el Content-Length del request (-1 si vino chunked).
+ */
+@Name("inventory.SyncPullBatch")
+@Label("Sync Pull Batch")
+@Category({"Inventory", "Central"})
+@StackTrace(false)
+public class SyncPullBatchEvent extends jdk.jfr.Event {
+    @Label("Store Id")
+    public String storeId;
+
+    @Label("Batch Sequence")
+    public long batchSeq;
+
+    @Label("Received")
+    public int received;
+
+    @Label("Applied")
+    public int applied;
+
+    @Label("Skipped")
+    public int skipped;
+
+    @Label("Rejected")
+    public int rejected;
+
+    @Label("Duplicate")
+    public boolean duplicate;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
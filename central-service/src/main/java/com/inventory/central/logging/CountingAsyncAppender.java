@@ -0,0 +1,28 @@
+package com.inventory.central.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AsyncAppender que cuenta lo que descarta. Con la cola por debajo de discardingThreshold los
+ * eventos INFO y menores se descartan (y se cuentan) en vez de frenar al hilo del request; WARN y
+ * ERROR se encolan siempre y, con la cola llena, esperan lugar.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+    private static final LongAdder DROPPED = new LongAdder();
+
+    public static long dropped() {
+        return DROPPED.sum();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (getRemainingCapacity() < getDiscardingThreshold() && isDiscardable(event)) {
+            DROPPED.increment();
+            return;
+        }
+        super.append(event);
+    }
+}
@@ -0,0 +1,19 @@
+package com.inventory.central.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Expone los contadores del pipeline de logs (viven en logback, fuera del contexto de Spring).
+ */
+@Component
+public class LoggingMetrics {
+
+    public LoggingMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("inventory_log_dropped_total", CountingAsyncAppender.class, c -> CountingAsyncAppender.dropped())
+                .register(meterRegistry);
+        FunctionCounter.builder("inventory_log_sampled_out_total", SampledLogFilter.class, c -> SampledLogFilter.sampledOut())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,136 @@
+package com.inventory.central.ratelimit;
+
+import com.inventory.central.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Límite de tasa por cliente y ruta con {@link TokenBucketLimiter}.
+ * <p>
+ * limits es "METODO /plantilla=porSegundo:rafaga,..." sobre la plantilla de la ruta (no el path
+ * concreto); las rutas sin límite pasan sin costo. El cliente es la dirección remota: sin
+ * autenticación X-Client-Id lo elige quien llama, y rotándolo esquivaría el límite y vaciaría el
+ * mapa de buckets. El header sólo se usa cuando la conexión viene de una dirección de
+ * trustedProxies (un balanceador propio que lo completa). Al rechazar responde 429 con Retry-After.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final int MAX_CLIENT_ID_LENGTH = 64;
+
+    private final Map<String, TokenBucketLimiter.Limit> limits;
+    private final Set<String> trustedProxies;
+    private final TokenBucketLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitInterceptor(@Value("${central.ratelimit.enabled:true}") boolean enabled,
+                                @Value("${central.ratelimit.maxBuckets:10000}") int maxBuckets,
+                                @Value("${central.ratelimit.limits:}") String limits,
+                                @Value("${central.ratelimit.trustedProxies:}") String trustedProxies,
+                                ObjectProvider<MeterRegistry> meterRegistry) {
+        this(enabled, limits, trustedProxies, new TokenBucketLimiter(maxBuckets), meterRegistry.getIfAvailable());
+    }
+
+    RateLimitInterceptor(boolean enabled, String limits, String trustedProxies, TokenBucketLimiter limiter,
+                         MeterRegistry meterRegistry) {
+        this.limits = enabled ? parse(limits) : Map.of();
+        this.trustedProxies = trustedProxies == null ? Set.of() : Arrays.stream(trustedProxies.split(","))
+                .map(String::trim).filter(a -> !a.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        if (meterRegistry != null) {
+            Gauge.builder("inventory_ratelimit_buckets", limiter, TokenBucketLimiter::size).register(meterRegistry);
+            FunctionCounter.builder("inventory_ratelimit_evicted_total", limiter, TokenBucketLimiter::evicted).register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (limits.isEmpty()) {
+            return true;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return true;
+        }
+        String route = request.getMethod() + ' ' + pattern;
+        TokenBucketLimiter.Limit limit = limits.get(route);
+        if (limit == null) {
+            return true;
+        }
+        long waitNanos = limiter.tryAcquire(clientKey(request) + ' ' + route, limit);
+        if (waitNanos == 0) {
+            return true;
+        }
+        if (meterRegistry != null) {
+            rejected.computeIfAbsent(route, r -> Counter.builder("inventory_ratelimit_rejected_total")
+                    .tag("route", r)
+                    .register(meterRegistry)).increment();
+        }
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        throw new TooManyRequestsException("Límite de tasa excedido para " + route, retryAfter);
+    }
+
+    /**
+     * Dirección remota, salvo que la conexión venga de un proxy de confianza que informe X-Client-Id.
+     * Los prefijos separan ambos espacios: un header no puede hacerse pasar por la IP de otro.
+     */
+    private String clientKey(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (!trustedProxies.contains(remote)) {
+            return "ip:" + remote;
+        }
+        String header = request.getHeader(CLIENT_ID_HEADER);
+        if (header == null || header.isBlank()) {
+            return "ip:" + remote;
+        }
+        header = header.trim();
+        return "id:" + (header.length() > MAX_CLIENT_ID_LENGTH ? header.substring(0, MAX_CLIENT_ID_LENGTH) : header);
+    }
+
+    static Map<String, TokenBucketLimiter.Limit> parse(String spec) {
+        Map<String, TokenBucketLimiter.Limit> parsed = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return parsed;
+        }
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int eq = entry.lastIndexOf('=');
+            int colon = entry.lastIndexOf(':');
+            if (eq <= 0 || colon < eq) {
+                throw new IllegalArgumentException("límite inválido (se espera 'METODO /ruta=porSegundo:rafaga'): " + entry.trim());
+            }
+            String route = entry.substring(0, eq).trim().replaceAll("\\s+", " ");
+            try {
+                parsed.put(route, new TokenBucketLimiter.Limit(
+                        Double.parseDouble(entry.substring(eq + 1, colon).trim()),
+                        Integer.parseInt(entry.substring(colon + 1).trim())));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("límite inválido (se espera 'METODO /ruta=porSegundo:rafaga'): " + entry.trim(), ex);
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,109 @@
+package com.inventory.central.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets sin locks en un mapa acotado.
+ * <p>
+ * Cada bucket es un único AtomicLong con el instante teórico en que quedaría vacío (GCRA): es
+ * un token bucket de capacidad burst que se recarga a ratePerSecond, pero tokens y última
+ * recarga viven en una sola palabra y se actualizan con un CAS. Si el mapa supera maxBuckets
+ * se barre hasta el 90% del tope, primero los buckets ya llenos (equivalen a uno nuevo, no se
+ * pierde estado) y, si no alcanza, activos en orden arbitrario: ese cliente vuelve a tener ráfaga.
+ * Bajar al 90% y no justo al tope evita barrer en cada alta cuando hay muchos clientes nuevos.
+ */
+public class TokenBucketLimiter {
+
+    /** Recarga por segundo y capacidad del bucket. */
+    public record Limit(double ratePerSecond, int burst) {
+        public Limit {
+            if (!(ratePerSecond > 0) || burst < 1) {
+                throw new IllegalArgumentException("límite inválido: rate=" + ratePerSecond + " burst=" + burst);
+            }
+        }
+
+        long intervalNanos() {
+            return Math.max(1, Math.round(1e9 / ratePerSecond));
+        }
+    }
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder evicted = new LongAdder();
+    private final int maxBuckets;
+    private final int sweepTarget;
+    private final LongSupplier nanoTime;
+
+    public TokenBucketLimiter(int maxBuckets) {
+        this(maxBuckets, System::nanoTime);
+    }
+
+    TokenBucketLimiter(int maxBuckets, LongSupplier nanoTime) {
+        this.maxBuckets = Math.max(1, maxBuckets);
+        this.sweepTarget = this.maxBuckets - this.maxBuckets / 10;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Toma un token del bucket de key. Devuelve 0 si se admite o los nanos que faltan para que
+     * haya uno.
+     */
+    public long tryAcquire(String key, Limit limit) {
+        long now = nanoTime.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            if (buckets.size() > maxBuckets) {
+                evict(now);
+            }
+        }
+        long interval = limit.intervalNanos();
+        long capacity = interval * limit.burst();
+        while (true) {
+            long emptyAt = bucket.get();
+            long next = Math.max(emptyAt, now) + interval;
+            if (next - now > capacity) {
+                return next - now - capacity;
+            }
+            if (bucket.compareAndSet(emptyAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long evicted() {
+        return evicted.sum();
+    }
+
+    private void evict(long now) {
+        // un solo hilo barre; el resto sigue aunque el mapa quede un momento por encima del tope
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (Iterator<AtomicLong> it = buckets.values().iterator(); it.hasNext() && buckets.size() > sweepTarget; ) {
+                if (it.next().get() <= now) {
+                    it.remove();
+                    evicted.increment();
+                }
+            }
+            for (Iterator<AtomicLong> it = buckets.values().iterator(); it.hasNext() && buckets.size() > sweepTarget; ) {
+                it.next();
+                it.remove();
+                evicted.increment();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.inventory.central.repository;
 
 import com.inventory.central.entity.ProductEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface ProductRepository extends JpaRepository<ProductEntity, String> {
-}
+import java.util.List;
 
+public interface ProductRepository extends JpaRepository<ProductEntity, String> {
+    List<ProductEntity> findByCatalogVersionGreaterThanOrderByCatalogVersionAsc(long catalogVersion, Pageable pageable);
 
+    @Query("select coalesce(max(p.catalogVersion), 0) from ProductEntity p")
+    long findMaxCatalogVersion();
+}
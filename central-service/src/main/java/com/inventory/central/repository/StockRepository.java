@@ -2,8 +2,39 @@ package com.inventory.central.repository;
 
 import com.inventory.central.entity.StockEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
 
 public interface StockRepository extends JpaRepository<StockEntity, String> {
-}
+    /**
+     * LWW atómico: pisa la fila sólo si updatedAt es posterior al guardado. La comparación y la
+     * escritura son una sola sentencia, así que dos transacciones concurrentes no pueden pisarse
+     * con un valor más viejo. Devuelve 0 si la fila no existe o no era más vieja. Vacía el contexto
+     * de persistencia para que nadie lea después una entidad con los valores anteriores.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockEntity s set s.quantity = :quantity, s.updatedAt = :updatedAt "
+            + "where s.productId = :productId and s.updatedAt < :updatedAt")
+    int updateIfNewer(@Param("productId") String productId, @Param("quantity") int quantity,
+                      @Param("updatedAt") Instant updatedAt);
 
+    /**
+     * Alta directa: si otra transacción creó el SKU en el medio falla por clave duplicada en vez de
+     * convertirse en un update (como haría save/merge).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "insert into stock (product_id, quantity, updated_at) values (:productId, :quantity, :updatedAt)",
+            nativeQuery = true)
+    int insert(@Param("productId") String productId, @Param("quantity") int quantity,
+               @Param("updatedAt") Instant updatedAt);
 
+    /**
+     * updatedAt guardado en la base, sin pasar por el contexto de persistencia.
+     */
+    @Query("select s.updatedAt from StockEntity s where s.productId = :productId")
+    Optional<Instant> findUpdatedAt(@Param("productId") String productId);
+}
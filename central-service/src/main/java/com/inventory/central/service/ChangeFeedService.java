@@ -0,0 +1,215 @@
+package com.inventory.central.service;
+
+import com.inventory.central.dto.ChangeFeedDTO;
+import com.inventory.central.dto.ChangeFeedEntryDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feed de cambios de central con número de secuencia monótono por cada ítem aplicado por LWW.
+ * <p>
+ * La secuencia se asigna después del commit y bajo un único lock, así que el orden de la
+ * secuencia coincide con el orden de visibilidad: un consumidor con after=N nunca se saltea
+ * una entrada que aparezca más tarde con número menor. Las lecturas no toman locks.
+ * <p>
+ * Compactación: pasada la ventana de retención sólo se conserva la última entrada de cada SKU,
+ * de modo que leer desde after=0 siempre reconstruye el estado completo.
+ * <p>
+ * Con el stock en {@link MappedStockStore} el feed no se siembra ni guarda la última entrada por
+ * SKU (sería otra copia del catálogo en el heap): sólo tiene los cambios desde el arranque y la
+ * compactación descarta todo lo que sale de la ventana. Quien pida un after ya descartado recibe
+ * truncated=true y tiene que partir de un snapshot completo (/export/stock).
+ * <p>
+ * Los long-polls esperan en {@link #awaitAfter(long)}: el aviso se completa fuera del lock y las
+ * páginas se arman en {@link #notifyExecutor()}, no en el hilo de ingesta que hizo el append.
+ */
+@Service
+public class ChangeFeedService {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    public record Entry(long seq, String productId, int quantity, Instant updatedAt, Instant recordedAt) {
+    }
+
+    private final StockStorage stockStorage;
+    private final long retentionMs;
+    private final int maxLimit;
+    private final long epoch = System.currentTimeMillis();
+
+    private final ConcurrentSkipListMap<Long, Entry> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> latestSeqBySku = new ConcurrentHashMap<>();
+    private final boolean keepLatestPerSku;
+    private volatile long headSeq;
+    private volatile CompletableFuture<Void> nextAppend = new CompletableFuture<>();
+    // todo lo que está por debajo ya fue compactado; sólo quedan las últimas entradas por SKU
+    private long compactedThroughSeq;
+    // sin última por SKU: todo lo que está por debajo se descartó
+    private volatile long droppedThroughSeq;
+
+    private final ExecutorService notifier;
+    private final Counter compacted;
+
+    public ChangeFeedService(StockStorage stockStorage,
+                             @Value("${central.feed.retentionMs:3600000}") long retentionMs,
+                             @Value("${central.feed.maxLimit:1000}") int maxLimit,
+                             @Value("${central.feed.notifyThreads:2}") int notifyThreads,
+                             MeterRegistry meterRegistry) {
+        this.stockStorage = stockStorage;
+        this.keepLatestPerSku = !stockStorage.isMapped();
+        this.retentionMs = retentionMs;
+        this.maxLimit = maxLimit;
+        AtomicInteger threads = new AtomicInteger();
+        this.notifier = Executors.newFixedThreadPool(Math.max(1, notifyThreads), r -> {
+            Thread t = new Thread(r, "change-feed-notify-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.compacted = Counter.builder("inventory_change_feed_compacted_total").register(meterRegistry);
+        Gauge.builder("inventory_change_feed_entries", entries, Map::size).register(meterRegistry);
+        Gauge.builder("inventory_change_feed_head_seq", this, f -> f.headSeq).register(meterRegistry);
+    }
+
+    /**
+     * Siembra el feed con el estado inicial para que after=0 devuelva todo el stock.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!keepLatestPerSku) {
+            log.info("change feed sin siembra (stock mapeado): arranca vacío epoch={}", epoch);
+            return;
+        }
+        append(stockStorage.loadAll());
+        log.info("change feed inicializado: headSeq={} epoch={}", headSeq, epoch);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+    }
+
+    /**
+     * Donde corren las continuaciones de los long-polls.
+     */
+    public Executor notifyExecutor() {
+        return notifier;
+    }
+
+    public void append(Collection<StockReadModel.StockView> applied) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        // fuera del lock: lo que cuelgue del aviso no frena a otros appends
+        appendLocked(applied).complete(null);
+    }
+
+    private synchronized CompletableFuture<Void> appendLocked(Collection<StockReadModel.StockView> applied) {
+        Instant now = Instant.now();
+        long seq = headSeq;
+        for (StockReadModel.StockView view : applied) {
+            seq++;
+            entries.put(seq, new Entry(seq, view.productId(), view.quantity(), view.updatedAt(), now));
+            if (!keepLatestPerSku) {
+                continue;
+            }
+            Long previous = latestSeqBySku.put(view.productId(), seq);
+            if (previous != null && previous <= compactedThroughSeq) {
+                // la anterior ya estaba fuera de la ventana y sólo se retenía por ser la última
+                entries.remove(previous);
+                compacted.increment();
+            }
+        }
+        headSeq = seq;
+        CompletableFuture<Void> signal = nextAppend;
+        nextAppend = new CompletableFuture<>();
+        return signal;
+    }
+
+    public ChangeFeedDTO read(long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+        long head = headSeq;
+        List<ChangeFeedEntryDTO> page = new ArrayList<>(Math.min(pageSize, 64));
+        long lastSeq = after;
+        boolean hasMore = false;
+        for (Entry e : entries.tailMap(after, false).values()) {
+            if (e.seq() > head) {
+                break;
+            }
+            if (page.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            page.add(ChangeFeedEntryDTO.builder()
+                    .seq(e.seq()).productId(e.productId()).quantity(e.quantity()).updatedAt(e.updatedAt())
+                    .build());
+            lastSeq = e.seq();
+        }
+        return ChangeFeedDTO.builder()
+                .epoch(epoch).lastSeq(lastSeq).headSeq(head).hasMore(hasMore)
+                .truncated(after < droppedThroughSeq).changes(page)
+                .build();
+    }
+
+    /**
+     * Se completa en cuanto haya entradas posteriores a after (inmediatamente si ya las hay).
+     */
+    public CompletableFuture<Void> awaitAfter(long after) {
+        CompletableFuture<Void> signal = nextAppend;
+        if (headSeq > after) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return signal;
+    }
+
+    @Scheduled(fixedDelayString = "${central.feed.compactionFixedDelayMs:60000}")
+    public void scheduledCompaction() {
+        compactOlderThan(Instant.now().minusMillis(retentionMs));
+    }
+
+    public synchronized int compactOlderThan(Instant cutoff) {
+        int removed = 0;
+        Iterator<Entry> it = entries.tailMap(compactedThroughSeq, false).values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (!e.recordedAt().isBefore(cutoff)) {
+                break;
+            }
+            if (!keepLatestPerSku) {
+                // antes de sacarla: un lector que ya no la ve tiene que ver truncated
+                droppedThroughSeq = e.seq();
+                it.remove();
+                removed++;
+            } else if (latestSeqBySku.get(e.productId()) != e.seq()) {
+                it.remove();
+                removed++;
+            }
+            compactedThroughSeq = e.seq();
+        }
+        if (removed > 0) {
+            compacted.increment(removed);
+            log.info("change feed compactado: removidas={} hastaSeq={}", removed, compactedThroughSeq);
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,35 @@
+package com.inventory.central.service;
+
+/**
+ * Helpers para GET condicional (ETag / If-None-Match).
+ */
+public final class ETags {
+    private ETags() {
+    }
+
+    public static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Evalúa un header If-None-Match contra el ETag vigente. Acepta listas, "*" y prefijo débil W/.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
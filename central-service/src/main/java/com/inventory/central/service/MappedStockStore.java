@@ -0,0 +1,596 @@
+package com.inventory.central.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Stock central fuera del heap: registros de ancho fijo en un archivo mapeado a memoria, donde el
+ * propio arreglo de slots es una tabla hash de direccionamiento abierto (sondeo lineal) por SKU.
+ * <p>
+ * Cada slot de 96 bytes guarda estado, hash y largo de la clave, quantity, updatedAt en nanos y
+ * el productId en UTF-8 (hasta 64 bytes). No hay un objeto por registro: aplicar LWW y leer un
+ * SKU son accesos al mapeo. Reiniciar es volver a mapear el archivo; sólo si el cierre anterior
+ * no fue limpio se recuentan los slots ocupados. Al pasar de 70% de ocupación se copia todo a un
+ * archivo con el doble de slots que reemplaza al actual. Los slots se mapean en tramos de a lo
+ * sumo 768 MiB (un MappedByteBuffer no pasa de 2 GiB).
+ * <p>
+ * El encabezado lleva además la cantidad total y los SKUs sin stock, actualizados en cada escritura,
+ * para que el resumen no necesite una copia del catálogo en el heap. Quien necesite seguir los
+ * cambios (el árbol Merkle) se registra con {@link #track}.
+ * <p>
+ * Las escrituras llegan al page cache en el acto y a disco con force(), al cerrar y cada
+ * forceIntervalMs (lo programa {@link StockStorage}): si se cae el proceso no se pierde nada, si se
+ * cae el host puede perderse lo último.
+ */
+public class MappedStockStore {
+    private static final Logger log = LoggerFactory.getLogger(MappedStockStore.class);
+
+    public static final int SKIPPED = 0;
+    public static final int UPDATED = 1;
+    public static final int CREATED = 2;
+
+    static final int MAX_KEY_BYTES = 64;
+
+    private static final long MAGIC = 0x494E5653544B3031L; // "INVSTK01"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4096;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 8;
+    private static final int H_SLOT_BYTES = 12;
+    private static final int H_CAPACITY = 16;
+    private static final int H_SIZE = 24;
+    private static final int H_CLEAN = 32;
+    // los archivos anteriores a los agregados tienen 0 acá y se recuentan al abrir
+    private static final int H_AGGREGATES = 40;
+    private static final int H_TOTAL_QUANTITY = 48;
+    private static final int H_OUT_OF_STOCK = 56;
+
+    private static final int SLOT_BYTES = 96;
+    private static final int S_STATE = 0;
+    private static final int S_KEY_LEN = 1;
+    private static final int S_HASH = 4;
+    private static final int S_QUANTITY = 8;
+    private static final int S_UPDATED = 16;
+    private static final int S_KEY = 24;
+    private static final byte USED = 1;
+
+    private static final int MAP_SHIFT = 23;
+    private static final long SLOTS_PER_MAP = 1L << MAP_SHIFT;
+    private static final int MIN_CAPACITY = 1024;
+    private static final long MAX_CAPACITY = 1L << 30;
+
+    private final Path file;
+    private final StampedLock lock = new StampedLock();
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] maps;
+    private long capacity;
+    private long size;
+    private long totalQuantity;
+    private long outOfStock;
+    private long modCount;
+    private boolean closed;
+    private ChangeListener listener;
+    private final Counter grows;
+
+    /**
+     * Registro crudo: la clave son los primeros keyLength bytes UTF-8 de key (el arreglo se reusa
+     * entre registros), sin crear un String por SKU.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(byte[] key, int keyLength, int quantity, long updatedAtNanos);
+    }
+
+    /**
+     * Aviso de un registro creado (created, sin valores previos) o pisado por LWW; key es el
+     * productId en UTF-8 y no se modifica. Corre dentro del lock de escritura: tiene que ser breve
+     * y no volver a llamar al store.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        void changed(byte[] key, boolean created, int oldQuantity, long oldUpdatedAtNanos,
+                     int quantity, long updatedAtNanos);
+    }
+
+    /**
+     * Abre (o crea) el archivo. Lo instancia {@link StockStorage} según central.storage.engine.
+     */
+    public MappedStockStore(Path file, long initialCapacity, MeterRegistry meterRegistry) {
+        this.file = file;
+        open(initialCapacity);
+        this.grows = Counter.builder("inventory_storage_mmap_grow_total").register(meterRegistry);
+        Gauge.builder("inventory_storage_mmap_records", this, MappedStockStore::size).register(meterRegistry);
+        Gauge.builder("inventory_storage_mmap_capacity_slots", this, MappedStockStore::capacity).register(meterRegistry);
+    }
+
+    MappedStockStore(Path file, long initialCapacity) {
+        this.file = file;
+        open(initialCapacity);
+        this.grows = null;
+    }
+
+    /**
+     * Aplica por LWW: crea el SKU si no existe y lo pisa sólo si updatedAt es posterior al guardado.
+     *
+     * @return {@link #CREATED}, {@link #UPDATED} o {@link #SKIPPED}
+     * @throws IllegalArgumentException si el productId no entra en un slot o updatedAt no entra en nanos
+     */
+    public int applyLww(String productId, int quantity, Instant updatedAt) {
+        byte[] key = encode(productId);
+        int hash = productId.hashCode();
+        long incoming = StockWatermarkIndex.nanosOf(updatedAt);
+        if (incoming == StockWatermarkIndex.UNKNOWN) {
+            throw new IllegalArgumentException("updatedAt fuera de rango: " + updatedAt);
+        }
+        long stamp = lock.writeLock();
+        try {
+            checkOpen();
+            long slot = probe(key, hash);
+            MappedByteBuffer m = mapOf(slot);
+            int off = offsetOf(slot);
+            if (m.get(off + S_STATE) == USED) {
+                long previous = m.getLong(off + S_UPDATED);
+                if (incoming <= previous) {
+                    return SKIPPED;
+                }
+                int oldQuantity = m.getInt(off + S_QUANTITY);
+                m.putInt(off + S_QUANTITY, quantity);
+                m.putLong(off + S_UPDATED, incoming);
+                adjustAggregates((long) quantity - oldQuantity, (quantity <= 0 ? 1 : 0) - (oldQuantity <= 0 ? 1 : 0));
+                if (listener != null) {
+                    listener.changed(key, false, oldQuantity, previous, quantity, incoming);
+                }
+                return UPDATED;
+            }
+            if ((size + 1) * 10 > capacity * 7) {
+                grow();
+                slot = probe(key, hash);
+                m = mapOf(slot);
+                off = offsetOf(slot);
+            }
+            m.put(off + S_KEY, key);
+            m.put(off + S_KEY_LEN, (byte) key.length);
+            m.putInt(off + S_HASH, hash);
+            m.putInt(off + S_QUANTITY, quantity);
+            m.putLong(off + S_UPDATED, incoming);
+            // el estado va último: un slot a medio escribir queda vacío
+            m.put(off + S_STATE, USED);
+            size++;
+            header.putLong(H_SIZE, size);
+            adjustAggregates(quantity, quantity <= 0 ? 1 : 0);
+            if (listener != null) {
+                listener.changed(key, true, 0, StockWatermarkIndex.UNKNOWN, quantity, incoming);
+            }
+            return CREATED;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Registro del SKU, o null si no existe.
+     */
+    public StockReadModel.StockView get(String productId) {
+        byte[] key = productId.getBytes(StandardCharsets.UTF_8);
+        if (key.length == 0 || key.length > MAX_KEY_BYTES) {
+            return null;
+        }
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            long slot = probe(key, productId.hashCode());
+            MappedByteBuffer m = mapOf(slot);
+            int off = offsetOf(slot);
+            if (m.get(off + S_STATE) != USED) {
+                return null;
+            }
+            return new StockReadModel.StockView(productId, m.getInt(off + S_QUANTITY), instantOf(m.getLong(off + S_UPDATED)));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Recorre todos los registros en orden de slot; bloquea escrituras mientras dura.
+     */
+    public void forEach(Consumer<StockReadModel.StockView> action) {
+        scan(0, Integer.MAX_VALUE, action);
+    }
+
+    /**
+     * Recorre a partir de fromSlot hasta entregar max registros, tomando el lock de lectura sólo
+     * durante ese tramo. Si entre dos tramos el archivo creció ({@link #capacity()} cambia) los
+     * registros se reubicaron y el recorrido ya no es válido.
+     *
+     * @return el slot desde el que sigue el próximo tramo, o -1 si se llegó al final
+     */
+    public long scan(long fromSlot, int max, Consumer<StockReadModel.StockView> action) {
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            byte[] key = new byte[MAX_KEY_BYTES];
+            int seen = 0;
+            for (long slot = fromSlot; slot < capacity; slot++) {
+                if (seen == max) {
+                    return slot;
+                }
+                MappedByteBuffer m = mapOf(slot);
+                int off = offsetOf(slot);
+                if (m.get(off + S_STATE) != USED) {
+                    continue;
+                }
+                int len = m.get(off + S_KEY_LEN);
+                m.get(off + S_KEY, key, 0, len);
+                action.accept(new StockReadModel.StockView(new String(key, 0, len, StandardCharsets.UTF_8),
+                        m.getInt(off + S_QUANTITY), instantOf(m.getLong(off + S_UPDATED))));
+                seen++;
+            }
+            return -1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Recorre todos los registros sin crear objetos por registro; bloquea escrituras mientras dura.
+     */
+    public void forEachRecord(RecordVisitor visitor) {
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            visitAll(visitor);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Entrega el estado actual a initial y desde ahí cada cambio a listener, sin hueco ni doble
+     * conteo entre ambos: el recorrido y el alta del listener pasan bajo el mismo lock de escritura.
+     * Hay un solo listener; registrar otro reemplaza al anterior.
+     */
+    public void track(RecordVisitor initial, ChangeListener listener) {
+        long stamp = lock.writeLock();
+        try {
+            checkOpen();
+            visitAll(initial);
+            this.listener = listener;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void visitAll(RecordVisitor visitor) {
+        byte[] key = new byte[MAX_KEY_BYTES];
+        for (long slot = 0; slot < capacity; slot++) {
+            MappedByteBuffer m = mapOf(slot);
+            int off = offsetOf(slot);
+            if (m.get(off + S_STATE) != USED) {
+                continue;
+            }
+            int len = m.get(off + S_KEY_LEN);
+            m.get(off + S_KEY, key, 0, len);
+            visitor.visit(key, len, m.getInt(off + S_QUANTITY), m.getLong(off + S_UPDATED));
+        }
+    }
+
+    /**
+     * Suma de quantity de todos los SKUs.
+     */
+    public long totalQuantity() {
+        long stamp = lock.readLock();
+        try {
+            return totalQuantity;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * SKUs con quantity &lt;= 0.
+     */
+    public long outOfStockCount() {
+        long stamp = lock.readLock();
+        try {
+            return outOfStock;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Escrituras aplicadas (creaciones y actualizaciones) desde que se abrió el archivo; hace de
+     * versión del resumen cuando no hay modelo de lectura.
+     */
+    public long modCount() {
+        long stamp = lock.readLock();
+        try {
+            return modCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long capacity() {
+        long stamp = lock.readLock();
+        try {
+            return capacity;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void force() {
+        long stamp = lock.readLock();
+        try {
+            if (closed) {
+                return;
+            }
+            for (MappedByteBuffer m : maps) {
+                m.force();
+            }
+            header.force();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Vuelca a disco y marca el cierre como limpio: el próximo arranque no recuenta.
+     */
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return;
+            }
+            for (MappedByteBuffer m : maps) {
+                m.force();
+            }
+            header.put(H_CLEAN, (byte) 1);
+            header.force();
+            closed = true;
+            log.info("stock mapeado cerrado: file={} records={} capacity={}", file, size, capacity);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void open(long initialCapacity) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            // resto de un crecimiento interrumpido: el archivo original sigue intacto
+            Files.deleteIfExists(growFile());
+            boolean exists = Files.exists(file) && Files.size(file) >= HEADER_BYTES;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                if (!exists) {
+                    capacity = capacityFor(initialCapacity);
+                    writeHeader(header, capacity, 0, 0, 0);
+                    maps = mapSlots(ch, capacity);
+                    log.info("stock mapeado creado: file={} capacity={}", file, capacity);
+                    return;
+                }
+                if (header.getLong(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION || header.getInt(H_SLOT_BYTES) != SLOT_BYTES) {
+                    throw new IllegalStateException("archivo de stock con formato desconocido: " + file);
+                }
+                capacity = header.getLong(H_CAPACITY);
+                if (Long.bitCount(capacity) != 1 || ch.size() < HEADER_BYTES + capacity * SLOT_BYTES) {
+                    throw new IllegalStateException("archivo de stock truncado: " + file + " capacity=" + capacity);
+                }
+                maps = mapSlots(ch, capacity);
+            }
+            boolean clean = header.get(H_CLEAN) == 1 && header.get(H_AGGREGATES) == 1;
+            if (clean) {
+                size = header.getLong(H_SIZE);
+                totalQuantity = header.getLong(H_TOTAL_QUANTITY);
+                outOfStock = header.getLong(H_OUT_OF_STOCK);
+            } else {
+                recount();
+            }
+            writeHeader(header, capacity, size, totalQuantity, outOfStock);
+            if (clean) {
+                log.info("stock mapeado reabierto: file={} records={} capacity={}", file, size, capacity);
+            } else {
+                log.warn("stock mapeado sin cierre limpio, registros recontados: file={} records={}", file, size);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("no se pudo mapear " + file, ex);
+        }
+    }
+
+    /**
+     * Copia los registros a un archivo con el doble de slots y lo pone en lugar del actual.
+     * Los mapeos viejos se liberan cuando los junta el GC.
+     */
+    private void grow() {
+        long newCapacity = capacity << 1;
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("stock mapeado lleno: capacity=" + capacity);
+        }
+        long start = System.nanoTime();
+        Path tmp = growFile();
+        try {
+            MappedByteBuffer newHeader;
+            MappedByteBuffer[] newMaps;
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                newHeader = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                newMaps = mapSlots(ch, newCapacity);
+            }
+            byte[] record = new byte[SLOT_BYTES];
+            long mask = newCapacity - 1;
+            for (long slot = 0; slot < capacity; slot++) {
+                MappedByteBuffer m = mapOf(slot);
+                int off = offsetOf(slot);
+                if (m.get(off + S_STATE) != USED) {
+                    continue;
+                }
+                m.get(off, record);
+                long target = spread(m.getInt(off + S_HASH)) & mask;
+                while (newMaps[(int) (target >>> MAP_SHIFT)].get(offsetOf(target) + S_STATE) == USED) {
+                    target = (target + 1) & mask;
+                }
+                newMaps[(int) (target >>> MAP_SHIFT)].put(offsetOf(target), record);
+            }
+            writeHeader(newHeader, newCapacity, size, totalQuantity, outOfStock);
+            for (MappedByteBuffer m : newMaps) {
+                m.force();
+            }
+            newHeader.force();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            header = newHeader;
+            maps = newMaps;
+            long previous = capacity;
+            capacity = newCapacity;
+            if (grows != null) {
+                grows.increment();
+            }
+            log.info("stock mapeado ampliado: capacity {} -> {} records={} durationMs={}",
+                    previous, newCapacity, size, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("no se pudo ampliar " + file, ex);
+        }
+    }
+
+    private void recount() {
+        size = 0;
+        totalQuantity = 0;
+        outOfStock = 0;
+        for (long slot = 0; slot < capacity; slot++) {
+            MappedByteBuffer m = mapOf(slot);
+            int off = offsetOf(slot);
+            if (m.get(off + S_STATE) == USED) {
+                int quantity = m.getInt(off + S_QUANTITY);
+                size++;
+                totalQuantity += quantity;
+                outOfStock += quantity <= 0 ? 1 : 0;
+            }
+        }
+    }
+
+    private void adjustAggregates(long quantityDelta, int outOfStockDelta) {
+        modCount++;
+        totalQuantity += quantityDelta;
+        outOfStock += outOfStockDelta;
+        header.putLong(H_TOTAL_QUANTITY, totalQuantity);
+        header.putLong(H_OUT_OF_STOCK, outOfStock);
+    }
+
+    private long probe(byte[] key, int hash) {
+        long mask = capacity - 1;
+        long slot = spread(hash) & mask;
+        while (true) {
+            MappedByteBuffer m = mapOf(slot);
+            int off = offsetOf(slot);
+            if (m.get(off + S_STATE) != USED || (m.getInt(off + S_HASH) == hash && keyEquals(m, off, key))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean keyEquals(MappedByteBuffer m, int off, byte[] key) {
+        if (m.get(off + S_KEY_LEN) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (m.get(off + S_KEY + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MappedByteBuffer mapOf(long slot) {
+        return maps[(int) (slot >>> MAP_SHIFT)];
+    }
+
+    private static int offsetOf(long slot) {
+        return (int) (slot & (SLOTS_PER_MAP - 1)) * SLOT_BYTES;
+    }
+
+    private static MappedByteBuffer[] mapSlots(FileChannel ch, long capacity) throws IOException {
+        int count = (int) ((capacity + SLOTS_PER_MAP - 1) >>> MAP_SHIFT);
+        MappedByteBuffer[] result = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long slots = Math.min(SLOTS_PER_MAP, capacity - ((long) i << MAP_SHIFT));
+            // mapear más allá del final agranda el archivo con ceros (slots vacíos)
+            result[i] = ch.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + ((long) i << MAP_SHIFT) * SLOT_BYTES, slots * SLOT_BYTES);
+        }
+        return result;
+    }
+
+    private static void writeHeader(MappedByteBuffer h, long capacity, long size, long totalQuantity, long outOfStock) {
+        h.putLong(H_MAGIC, MAGIC);
+        h.putInt(H_VERSION, VERSION);
+        h.putInt(H_SLOT_BYTES, SLOT_BYTES);
+        h.putLong(H_CAPACITY, capacity);
+        h.putLong(H_SIZE, size);
+        h.put(H_CLEAN, (byte) 0);
+        h.putLong(H_TOTAL_QUANTITY, totalQuantity);
+        h.putLong(H_OUT_OF_STOCK, outOfStock);
+        h.put(H_AGGREGATES, (byte) 1);
+    }
+
+    private static long capacityFor(long requested) {
+        long wanted = Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, requested));
+        return Long.highestOneBit(wanted - 1) << 1;
+    }
+
+    private static byte[] encode(String productId) {
+        if (productId == null || productId.isEmpty()) {
+            throw new IllegalArgumentException("productId requerido");
+        }
+        byte[] key = productId.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("productId excede " + MAX_KEY_BYTES + " bytes en UTF-8");
+        }
+        return key;
+    }
+
+    private static long spread(int hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static Instant instantOf(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+    }
+
+    private Path growFile() {
+        return file.resolveSibling(file.getFileName() + ".grow");
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("stock mapeado cerrado");
+        }
+    }
+}
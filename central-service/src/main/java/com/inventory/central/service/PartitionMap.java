@@ -0,0 +1,64 @@
+package com.inventory.central.service;
+
+import com.inventory.central.dto.PartitionMapDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reparto de productIds entre las instancias de central (central.partition.*).
+ * <p>
+ * Sin nodos configurados hay una sola partición y este nodo es dueño de todo. Con N nodos cada
+ * instancia acepta en /sync/pull sólo los SKUs de su rango; la tienda obtiene este mapa desde
+ * cualquier nodo y reparte los lotes. epoch identifica la topología vigente.
+ */
+@Component
+public class PartitionMap {
+    private static final Logger log = LoggerFactory.getLogger(PartitionMap.class);
+
+    private final List<String> nodes;
+    private final int self;
+    private final int vnodes;
+    private final ConsistentHashRing ring;
+    private final long epoch;
+
+    public PartitionMap(@Value("${central.partition.nodes:}") String nodes,
+                        @Value("${central.partition.self:0}") int self,
+                        @Value("${central.partition.vnodes:128}") int vnodes) {
+        this.nodes = Arrays.stream(nodes.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        if (!this.nodes.isEmpty() && (self < 0 || self >= this.nodes.size())) {
+            throw new IllegalArgumentException("central.partition.self fuera de rango: " + self);
+        }
+        this.self = this.nodes.isEmpty() ? 0 : self;
+        this.vnodes = vnodes;
+        this.ring = new ConsistentHashRing(Math.max(1, this.nodes.size()), vnodes);
+        this.epoch = ConsistentHashRing.hash(this.nodes.size() + ":" + vnodes + ":" + String.join(",", this.nodes));
+        if (enabled()) {
+            log.info("central particionado: nodo {}/{} epoch={} nodes={}", this.self, this.nodes.size(), epoch, this.nodes);
+        }
+    }
+
+    public boolean enabled() {
+        return nodes.size() > 1;
+    }
+
+    public boolean owns(String productId) {
+        return !enabled() || ring.owner(productId) == self;
+    }
+
+    public int owner(String productId) {
+        return ring.owner(productId);
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public PartitionMapDTO toDTO() {
+        return PartitionMapDTO.builder().epoch(epoch).vnodes(vnodes).self(self).nodes(nodes).build();
+    }
+}
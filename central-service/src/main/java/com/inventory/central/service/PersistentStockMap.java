@@ -0,0 +1,218 @@
+package com.inventory.central.service;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Mapa inmutable productId → {@link StockReadModel.StockView} con estructura compartida (HAMT de
+ * 32 vías sobre String.hashCode).
+ * <p>
+ * Cada versión comparte con la anterior todo lo que no cambió: aplicar k cambios copia O(k·log32 n)
+ * nodos en lugar del catálogo entero, así que publicar un chunk no depende del tamaño del stock.
+ * Los nodos creados por un mismo {@link Builder} se modifican en el lugar; los que ya pertenecían
+ * a una versión publicada nunca se tocan.
+ * No hay borrado: el stock central no elimina SKUs.
+ */
+public final class PersistentStockMap {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentStockMap EMPTY = new PersistentStockMap(new Node(null, 0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentStockMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static PersistentStockMap empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public StockReadModel.StockView get(String productId) {
+        return find(root, productId);
+    }
+
+    private static StockReadModel.StockView find(Node node, String productId) {
+        int hash = productId.hashCode();
+        for (int shift = 0; ; shift += BITS) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Node child) {
+                node = child;
+            } else if (slot instanceof StockReadModel.StockView view) {
+                return view.productId().equals(productId) ? view : null;
+            } else {
+                return ((Collision) slot).find(productId);
+            }
+        }
+    }
+
+    public void forEach(Consumer<StockReadModel.StockView> action) {
+        forEach(root, action);
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Versión nueva a partir de una existente; no es thread-safe y no se usa después de build().
+     */
+    public static final class Builder {
+        private final Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Builder(PersistentStockMap from) {
+            this.root = from.root;
+            this.size = from.size;
+        }
+
+        public StockReadModel.StockView get(String productId) {
+            return find(root, productId);
+        }
+
+        /**
+         * Agrega o reemplaza la entrada del productId de view.
+         */
+        public Builder put(StockReadModel.StockView view) {
+            boolean[] added = new boolean[1];
+            root = PersistentStockMap.put(root, edit, view, view.productId().hashCode(), 0, added);
+            if (added[0]) {
+                size++;
+            }
+            return this;
+        }
+
+        public PersistentStockMap build() {
+            // otro builder tiene otro edit, así que copia estos nodos en vez de modificarlos
+            return new PersistentStockMap(root, size);
+        }
+    }
+
+    private static final class Node {
+        final Object edit;
+        int bitmap;
+        Object[] slots;
+
+        Node(Object edit, int bitmap, Object[] slots) {
+            this.edit = edit;
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        Node editable(Object edit) {
+            return this.edit == edit ? this : new Node(edit, bitmap, slots.clone());
+        }
+    }
+
+    /** SKUs distintos con el mismo hashCode. */
+    private record Collision(int hash, StockReadModel.StockView[] views) {
+        StockReadModel.StockView find(String productId) {
+            for (StockReadModel.StockView v : views) {
+                if (v.productId().equals(productId)) {
+                    return v;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static Node put(Node node, Object edit, StockReadModel.StockView view, int hash, int shift, boolean[] added) {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            Node target = node.editable(edit);
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = view;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            target.slots = slots;
+            target.bitmap = node.bitmap | bit;
+            added[0] = true;
+            return target;
+        }
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Node child) {
+            replacement = put(child, edit, view, hash, shift + BITS, added);
+        } else if (slot instanceof StockReadModel.StockView existing) {
+            if (existing.productId().equals(view.productId())) {
+                replacement = view;
+            } else {
+                replacement = split(edit, existing, existing.productId().hashCode(), view, hash, shift + BITS);
+                added[0] = true;
+            }
+        } else {
+            Collision collision = (Collision) slot;
+            if (collision.hash() == hash) {
+                replacement = withView(collision, view, added);
+            } else {
+                replacement = split(edit, collision, collision.hash(), view, hash, shift + BITS);
+                added[0] = true;
+            }
+        }
+        if (replacement == slot) {
+            return node;
+        }
+        Node target = node.editable(edit);
+        target.slots[index] = replacement;
+        return target;
+    }
+
+    /**
+     * Nodo con la entrada existente y la nueva, bajando niveles mientras compartan índice.
+     */
+    private static Object split(Object edit, Object existing, int existingHash, StockReadModel.StockView view, int hash, int shift) {
+        if (existingHash == hash) {
+            // sólo si existing es una vista: una colisión con el mismo hash ya se resolvió antes
+            return new Collision(hash, new StockReadModel.StockView[]{(StockReadModel.StockView) existing, view});
+        }
+        int a = (existingHash >>> shift) & MASK;
+        int b = (hash >>> shift) & MASK;
+        if (a == b) {
+            return new Node(edit, 1 << a, new Object[]{split(edit, existing, existingHash, view, hash, shift + BITS)});
+        }
+        Object[] slots = a < b ? new Object[]{existing, view} : new Object[]{view, existing};
+        return new Node(edit, (1 << a) | (1 << b), slots);
+    }
+
+    private static Collision withView(Collision collision, StockReadModel.StockView view, boolean[] added) {
+        StockReadModel.StockView[] views = collision.views();
+        for (int i = 0; i < views.length; i++) {
+            if (views[i].productId().equals(view.productId())) {
+                StockReadModel.StockView[] copy = views.clone();
+                copy[i] = view;
+                return new Collision(collision.hash(), copy);
+            }
+        }
+        StockReadModel.StockView[] copy = Arrays.copyOf(views, views.length + 1);
+        copy[views.length] = view;
+        added[0] = true;
+        return new Collision(collision.hash(), copy);
+    }
+
+    private static void forEach(Node node, Consumer<StockReadModel.StockView> action) {
+        for (Object slot : node.slots) {
+            if (slot instanceof Node child) {
+                forEach(child, action);
+            } else if (slot instanceof StockReadModel.StockView view) {
+                action.accept(view);
+            } else {
+                for (StockReadModel.StockView view : ((Collision) slot).views()) {
+                    action.accept(view);
+                }
+            }
+        }
+    }
+}
@@ -1,22 +1,111 @@
 package com.inventory.central.service;
 
+import com.inventory.central.dto.CatalogDeltaDTO;
+import com.inventory.central.dto.ProductUpsertRequestDTO;
 import com.inventory.central.entity.ProductEntity;
 import com.inventory.central.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class ProductService {
     private final ProductRepository productRepository;
+    private final Counter notModified;
+    private final Counter full;
+    private final DistributionSummary deltaItems;
 
-    public ProductService(ProductRepository productRepository) {
+    /**
+     * ETag del último catálogo servido y la generación del catálogo con la que se calculó.
+     * Cada cambio sube la generación; un findAll que leyó antes del cambio ya no puede publicar.
+     */
+    private record CatalogETag(long generation, String etag) {
+    }
+
+    // permite contestar 304 sin volver a leer la tabla
+    private final AtomicReference<CatalogETag> catalogETag = new AtomicReference<>(new CatalogETag(0, null));
+
+    public ProductService(ProductRepository productRepository, MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
+        this.notModified = Counter.builder("inventory_conditional_get_total")
+                .tag("resource", "products").tag("result", "not_modified").register(meterRegistry);
+        this.full = Counter.builder("inventory_conditional_get_total")
+                .tag("resource", "products").tag("result", "full").register(meterRegistry);
+        this.deltaItems = DistributionSummary.builder("inventory_catalog_delta_served_items").register(meterRegistry);
     }
 
     public List<ProductEntity> findAll() {
-        return productRepository.findAll();
+        long generation = catalogETag.get().generation();
+        List<ProductEntity> products = productRepository.findAll();
+        String etag = eTagOf(products);
+        // si un cambio confirmó mientras se leía, su invalidación gana: el ETag calculado puede ser viejo
+        catalogETag.updateAndGet(c -> c.generation() == generation ? new CatalogETag(generation, etag) : c);
+        return products;
     }
-}
 
+    /**
+     * Crea o actualiza un producto asignándole la siguiente versión de catálogo. El commit
+     * (saveAndFlush) ocurre dentro del lock: las versiones se hacen visibles en orden y ninguna
+     * tienda puede saltearse un cambio al pedir after=N.
+     */
+    public synchronized ProductEntity upsert(String id, ProductUpsertRequestDTO request) {
+        ProductEntity product = productRepository.findById(id)
+                .orElseGet(() -> ProductEntity.builder().id(id).build());
+        product.setName(request.getName());
+        product.setPrice(request.getPrice());
+        product.setUpdatedAt(Instant.now());
+        product.setCatalogVersion(productRepository.findMaxCatalogVersion() + 1);
+        ProductEntity saved = productRepository.saveAndFlush(product);
+        invalidateCatalogETag();
+        return saved;
+    }
+
+    /**
+     * Descarta el ETag cacheado; llamar después de confirmar el cambio, no antes.
+     */
+    public void invalidateCatalogETag() {
+        catalogETag.updateAndGet(c -> new CatalogETag(c.generation() + 1, null));
+    }
 
+    public CatalogDeltaDTO changesSince(long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 1000));
+        List<ProductEntity> page = productRepository.findByCatalogVersionGreaterThanOrderByCatalogVersionAsc(
+                after, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = page.size() > pageSize;
+        List<ProductEntity> items = hasMore ? page.subList(0, pageSize) : page;
+        deltaItems.record(items.size());
+        return CatalogDeltaDTO.builder()
+                .lastVersion(items.isEmpty() ? after : items.get(items.size() - 1).getCatalogVersion())
+                .hasMore(hasMore)
+                .items(items)
+                .build();
+    }
+
+    /**
+     * Devuelve el ETag del catálogo si el cliente ya lo tiene (→ 304), o null si hay que servir la lista.
+     */
+    public String matchNotModified(String ifNoneMatch) {
+        String etag = catalogETag.get().etag();
+        if (ETags.matches(ifNoneMatch, etag)) {
+            notModified.increment();
+            return etag;
+        }
+        full.increment();
+        return null;
+    }
+
+    public static String eTagOf(List<ProductEntity> products) {
+        long hash = 1;
+        for (ProductEntity p : products) {
+            hash = 31 * hash + Objects.hash(p.getId(), p.getUpdatedAt());
+        }
+        return ETags.quote(products.size() + "-" + Long.toHexString(hash));
+    }
+}
@@ -0,0 +1,61 @@
+package com.inventory.central.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché productId → updatedAt vigente para responder 304 sin leer la base ni armar el DTO.
+ * LWW garantiza que updatedAt sólo avanza, así que se conserva siempre el mayor.
+ */
+@Component
+public class StockETagCache {
+    private final Map<String, Instant> versions = new ConcurrentHashMap<>();
+    private final Counter notModified;
+    private final Counter full;
+
+    public StockETagCache(MeterRegistry meterRegistry) {
+        this.notModified = Counter.builder("inventory_conditional_get_total")
+                .tag("resource", "stock").tag("result", "not_modified").register(meterRegistry);
+        this.full = Counter.builder("inventory_conditional_get_total")
+                .tag("resource", "stock").tag("result", "full").register(meterRegistry);
+    }
+
+    public static String eTagOf(Instant updatedAt) {
+        return updatedAt == null ? null : ETags.quote(updatedAt.getEpochSecond() + "." + updatedAt.getNano());
+    }
+
+    public void update(String productId, Instant updatedAt) {
+        if (updatedAt != null) {
+            versions.merge(productId, updatedAt, (a, b) -> a.isAfter(b) ? a : b);
+        }
+    }
+
+    public String current(String productId) {
+        return eTagOf(versions.get(productId));
+    }
+
+    /**
+     * Devuelve el ETag vigente si el cliente ya lo tiene (→ 304), o null si hay que servir el cuerpo.
+     */
+    public String matchNotModified(String productId, String ifNoneMatch) {
+        return matchNotModified(ifNoneMatch, versions.get(productId));
+    }
+
+    /**
+     * Igual, pero con el updatedAt vigente ya leído por quien llama (null si el SKU no existe).
+     */
+    public String matchNotModified(String ifNoneMatch, Instant updatedAt) {
+        String etag = eTagOf(updatedAt);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            notModified.increment();
+            return etag;
+        }
+        full.increment();
+        return null;
+    }
+}
@@ -0,0 +1,431 @@
+package com.inventory.central.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.central.dto.ExportManifestDTO;
+import com.inventory.central.exception.BadRequestException;
+import com.inventory.central.exception.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación completa del stock central a un snapshot binario columnar en disco local.
+ * <p>
+ * Formato (todo dentro de un único stream GZIP): magic {@code INVSNAP1}, luego grupos de filas
+ * {@code int n; n × productId (UTF); n × quantity (int32); n × updatedAt (int64, epoch micros)}
+ * y un {@code int 0} final. Las filas se leen con un cursor JDBC forward-only y se escriben grupo a
+ * grupo, así que la memoria es O(rowGroupSize) sin importar el tamaño de la tabla.
+ * Con central.storage.engine=mmap la tabla no es la fuente: se recorre {@link MappedStockStore} de
+ * a un grupo por vez, soltando el lock entre grupos para no frenar la ingesta. Si el archivo crece
+ * en el medio la exportación falla y hay que relanzarla.
+ * <p>
+ * El archivo se escribe como .part y se renombra al terminar; el manifiesto (filas, bytes, SHA-256
+ * del archivo comprimido) se publica después, por lo que latest.json siempre apunta a un archivo
+ * completo. Corre en un hilo propio de baja prioridad, con una sola conexión del pool y un tope
+ * opcional de filas/segundo para no competir con la ingesta de /sync/pull.
+ */
+@Service
+public class StockExportService {
+    private static final Logger log = LoggerFactory.getLogger(StockExportService.class);
+
+    public static final String MAGIC = "INVSNAP1";
+    public static final String FORMAT = "invsnap1+gzip";
+    public static final List<String> COLUMNS = List.of("productId:utf8", "quantity:int32", "updatedAt:int64-epoch-micros");
+
+    private static final String SELECT_SQL = "SELECT product_id, quantity, updated_at FROM stock";
+    private static final String LATEST = "latest.json";
+    private static final DateTimeFormatter ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+
+    /** Consumidor de filas para {@link #read(InputStream, RowVisitor)}. */
+    public interface RowVisitor {
+        void row(String productId, int quantity, Instant updatedAt);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockStorage stockStorage;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+    private final int fetchSize;
+    private final int rowGroupSize;
+    private final int retain;
+    private final long maxRowsPerSecond;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ExportManifestDTO latest;
+
+    private final Counter rowsCounter;
+    private final Timer exportTimer;
+
+    public StockExportService(JdbcTemplate jdbcTemplate,
+                              StockStorage stockStorage,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${central.export.dir:${java.io.tmpdir}/central-export}") String dir,
+                              @Value("${central.export.fetchSize:1000}") int fetchSize,
+                              @Value("${central.export.rowGroupSize:65536}") int rowGroupSize,
+                              @Value("${central.export.retain:3}") int retain,
+                              @Value("${central.export.maxRowsPerSecond:0}") long maxRowsPerSecond,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockStorage = stockStorage;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.dir = Paths.get(dir);
+        this.fetchSize = fetchSize;
+        this.rowGroupSize = Math.max(1, rowGroupSize);
+        this.retain = Math.max(1, retain);
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "stock-export");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        this.rowsCounter = Counter.builder("inventory_export_rows_total").register(meterRegistry);
+        this.exportTimer = Timer.builder("inventory_export_duration_seconds").register(meterRegistry);
+        Gauge.builder("inventory_export_running", running, r -> r.get() ? 1 : 0).register(meterRegistry);
+    }
+
+    /**
+     * Recupera el último manifiesto publicado (sobrevive reinicios porque vive en disco).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLatest() {
+        Path manifest = dir.resolve(LATEST);
+        if (!Files.exists(manifest)) {
+            return;
+        }
+        try {
+            ExportManifestDTO loaded = objectMapper.readValue(manifest.toFile(), ExportManifestDTO.class);
+            if (Files.exists(dir.resolve(loaded.getFile()))) {
+                latest = loaded;
+            }
+        } catch (IOException ex) {
+            log.warn("manifiesto de exportación ilegible: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ExportManifestDTO latest() {
+        return latest;
+    }
+
+    /**
+     * Archivo de un snapshot publicado. Recibe el manifiesto ya leído para que ETag, nombre y bytes
+     * salgan del mismo snapshot aunque otra exportación termine en el medio.
+     */
+    public Path fileOf(ExportManifestDTO manifest) {
+        Path file = dir.resolve(manifest.getFile());
+        if (!Files.exists(file)) {
+            throw new NotFoundException("Snapshot de exportación ya no disponible: " + manifest.getSnapshotId());
+        }
+        return file;
+    }
+
+    /**
+     * Lanza la exportación en el hilo de fondo. Devuelve false si ya hay una en curso.
+     */
+    public boolean startAsync() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.submit(() -> {
+            try {
+                runExport();
+            } catch (Exception ex) {
+                log.warn("exportación de stock fallida: {}", ex.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Exportación sincrónica en el hilo llamador.
+     */
+    public ExportManifestDTO exportNow() throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Ya hay una exportación en curso");
+        }
+        try {
+            return runExport();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ExportManifestDTO runExport() throws IOException {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        Files.createDirectories(dir);
+        String snapshotId = "stock-" + ID_FORMAT.format(startedAt);
+        String fileName = snapshotId + ".bin.gz";
+        Path part = dir.resolve(fileName + ".part");
+        MessageDigest sha256 = sha256();
+        RowGroup group = new RowGroup(rowGroupSize);
+        long[] rows = {0};
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(part)), sha256), 1 << 16),
+                1 << 16))) {
+            out.write(MAGIC.getBytes(StandardCharsets.US_ASCII));
+            MappedStockStore mapped = stockStorage.mapped();
+            if (mapped != null) {
+                rows[0] = exportMapped(mapped, group, out, start);
+            } else {
+                readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    return ps;
+                }, rs -> {
+                    Timestamp ts = rs.getTimestamp(3);
+                    group.add(rs.getString(1), rs.getInt(2), ts == null ? 0 : toMicros(ts.toInstant()));
+                    if (group.size == rowGroupSize) {
+                        rows[0] += flush(group, out);
+                        throttle(rows[0], start);
+                    }
+                }));
+            }
+            rows[0] += flush(group, out);
+            out.writeInt(0);
+        } catch (RuntimeException | IOException ex) {
+            Files.deleteIfExists(part);
+            throw ex;
+        }
+
+        Path file = dir.resolve(fileName);
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long durationNanos = System.nanoTime() - start;
+        ExportManifestDTO manifest = ExportManifestDTO.builder()
+                .snapshotId(snapshotId)
+                .file(fileName)
+                .format(FORMAT)
+                .columns(COLUMNS)
+                .rowGroupSize(rowGroupSize)
+                .rows(rows[0])
+                .bytes(Files.size(file))
+                .sha256(HexFormat.of().formatHex(sha256.digest()))
+                .startedAt(startedAt)
+                .completedAt(Instant.now())
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+                .build();
+        writeJsonAtomically(dir.resolve(snapshotId + ".manifest.json"), manifest);
+        writeJsonAtomically(dir.resolve(LATEST), manifest);
+        ExportManifestDTO previous = latest;
+        latest = manifest;
+        exportTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        prune(previous == null ? null : previous.getFile());
+        log.info("exportación de stock: snapshot={} rows={} bytes={} durationMs={}",
+                snapshotId, manifest.getRows(), manifest.getBytes(), manifest.getDurationMs());
+        return manifest;
+    }
+
+    /**
+     * Un grupo por tramo de {@link MappedStockStore#scan}: el lock de lectura se suelta antes de
+     * comprimir y de esperar el throttle.
+     */
+    private long exportMapped(MappedStockStore mapped, RowGroup group, DataOutputStream out, long start) {
+        long capacity = mapped.capacity();
+        long rows = 0;
+        long next = 0;
+        while (next >= 0) {
+            next = mapped.scan(next, rowGroupSize, v -> group.add(v.productId(), v.quantity(), toMicros(v.updatedAt())));
+            if (mapped.capacity() != capacity) {
+                throw new IllegalStateException("el stock mapeado creció durante la exportación; relanzarla");
+            }
+            if (group.size == rowGroupSize) {
+                rows += flush(group, out);
+                throttle(rows, start);
+            }
+        }
+        return rows;
+    }
+
+    private long flush(RowGroup group, DataOutputStream out) {
+        int n = group.size;
+        if (n == 0) {
+            return 0;
+        }
+        try {
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                out.writeUTF(group.productIds[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeInt(group.quantities[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeLong(group.updatedAtMicros[i]);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        group.clear();
+        rowsCounter.increment(n);
+        return n;
+    }
+
+    private void throttle(long rowsSoFar, long startNanos) {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long expectedNanos = rowsSoFar * 1_000_000_000L / maxRowsPerSecond;
+        long aheadNanos = expectedNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(aheadNanos);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Exportación interrumpida", ie);
+            }
+        }
+    }
+
+    private void writeJsonAtomically(Path target, ExportManifestDTO manifest) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), manifest);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deja los últimos retain snapshots y, además, el que era latest hasta recién: una descarga que
+     * arrancó antes de publicar el nuevo puede seguir leyéndolo hasta la próxima exportación.
+     */
+    private void prune(String previousLatest) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "stock-*.bin.gz")) {
+            stream.forEach(snapshots::add);
+        }
+        snapshots.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+        for (Path old : snapshots.subList(Math.min(retain, snapshots.size()), snapshots.size())) {
+            String name = old.getFileName().toString();
+            if (name.equals(previousLatest)) {
+                continue;
+            }
+            Files.deleteIfExists(old);
+            Files.deleteIfExists(dir.resolve(name.substring(0, name.length() - ".bin.gz".length()) + ".manifest.json"));
+        }
+    }
+
+    /**
+     * Lee un snapshot completo (útil para consumidores Java y tests).
+     */
+    public static long read(InputStream in, RowVisitor visitor) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16));
+        byte[] magic = new byte[MAGIC.length()];
+        data.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC.getBytes(StandardCharsets.US_ASCII))) {
+            throw new IOException("No es un snapshot " + MAGIC);
+        }
+        long total = 0;
+        int n;
+        while ((n = data.readInt()) > 0) {
+            String[] ids = new String[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = data.readUTF();
+            }
+            int[] quantities = new int[n];
+            for (int i = 0; i < n; i++) {
+                quantities[i] = data.readInt();
+            }
+            for (int i = 0; i < n; i++) {
+                long micros = data.readLong();
+                visitor.row(ids[i], quantities[i], Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L));
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000L;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class RowGroup {
+        final String[] productIds;
+        final int[] quantities;
+        final long[] updatedAtMicros;
+        int size;
+
+        RowGroup(int capacity) {
+            this.productIds = new String[capacity];
+            this.quantities = new int[capacity];
+            this.updatedAtMicros = new long[capacity];
+        }
+
+        void add(String productId, int quantity, long updatedAtMicros) {
+            productIds[size] = productId;
+            quantities[size] = quantity;
+            this.updatedAtMicros[size] = updatedAtMicros;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(productIds, 0, size, null);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.inventory.central.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Árbol de hashes sobre (productId, quantity, updatedAt) para reconciliación anti-entropía.
+ * <p>
+ * Las hojas son buckets por hash de SKU; cada nodo guarda la suma (mod 2^64) de los hashes de
+ * los ítems de su rango, así que un cambio se aplica en O(DEPTH) sin recalcular el árbol.
+ * Tienda y central usan exactamente la misma función de hash y el mismo bucketing.
+ * <p>
+ * Con el stock en {@link MappedStockStore} sólo se guardan los niveles (unos 4 mil longs): el
+ * estado inicial y cada cambio llegan por {@link MappedStockStore#track} y los ítems de un bucket
+ * se calculan recorriendo el archivo, sin un mapa por SKU en el heap.
+ */
+@Component
+public class StockMerkleTree {
+    private static final Logger log = LoggerFactory.getLogger(StockMerkleTree.class);
+
+    public static final int FANOUT = 16;
+    public static final int DEPTH = 3;
+    public static final int LEAVES = (int) Math.pow(FANOUT, DEPTH);
+
+    private final StockStorage stockStorage;
+    private final MappedStockStore mapped;
+    private final long[][] levels = new long[DEPTH + 1][];
+    // sólo con JPA; con el stock mapeado quedan en null
+    private final Map<String, Long> itemHashes;
+    private final List<Set<String>> leafMembers;
+
+    public StockMerkleTree(StockStorage stockStorage) {
+        this.stockStorage = stockStorage;
+        this.mapped = stockStorage.mapped();
+        for (int d = 0; d <= DEPTH; d++) {
+            levels[d] = new long[(int) Math.pow(FANOUT, d)];
+        }
+        if (mapped != null) {
+            this.itemHashes = null;
+            this.leafMembers = null;
+            return;
+        }
+        this.itemHashes = new HashMap<>();
+        this.leafMembers = new ArrayList<>(LEAVES);
+        for (int i = 0; i < LEAVES; i++) {
+            leafMembers.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Carga el árbol desde la base. No pisa ítems que ya llegaron por escrituras concurrentes.
+     * Con el stock mapeado recorre el archivo y queda suscripto a sus cambios.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        if (mapped != null) {
+            long[] loaded = {0};
+            mapped.track((key, len, quantity, nanos) -> {
+                addToLeaf(bucketOf(key, len), itemHash(key, len, quantity, millisOf(nanos)));
+                loaded[0]++;
+            }, this::onMappedChange);
+            log.info("merkle reconstruido desde el archivo: items={} durationMs={}", loaded[0], System.currentTimeMillis() - start);
+            return;
+        }
+        int loaded = 0;
+        for (StockReadModel.StockView stock : stockStorage.loadAll()) {
+            if (putIfAbsent(stock.productId(), itemHash(stock.productId(), stock.quantity(), stock.updatedAt()))) {
+                loaded++;
+            }
+        }
+        log.info("merkle reconstruido: items={} durationMs={}", loaded, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Con el stock mapeado no hace nada: el archivo ya avisó el cambio al aplicarlo.
+     */
+    public void update(String productId, int quantity, Instant updatedAt) {
+        if (mapped != null) {
+            return;
+        }
+        put(productId, itemHash(productId, quantity, updatedAt));
+    }
+
+    private void onMappedChange(byte[] key, boolean created, int oldQuantity, long oldNanos, int quantity, long nanos) {
+        long delta = itemHash(key, key.length, quantity, millisOf(nanos));
+        if (!created) {
+            delta -= itemHash(key, key.length, oldQuantity, millisOf(oldNanos));
+        }
+        addToLeaf(bucketOf(key, key.length), delta);
+    }
+
+    public synchronized long root() {
+        return levels[0][0];
+    }
+
+    /**
+     * Hashes de los nodos pedidos en un nivel (0 = raíz, DEPTH = hojas/buckets).
+     */
+    public synchronized Map<Integer, Long> nodes(int level, List<Integer> indexes) {
+        if (level < 0 || level > DEPTH) {
+            throw new IllegalArgumentException("level fuera de rango: " + level);
+        }
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        for (Integer index : indexes) {
+            if (index == null || index < 0 || index >= levels[level].length) {
+                throw new IllegalArgumentException("index fuera de rango: " + index);
+            }
+            result.put(index, levels[level][index]);
+        }
+        return result;
+    }
+
+    /**
+     * Hash de cada SKU de los buckets pedidos.
+     */
+    public Map<String, Long> bucketItems(List<Integer> buckets) {
+        for (Integer bucket : buckets) {
+            if (bucket == null || bucket < 0 || bucket >= LEAVES) {
+                throw new IllegalArgumentException("bucket fuera de rango: " + bucket);
+            }
+        }
+        if (mapped != null) {
+            return mappedBucketItems(buckets);
+        }
+        synchronized (this) {
+            Map<String, Long> result = new HashMap<>();
+            for (Integer bucket : buckets) {
+                for (String productId : leafMembers.get(bucket)) {
+                    result.put(productId, itemHashes.get(productId));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Una pasada por el archivo; sólo se decodifica el productId de los SKUs de los buckets pedidos.
+     * No toma el monitor del árbol: el listener del archivo lo toma con el lock de escritura tomado.
+     */
+    private Map<String, Long> mappedBucketItems(List<Integer> buckets) {
+        boolean[] wanted = new boolean[LEAVES];
+        buckets.forEach(b -> wanted[b] = true);
+        Map<String, Long> result = new HashMap<>();
+        mapped.forEachRecord((key, len, quantity, nanos) -> {
+            if (wanted[bucketOf(key, len)]) {
+                result.put(new String(key, 0, len, StandardCharsets.UTF_8), itemHash(key, len, quantity, millisOf(nanos)));
+            }
+        });
+        return result;
+    }
+
+    private synchronized void put(String productId, long hash) {
+        Long old = itemHashes.put(productId, hash);
+        applyDelta(productId, hash - (old == null ? 0 : old));
+    }
+
+    private synchronized boolean putIfAbsent(String productId, long hash) {
+        if (itemHashes.putIfAbsent(productId, hash) != null) {
+            return false;
+        }
+        applyDelta(productId, hash);
+        return true;
+    }
+
+    private void applyDelta(String productId, long delta) {
+        int leaf = bucketOf(productId);
+        leafMembers.get(leaf).add(productId);
+        addToLeaf(leaf, delta);
+    }
+
+    private synchronized void addToLeaf(int leaf, long delta) {
+        for (int d = DEPTH, index = leaf; d >= 0; d--, index /= FANOUT) {
+            levels[d][index] += delta;
+        }
+    }
+
+    public static int bucketOf(String productId) {
+        byte[] key = productId.getBytes(StandardCharsets.UTF_8);
+        return bucketOf(key, key.length);
+    }
+
+    static int bucketOf(byte[] key, int len) {
+        return (int) ((mix(fnv1a(key, len)) >>> 1) % LEAVES);
+    }
+
+    /**
+     * updatedAt se normaliza a milisegundos: la base guarda menos precisión que el reloj.
+     */
+    public static long itemHash(String productId, int quantity, Instant updatedAt) {
+        byte[] key = productId.getBytes(StandardCharsets.UTF_8);
+        return itemHash(key, key.length, quantity, updatedAt == null ? 0 : updatedAt.toEpochMilli());
+    }
+
+    static long itemHash(byte[] key, int len, int quantity, long updatedAtMillis) {
+        long h = fnv1a(key, len);
+        h = mix(h ^ quantity);
+        h = mix(h ^ updatedAtMillis);
+        return h;
+    }
+
+    // mismo redondeo que Instant.toEpochMilli
+    private static long millisOf(long nanos) {
+        return Math.floorDiv(nanos, 1_000_000L);
+    }
+
+    private static long fnv1a(byte[] value, int len) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < len; i++) {
+            h ^= value[i];
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // finalizador de splitmix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,155 @@
+package com.inventory.central.service;
+
+import com.inventory.central.entity.StockEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Modelo de lectura (CQRS) del stock central: snapshot inmutable y versionado que se publica
+ * atómicamente. Las lecturas no toman locks ni acceden a la base; las escrituras de sync se
+ * aplican de forma incremental después del commit sobre un {@link PersistentStockMap}, que sólo
+ * copia los nodos del camino de cada SKU cambiado: publicar un chunk cuesta O(k·log n), no O(catálogo).
+ * <p>
+ * Frescura: inventory_read_model_publish_lag_seconds mide, por batch, desde que la escritura se
+ * registra en su transacción hasta que el snapshot que la contiene se publica (incluye el commit);
+ * inventory_read_model_lag_batches cuenta los batches escritos que todavía no se ven, sin los que
+ * terminaron en rollback.
+ * <p>
+ * Como el stock central es LWW por updatedAt, aplicar cambios y reconstruir desde la base son
+ * operaciones conmutativas: siempre gana el updatedAt mayor.
+ * <p>
+ * Con el stock en {@link MappedStockStore} el modelo queda vacío: lecturas y resumen salen del
+ * archivo, que ya está fuera del heap, y copiarlo acá sería justo lo que ese motor evita.
+ */
+@Component
+public class StockReadModel {
+    private static final Logger log = LoggerFactory.getLogger(StockReadModel.class);
+
+    public record StockView(String productId, int quantity, Instant updatedAt) {
+    }
+
+    public record Snapshot(long version, Instant publishedAt, boolean ready, PersistentStockMap items,
+                           long totalQuantity, int outOfStockCount) {
+    }
+
+    private final StockStorage stockStorage;
+    private final AtomicReference<Snapshot> current =
+            new AtomicReference<>(new Snapshot(0, Instant.now(), false, PersistentStockMap.empty(), 0, 0));
+    private final AtomicInteger pendingBatches = new AtomicInteger();
+    private final AtomicLong writtenBatches = new AtomicLong();
+    private final AtomicLong publishedBatches = new AtomicLong();
+    private final AtomicLong rolledBackBatches = new AtomicLong();
+    private final Timer publishLag;
+
+    public StockReadModel(StockStorage stockStorage, MeterRegistry meterRegistry) {
+        this.stockStorage = stockStorage;
+        this.publishLag = Timer.builder("inventory_read_model_publish_lag_seconds").register(meterRegistry);
+        Gauge.builder("inventory_read_model_lag_batches", this,
+                        m -> m.writtenBatches.get() - m.publishedBatches.get() - m.rolledBackBatches.get())
+                .register(meterRegistry);
+        Gauge.builder("inventory_read_model_pending_batches", pendingBatches, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("inventory_read_model_version", this, m -> m.current().version())
+                .register(meterRegistry);
+    }
+
+    public Snapshot current() {
+        return current.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        if (stockStorage.isMapped()) {
+            Snapshot published = publish(List.of(), true);
+            log.info("read model sin copia: el stock mapeado atiende las lecturas version={}", published.version());
+            return;
+        }
+        List<StockView> rows = stockStorage.loadAll();
+        Snapshot published = publish(rows, true);
+        log.info("read model reconstruido: items={} version={} durationMs={}",
+                published.items().size(), published.version(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Publica los ítems aplicados por un batch cuando la transacción de escritura confirma.
+     * Si no hay transacción activa se publica en el acto. El lag se cuenta desde esta llamada.
+     */
+    public void publishAfterCommit(List<StockView> applied) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        long writtenAt = System.nanoTime();
+        writtenBatches.incrementAndGet();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishCommitted(applied, writtenAt);
+            return;
+        }
+        pendingBatches.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishCommitted(applied, writtenAt);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                pendingBatches.decrementAndGet();
+                if (status != STATUS_COMMITTED) {
+                    rolledBackBatches.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void publishCommitted(List<StockView> applied, long writtenAt) {
+        publish(applied, false);
+        publishedBatches.incrementAndGet();
+        publishLag.record(System.nanoTime() - writtenAt, TimeUnit.NANOSECONDS);
+    }
+
+    private Snapshot publish(Collection<StockView> changes, boolean markReady) {
+        return current.updateAndGet(prev -> merge(prev, changes, markReady));
+    }
+
+    static Snapshot merge(Snapshot prev, Collection<StockView> changes, boolean markReady) {
+        PersistentStockMap.Builder next = prev.items().toBuilder();
+        long total = prev.totalQuantity();
+        int outOfStock = prev.outOfStockCount();
+        for (StockView change : changes) {
+            StockView old = next.get(change.productId());
+            if (old != null && !change.updatedAt().isAfter(old.updatedAt())) {
+                continue;
+            }
+            if (old != null) {
+                total -= old.quantity();
+                outOfStock -= old.quantity() <= 0 ? 1 : 0;
+            }
+            next.put(change);
+            total += change.quantity();
+            outOfStock += change.quantity() <= 0 ? 1 : 0;
+        }
+        return new Snapshot(prev.version() + 1, Instant.now(), prev.ready() || markReady,
+                next.build(), total, outOfStock);
+    }
+
+    static StockView toView(StockEntity stock) {
+        return new StockView(stock.getProductId(), stock.getQuantity(), stock.getUpdatedAt());
+    }
+}
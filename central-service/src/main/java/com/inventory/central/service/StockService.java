@@ -1,28 +1,89 @@
 package com.inventory.central.service;
 
 import com.inventory.central.dto.StockSnapshotDTO;
-import com.inventory.central.entity.StockEntity;
+import com.inventory.central.dto.StockSummaryDTO;
 import com.inventory.central.exception.NotFoundException;
-import com.inventory.central.repository.StockRepository;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+
 @Service
 public class StockService {
-    private final StockRepository stockRepository;
+    private final StockStorage stockStorage;
+    private final StockETagCache etagCache;
+    private final StockReadModel readModel;
 
-    public StockService(StockRepository stockRepository) {
-        this.stockRepository = stockRepository;
+    public StockService(StockStorage stockStorage, StockETagCache etagCache, StockReadModel readModel) {
+        this.stockStorage = stockStorage;
+        this.etagCache = etagCache;
+        this.readModel = readModel;
     }
 
+    /**
+     * Lee del modelo en memoria; sólo va a la base mientras el modelo no terminó de construirse.
+     * Con el stock mapeado lee siempre del archivo: es igual de barato y está al día.
+     */
     public StockSnapshotDTO getSnapshot(String productId) {
-        StockEntity stock = stockRepository.findById(productId)
+        StockReadModel.Snapshot snapshot = readModel.current();
+        if (snapshot.ready() && !stockStorage.isMapped()) {
+            StockReadModel.StockView view = snapshot.items().get(productId);
+            if (view == null) {
+                throw new NotFoundException("Stock not found for productId=" + productId);
+            }
+            etagCache.update(productId, view.updatedAt());
+            return StockSnapshotDTO.builder()
+                    .productId(view.productId())
+                    .quantity(view.quantity())
+                    .updatedAt(view.updatedAt())
+                    .build();
+        }
+        StockReadModel.StockView stock = stockStorage.find(productId)
                 .orElseThrow(() -> new NotFoundException("Stock not found for productId=" + productId));
+        if (!stockStorage.isMapped()) {
+            etagCache.update(productId, stock.updatedAt());
+        }
         return StockSnapshotDTO.builder()
-                .productId(stock.getProductId())
-                .quantity(stock.getQuantity())
-                .updatedAt(stock.getUpdatedAt())
+                .productId(stock.productId())
+                .quantity(stock.quantity())
+                .updatedAt(stock.updatedAt())
                 .build();
     }
-}
 
+    /**
+     * Con el stock mapeado los agregados vienen del encabezado del archivo y version es la cantidad
+     * de escrituras aplicadas desde el arranque.
+     */
+    public StockSummaryDTO getSummary() {
+        MappedStockStore mapped = stockStorage.mapped();
+        if (mapped != null) {
+            return StockSummaryDTO.builder()
+                    .skuCount((int) mapped.size())
+                    .totalQuantity(mapped.totalQuantity())
+                    .outOfStockCount((int) mapped.outOfStockCount())
+                    .version(mapped.modCount())
+                    .publishedAt(Instant.now())
+                    .build();
+        }
+        StockReadModel.Snapshot snapshot = readModel.current();
+        return StockSummaryDTO.builder()
+                .skuCount(snapshot.items().size())
+                .totalQuantity(snapshot.totalQuantity())
+                .outOfStockCount(snapshot.outOfStockCount())
+                .version(snapshot.version())
+                .publishedAt(snapshot.publishedAt())
+                .build();
+    }
 
+    /**
+     * Resuelve If-None-Match contra la caché de updatedAt, sin tocar la base. Con el stock mapeado
+     * no hay caché: updatedAt se lee del archivo, que cuesta lo mismo que buscarlo en un mapa.
+     */
+    public String matchNotModified(String productId, String ifNoneMatch) {
+        MappedStockStore mapped = stockStorage.mapped();
+        if (mapped != null) {
+            StockReadModel.StockView stock = mapped.get(productId);
+            return etagCache.matchNotModified(ifNoneMatch, stock == null ? null : stock.updatedAt());
+        }
+        return etagCache.matchNotModified(productId, ifNoneMatch);
+    }
+}
@@ -0,0 +1,97 @@
+package com.inventory.central.service;
+
+import com.inventory.central.init.StartupTimings;
+import com.inventory.central.repository.StockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Dónde vive el stock central: la tabla JPA (por defecto) o {@link MappedStockStore} con
+ * central.storage.engine=mmap. Con JPA los modelos en memoria se reconstruyen desde acá; con mmap
+ * un reinicio remapea el archivo y los modelos lo recorren sin copiarlo.
+ * <p>
+ * El motor se elige al arrancar leyendo la propiedad, no con un bean condicional: con el perfil
+ * fast-start (AOT) las condiciones quedan fijadas en el build y engine=mmap se ignoraría.
+ * Un valor desconocido corta el arranque.
+ */
+@Component
+public class StockStorage {
+    public static final String ENGINE_JPA = "jpa";
+    public static final String ENGINE_MMAP = "mmap";
+
+    private final StockRepository stockRepository;
+    private final MappedStockStore mapped;
+
+    public StockStorage(StockRepository stockRepository,
+                        @Value("${central.storage.engine:jpa}") String engine,
+                        @Value("${central.storage.mmap.file:${java.io.tmpdir}/central-stock.mmap}") String file,
+                        @Value("${central.storage.mmap.initialCapacity:65536}") long initialCapacity,
+                        StartupTimings startupTimings,
+                        MeterRegistry meterRegistry) {
+        this.stockRepository = stockRepository;
+        this.mapped = switch (engine.trim().toLowerCase()) {
+            case ENGINE_JPA -> null;
+            case ENGINE_MMAP -> {
+                long start = System.nanoTime();
+                MappedStockStore store = new MappedStockStore(Path.of(file), initialCapacity, meterRegistry);
+                startupTimings.record("storage-open", System.nanoTime() - start);
+                yield store;
+            }
+            default -> throw new IllegalStateException(
+                    "central.storage.engine desconocido: '" + engine + "' (valores: jpa, mmap)");
+        };
+    }
+
+    /**
+     * El motor mapeado, o null si el stock está en JPA.
+     */
+    public MappedStockStore mapped() {
+        return mapped;
+    }
+
+    public boolean isMapped() {
+        return mapped != null;
+    }
+
+    /**
+     * Todo el stock de la tabla. Sólo con JPA: con el stock mapeado nadie debe copiar el archivo al
+     * heap, se recorre con {@link MappedStockStore#forEachRecord} o {@link MappedStockStore#scan}.
+     */
+    public List<StockReadModel.StockView> loadAll() {
+        if (mapped != null) {
+            throw new IllegalStateException("loadAll no se usa con el stock mapeado");
+        }
+        return stockRepository.findAll().stream().map(StockReadModel::toView).toList();
+    }
+
+    public Optional<StockReadModel.StockView> find(String productId) {
+        if (mapped == null) {
+            return stockRepository.findById(productId).map(StockReadModel::toView);
+        }
+        return Optional.ofNullable(mapped.get(productId));
+    }
+
+    /**
+     * Baja a disco las páginas sucias del archivo cada forceIntervalMs; sin mmap no hace nada.
+     */
+    @Scheduled(fixedDelayString = "${central.storage.mmap.forceIntervalMs:1000}")
+    public void force() {
+        if (mapped != null) {
+            mapped.force();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (mapped != null) {
+            mapped.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.inventory.central.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Último updatedAt confirmado por SKU, para descartar ítems viejos del sync sin leer la base.
+ * <p>
+ * Tabla hash de direccionamiento abierto: claves en un String[] y marcas en un long[] (nanos
+ * desde epoch), sin Instant ni entrada de mapa por SKU. La marca sólo sube después del commit,
+ * así que nunca supera lo que hay en la base: si el ítem entrante no es más nuevo, la base
+ * también lo descartaría. Sin marca (SKU nuevo o índice sin reconstruir) el ítem va a la base
+ * como siempre. Las lecturas son optimistas (StampedLock) y no bloquean a otras lecturas.
+ * <p>
+ * Que la marca no pase a la base depende de que sólo se suba con valores que la base realmente
+ * guardó: {@link SyncService} la sube únicamente con los ítems cuyo UPDATE condicional o INSERT
+ * escribió la fila. Una marca adelantada sería permanente, porque descartaría todo reenvío del
+ * valor correcto (incluidos los de la reconciliación Merkle).
+ * Con el stock en {@link MappedStockStore} no se usa: el archivo ya resuelve LWW sin la base.
+ */
+@Component
+public class StockWatermarkIndex {
+    private static final Logger log = LoggerFactory.getLogger(StockWatermarkIndex.class);
+
+    static final long UNKNOWN = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Claves y marcas van juntas: un resize cambia las dos a la vez. */
+    private static final class Table {
+        final String[] keys;
+        final long[] marks;
+        int size;
+
+        Table(int capacity) {
+            keys = new String[capacity];
+            marks = new long[capacity];
+        }
+
+        int slot(String productId) {
+            int mask = keys.length - 1;
+            int h = productId.hashCode();
+            int i = (h ^ (h >>> 16)) & mask;
+            while (keys[i] != null && !keys[i].equals(productId)) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+
+    private final StockStorage stockStorage;
+    private final boolean enabled;
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    public StockWatermarkIndex(StockStorage stockStorage,
+                               @Value("${central.sync.watermark.enabled:true}") boolean enabled,
+                               MeterRegistry meterRegistry) {
+        this.stockStorage = stockStorage;
+        this.enabled = enabled;
+        Gauge.builder("inventory_sync_watermark_entries", this, StockWatermarkIndex::size).register(meterRegistry);
+    }
+
+    /**
+     * Carga las marcas desde la base y reemplaza las actuales. Perder una marca que subió mientras
+     * tanto sólo cuesta una lectura más: el índice puede quedar atrás de la base, nunca adelante.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled || stockStorage.isMapped()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Table fresh = new Table(INITIAL_CAPACITY);
+        for (StockReadModel.StockView stock : stockStorage.loadAll()) {
+            fresh = put(fresh, stock.productId(), nanosOf(stock.updatedAt()));
+        }
+        long stamp = lock.writeLock();
+        try {
+            table = fresh;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("índice de watermarks reconstruido: items={} durationMs={}", fresh.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * true si incoming no es más nuevo que lo ya confirmado para el SKU: LWW lo descartaría.
+     */
+    public boolean isStale(String productId, Instant incoming) {
+        if (!enabled) {
+            return false;
+        }
+        long value = nanosOf(incoming);
+        if (value == UNKNOWN) {
+            return false;
+        }
+        long mark = get(productId);
+        return mark != UNKNOWN && value <= mark;
+    }
+
+    /**
+     * Marca vigente, o null si el SKU no está en el índice.
+     */
+    public Instant watermark(String productId) {
+        long mark = get(productId);
+        return mark == UNKNOWN ? null : Instant.ofEpochSecond(Math.floorDiv(mark, 1_000_000_000L), Math.floorMod(mark, 1_000_000_000L));
+    }
+
+    /**
+     * Sube las marcas de ítems ya confirmados; una marca nunca baja. committed tiene que traer lo
+     * que quedó escrito en la base, no lo que el lote pidió escribir.
+     */
+    public void advance(Collection<StockReadModel.StockView> committed) {
+        if (!enabled || committed.isEmpty()) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            for (StockReadModel.StockView v : committed) {
+                long value = nanosOf(v.updatedAt());
+                if (value != UNKNOWN) {
+                    t = put(t, v.productId(), value);
+                }
+            }
+            table = t;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return table.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long get(String productId) {
+        long stamp = lock.tryOptimisticRead();
+        long mark = find(table, productId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                mark = find(table, productId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return mark;
+    }
+
+    private static long find(Table t, String productId) {
+        int i = t.slot(productId);
+        return t.keys[i] == null ? UNKNOWN : t.marks[i];
+    }
+
+    /**
+     * Inserta o sube la marca; devuelve la tabla a usar (otra si hubo que crecer).
+     */
+    private static Table put(Table t, String productId, long value) {
+        int i = t.slot(productId);
+        if (t.keys[i] != null) {
+            if (value > t.marks[i]) {
+                t.marks[i] = value;
+            }
+            return t;
+        }
+        if ((t.size + 1) * 2 > t.keys.length) {
+            Table bigger = new Table(t.keys.length * 2);
+            for (int j = 0; j < t.keys.length; j++) {
+                if (t.keys[j] != null) {
+                    int k = bigger.slot(t.keys[j]);
+                    bigger.keys[k] = t.keys[j];
+                    bigger.marks[k] = t.marks[j];
+                }
+            }
+            bigger.size = t.size;
+            t = bigger;
+            i = t.slot(productId);
+        }
+        t.marks[i] = value;
+        t.keys[i] = productId;
+        t.size++;
+        return t;
+    }
+
+    /**
+     * Nanos desde epoch; UNKNOWN si no entra en un long (más allá de 1677..2262).
+     */
+    static long nanosOf(Instant instant) {
+        if (instant == null) {
+            return UNKNOWN;
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+        } catch (ArithmeticException ex) {
+            return UNKNOWN;
+        }
+    }
+}
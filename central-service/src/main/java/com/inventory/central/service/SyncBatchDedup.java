@@ -0,0 +1,118 @@
+package com.inventory.central.service;
+
+import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.SyncResultDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lotes ya aplicados por (storeId, batchSeq) con su resultado, para que un reenvío sea un no-op.
+ * <p>
+ * Se guardan los últimos perStore lotes de cada tienda; basta con que cubra la ventana de lotes
+ * en vuelo más los reintentos. Un reenvío más viejo que eso se vuelve a aplicar, y LWW lo deja
+ * sin efecto.
+ * <p>
+ * Junto al resultado va una huella del contenido (ítems en orden). Con central particionado
+ * todos los sub-lotes de un lote comparten batchSeq, y después de un 409 la tienda reparte de
+ * nuevo: un nodo puede recibir otros ítems bajo un par que ya vio. Si la huella no coincide no es
+ * un reenvío y el lote se aplica; devolver el resultado guardado haría que la tienda borre filas
+ * que central nunca aplicó.
+ */
+@Component
+public class SyncBatchDedup {
+    private static final Logger log = LoggerFactory.getLogger(SyncBatchDedup.class);
+
+    private record Seen(long fingerprint, SyncResultDTO result) {
+    }
+
+    private final int perStore;
+    private final Map<String, Map<Long, Seen>> byStore = new ConcurrentHashMap<>();
+    private final Counter mismatches;
+
+    @Autowired
+    public SyncBatchDedup(@Value("${central.sync.dedup.perStore:4096}") int perStore, MeterRegistry meterRegistry) {
+        this.perStore = Math.max(1, perStore);
+        this.mismatches = Counter.builder("inventory_sync_dedup_mismatch_total").register(meterRegistry);
+    }
+
+    SyncBatchDedup(int perStore) {
+        this(perStore, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Resultado guardado si (storeId, batchSeq) ya se aplicó con exactamente estos ítems.
+     */
+    public SyncResultDTO seen(String storeId, long batchSeq, List<StockSnapshotDTO> items) {
+        Map<Long, Seen> recent = byStore.get(storeId);
+        if (recent == null) {
+            return null;
+        }
+        Seen seen;
+        synchronized (recent) {
+            seen = recent.get(batchSeq);
+        }
+        if (seen == null) {
+            return null;
+        }
+        if (seen.fingerprint() != fingerprint(items)) {
+            mismatches.increment();
+            log.warn("batchSeq repetido con otro contenido, se aplica: storeId={} batchSeq={} items={}", storeId, batchSeq, items.size());
+            return null;
+        }
+        return seen.result();
+    }
+
+    public void record(String storeId, long batchSeq, List<StockSnapshotDTO> items, SyncResultDTO result) {
+        Map<Long, Seen> recent = byStore.computeIfAbsent(storeId, k -> new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Seen> eldest) {
+                return size() > perStore;
+            }
+        });
+        Seen seen = new Seen(fingerprint(items), result);
+        synchronized (recent) {
+            recent.put(batchSeq, seen);
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre (productId, quantity, updatedAt) de cada ítem, más la cantidad.
+     */
+    static long fingerprint(List<StockSnapshotDTO> items) {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, items.size());
+        for (StockSnapshotDTO item : items) {
+            if (item == null) {
+                h = mix(h, 0);
+                continue;
+            }
+            if (item.getProductId() != null) {
+                for (byte b : item.getProductId().getBytes(StandardCharsets.UTF_8)) {
+                    h = mix(h, b);
+                }
+            }
+            h = mix(h, item.getQuantity());
+            Instant updatedAt = item.getUpdatedAt();
+            h = mix(h, updatedAt == null ? 0 : updatedAt.getEpochSecond());
+            h = mix(h, updatedAt == null ? 0 : updatedAt.getNano());
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        return (h ^ value) * 0x100000001b3L;
+    }
+}
@@ -1,17 +1,29 @@
 package com.inventory.central.service;
 
+import com.inventory.central.dto.MerkleBucketDTO;
+import com.inventory.central.dto.MerkleNodesDTO;
+import com.inventory.central.dto.MerkleQueryDTO;
 import com.inventory.central.dto.StockSnapshotDTO;
 import com.inventory.central.dto.SyncBatchDTO;
+import com.inventory.central.dto.SyncItemRejectionDTO;
 import com.inventory.central.dto.SyncResultDTO;
-import com.inventory.central.entity.StockEntity;
+import com.inventory.central.exception.ConflictException;
+import com.inventory.central.jfr.LwwDecisionEvent;
 import com.inventory.central.repository.StockRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
@@ -19,61 +31,335 @@ import io.micrometer.core.instrument.Timer;
 @Service
 public class SyncService {
     private static final Logger log = LoggerFactory.getLogger(SyncService.class);
+    // categoría muestreable con central.logging.sampling
+    private static final Logger pullLog = LoggerFactory.getLogger("inventory.sync.pull");
+    // largo de la columna stock.product_id
+    private static final int MAX_PRODUCT_ID_LENGTH = 64;
 
     private final StockRepository stockRepository;
+    private final StockETagCache etagCache;
+    private final StockReadModel readModel;
+    private final StockMerkleTree merkleTree;
+    private final ChangeFeedService changeFeedService;
+    private final PartitionMap partitionMap;
+    private final SyncBatchDedup batchDedup;
+    private final StockWatermarkIndex watermarks;
+    private final MappedStockStore mapped;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
     private final MeterRegistry meterRegistry;
     private final Counter pullReceived;
     private final Counter pullApplied;
     private final Counter pullSkipped;
+    private final Counter pullRejected;
+    private final Counter pullIndexSkipped;
+    private final Counter pullDuplicates;
     private final Timer pullTimer;
 
-    public SyncService(StockRepository stockRepository, MeterRegistry meterRegistry) {
+    public SyncService(StockRepository stockRepository, StockETagCache etagCache, StockReadModel readModel,
+                       StockMerkleTree merkleTree, ChangeFeedService changeFeedService, PartitionMap partitionMap,
+                       SyncBatchDedup batchDedup, StockWatermarkIndex watermarks, StockStorage stockStorage,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${central.sync.chunkSize:500}") int chunkSize, MeterRegistry meterRegistry) {
         this.stockRepository = stockRepository;
+        this.etagCache = etagCache;
+        this.readModel = readModel;
+        this.merkleTree = merkleTree;
+        this.changeFeedService = changeFeedService;
+        this.partitionMap = partitionMap;
+        this.batchDedup = batchDedup;
+        this.watermarks = watermarks;
+        this.mapped = stockStorage.mapped();
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
         this.meterRegistry = meterRegistry;
         this.pullReceived = Counter.builder("inventory_sync_pull_received_total").register(meterRegistry);
         this.pullApplied = Counter.builder("inventory_sync_pull_applied_total").register(meterRegistry);
         this.pullSkipped = Counter.builder("inventory_sync_pull_skipped_total").register(meterRegistry);
+        this.pullRejected = Counter.builder("inventory_sync_pull_rejected_total").register(meterRegistry);
+        this.pullIndexSkipped = Counter.builder("inventory_sync_pull_index_skipped_total").register(meterRegistry);
+        this.pullDuplicates = Counter.builder("inventory_sync_pull_duplicate_batches_total").register(meterRegistry);
         this.pullTimer = Timer.builder("inventory_sync_pull_duration_seconds").publishPercentileHistogram(true).register(meterRegistry);
     }
 
-    @Transactional
+    /**
+     * Aplica un lote por LWW en sub-transacciones de hasta chunkSize ítems.
+     * <p>
+     * Un ítem inválido (sin productId, productId de más de 64 caracteres, cantidad negativa) se
+     * rechaza con su motivo y el resto sigue. Si un chunk falla por un error no transitorio de la
+     * base se reintenta ítem por ítem y solo queda rechazado el que vuelve a fallar. Un error
+     * transitorio corta el lote y la tienda lo reenvía entero: los chunks ya confirmados vuelven
+     * como skipped por LWW. outcomes trae lo que pasó con cada ítem.
+     * Los ítems que {@link StockWatermarkIndex} ya sabe viejos se descartan sin ir a la base.
+     * Con el stock en {@link MappedStockStore} se aplica directo sobre el archivo, sin transacción.
+     */
     public SyncResultDTO applyBatchLWW(SyncBatchDTO batch) {
-        int received = 0;
+        List<StockSnapshotDTO> items = batch.getItems() == null ? List.of() : batch.getItems();
+        char[] outcomes = new char[items.size()];
+        List<SyncItemRejectionDTO> rejections = new ArrayList<>();
+        List<Integer> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String reason = invalidReason(items.get(i));
+            if (reason == null) {
+                valid.add(i);
+            } else {
+                reject(outcomes, rejections, i, items.get(i), reason);
+            }
+        }
+        checkOwnership(items, valid);
+        boolean keyed = batch.getStoreId() != null && batch.getBatchSeq() != null;
+        if (keyed) {
+            SyncResultDTO seen = batchDedup.seen(batch.getStoreId(), batch.getBatchSeq(), items);
+            if (seen != null) {
+                pullDuplicates.increment();
+                log.info("sync lote repetido storeId={} batchSeq={} traceId={}", batch.getStoreId(), batch.getBatchSeq(), MDC.get("traceId"));
+                return SyncResultDTO.builder().received(seen.getReceived()).applied(seen.getApplied())
+                        .skipped(seen.getSkipped()).rejected(seen.getRejected()).outcomes(seen.getOutcomes())
+                        .rejections(seen.getRejections()).duplicate(true).build();
+            }
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Integer> pending = mapped == null ? skipStale(items, valid, outcomes) : valid;
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            applyChunk(items, pending.subList(from, Math.min(pending.size(), from + chunkSize)), outcomes, rejections);
+        }
+        rejections.sort(Comparator.comparingInt(SyncItemRejectionDTO::getIndex));
+        int received = items.size();
         int applied = 0;
         int skipped = 0;
-        Timer.Sample sample = Timer.start(meterRegistry);
-        if (batch.getItems() != null) {
-            for (StockSnapshotDTO item : batch.getItems()) {
-                received++;
-                StockEntity existing = stockRepository.findById(item.getProductId()).orElse(null);
-                if (existing == null) {
-                    StockEntity created = StockEntity.builder()
-                            .productId(item.getProductId())
-                            .quantity(item.getQuantity())
-                            .updatedAt(nonNullInstant(item.getUpdatedAt()))
-                            .build();
-                    stockRepository.save(created);
-                    applied++;
-                } else {
-                    Instant incoming = nonNullInstant(item.getUpdatedAt());
-                    if (incoming.isAfter(existing.getUpdatedAt())) {
-                        existing.setQuantity(item.getQuantity());
-                        existing.setUpdatedAt(incoming);
-                        stockRepository.save(existing);
-                        applied++;
-                    } else {
-                        skipped++;
-                    }
-                }
+        for (char outcome : outcomes) {
+            if (outcome == SyncResultDTO.APPLIED) {
+                applied++;
+            } else if (outcome == SyncResultDTO.SKIPPED) {
+                skipped++;
             }
         }
+        int rejected = rejections.size();
         pullReceived.increment(received);
         pullApplied.increment(applied);
         pullSkipped.increment(skipped);
+        pullRejected.increment(rejected);
         sample.stop(pullTimer);
         String traceId = MDC.get("traceId");
-        log.info("sync received={} applied={} skipped={} traceId={}", received, applied, skipped, traceId);
-        return SyncResultDTO.builder().received(received).applied(applied).skipped(skipped).build();
+        pullLog.atInfo().addKeyValue("traceId", traceId).addKeyValue("storeId", batch.getStoreId())
+                .addKeyValue("batchSeq", batch.getBatchSeq()).addKeyValue("received", received)
+                .addKeyValue("applied", applied).addKeyValue("skipped", skipped)
+                .addKeyValue("rejected", rejected).log("sync");
+        if (rejected > 0) {
+            SyncItemRejectionDTO first = rejections.get(0);
+            log.warn("sync ítems rechazados storeId={} batchSeq={} rejected={} primero=[index={} productId={} motivo={}] traceId={}",
+                    batch.getStoreId(), batch.getBatchSeq(), rejected, first.getIndex(), first.getProductId(), first.getReason(), traceId);
+        }
+        SyncResultDTO result = SyncResultDTO.builder().received(received).applied(applied).skipped(skipped)
+                .rejected(rejected).outcomes(new String(outcomes)).rejections(rejections).build();
+        if (keyed) {
+            afterCommit(() -> batchDedup.record(batch.getStoreId(), batch.getBatchSeq(), items, result));
+        }
+        return result;
+    }
+
+    /**
+     * Marca como skipped los ítems no más nuevos que su watermark y devuelve los que hay que leer.
+     */
+    private List<Integer> skipStale(List<StockSnapshotDTO> items, List<Integer> valid, char[] outcomes) {
+        List<Integer> pending = new ArrayList<>(valid.size());
+        for (int index : valid) {
+            StockSnapshotDTO item = items.get(index);
+            if (watermarks.isStale(item.getProductId(), nonNullInstant(item.getUpdatedAt()))) {
+                outcomes[index] = SyncResultDTO.SKIPPED;
+                LwwDecisionEvent decision = new LwwDecisionEvent();
+                if (decision.shouldCommit()) {
+                    commitDecision(decision, item, "skipped", watermarks.watermark(item.getProductId()));
+                }
+            } else {
+                pending.add(index);
+            }
+        }
+        pullIndexSkipped.increment(valid.size() - pending.size());
+        return pending;
+    }
+
+    /**
+     * Un chunk en su propia transacción (o en la del llamador si ya hay una).
+     */
+    private void applyChunk(List<StockSnapshotDTO> items, List<Integer> chunk, char[] outcomes,
+                            List<SyncItemRejectionDTO> rejections) {
+        if (mapped != null) {
+            applyMapped(items, chunk, outcomes, rejections);
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyItems(items, chunk, outcomes));
+        } catch (NonTransientDataAccessException ex) {
+            log.warn("chunk de sync falló, se aplica ítem por ítem: items={} causa={}", chunk.size(), ex.getMostSpecificCause().toString());
+            for (int index : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> applyItems(items, List.of(index), outcomes));
+                } catch (NonTransientDataAccessException itemEx) {
+                    reject(outcomes, rejections, index, items.get(index),
+                            "error al aplicar: " + itemEx.getMostSpecificCause().getClass().getSimpleName());
+                }
+            }
+        }
+    }
+
+    /**
+     * LWW sin leer-y-después-escribir: el UPDATE condicional compara y escribe en una sentencia, así
+     * que lotes concurrentes con el mismo SKU (ventana de push, lanes de prioridad) no pueden dejar
+     * en la base el updatedAt más viejo. Si el SKU no existe se inserta; si otra transacción lo
+     * insertó en el medio falla por clave duplicada y el reintento ítem por ítem lo resuelve por LWW.
+     */
+    private void applyItems(List<StockSnapshotDTO> items, List<Integer> indexes, char[] outcomes) {
+        List<StockReadModel.StockView> appliedViews = new ArrayList<>();
+        for (int index : indexes) {
+            StockSnapshotDTO item = items.get(index);
+            Instant incoming = nonNullInstant(item.getUpdatedAt());
+            LwwDecisionEvent decision = new LwwDecisionEvent();
+            if (stockRepository.updateIfNewer(item.getProductId(), item.getQuantity(), incoming) == 1) {
+                appliedViews.add(new StockReadModel.StockView(item.getProductId(), item.getQuantity(), incoming));
+                outcomes[index] = SyncResultDTO.APPLIED;
+                commitDecision(decision, item, "applied", null);
+                continue;
+            }
+            Instant previous = stockRepository.findUpdatedAt(item.getProductId()).orElse(null);
+            if (previous == null) {
+                stockRepository.insert(item.getProductId(), item.getQuantity(), incoming);
+                appliedViews.add(new StockReadModel.StockView(item.getProductId(), item.getQuantity(), incoming));
+                outcomes[index] = SyncResultDTO.APPLIED;
+                commitDecision(decision, item, "created", null);
+            } else {
+                outcomes[index] = SyncResultDTO.SKIPPED;
+                commitDecision(decision, item, "skipped", previous);
+            }
+        }
+        publishApplied(appliedViews);
+    }
+
+    /**
+     * Sin transacción: cada ítem queda escrito en el archivo al aplicarse.
+     */
+    private void applyMapped(List<StockSnapshotDTO> items, List<Integer> indexes, char[] outcomes,
+                             List<SyncItemRejectionDTO> rejections) {
+        List<StockReadModel.StockView> appliedViews = new ArrayList<>();
+        for (int index : indexes) {
+            StockSnapshotDTO item = items.get(index);
+            Instant incoming = nonNullInstant(item.getUpdatedAt());
+            int result;
+            try {
+                result = mapped.applyLww(item.getProductId(), item.getQuantity(), incoming);
+            } catch (IllegalArgumentException ex) {
+                reject(outcomes, rejections, index, item, ex.getMessage());
+                continue;
+            }
+            LwwDecisionEvent decision = new LwwDecisionEvent();
+            if (result == MappedStockStore.SKIPPED) {
+                outcomes[index] = SyncResultDTO.SKIPPED;
+                commitDecision(decision, item, "skipped", null);
+            } else {
+                outcomes[index] = SyncResultDTO.APPLIED;
+                appliedViews.add(new StockReadModel.StockView(item.getProductId(), item.getQuantity(), incoming));
+                commitDecision(decision, item, result == MappedStockStore.CREATED ? "created" : "applied", null);
+            }
+        }
+        publishApplied(appliedViews);
+    }
+
+    private void publishApplied(List<StockReadModel.StockView> appliedViews) {
+        if (mapped != null) {
+            // read model, ETags y Merkle salen del archivo; sólo el feed necesita el aviso
+            changeFeedService.append(appliedViews);
+            return;
+        }
+        readModel.publishAfterCommit(appliedViews);
+        // un chunk puede volver atrás: los ETags solo cambian con lo confirmado
+        afterCommit(() -> {
+            appliedViews.forEach(v -> {
+                etagCache.update(v.productId(), v.updatedAt());
+                merkleTree.update(v.productId(), v.quantity(), v.updatedAt());
+            });
+            changeFeedService.append(appliedViews);
+            // appliedViews es exactamente lo que el UPDATE condicional o el INSERT dejó en la base
+            watermarks.advance(appliedViews);
+        });
+    }
+
+    private static String invalidReason(StockSnapshotDTO item) {
+        if (item == null) {
+            return "ítem nulo";
+        }
+        if (item.getProductId() == null || item.getProductId().isBlank()) {
+            return "productId requerido";
+        }
+        if (item.getProductId().length() > MAX_PRODUCT_ID_LENGTH) {
+            return "productId excede " + MAX_PRODUCT_ID_LENGTH + " caracteres";
+        }
+        if (item.getQuantity() < 0) {
+            return "quantity no puede ser negativa";
+        }
+        return null;
+    }
+
+    private static void reject(char[] outcomes, List<SyncItemRejectionDTO> rejections, int index,
+                               StockSnapshotDTO item, String reason) {
+        outcomes[index] = SyncResultDTO.REJECTED;
+        rejections.add(SyncItemRejectionDTO.builder().index(index)
+                .productId(item == null ? null : item.getProductId()).reason(reason).build());
+    }
+
+    /**
+     * Con central particionado el lote entero se rechaza si trae un SKU de otro nodo: la tienda
+     * tiene un mapa viejo y debe refrescarlo y repartir de nuevo.
+     */
+    private void checkOwnership(List<StockSnapshotDTO> items, List<Integer> valid) {
+        if (!partitionMap.enabled()) {
+            return;
+        }
+        for (int index : valid) {
+            StockSnapshotDTO item = items.get(index);
+            if (!partitionMap.owns(item.getProductId())) {
+                throw new ConflictException("productId=" + item.getProductId() + " pertenece al nodo "
+                        + partitionMap.owner(item.getProductId()) + " (epoch=" + partitionMap.epoch() + ")");
+            }
+        }
+    }
+
+    public MerkleNodesDTO merkleNodes(MerkleQueryDTO query) {
+        return MerkleNodesDTO.builder()
+                .level(query.getLevel())
+                .hashes(merkleTree.nodes(query.getLevel(), query.getIndexes()))
+                .build();
+    }
+
+    public MerkleBucketDTO merkleBuckets(MerkleQueryDTO query) {
+        return MerkleBucketDTO.builder().items(merkleTree.bucketItems(query.getIndexes())).build();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Los campos se llenan solo si el evento está habilitado en alguna grabación.
+     */
+    private void commitDecision(LwwDecisionEvent event, StockSnapshotDTO item, String decision, Instant existingUpdatedAt) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.productId = item.getProductId();
+        event.decision = decision;
+        event.quantity = item.getQuantity();
+        event.incomingUpdatedAt = nonNullInstant(item.getUpdatedAt()).toEpochMilli();
+        event.existingUpdatedAt = existingUpdatedAt == null ? 0 : existingUpdatedAt.toEpochMilli();
+        event.commit();
     }
 
     private Instant nonNullInstant(Instant value) {
@@ -0,0 +1,70 @@
+package com.inventory.central.controller;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.dto.ExportManifestDTO;
+import com.inventory.central.exception.GlobalExceptionHandler;
+import com.inventory.central.repository.StockRepository;
+import com.inventory.central.service.StockExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = CentralServiceApplication.class)
+@AutoConfigureMockMvc
+@Import(GlobalExceptionHandler.class)
+class ExportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StockExportService stockExportService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Test
+    void export_writes_snapshot_matching_manifest() throws Exception {
+        ExportManifestDTO manifest = stockExportService.exportNow();
+
+        byte[] file = Files.readAllBytes(stockExportService.fileOf(manifest));
+        assertThat(manifest.getRows()).isEqualTo(stockRepository.count());
+        assertThat(manifest.getBytes()).isEqualTo(file.length);
+        assertThat(manifest.getSha256()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file)));
+
+        Map<String, Integer> rows = new HashMap<>();
+        try (InputStream in = Files.newInputStream(stockExportService.fileOf(manifest))) {
+            StockExportService.read(in, (productId, quantity, updatedAt) -> rows.put(productId, quantity));
+        }
+        stockRepository.findAll().forEach(s -> assertThat(rows).containsEntry(s.getProductId(), s.getQuantity()));
+    }
+
+    @Test
+    void latest_supports_range_requests() throws Exception {
+        ExportManifestDTO manifest = stockExportService.exportNow();
+
+        mockMvc.perform(get("/export/stock/latest").header(HttpHeaders.RANGE, "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/" + manifest.getBytes()))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + manifest.getSha256() + "\""));
+
+        mockMvc.perform(get("/export/stock/latest/manifest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(manifest.getRows()))
+                .andExpect(jsonPath("$.sha256").value(manifest.getSha256()));
+    }
+}
@@ -12,6 +12,8 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -43,6 +45,14 @@ class ProductControllerTest {
                 .andExpect(content().contentType("application/json"))
                 .andExpect(jsonPath("$[0].id").value("ABC-001"));
     }
-}
 
+    @Test
+    void get_products_not_modified_when_etag_matches() throws Exception {
+        when(productService.matchNotModified("\"3-abc\"")).thenReturn("\"3-abc\"");
 
+        mockMvc.perform(get("/products").header("If-None-Match", "\"3-abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3-abc\""));
+        verify(productService, never()).findAll();
+    }
+}
@@ -1,6 +1,9 @@
 package com.inventory.central.controller;
 
+import com.inventory.central.dto.PartitionMapDTO;
 import com.inventory.central.dto.SyncResultDTO;
+import com.inventory.central.exception.ConflictException;
+import com.inventory.central.service.PartitionMap;
 import com.inventory.central.service.SyncService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,8 +14,11 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,6 +35,9 @@ class SyncControllerTest {
     @MockBean
     private SyncService syncService;
 
+    @MockBean
+    private PartitionMap partitionMap;
+
     @Test
     void post_sync_pull_ok() throws Exception {
         when(syncService.applyBatchLWW(any())).thenReturn(SyncResultDTO.builder().received(2).applied(2).skipped(0).build());
@@ -42,6 +51,28 @@ class SyncControllerTest {
                 .andExpect(jsonPath("$.skipped").value(0));
     }
 
+    @Test
+    void post_sync_pull_for_foreign_partition_is_conflict() throws Exception {
+        when(syncService.applyBatchLWW(any())).thenThrow(new ConflictException("productId=ABC-001 pertenece al nodo 1 (epoch=7)"));
+
+        String body = "{\"items\":[{\"productId\":\"ABC-001\",\"quantity\":10,\"updatedAt\":\"2025-01-01T00:00:00Z\"}]}";
+        mockMvc.perform(post("/sync/pull").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("CONFLICT"));
+    }
+
+    @Test
+    void get_sync_partitions_returns_map() throws Exception {
+        when(partitionMap.toDTO()).thenReturn(PartitionMapDTO.builder()
+                .epoch(42).vnodes(128).self(1).nodes(List.of("http://c0:8080", "http://c1:8080")).build());
+
+        mockMvc.perform(get("/sync/partitions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.epoch").value(42))
+                .andExpect(jsonPath("$.self").value(1))
+                .andExpect(jsonPath("$.nodes[1]").value("http://c1:8080"));
+    }
+
     @Test
     void post_sync_pull_empty_items_is_bad_request() throws Exception {
         String body = "{\n  \"items\": []\n}";
@@ -0,0 +1,51 @@
+package com.inventory.central.integration;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.init.StartupTimings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Arranque en frío hasta ready con un catálogo de bench.skus SKUs sembrado desde archivo
+ * (no corre en surefire). mvn -Dtest=ColdStartBenchmarkIT -Dbench.skus=500000 test
+ */
+class ColdStartBenchmarkIT {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cold_start_with_large_seed() throws Exception {
+        int skus = Integer.getInteger("bench.skus", 500_000);
+        Path seed = dir.resolve("seed.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(seed, StandardCharsets.UTF_8)) {
+            writer.write("productId,price,quantity,name\n");
+            for (int i = 0; i < skus; i++) {
+                writer.write("SKU-" + i + "," + (i % 5000) + ".99," + (i % 300) + ",Producto " + i + "\n");
+            }
+        }
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(CentralServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:coldstart;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "--central.seed.file=" + seed,
+                        "--central.seed.mode=always")) {
+            long wallMs = (System.nanoTime() - start) / 1_000_000;
+            StartupTimings timings = ctx.getBean(StartupTimings.class);
+            Integer rows = ctx.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM stock", Integer.class);
+            System.out.printf("skus=%d wallMs=%d readyMs=%d phases=%s%n", skus, wallMs, timings.readyMs(), timings.phasesMs());
+            assertThat(rows).isEqualTo(skus);
+        }
+    }
+}
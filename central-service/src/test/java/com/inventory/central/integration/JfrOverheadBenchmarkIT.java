@@ -0,0 +1,103 @@
+package com.inventory.central.integration;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.SyncBatchDTO;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Costo de inventory.SyncPullBatch (por batch) e inventory.LwwDecision (por ítem) sobre POST
+ * /sync/pull, con la misma configuración que usa /actuator/jfr (umbral cero), contra una grabación
+ * sin eventos y contra no grabar. No corre en surefire:
+ * mvn -Dtest=JfrOverheadBenchmarkIT -Dbench.rounds=10 test
+ */
+@SpringBootTest(classes = CentralServiceApplication.class, properties = "central.ratelimit.enabled=false")
+@AutoConfigureMockMvc
+class JfrOverheadBenchmarkIT {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long tick;
+
+    /**
+     * batches lotes de items SKUs, cada uno más nuevo que el anterior: todos los ítems se aplican.
+     */
+    private long pullNanos(int batches, int items) throws Exception {
+        List<byte[]> bodies = new ArrayList<>(batches);
+        for (int b = 0; b < batches; b++) {
+            tick++;
+            List<StockSnapshotDTO> snapshot = new ArrayList<>(items);
+            for (int i = 0; i < items; i++) {
+                snapshot.add(StockSnapshotDTO.builder().productId("JFR-" + i).quantity((int) (tick % 100))
+                        .updatedAt(T0.plusMillis(tick)).build());
+            }
+            bodies.add(objectMapper.writeValueAsBytes(SyncBatchDTO.builder().items(snapshot).build()));
+        }
+        long start = System.nanoTime();
+        for (byte[] body : bodies) {
+            mockMvc.perform(post("/sync/pull").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long recordedNanos(int batches, int items, boolean inventoryEvents) throws Exception {
+        try (Recording recording = new Recording()) {
+            if (inventoryEvents) {
+                recording.enable("inventory.SyncPullBatch").withThreshold(Duration.ZERO);
+                recording.enable("inventory.LwwDecision").withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            long nanos = pullNanos(batches, items);
+            recording.stop();
+            return nanos;
+        }
+    }
+
+    @Test
+    void sync_pull_with_and_without_recording() throws Exception {
+        int batches = Integer.getInteger("bench.batches", 50);
+        int items = Integer.getInteger("bench.items", 200);
+        int rounds = Integer.getInteger("bench.rounds", 10);
+        pullNanos(batches, items);
+        recordedNanos(batches, items, true);
+
+        // tandas alternadas para que la deriva del heap y de H2 caiga igual en las tres;
+        // la grabación vacía separa el costo de tener JFR grabando del de los eventos inventory.*
+        long none = 0;
+        long empty = 0;
+        long events = 0;
+        for (int round = 0; round < rounds; round++) {
+            none += pullNanos(batches, items);
+            empty += recordedNanos(batches, items, false);
+            events += recordedNanos(batches, items, true);
+        }
+
+        double total = (double) batches * items * rounds;
+        System.out.printf("items=%d rounds=%d sinGrabar=%.0f items/s grabacionVacia=%.0f items/s conEventos=%.0f items/s "
+                        + "costoGrabacion=%.1f%% costoEventos=%.1f%%%n",
+                batches * items, rounds, total / (none / 1e9), total / (empty / 1e9), total / (events / 1e9),
+                100.0 * (empty - none) / none, 100.0 * (events - empty) / empty);
+    }
+}
@@ -0,0 +1,109 @@
+package com.inventory.central.integration;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.init.StartupTimings;
+import com.inventory.central.service.MappedStockStore;
+import com.inventory.central.service.StockStorage;
+import com.inventory.central.service.StockReadModel;
+import com.inventory.central.service.StockStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * bench.skus SKUs en el archivo mapeado (aplicar, lecturas puntuales, heap retenido, reapertura)
+ * contra la misma carga leída de la tabla stock con findAll. No corre en surefire:
+ * mvn -Dtest=MappedStockStoreBenchmarkIT -Dbench.skus=1000000 test
+ */
+class MappedStockStoreBenchmarkIT {
+
+    private static final Instant T0 = Instant.parse("2025-06-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mapped_store_against_jpa_reload() {
+        int skus = Integer.getInteger("bench.skus", 1_000_000);
+        String file = dir.resolve("stock.mmap").toString();
+
+        long applyNanos;
+        long readNanos;
+        long heapBytes;
+        try (ConfigurableApplicationContext ctx = run("bench-mmap", "--central.storage.engine=mmap", "--central.storage.mmap.file=" + file)) {
+            MappedStockStore store = ctx.getBean(StockStorage.class).mapped();
+            long before = usedHeap();
+            long t = System.nanoTime();
+            for (int i = 0; i < skus; i++) {
+                store.applyLww("SKU-" + i, i % 300, T0.plusMillis(i));
+            }
+            applyNanos = System.nanoTime() - t;
+            heapBytes = usedHeap() - before;
+
+            long found = 0;
+            t = System.nanoTime();
+            for (int i = 0; i < skus; i++) {
+                StockReadModel.StockView v = store.get("SKU-" + (i * 7919L % skus));
+                found += v == null ? 0 : 1;
+            }
+            readNanos = System.nanoTime() - t;
+            assertThat(found).isEqualTo(skus);
+        }
+
+        long reopenMs;
+        long reopenHeapBytes;
+        try (ConfigurableApplicationContext ctx = run("bench-mmap2", "--central.storage.engine=mmap", "--central.storage.mmap.file=" + file)) {
+            reopenMs = ctx.getBean(StartupTimings.class).phasesMs().get("storage-open");
+            // heap ocupado tras el arranque con el archivo lleno: read model, Merkle y feed no lo copian
+            reopenHeapBytes = usedHeap();
+            assertThat(ctx.getBean(StockStorage.class).mapped().size()).isGreaterThanOrEqualTo(skus);
+        }
+
+        long jpaLoadMs;
+        long jpaHeapBytes;
+        try (ConfigurableApplicationContext ctx = run("bench-jpa")) {
+            List<Object[]> rows = new ArrayList<>(10_000);
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            for (int i = 0; i < skus; i++) {
+                rows.add(new Object[]{"SKU-" + i, i % 300, Timestamp.from(T0.plusMillis(i))});
+                if (rows.size() == 10_000 || i == skus - 1) {
+                    jdbc.batchUpdate("INSERT INTO stock (product_id, quantity, updated_at) VALUES (?, ?, ?)", rows);
+                    rows.clear();
+                }
+            }
+            long before = usedHeap();
+            long t = System.nanoTime();
+            List<StockReadModel.StockView> all = ctx.getBean(StockStorage.class).loadAll();
+            jpaLoadMs = (System.nanoTime() - t) / 1_000_000;
+            jpaHeapBytes = usedHeap() - before;
+            assertThat(all.size()).isGreaterThanOrEqualTo(skus);
+        }
+
+        System.out.printf("skus=%d mmapApplyNsPerItem=%.1f mmapGetNsPerItem=%.1f mmapHeapMb=%.1f reopenMs=%d reopenHeapMb=%.1f jpaLoadMs=%d jpaHeapMb=%.1f%n",
+                skus, (double) applyNanos / skus, (double) readNanos / skus, heapBytes / 1048576.0, reopenMs, reopenHeapBytes / 1048576.0,
+                jpaLoadMs, jpaHeapBytes / 1048576.0);
+    }
+
+    private static ConfigurableApplicationContext run(String db, String... args) {
+        List<String> all = new ArrayList<>(List.of("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + db + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL"));
+        all.addAll(List.of(args));
+        return new SpringApplicationBuilder(CentralServiceApplication.class).run(all.toArray(String[]::new));
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,127 @@
+package com.inventory.central.integration;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.service.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ingesta contra 1, 2 y 4 instancias de central en la misma máquina, repartiendo cada lote por
+ * dueño como lo hace la tienda (no corre en surefire). La escala sólo puede ser lineal si hay al
+ * menos tantos núcleos como nodos.
+ * mvn -Dtest=PartitionedIngestBenchmarkIT -Dbench.items=400000 -Dbench.nodes=1,2,4 test
+ */
+class PartitionedIngestBenchmarkIT {
+    private static final int BATCH = 500;
+
+    @Test
+    void ingest_scales_with_partitions() throws Exception {
+        int items = Integer.getInteger("bench.items", 200_000);
+        int clients = Integer.getInteger("bench.clients", 8);
+        String[] counts = System.getProperty("bench.nodes", "1,2,4").split(",");
+        HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+        for (String count : counts) {
+            int nodes = Integer.parseInt(count.trim());
+            List<ConfigurableApplicationContext> contexts = start(nodes);
+            try {
+                List<String> urls = contexts.stream()
+                        .map(c -> "http://localhost:" + c.getEnvironment().getProperty("local.server.port")).toList();
+                ConsistentHashRing ring = new ConsistentHashRing(nodes, 128);
+                long start = System.nanoTime();
+                try (ExecutorService pool = Executors.newFixedThreadPool(clients)) {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int c = 0; c < clients; c++) {
+                        int client = c;
+                        futures.add(pool.submit(() -> {
+                            for (int from = client * BATCH; from < items; from += clients * BATCH) {
+                                push(http, urls, ring, from, Math.min(from + BATCH, items));
+                            }
+                            return null;
+                        }));
+                    }
+                    for (Future<?> f : futures) {
+                        f.get();
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long stored = contexts.stream()
+                        .mapToLong(c -> c.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM stock", Long.class))
+                        .sum();
+                System.out.printf("nodes=%d items=%d clients=%d seconds=%.2f itemsPerSec=%.0f cpus=%d%n",
+                        nodes, items, clients, seconds, items / seconds, Runtime.getRuntime().availableProcessors());
+                assertThat(stored).isEqualTo(items);
+            } finally {
+                contexts.forEach(ConfigurableApplicationContext::close);
+            }
+        }
+    }
+
+    private static void push(HttpClient http, List<String> urls, ConsistentHashRing ring, int from, int to) throws Exception {
+        Map<Integer, StringBuilder> byOwner = new HashMap<>();
+        String ts = Instant.now().toString();
+        for (int i = from; i < to; i++) {
+            String sku = "PART-" + i;
+            StringBuilder body = byOwner.computeIfAbsent(ring.owner(sku), k -> new StringBuilder("{\"items\":["));
+            if (body.charAt(body.length() - 1) != '[') {
+                body.append(',');
+            }
+            body.append("{\"productId\":\"").append(sku).append("\",\"quantity\":").append(i % 100)
+                    .append(",\"updatedAt\":\"").append(ts).append("\"}");
+        }
+        List<CompletableFuture<HttpResponse<String>>> sent = new ArrayList<>();
+        for (Map.Entry<Integer, StringBuilder> e : byOwner.entrySet()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(urls.get(e.getKey()) + "/sync/pull"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(e.getValue().append("]}").toString()))
+                    .build();
+            sent.add(http.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (var f : sent) {
+            assertThat(f.get().statusCode()).isEqualTo(200);
+        }
+    }
+
+    private static List<ConfigurableApplicationContext> start(int nodes) throws Exception {
+        int[] ports = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports[i] = socket.getLocalPort();
+            }
+        }
+        List<String> urls = new ArrayList<>();
+        for (int port : ports) {
+            urls.add("http://localhost:" + port);
+        }
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            contexts.add(new SpringApplicationBuilder(CentralServiceApplication.class).run(
+                    "--server.port=" + ports[i],
+                    "--spring.datasource.url=jdbc:h2:mem:part" + nodes + "_" + i + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                    "--central.seed.mode=none",
+                    "--central.partition.nodes=" + String.join(",", urls),
+                    "--central.partition.self=" + i,
+                    "--logging.level.com.inventory=WARN"));
+        }
+        return contexts;
+    }
+}
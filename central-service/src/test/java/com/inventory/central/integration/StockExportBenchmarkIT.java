@@ -0,0 +1,90 @@
+package com.inventory.central.integration;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.dto.ExportManifestDTO;
+import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.SyncBatchDTO;
+import com.inventory.central.service.StockExportService;
+import com.inventory.central.service.SyncService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exportación de una tabla grande mientras se mide la latencia de /sync/pull (no corre en surefire).
+ * mvn -Dtest=StockExportBenchmarkIT -Dbench.rows=10000000 test
+ */
+@SpringBootTest(classes = CentralServiceApplication.class)
+class StockExportBenchmarkIT {
+
+    @Autowired
+    private StockExportService stockExportService;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void export_does_not_stall_ingest() throws Exception {
+        int rows = Integer.getInteger("bench.rows", 1_000_000);
+        Timestamp seededAt = Timestamp.from(Instant.parse("2025-01-01T00:00:00Z"));
+        List<Object[]> chunk = new ArrayList<>(10_000);
+        for (int i = 0; i < rows; i++) {
+            chunk.add(new Object[]{"EXP-" + i, i % 1000, seededAt});
+            if (chunk.size() == 10_000 || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO stock (product_id, quantity, updated_at) VALUES (?, ?, ?)", chunk);
+                chunk.clear();
+            }
+        }
+
+        long[] baseline = ingestLatencies(200);
+        long exportStart = System.nanoTime();
+        assertThat(stockExportService.startAsync()).isTrue();
+        List<Long> during = new ArrayList<>();
+        while (stockExportService.isRunning()) {
+            for (long l : ingestLatencies(20)) {
+                during.add(l);
+            }
+        }
+        long exportMs = (System.nanoTime() - exportStart) / 1_000_000;
+        ExportManifestDTO manifest = stockExportService.latest();
+
+        long[] withExport = during.stream().mapToLong(Long::longValue).toArray();
+        System.out.printf("rows=%d exportMs=%d bytes=%d ingest p50/p99 us: baseline=%d/%d duringExport=%d/%d (samples=%d)%n",
+                manifest.getRows(), exportMs, manifest.getBytes(),
+                pct(baseline, 50), pct(baseline, 99), pct(withExport, 50), pct(withExport, 99), withExport.length);
+        assertThat(manifest.getRows()).isGreaterThanOrEqualTo(rows);
+    }
+
+    private long[] ingestLatencies(int samples) {
+        long[] out = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            SyncBatchDTO batch = SyncBatchDTO.builder().items(List.of(StockSnapshotDTO.builder()
+                    .productId("ING-" + (i % 50)).quantity(i).updatedAt(Instant.now()).build())).build();
+            long t = System.nanoTime();
+            syncService.applyBatchLWW(batch);
+            out[i] = (System.nanoTime() - t) / 1_000;
+        }
+        return out;
+    }
+
+    private static long pct(long[] values, int p) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p / 100.0 * sorted.length) - 1)];
+    }
+}
@@ -5,6 +5,7 @@ import com.inventory.central.dto.SyncBatchDTO;
 import com.inventory.central.dto.SyncResultDTO;
 import com.inventory.central.entity.StockEntity;
 import com.inventory.central.repository.StockRepository;
+import com.inventory.central.service.StockWatermarkIndex;
 import com.inventory.central.service.SyncService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,10 +28,14 @@ class SyncPullIT {
     @Autowired
     private StockRepository stockRepository;
 
+    @Autowired
+    private StockWatermarkIndex watermarks;
+
     @Test
     void end_to_end_lww_flow() {
         stockRepository.deleteAll();
         stockRepository.save(StockEntity.builder().productId("ABC-001").quantity(10).updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build());
+        watermarks.rebuild();
 
         SyncBatchDTO newer = SyncBatchDTO.builder().items(List.of(
                 StockSnapshotDTO.builder().productId("ABC-001").quantity(15).updatedAt(Instant.parse("2025-02-01T00:00:00Z")).build()
@@ -0,0 +1,80 @@
+package com.inventory.central.integration;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.SyncBatchDTO;
+import com.inventory.central.dto.SyncResultDTO;
+import com.inventory.central.service.SyncService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reenvío de un lote ya aplicado: ítems viejos descartados por el índice de watermarks contra los
+ * mismos ítems resueltos con findById (SKUs sembrados por JDBC, que el índice no conoce).
+ * No corre en surefire: mvn -Dtest=WatermarkIndexBenchmarkIT -Dbench.items=2000 test
+ */
+@SpringBootTest(classes = CentralServiceApplication.class)
+class WatermarkIndexBenchmarkIT {
+
+    private static final Instant SEEDED = Instant.parse("2025-06-01T00:00:00Z");
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stale_replays_skip_the_database() {
+        int items = Integer.getInteger("bench.items", 2000);
+        int rounds = Integer.getInteger("bench.rounds", 10);
+
+        // indexados: aplicados por sync, la marca sube al confirmar
+        syncService.applyBatchLWW(batch("WM-IDX-", items, SEEDED));
+        // no indexados: misma marca en la base pero el índice no los vio
+        List<Object[]> rows = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            rows.add(new Object[]{"WM-DB-" + i, i, Timestamp.from(SEEDED)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stock (product_id, quantity, updated_at) VALUES (?, ?, ?)", rows);
+
+        SyncBatchDTO indexed = batch("WM-IDX-", items, SEEDED.minusSeconds(60));
+        SyncBatchDTO unindexed = batch("WM-DB-", items, SEEDED.minusSeconds(60));
+        for (int i = 0; i < 3; i++) {
+            syncService.applyBatchLWW(indexed);
+            syncService.applyBatchLWW(unindexed);
+        }
+
+        long indexedNanos = 0;
+        long dbNanos = 0;
+        for (int r = 0; r < rounds; r++) {
+            long t = System.nanoTime();
+            SyncResultDTO a = syncService.applyBatchLWW(indexed);
+            indexedNanos += System.nanoTime() - t;
+            t = System.nanoTime();
+            SyncResultDTO b = syncService.applyBatchLWW(unindexed);
+            dbNanos += System.nanoTime() - t;
+            assertThat(a.getSkipped()).isEqualTo(items);
+            assertThat(b.getSkipped()).isEqualTo(items);
+        }
+        System.out.printf("items=%d rounds=%d stale replay us/item: watermarkIndex=%.2f findById=%.2f%n",
+                items, rounds, indexedNanos / 1e3 / rounds / items, dbNanos / 1e3 / rounds / items);
+    }
+
+    private static SyncBatchDTO batch(String prefix, int items, Instant updatedAt) {
+        List<StockSnapshotDTO> list = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            list.add(StockSnapshotDTO.builder().productId(prefix + i).quantity(i).updatedAt(updatedAt).build());
+        }
+        return SyncBatchDTO.builder().items(list).build();
+    }
+}
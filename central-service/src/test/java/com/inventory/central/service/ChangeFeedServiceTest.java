@@ -0,0 +1,107 @@
+package com.inventory.central.service;
+
+import com.inventory.central.dto.ChangeFeedDTO;
+import com.inventory.central.dto.ChangeFeedEntryDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedServiceTest {
+
+    private final ChangeFeedService feed = new ChangeFeedService(mock(StockStorage.class), 3_600_000, 2, 1, new SimpleMeterRegistry());
+
+    private static StockReadModel.StockView view(String productId, int quantity) {
+        return new StockReadModel.StockView(productId, quantity, Instant.parse("2025-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void read_pages_in_sequence_order() {
+        feed.append(List.of(view("ABC-001", 1), view("ABC-002", 2), view("ABC-003", 3)));
+
+        ChangeFeedDTO first = feed.read(0, 10);
+        assertThat(first.getChanges()).extracting(ChangeFeedEntryDTO::getSeq).containsExactly(1L, 2L);
+        assertThat(first.isHasMore()).isTrue();
+
+        ChangeFeedDTO second = feed.read(first.getLastSeq(), 10);
+        assertThat(second.getChanges()).extracting(ChangeFeedEntryDTO::getProductId).containsExactly("ABC-003");
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getHeadSeq()).isEqualTo(3);
+    }
+
+    @Test
+    void compaction_keeps_latest_entry_per_sku() {
+        feed.append(List.of(view("ABC-001", 1), view("ABC-002", 2)));
+        feed.append(List.of(view("ABC-001", 5)));
+
+        int removed = feed.compactOlderThan(Instant.now().plusSeconds(1));
+        assertThat(removed).isEqualTo(1);
+        assertThat(feed.read(0, 10).getChanges()).extracting(ChangeFeedEntryDTO::getSeq).containsExactly(2L, 3L);
+
+        // una entrada nueva reemplaza a la ya compactada del mismo SKU
+        feed.append(List.of(view("ABC-002", 9)));
+        assertThat(feed.read(0, 10).getChanges()).extracting(ChangeFeedEntryDTO::getSeq).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void mapped_storage_feed_is_not_seeded_and_flags_dropped_ranges() {
+        StockStorage storage = mock(StockStorage.class);
+        when(storage.isMapped()).thenReturn(true);
+        ChangeFeedService mappedFeed = new ChangeFeedService(storage, 3_600_000, 10, 1, new SimpleMeterRegistry());
+        mappedFeed.seed();
+        assertThat(mappedFeed.read(0, 10).getHeadSeq()).isZero();
+        verify(storage, never()).loadAll();
+
+        mappedFeed.append(List.of(view("ABC-001", 1), view("ABC-002", 2)));
+        assertThat(mappedFeed.compactOlderThan(Instant.now().plusSeconds(1))).as("no guarda la última por SKU").isEqualTo(2);
+        mappedFeed.append(List.of(view("ABC-001", 5)));
+
+        ChangeFeedDTO stale = mappedFeed.read(1, 10);
+        assertThat(stale.isTruncated()).isTrue();
+        assertThat(stale.getChanges()).extracting(ChangeFeedEntryDTO::getSeq).containsExactly(3L);
+        assertThat(mappedFeed.read(2, 10).isTruncated()).isFalse();
+    }
+
+    @Test
+    void await_completes_on_next_append() {
+        feed.append(List.of(view("ABC-001", 1)));
+        assertThat(feed.awaitAfter(0)).isDone();
+
+        CompletableFuture<Void> waiting = feed.awaitAfter(1);
+        assertThat(waiting).isNotDone();
+        feed.append(List.of(view("ABC-002", 2)));
+        assertThat(waiting).isDone();
+    }
+
+    @Test
+    void slow_waiters_do_not_hold_the_feed_lock() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // continuación síncrona y lenta: corre en el hilo que completa el aviso
+        feed.awaitAfter(0).thenRun(() -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> feed.append(List.of(view("ABC-001", 1))));
+        assertThat(entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture.runAsync(() -> feed.append(List.of(view("ABC-002", 2)))).get(2, TimeUnit.SECONDS);
+        assertThat(feed.read(0, 10).getHeadSeq()).isEqualTo(2);
+        release.countDown();
+        first.get(2, TimeUnit.SECONDS);
+    }
+}
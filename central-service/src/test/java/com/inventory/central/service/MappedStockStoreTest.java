@@ -0,0 +1,117 @@
+package com.inventory.central.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedStockStoreTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void applies_last_write_wins_and_reads_points() {
+        MappedStockStore store = new MappedStockStore(dir.resolve("stock.mmap"), 1024);
+
+        assertThat(store.applyLww("ABC-001", 10, T0)).isEqualTo(MappedStockStore.CREATED);
+        assertThat(store.applyLww("ABC-001", 7, T0.plusNanos(1))).isEqualTo(MappedStockStore.UPDATED);
+        assertThat(store.applyLww("ABC-001", 99, T0)).isEqualTo(MappedStockStore.SKIPPED);
+        assertThat(store.applyLww("ABC-001", 99, T0.plusNanos(1))).as("mismo updatedAt").isEqualTo(MappedStockStore.SKIPPED);
+
+        assertThat(store.get("ABC-001")).isEqualTo(new StockReadModel.StockView("ABC-001", 7, T0.plusNanos(1)));
+        assertThat(store.get("ABC-404")).isNull();
+        assertThat(store.size()).isEqualTo(1);
+        assertThatThrownBy(() -> store.applyLww("ñ".repeat(40), 1, T0)).isInstanceOf(IllegalArgumentException.class);
+        store.close();
+    }
+
+    @Test
+    void grows_and_reopens_by_remapping() {
+        Path file = dir.resolve("stock.mmap");
+        MappedStockStore store = new MappedStockStore(file, 1024);
+        for (int i = 0; i < 5000; i++) {
+            store.applyLww("SKU-" + i, i, T0.plusSeconds(i));
+        }
+        assertThat(store.capacity()).isEqualTo(8192);
+        store.close();
+
+        MappedStockStore reopened = new MappedStockStore(file, 1024);
+        assertThat(reopened.size()).isEqualTo(5000);
+        assertThat(reopened.capacity()).isEqualTo(8192);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(reopened.get("SKU-" + i)).isEqualTo(new StockReadModel.StockView("SKU-" + i, i, T0.plusSeconds(i)));
+        }
+        assertThat(Files.exists(dir.resolve("stock.mmap.grow"))).isFalse();
+        reopened.close();
+    }
+
+    @Test
+    void unclean_shutdown_recounts_and_foreign_files_are_refused() throws Exception {
+        Path file = dir.resolve("stock.mmap");
+        MappedStockStore store = new MappedStockStore(file, 1024);
+        store.applyLww("ABC-001", 1, T0);
+        store.applyLww("ABC-002", 2, T0);
+        store.force();
+        // sin close(): como si el proceso hubiera muerto
+
+        MappedStockStore reopened = new MappedStockStore(file, 1024);
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.get("ABC-002").quantity()).isEqualTo(2);
+        assertThat(reopened.totalQuantity()).isEqualTo(3);
+        reopened.close();
+
+        Path foreign = dir.resolve("foreign.mmap");
+        Files.write(foreign, new byte[8192]);
+        assertThatThrownBy(() -> new MappedStockStore(foreign, 1024)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void aggregates_follow_writes_and_survive_reopen() {
+        Path file = dir.resolve("stock.mmap");
+        MappedStockStore store = new MappedStockStore(file, 1024);
+        store.applyLww("ABC-001", 10, T0);
+        store.applyLww("ABC-002", 0, T0);
+        store.applyLww("ABC-002", 4, T0.plusSeconds(1));
+        store.applyLww("ABC-003", 0, T0);
+        store.applyLww("ABC-001", 99, T0.minusSeconds(1));
+
+        assertThat(store.totalQuantity()).isEqualTo(14);
+        assertThat(store.outOfStockCount()).isEqualTo(1);
+        assertThat(store.modCount()).as("el SKIPPED no cuenta").isEqualTo(4);
+        store.close();
+
+        MappedStockStore reopened = new MappedStockStore(file, 1024);
+        assertThat(reopened.totalQuantity()).isEqualTo(14);
+        assertThat(reopened.outOfStockCount()).isEqualTo(1);
+        reopened.close();
+    }
+
+    @Test
+    void track_delivers_current_state_then_every_change() {
+        MappedStockStore store = new MappedStockStore(dir.resolve("stock.mmap"), 1024);
+        store.applyLww("ABC-001", 10, T0);
+
+        List<String> initial = new ArrayList<>();
+        List<String> changes = new ArrayList<>();
+        store.track((key, len, quantity, nanos) -> initial.add(new String(key, 0, len) + "=" + quantity),
+                (key, created, oldQuantity, oldNanos, quantity, nanos) ->
+                        changes.add(new String(key) + (created ? " +" : " " + oldQuantity + "->") + quantity));
+        store.applyLww("ABC-001", 7, T0.plusSeconds(1));
+        store.applyLww("ABC-001", 1, T0);
+        store.applyLww("ABC-002", 3, T0);
+
+        assertThat(initial).containsExactly("ABC-001=10");
+        assertThat(changes).containsExactly("ABC-001 10->7", "ABC-002 +3");
+        store.close();
+    }
+}
@@ -0,0 +1,127 @@
+package com.inventory.central.service;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.dto.ExportManifestDTO;
+import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.StockSummaryDTO;
+import com.inventory.central.dto.SyncBatchDTO;
+import com.inventory.central.dto.SyncResultDTO;
+import com.inventory.central.repository.StockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = CentralServiceApplication.class, properties = {
+        "central.storage.engine=mmap",
+        "central.storage.mmap.file=${java.io.tmpdir}/central-stock-test-${random.uuid}.mmap",
+        "central.export.dir=${java.io.tmpdir}/central-export-mmap-test-${random.uuid}"
+})
+class MappedStockSyncTest {
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockExportService stockExportService;
+
+    @Autowired
+    private StockMerkleTree merkleTree;
+
+    @Autowired
+    private StockReadModel readModel;
+
+    @Autowired
+    private StockStorage stockStorage;
+
+    @Test
+    void sync_and_point_reads_go_to_the_mapped_file() {
+        assertThat(stockService.getSnapshot("ABC-001").getQuantity()).as("siembra de demo").isEqualTo(10);
+
+        Instant t = Instant.parse("2030-01-01T00:00:00Z");
+        SyncBatchDTO batch = SyncBatchDTO.builder().items(List.of(
+                StockSnapshotDTO.builder().productId("MM-001").quantity(5).updatedAt(t).build(),
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(3).updatedAt(t).build(),
+                StockSnapshotDTO.builder().productId("MM-001").quantity(9).updatedAt(t.minusSeconds(1)).build(),
+                StockSnapshotDTO.builder().productId("é".repeat(40)).quantity(1).updatedAt(t).build()
+        )).build();
+
+        SyncResultDTO result = syncService.applyBatchLWW(batch);
+
+        assertThat(result.getOutcomes()).isEqualTo("AASR");
+        assertThat(stockService.getSnapshot("MM-001").getQuantity()).isEqualTo(5);
+        assertThat(stockService.getSnapshot("ABC-001").getQuantity()).isEqualTo(3);
+        assertThat(stockStorage.mapped().get("MM-001").updatedAt()).isEqualTo(t);
+        assertThat(stockRepository.existsById("MM-001")).as("JPA no se toca").isFalse();
+    }
+
+    @Test
+    void export_reads_the_mapped_file_not_the_table() throws Exception {
+        Instant t = Instant.parse("2031-01-01T00:00:00Z");
+        syncService.applyBatchLWW(SyncBatchDTO.builder().items(List.of(
+                StockSnapshotDTO.builder().productId("MM-EXP").quantity(42).updatedAt(t).build()
+        )).build());
+
+        ExportManifestDTO manifest = stockExportService.exportNow();
+
+        Map<String, Integer> rows = new HashMap<>();
+        try (InputStream in = Files.newInputStream(stockExportService.fileOf(manifest))) {
+            StockExportService.read(in, (productId, quantity, updatedAt) -> rows.put(productId, quantity));
+        }
+        assertThat(manifest.getRows()).isEqualTo(stockStorage.mapped().size());
+        assertThat(rows).hasSize((int) manifest.getRows()).containsEntry("MM-EXP", 42);
+        assertThat(stockRepository.existsById("MM-EXP")).isFalse();
+    }
+
+    @Test
+    void merkle_and_summary_come_from_the_file_without_heap_copies() {
+        Instant t = Instant.parse("2032-01-01T00:00:00Z");
+        syncService.applyBatchLWW(SyncBatchDTO.builder().items(List.of(
+                StockSnapshotDTO.builder().productId("MM-MRK").quantity(0).updatedAt(t).build(),
+                StockSnapshotDTO.builder().productId("ABC-002").quantity(30).updatedAt(t).build()
+        )).build());
+
+        MappedStockStore mapped = stockStorage.mapped();
+        long[] root = {0};
+        long[] total = {0};
+        Map<String, Long> expected = new HashMap<>();
+        mapped.forEach(v -> {
+            long h = StockMerkleTree.itemHash(v.productId(), v.quantity(), v.updatedAt());
+            root[0] += h;
+            total[0] += v.quantity();
+            if (v.productId().equals("MM-MRK")) {
+                expected.put(v.productId(), h);
+            }
+        });
+        assertThat(merkleTree.root()).isEqualTo(root[0]);
+        assertThat(merkleTree.bucketItems(List.of(StockMerkleTree.bucketOf("MM-MRK")))).containsAllEntriesOf(expected);
+
+        StockSummaryDTO summary = stockService.getSummary();
+        assertThat(summary.getSkuCount()).isEqualTo(mapped.size());
+        assertThat(summary.getTotalQuantity()).isEqualTo(total[0]);
+        assertThat(summary.getOutOfStockCount()).isGreaterThanOrEqualTo(1);
+        assertThat(readModel.current().items().size()).as("el read model no copia el archivo").isZero();
+    }
+
+    @Test
+    void unknown_engine_fails_startup() {
+        assertThatThrownBy(() -> new StockStorage(null, "rocksdb", "unused", 1024, null, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("rocksdb");
+    }
+}
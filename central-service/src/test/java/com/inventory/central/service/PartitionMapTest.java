@@ -0,0 +1,67 @@
+package com.inventory.central.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PartitionMapTest {
+
+    @Test
+    void single_node_owns_everything() {
+        PartitionMap map = new PartitionMap("", 0, 128);
+
+        assertThat(map.enabled()).isFalse();
+        assertThat(map.owns("ABC-001")).isTrue();
+        assertThat(map.owner("ABC-001")).isZero();
+    }
+
+    @Test
+    void nodes_split_keys_and_agree_on_owner() {
+        PartitionMap n0 = new PartitionMap("http://c0:8080,http://c1:8080,http://c2:8080", 0, 128);
+        PartitionMap n1 = new PartitionMap("http://c0:8080,http://c1:8080,http://c2:8080", 1, 128);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            String sku = "SKU-" + i;
+            counts.merge(n0.owner(sku), 1, Integer::sum);
+            assertThat(n1.owner(sku)).isEqualTo(n0.owner(sku));
+            assertThat(n0.owns(sku)).isEqualTo(n0.owner(sku) == 0);
+        }
+        assertThat(counts).containsOnlyKeys(0, 1, 2);
+        assertThat(counts.values()).allSatisfy(c -> assertThat(c).isBetween(8_000, 12_000));
+        assertThat(n0.epoch()).isEqualTo(n1.epoch());
+    }
+
+    @Test
+    void adding_a_node_moves_only_its_share() {
+        ConsistentHashRing three = new ConsistentHashRing(3, 128);
+        ConsistentHashRing four = new ConsistentHashRing(4, 128);
+        int moved = 0;
+        for (int i = 0; i < 40_000; i++) {
+            String sku = "SKU-" + i;
+            if (three.owner(sku) != four.owner(sku)) {
+                assertThat(four.owner(sku)).isEqualTo(3);
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(7_000, 13_000);
+    }
+
+    @Test
+    void owners_match_store_ring() {
+        // mismos valores en ConsistentHashRingTest de store-service: tienda y central deben coincidir
+        ConsistentHashRing ring = new ConsistentHashRing(3, 128);
+        assertThat(ConsistentHashRing.hash("ABC-001")).isEqualTo(2889839452061967526L);
+        assertThat(new int[]{ring.owner("ABC-001"), ring.owner("ABC-002"), ring.owner("ABC-003"), ring.owner("SKU-42")})
+                .containsExactly(0, 1, 2, 0);
+    }
+
+    @Test
+    void self_out_of_range_is_rejected() {
+        assertThatThrownBy(() -> new PartitionMap("http://c0:8080,http://c1:8080", 2, 128))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
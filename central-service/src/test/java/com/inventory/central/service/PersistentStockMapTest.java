@@ -0,0 +1,62 @@
+package com.inventory.central.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentStockMapTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void matches_a_hash_map_and_keeps_old_versions_intact() {
+        Map<String, StockReadModel.StockView> expected = new HashMap<>();
+        PersistentStockMap map = PersistentStockMap.empty();
+        Random random = new Random(42);
+        PersistentStockMap half = null;
+        for (int round = 0; round < 40; round++) {
+            PersistentStockMap.Builder builder = map.toBuilder();
+            for (int i = 0; i < 500; i++) {
+                StockReadModel.StockView v = new StockReadModel.StockView("SKU-" + random.nextInt(5000), round, T0.plusSeconds(i));
+                builder.put(v);
+                expected.put(v.productId(), v);
+            }
+            map = builder.build();
+            if (round == 19) {
+                half = map;
+            }
+        }
+
+        PersistentStockMap last = map;
+        assertThat(last.size()).isEqualTo(expected.size());
+        expected.forEach((id, v) -> assertThat(last.get(id)).isEqualTo(v));
+        assertThat(last.get("SKU-404404")).isNull();
+        Map<String, StockReadModel.StockView> iterated = new HashMap<>();
+        last.forEach(v -> iterated.put(v.productId(), v));
+        assertThat(iterated).isEqualTo(expected);
+        // ninguna versión posterior modificó la publicada en la ronda 19
+        half.forEach(v -> assertThat(v.quantity()).isLessThanOrEqualTo(19));
+    }
+
+    @Test
+    void same_hash_code_keys_coexist() {
+        // "Aa" y "BB" tienen el mismo String.hashCode
+        PersistentStockMap map = PersistentStockMap.empty().toBuilder()
+                .put(new StockReadModel.StockView("Aa", 1, T0))
+                .put(new StockReadModel.StockView("BB", 2, T0))
+                .put(new StockReadModel.StockView("AaBB", 3, T0))
+                .build();
+        PersistentStockMap updated = map.toBuilder().put(new StockReadModel.StockView("BB", 5, T0)).build();
+
+        assertThat(updated.size()).isEqualTo(3);
+        assertThat(updated.get("Aa").quantity()).isEqualTo(1);
+        assertThat(updated.get("BB").quantity()).isEqualTo(5);
+        assertThat(map.get("BB").quantity()).isEqualTo(2);
+        assertThat(updated.get("AaAa")).isNull();
+    }
+}
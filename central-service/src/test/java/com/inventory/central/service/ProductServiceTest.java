@@ -0,0 +1,67 @@
+package com.inventory.central.service;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.dto.CatalogDeltaDTO;
+import com.inventory.central.dto.ProductUpsertRequestDTO;
+import com.inventory.central.entity.ProductEntity;
+import com.inventory.central.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = CentralServiceApplication.class)
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void upsert_bumps_catalog_version_and_shows_in_delta() {
+        long before = productService.changesSince(0, 1000).getLastVersion();
+
+        ProductEntity updated = productService.upsert("ABC-002",
+                ProductUpsertRequestDTO.builder().name("Smartphone Samsung Galaxy S23").price(new BigDecimal("849.99")).build());
+        assertThat(updated.getCatalogVersion()).isEqualTo(before + 1);
+
+        CatalogDeltaDTO delta = productService.changesSince(before, 10);
+        assertThat(delta.getItems()).extracting(ProductEntity::getId).containsExactly("ABC-002");
+        assertThat(delta.getLastVersion()).isEqualTo(before + 1);
+        assertThat(delta.isHasMore()).isFalse();
+    }
+
+    @Test
+    void delta_pages_respect_limit() {
+        CatalogDeltaDTO page = productService.changesSince(0, 1);
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.isHasMore()).isTrue();
+    }
+
+    @Test
+    void upsert_during_a_catalog_read_is_not_masked_by_a_stale_etag() {
+        ProductRepository repository = mock(ProductRepository.class);
+        ProductService service = new ProductService(repository, new SimpleMeterRegistry());
+        List<ProductEntity> before = List.of(ProductEntity.builder().id("P-1").updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build());
+        when(repository.findById("P-1")).thenReturn(Optional.of(ProductEntity.builder().id("P-1").build()));
+        when(repository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+        // la lectura ve el catálogo viejo y el upsert confirma antes de que findAll publique
+        when(repository.findAll()).thenAnswer(inv -> {
+            service.upsert("P-1", ProductUpsertRequestDTO.builder().name("nuevo").price(BigDecimal.ONE).build());
+            return before;
+        });
+
+        service.findAll();
+
+        assertThat(service.matchNotModified(ProductService.eTagOf(before))).isNull();
+    }
+}
@@ -0,0 +1,82 @@
+package com.inventory.central.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class StockReadModelTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StockReadModel readModel = new StockReadModel(mock(StockStorage.class), registry);
+
+    @Test
+    void publish_keeps_newest_and_maintains_aggregates() {
+        readModel.publishAfterCommit(List.of(
+                new StockReadModel.StockView("ABC-001", 10, Instant.parse("2025-01-01T00:00:00Z")),
+                new StockReadModel.StockView("ABC-002", 0, Instant.parse("2025-01-01T00:00:00Z"))));
+        StockReadModel.Snapshot first = readModel.current();
+
+        readModel.publishAfterCommit(List.of(
+                new StockReadModel.StockView("ABC-001", 4, Instant.parse("2025-02-01T00:00:00Z")),
+                new StockReadModel.StockView("ABC-002", 7, Instant.parse("2024-12-01T00:00:00Z"))));
+        StockReadModel.Snapshot second = readModel.current();
+
+        assertThat(second.version()).isGreaterThan(first.version());
+        assertThat(second.items().get("ABC-001").quantity()).isEqualTo(4);
+        assertThat(second.items().get("ABC-002").quantity()).isZero();
+        assertThat(second.totalQuantity()).isEqualTo(4);
+        assertThat(second.outOfStockCount()).isEqualTo(1);
+        // el snapshot anterior queda intacto para los lectores que lo tengan
+        assertThat(first.items().get("ABC-001").quantity()).isEqualTo(10);
+        assertThat(registry.get("inventory_read_model_publish_lag_seconds").timer().count()).isEqualTo(2);
+        assertThat(registry.get("inventory_read_model_lag_batches").gauge().value()).isZero();
+    }
+
+    @Test
+    void lag_is_measured_from_the_write_and_counts_batches_until_published() throws Exception {
+        StockReadModel.StockView view = new StockReadModel.StockView("ABC-001", 3, Instant.parse("2025-01-01T00:00:00Z"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            readModel.publishAfterCommit(List.of(view));
+            assertThat(registry.get("inventory_read_model_lag_batches").gauge().value()).isEqualTo(1);
+            assertThat(readModel.current().items().get("ABC-001")).isNull();
+
+            Thread.sleep(50); // commit lento
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCommit();
+                sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(readModel.current().items().get("ABC-001")).isEqualTo(view);
+        assertThat(registry.get("inventory_read_model_lag_batches").gauge().value()).isZero();
+        assertThat(registry.get("inventory_read_model_publish_lag_seconds").timer().max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void rolled_back_batch_is_not_published_and_leaves_no_lag() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            readModel.publishAfterCommit(List.of(new StockReadModel.StockView("ABC-009", 1, Instant.parse("2025-01-01T00:00:00Z"))));
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(readModel.current().items().get("ABC-009")).isNull();
+        assertThat(registry.get("inventory_read_model_lag_batches").gauge().value()).isZero();
+        assertThat(registry.get("inventory_read_model_publish_lag_seconds").timer().count()).isZero();
+    }
+}
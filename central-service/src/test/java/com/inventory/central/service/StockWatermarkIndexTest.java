@@ -0,0 +1,55 @@
+package com.inventory.central.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockWatermarkIndexTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private static StockReadModel.StockView view(String productId, Instant updatedAt) {
+        return new StockReadModel.StockView(productId, 1, updatedAt);
+    }
+
+    @Test
+    void stale_means_not_newer_than_the_mark_and_marks_never_go_back() {
+        StockWatermarkIndex index = new StockWatermarkIndex(null, true, new SimpleMeterRegistry());
+        assertThat(index.isStale("ABC-001", T0)).as("sin marca va a la base").isFalse();
+
+        index.advance(List.of(view("ABC-001", T0.plusNanos(5))));
+        index.advance(List.of(view("ABC-001", T0)));
+
+        assertThat(index.watermark("ABC-001")).isEqualTo(T0.plusNanos(5));
+        assertThat(index.isStale("ABC-001", T0.plusNanos(5))).isTrue();
+        assertThat(index.isStale("ABC-001", T0.plusNanos(6))).isFalse();
+        assertThat(index.isStale("ABC-001", Instant.EPOCH)).isTrue();
+    }
+
+    @Test
+    void grows_past_initial_capacity_keeping_every_mark() {
+        StockWatermarkIndex index = new StockWatermarkIndex(null, true, new SimpleMeterRegistry());
+        List<StockReadModel.StockView> views = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            views.add(view("SKU-" + i, T0.plusSeconds(i)));
+        }
+        index.advance(views);
+
+        assertThat(index.size()).isEqualTo(5000);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(index.watermark("SKU-" + i)).isEqualTo(T0.plusSeconds(i));
+        }
+    }
+
+    @Test
+    void disabled_never_reports_stale() {
+        StockWatermarkIndex index = new StockWatermarkIndex(null, false, new SimpleMeterRegistry());
+        index.advance(List.of(view("ABC-001", T0)));
+        assertThat(index.isStale("ABC-001", Instant.EPOCH)).isFalse();
+    }
+}
@@ -0,0 +1,49 @@
+package com.inventory.central.service;
+
+import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.SyncResultDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyncBatchDedupTest {
+
+    private static final List<StockSnapshotDTO> ITEMS = List.of(
+            StockSnapshotDTO.builder().productId("ABC-001").quantity(1).updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build());
+
+    @Test
+    void keeps_last_batches_per_store() {
+        SyncBatchDedup dedup = new SyncBatchDedup(2);
+        SyncResultDTO result = SyncResultDTO.builder().received(3).applied(2).skipped(1).build();
+
+        dedup.record("s1", 1, ITEMS, result);
+        dedup.record("s1", 2, ITEMS, result);
+        dedup.record("s1", 3, ITEMS, result);
+        dedup.record("s2", 1, ITEMS, result);
+
+        assertThat(dedup.seen("s1", 1, ITEMS)).isNull();
+        assertThat(dedup.seen("s1", 3, ITEMS)).isEqualTo(result);
+        assertThat(dedup.seen("s2", 1, ITEMS)).isEqualTo(result);
+        assertThat(dedup.seen("s3", 1, ITEMS)).isNull();
+    }
+
+    @Test
+    void same_seq_with_different_items_is_not_a_replay() {
+        SyncBatchDedup dedup = new SyncBatchDedup(8);
+        SyncResultDTO result = SyncResultDTO.builder().received(1).applied(1).build();
+        dedup.record("s1", 5, ITEMS, result);
+
+        List<StockSnapshotDTO> other = List.of(
+                StockSnapshotDTO.builder().productId("ABC-002").quantity(1).updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build());
+        List<StockSnapshotDTO> otherQuantity = List.of(
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(2).updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build());
+
+        assertThat(dedup.seen("s1", 5, ITEMS)).isEqualTo(result);
+        assertThat(dedup.seen("s1", 5, other)).isNull();
+        assertThat(dedup.seen("s1", 5, otherQuantity)).isNull();
+        assertThat(dedup.seen("s1", 5, List.of())).isNull();
+    }
+}
@@ -0,0 +1,127 @@
+package com.inventory.central.service;
+
+import com.example.centralservice.CentralServiceApplication;
+import com.inventory.central.dto.StockSnapshotDTO;
+import com.inventory.central.dto.SyncBatchDTO;
+import com.inventory.central.dto.SyncResultDTO;
+import com.inventory.central.entity.StockEntity;
+import com.inventory.central.repository.StockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sin @Transactional: cada lote confirma en su propia transacción, como con la ventana de push.
+ */
+@SpringBootTest(classes = CentralServiceApplication.class)
+class SyncServiceConcurrencyTest {
+
+    private static final Instant T0 = Instant.parse("2030-06-01T00:00:00Z");
+    private static final int SKUS = 20;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockWatermarkIndex watermarks;
+
+    @Test
+    void concurrent_batches_with_the_same_skus_keep_the_newest_write() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 30; round++) {
+                String prefix = "RACE-" + round + "-";
+                // la mitad de las rondas parte de filas existentes y la otra mitad compite por el alta
+                if (round % 2 == 0) {
+                    syncService.applyBatchLWW(batch(prefix, 0, T0));
+                }
+                CyclicBarrier start = new CyclicBarrier(2);
+                CompletableFuture<SyncResultDTO> older = CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return syncService.applyBatchLWW(batch(prefix, 1, T0.plusSeconds(1)));
+                }, pool);
+                CompletableFuture<SyncResultDTO> newer = CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return syncService.applyBatchLWW(batch(prefix, 2, T0.plusSeconds(2)));
+                }, pool);
+
+                assertThat(older.get(10, TimeUnit.SECONDS).getRejected()).isZero();
+                assertThat(newer.get(10, TimeUnit.SECONDS).getApplied()).as("el más nuevo siempre se aplica").isEqualTo(SKUS);
+                for (int i = 0; i < SKUS; i++) {
+                    StockEntity row = stockRepository.findById(prefix + i).orElseThrow();
+                    assertThat(row.getQuantity()).as("ronda %d sku %d", round, i).isEqualTo(2);
+                    assertThat(row.getUpdatedAt()).isEqualTo(T0.plusSeconds(2));
+                    assertThat(watermarks.watermark(prefix + i)).as("la marca sigue a la base").isEqualTo(row.getUpdatedAt());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void watermark_never_passes_the_persisted_value() throws Exception {
+        String sku = "WM-RACE";
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 1; round <= 20; round++) {
+                Instant older = T0.plusSeconds(round * 10L);
+                Instant newer = older.plusSeconds(1);
+                CyclicBarrier start = new CyclicBarrier(2);
+                CompletableFuture<?> a = CompletableFuture.runAsync(() -> {
+                    await(start);
+                    syncService.applyBatchLWW(single(sku, 1, newer));
+                }, pool);
+                CompletableFuture<?> b = CompletableFuture.runAsync(() -> {
+                    await(start);
+                    syncService.applyBatchLWW(single(sku, 2, older));
+                }, pool);
+                CompletableFuture.allOf(a, b).get(10, TimeUnit.SECONDS);
+
+                Instant persisted = stockRepository.findById(sku).orElseThrow().getUpdatedAt();
+                assertThat(persisted).isEqualTo(newer);
+                assertThat(watermarks.watermark(sku)).isEqualTo(persisted);
+            }
+            // la marca no quedó adelantada: un valor más nuevo sigue entrando
+            SyncResultDTO repush = syncService.applyBatchLWW(single(sku, 5, T0.plusSeconds(1_000)));
+            assertThat(repush.getApplied()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static SyncBatchDTO single(String productId, int quantity, Instant updatedAt) {
+        return SyncBatchDTO.builder().items(List.of(
+                StockSnapshotDTO.builder().productId(productId).quantity(quantity).updatedAt(updatedAt).build())).build();
+    }
+
+    private static SyncBatchDTO batch(String prefix, int quantity, Instant updatedAt) {
+        List<StockSnapshotDTO> items = new ArrayList<>(SKUS);
+        for (int i = 0; i < SKUS; i++) {
+            items.add(StockSnapshotDTO.builder().productId(prefix + i).quantity(quantity).updatedAt(updatedAt).build());
+        }
+        return SyncBatchDTO.builder().items(items).build();
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -5,14 +5,21 @@ import com.inventory.central.dto.SyncBatchDTO;
 import com.inventory.central.dto.SyncResultDTO;
 import com.inventory.central.entity.StockEntity;
 import com.inventory.central.repository.StockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import com.example.centralservice.CentralServiceApplication;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,6 +34,15 @@ class SyncServiceTest {
     @Autowired
     private StockRepository stockRepository;
 
+    @Autowired
+    private SyncBatchDedup batchDedup;
+
+    @Autowired
+    private StockWatermarkIndex watermarks;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setup() {
         stockRepository.deleteAll();
@@ -35,6 +51,8 @@ class SyncServiceTest {
                 .quantity(10)
                 .updatedAt(Instant.parse("2025-01-01T00:00:00Z"))
                 .build());
+        // el seed de arranque dejó otras marcas; el índice tiene que seguir a la base
+        watermarks.rebuild();
     }
 
     @Test
@@ -50,6 +68,43 @@ class SyncServiceTest {
         assertThat(updated.getUpdatedAt()).isEqualTo(Instant.parse("2025-02-01T00:00:00Z"));
     }
 
+    @Test
+    void replayed_batch_returns_stored_result_without_applying() {
+        SyncBatchDTO batch = SyncBatchDTO.builder().storeId("store-test").batchSeq(7L).items(List.of(
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(99).updatedAt(Instant.parse("2025-03-01T00:00:00Z")).build()
+        )).build();
+        batchDedup.record("store-test", 7L, batch.getItems(), SyncResultDTO.builder().received(1).applied(1).skipped(0).build());
+
+        SyncResultDTO result = syncService.applyBatchLWW(batch);
+
+        assertThat(result.isDuplicate()).isTrue();
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(stockRepository.findById("ABC-001").orElseThrow().getQuantity()).isEqualTo(10);
+
+        batch.setBatchSeq(8L);
+        SyncResultDTO fresh = syncService.applyBatchLWW(batch);
+        assertThat(fresh.isDuplicate()).isFalse();
+        assertThat(stockRepository.findById("ABC-001").orElseThrow().getQuantity()).isEqualTo(99);
+    }
+
+    @Test
+    void same_batch_seq_with_other_items_is_applied_not_replayed() {
+        SyncBatchDTO first = SyncBatchDTO.builder().storeId("store-test").batchSeq(9L).items(List.of(
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(11).updatedAt(Instant.parse("2025-03-01T00:00:00Z")).build()
+        )).build();
+        syncService.applyBatchLWW(first);
+
+        // otro sub-lote bajo el mismo (storeId, batchSeq), como tras repartir de nuevo por un 409
+        SyncBatchDTO resplit = SyncBatchDTO.builder().storeId("store-test").batchSeq(9L).items(List.of(
+                StockSnapshotDTO.builder().productId("RESPLIT-1").quantity(4).updatedAt(Instant.parse("2025-03-01T00:00:00Z")).build()
+        )).build();
+        SyncResultDTO result = syncService.applyBatchLWW(resplit);
+
+        assertThat(result.isDuplicate()).isFalse();
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(stockRepository.findById("RESPLIT-1")).isPresent();
+    }
+
     @Test
     void skipped_when_incoming_is_older() {
         SyncBatchDTO batch = SyncBatchDTO.builder().items(List.of(
@@ -62,6 +117,22 @@ class SyncServiceTest {
         assertThat(existing.getQuantity()).isEqualTo(10);
     }
 
+    @Test
+    void stale_items_are_skipped_by_the_watermark_index() {
+        double before = meterRegistry.counter("inventory_sync_pull_index_skipped_total").count();
+        SyncBatchDTO batch = SyncBatchDTO.builder().items(List.of(
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(1).updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build(),
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(2).updatedAt(Instant.parse("2024-06-01T00:00:00Z")).build(),
+                StockSnapshotDTO.builder().productId("ABC-555").quantity(3).updatedAt(Instant.parse("2024-06-01T00:00:00Z")).build()
+        )).build();
+
+        SyncResultDTO result = syncService.applyBatchLWW(batch);
+
+        assertThat(result.getOutcomes()).isEqualTo("SSA");
+        assertThat(meterRegistry.counter("inventory_sync_pull_index_skipped_total").count() - before).isEqualTo(2);
+        assertThat(stockRepository.findById("ABC-001").orElseThrow().getQuantity()).isEqualTo(10);
+    }
+
     @Test
     void create_when_not_exists() {
         SyncBatchDTO batch = SyncBatchDTO.builder().items(List.of(
@@ -91,6 +162,32 @@ class SyncServiceTest {
         assertThat(result.getSkipped()).isEqualTo(1);
     }
 
+    @Test
+    void invalid_items_are_rejected_with_reason_and_the_rest_is_applied() {
+        Instant t = Instant.parse("2025-02-01T00:00:00Z");
+        SyncBatchDTO batch = SyncBatchDTO.builder().items(Arrays.asList(
+                StockSnapshotDTO.builder().productId("ABC-777").quantity(5).updatedAt(t).build(),
+                StockSnapshotDTO.builder().productId(null).quantity(1).updatedAt(t).build(),
+                StockSnapshotDTO.builder().productId("X".repeat(65)).quantity(1).updatedAt(t).build(),
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(3).updatedAt(Instant.parse("2024-12-01T00:00:00Z")).build(),
+                StockSnapshotDTO.builder().productId("ABC-778").quantity(-1).updatedAt(t).build(),
+                null
+        )).build();
+
+        SyncResultDTO result = syncService.applyBatchLWW(batch);
+
+        assertThat(result.getReceived()).isEqualTo(6);
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getOutcomes()).isEqualTo("ARRSRR");
+        assertThat(result.getRejections()).extracting(r -> r.getIndex() + ":" + r.getReason()).containsExactly(
+                "1:productId requerido", "2:productId excede 64 caracteres",
+                "4:quantity no puede ser negativa", "5:ítem nulo");
+        assertThat(stockRepository.findById("ABC-777").orElseThrow().getQuantity()).isEqualTo(5);
+        assertThat(stockRepository.existsById("ABC-778")).isFalse();
+    }
+
     @Test
     void same_timestamp_treated_as_skipped() {
         SyncBatchDTO batch = SyncBatchDTO.builder().items(List.of(
@@ -102,6 +199,27 @@ class SyncServiceTest {
         StockEntity existing = stockRepository.findById("ABC-001").orElseThrow();
         assertThat(existing.getQuantity()).isEqualTo(10);
     }
-}
 
+    @Test
+    void lww_decisions_are_recorded_as_jfr_events(@TempDir Path dir) throws Exception {
+        SyncBatchDTO batch = SyncBatchDTO.builder().items(List.of(
+                StockSnapshotDTO.builder().productId("ABC-001").quantity(15).updatedAt(Instant.parse("2024-12-01T00:00:00Z")).build(),
+                StockSnapshotDTO.builder().productId("JFR-NEW").quantity(4).updatedAt(Instant.parse("2025-02-01T00:00:00Z")).build()
+        )).build();
+        Path file = dir.resolve("lww.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("inventory.LwwDecision");
+            recording.start();
+            syncService.applyBatchLWW(batch);
+            recording.stop();
+            recording.dump(file);
+        }
 
+        List<RecordedEvent> decisions = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("inventory.LwwDecision"))
+                .toList();
+        assertThat(decisions).extracting(e -> e.getString("productId") + ":" + e.getString("decision"))
+                .containsExactly("ABC-001:skipped", "JFR-NEW:created");
+        assertThat(decisions.get(0).getInstant("existingUpdatedAt")).isEqualTo(Instant.parse("2025-01-01T00:00:00Z"));
+    }
+}
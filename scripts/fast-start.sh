@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Construye el modo de arranque rápido de un servicio: jar con beans AOT (perfil fast-start),
+# extraído con -Djarmode=tools y archivo AppCDS generado en una corrida de entrenamiento.
+#
+#   scripts/fast-start.sh store-service|central-service
+#
+# Resultado en <servicio>/target/fast-start/. Ejecutar con:
+#   java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar <servicio>-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+SERVICE="${1:?uso: $0 store-service|central-service}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MODULE="$ROOT/$SERVICE"
+JAR="$SERVICE-0.0.1-SNAPSHOT.jar"
+OUT="$MODULE/target/fast-start"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+if [[ "${SKIP_BUILD:-false}" != "true" ]]; then
+  (cd "$MODULE" && ./mvnw -q -B -Pfast-start -DskipTests package)
+fi
+
+rm -rf "$OUT"
+"$JAVA" -Djarmode=tools -jar "$MODULE/target/$JAR" extract --destination "$OUT"
+
+# Entrenamiento: levanta el contexto completo (AOT incluido) y sale al terminar el refresh,
+# antes de los schedulers. La JVM vuelca las clases cargadas al archivo CDS.
+(cd "$OUT" && "$JAVA" -XX:ArchiveClassesAtExit=app.jsa \
+  -Dspring.aot.enabled=true \
+  -Dspring.context.exit=onRefresh \
+  -jar "$JAR" --server.port=0 > training.log 2>&1) || {
+  echo "falló la corrida de entrenamiento, ver $OUT/training.log" >&2
+  exit 1
+}
+
+echo "listo: $OUT"
+echo "  cd $OUT && java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar $JAR"
@@ -0,0 +1,113 @@
+#!/usr/bin/env bash
+# Benchmark de arranque: modo normal (jar ejecutable) contra modo rápido (AOT + AppCDS).
+# Mide, por corrida, el tiempo hasta el primer /health 200 y hasta la primera escritura OK
+# (store: POST /stock/adjust, central: POST /sync/pull). Después de cada corrida compara las
+# respuestas de un recorrido fijo entre ambos modos: deben ser idénticas salvo timestamps.
+#
+#   scripts/fast-start.sh store-service          # una vez, genera target/fast-start
+#   scripts/startup-benchmark.sh store-service 5
+#
+# Variables: NORMAL_CMD / FAST_CMD reemplazan los comandos de arranque, PORT el puerto.
+# El modo rápido corre dentro de FAST_DIR: el archivo CDS solo vale con el mismo classpath
+# (rutas relativas incluidas) que usó la corrida de entrenamiento.
+set -euo pipefail
+
+SERVICE="${1:?uso: $0 store-service|central-service [corridas]}"
+RUNS="${2:-5}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MODULE="$ROOT/$SERVICE"
+JAR="$SERVICE-0.0.1-SNAPSHOT.jar"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+PORT="${PORT:-18090}"
+BASE="http://localhost:$PORT"
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+NORMAL_CMD="${NORMAL_CMD:-$JAVA -jar $MODULE/target/$JAR}"
+FAST_DIR="${FAST_DIR:-$MODULE/target/fast-start}"
+FAST_CMD="${FAST_CMD:-$JAVA -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar $JAR}"
+# la tienda no debe intentar empujar a central durante el benchmark
+ARGS="--server.port=$PORT --store.sync.enabled=false --store.sync.reconcile.enabled=false --store.sync.catalog.enabled=false"
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+first_write() {
+  if [[ "$SERVICE" == "store-service" ]]; then
+    curl -sf -o /dev/null -H 'Content-Type: application/json' \
+      -d '{"productId":"ABC-001","delta":1}' "$BASE/stock/adjust"
+  else
+    curl -sf -o /dev/null -H 'Content-Type: application/json' \
+      -d '{"items":[{"productId":"ABC-001","quantity":11,"updatedAt":"2030-01-01T00:00:00Z"}]}' "$BASE/sync/pull"
+  fi
+}
+
+# Recorrido fijo de lectura/escritura; se normalizan timestamps y traceIds.
+walk() {
+  local paths
+  if [[ "$SERVICE" == "store-service" ]]; then
+    paths="/health /products /stock/ABC-001 /stock/NOPE-404"
+  else
+    paths="/health /products /stock/ABC-001 /stock/summary /stock/NOPE-404"
+  fi
+  for path in $paths; do
+    echo "== GET $path"
+    curl -s -w '\nstatus=%{http_code}\n' "$BASE$path"
+  done
+  if [[ "$SERVICE" == "store-service" ]]; then
+    echo "== POST /stock/allocate"
+    curl -s -w '\nstatus=%{http_code}\n' -H 'Content-Type: application/json' \
+      -d '{"orderId":"bench-1","productId":"ABC-002","quantity":2}' "$BASE/stock/allocate"
+    echo "== POST /stock/adjust (inválido)"
+    curl -s -w '\nstatus=%{http_code}\n' -H 'Content-Type: application/json' -d '{"delta":1}' "$BASE/stock/adjust"
+  fi
+}
+
+# Los cuerpos de error son mapas sin orden fijo: se comparan las líneas ordenadas por sección.
+normalize() {
+  sed -E -e 's/"(updatedAt|expiresAt|createdAt|timestamp|traceId|generatedAt)" ?: ?"[^"]*"/"\1":"*"/g' \
+         -e 's/"(updatedAt|expiresAt|createdAt|timestamp)" ?: ?[0-9.]+/"\1":"*"/g' \
+         -e 's/,$//' |
+    awk '/^== /{n++} {printf "%04d %s\n", n, $0}' | LC_ALL=C sort
+}
+
+run_once() {
+  local mode="$1" cmd="$2" dir="$3" run="$4"
+  local start health write pid
+  start=$(now_ms)
+  # shellcheck disable=SC2086
+  (cd "$dir" && exec $cmd $ARGS) > "$WORK/$mode-$run.log" 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "$BASE/health"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "el servicio terminó antes de responder, ver log:" >&2
+      tail -20 "$WORK/$mode-$run.log" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  health=$(( $(now_ms) - start ))
+  until first_write; do sleep 0.02; done
+  write=$(( $(now_ms) - start ))
+  walk | normalize > "$WORK/$mode-$run.walk"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$health $write" >> "$WORK/$mode.times"
+  printf '%-6s run=%d health_ms=%d first_write_ms=%d\n' "$mode" "$run" "$health" "$write"
+}
+
+median() { sort -n | awk '{a[NR]=$1} END {print (NR % 2) ? a[(NR+1)/2] : int((a[NR/2] + a[NR/2+1]) / 2)}'; }
+
+for run in $(seq 1 "$RUNS"); do
+  run_once normal "$NORMAL_CMD" "$MODULE" "$run"
+  run_once fast "$FAST_CMD" "$FAST_DIR" "$run"
+  if ! diff -u "$WORK/normal-$run.walk" "$WORK/fast-$run.walk"; then
+    echo "ERROR: el modo rápido respondió distinto al normal (corrida $run)" >&2
+    exit 1
+  fi
+done
+
+for mode in normal fast; do
+  printf '%-6s median health_ms=%s first_write_ms=%s (runs=%d)\n' "$mode" \
+    "$(cut -d' ' -f1 "$WORK/$mode.times" | median)" "$(cut -d' ' -f2 "$WORK/$mode.times" | median)" "$RUNS"
+done
+echo "respuestas idénticas en ambos modos"
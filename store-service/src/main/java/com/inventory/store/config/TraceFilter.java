@@ -1,5 +1,7 @@
 package com.inventory.store.config;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,20 +9,58 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * traceId por request y log de acceso. Si store.profiling.requestResources está activo mide
+ * además CPU del hilo y bytes asignados por request con ThreadMXBean y los registra en
+ * inventory_http_server_cpu_seconds y inventory_http_server_allocated_bytes{method,uri,status},
+ * con uri = plantilla de la ruta. Solo cuenta el hilo del request (no el trabajo en otros hilos).
+ */
 @Component
 public class TraceFilter extends OncePerRequestFilter {
 	private static final Logger log = LoggerFactory.getLogger(TraceFilter.class);
+	private static final Logger accessLog = LoggerFactory.getLogger("inventory.access");
+
+	private final com.sun.management.ThreadMXBean threads;
+	private final boolean cpu;
+	private final boolean allocation;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, DistributionSummary[]> summaries = new ConcurrentHashMap<>();
+
+	@Autowired
+	public TraceFilter(@Value("${store.profiling.requestResources:true}") boolean enabled, ObjectProvider<MeterRegistry> meterRegistry) {
+		// los slices @WebMvcTest no traen MeterRegistry: sin registro no se mide
+		this(enabled, meterRegistry.getIfAvailable());
+	}
+
+	public TraceFilter(boolean enabled, MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.threads = enabled && meterRegistry != null && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx ? mx : null;
+		this.cpu = threads != null && threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+		this.allocation = threads != null && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+		if (enabled && meterRegistry != null && !(cpu || allocation)) {
+			log.warn("la JVM no mide CPU ni asignación por hilo; métricas de recursos por request desactivadas");
+		}
+	}
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
 		long start = System.currentTimeMillis();
+		long cpuStart = cpu ? threads.getCurrentThreadCpuTime() : 0;
+		long allocatedStart = allocation ? threads.getCurrentThreadAllocatedBytes() : 0;
 		String incomingTraceId = request.getHeader("X-Trace-Id");
 		String traceId = (incomingTraceId == null || incomingTraceId.isBlank()) ? UUID.randomUUID().toString() : incomingTraceId;
 		MDC.put("traceId", traceId);
@@ -29,9 +69,41 @@ public class TraceFilter extends OncePerRequestFilter {
 			filterChain.doFilter(request, response);
 		} finally {
 			long durationMs = System.currentTimeMillis() - start;
-			log.info("method={} path={} status={} durationMs={}", request.getMethod(), request.getRequestURI(), response.getStatus(), durationMs);
+			accessLog.atInfo().addKeyValue("traceId", traceId).addKeyValue("method", request.getMethod())
+					.addKeyValue("path", request.getRequestURI()).addKeyValue("status", response.getStatus())
+					.addKeyValue("durationMs", durationMs).log("request");
 			MDC.remove("traceId");
+			if (cpu || allocation) {
+				// se lee antes de armar tags para no contarlos en el request
+				long cpuNanos = cpu ? threads.getCurrentThreadCpuTime() - cpuStart : 0;
+				long allocated = allocation ? threads.getCurrentThreadAllocatedBytes() - allocatedStart : 0;
+				DistributionSummary[] meters = meters(request, response.getStatus());
+				if (cpu) {
+					meters[0].record(cpuNanos / 1e9);
+				}
+				if (allocation) {
+					meters[1].record(allocated);
+				}
+			}
 		}
 	}
-}
 
+	private DistributionSummary[] meters(HttpServletRequest request, int status) {
+		// sin plantilla (404, recursos estáticos) se agrupa en UNKNOWN para no abrir una serie por path
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+		String method = request.getMethod();
+		return summaries.computeIfAbsent(method + ' ' + uri + ' ' + status, k -> new DistributionSummary[] {
+				DistributionSummary.builder("inventory_http_server_cpu_seconds")
+						.baseUnit("seconds")
+						.tags("method", method, "uri", uri, "status", String.valueOf(status))
+						.publishPercentileHistogram(true)
+						.register(meterRegistry),
+				DistributionSummary.builder("inventory_http_server_allocated_bytes")
+						.baseUnit("bytes")
+						.tags("method", method, "uri", uri, "status", String.valueOf(status))
+						.publishPercentileHistogram(true)
+						.register(meterRegistry)
+		});
+	}
+}
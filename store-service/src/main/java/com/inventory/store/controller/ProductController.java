@@ -2,8 +2,11 @@ package com.inventory.store.controller;
 
 import com.inventory.store.entity.ProductEntity;
 import com.inventory.store.service.ProductService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,8 +22,12 @@ public class ProductController {
 	}
 
 	@GetMapping
-	public ResponseEntity<List<ProductEntity>> getAll() {
-		return ResponseEntity.ok(productService.findAll());
+	public ResponseEntity<List<ProductEntity>> getAll(@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		String current = productService.matchNotModified(ifNoneMatch);
+		if (current != null) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+		}
+		List<ProductEntity> products = productService.findAll();
+		return ResponseEntity.ok().eTag(ProductService.eTagOf(products)).body(products);
 	}
 }
-
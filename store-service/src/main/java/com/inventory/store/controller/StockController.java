@@ -1,10 +1,18 @@
 package com.inventory.store.controller;
 
+import com.inventory.store.dto.OrderReservationsDTO;
 import com.inventory.store.dto.StockAdjustRequestDTO;
 import com.inventory.store.dto.StockAllocateRequestDTO;
 import com.inventory.store.dto.StockAllocationResponseDTO;
+import com.inventory.store.dto.StockAvailabilityDTO;
+import com.inventory.store.dto.StockAvailabilityRequestDTO;
+import com.inventory.store.dto.StockImportResultDTO;
 import com.inventory.store.dto.StockSnapshotDTO;
+import com.inventory.store.service.StockETagCache;
+import com.inventory.store.service.StockImportService;
 import com.inventory.store.service.StockService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,20 +22,44 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/stock")
 public class StockController {
 	private final StockService stockService;
+	private final StockImportService stockImportService;
 
-	public StockController(StockService stockService) {
+	public StockController(StockService stockService, StockImportService stockImportService) {
 		this.stockService = stockService;
+		this.stockImportService = stockImportService;
 	}
 
+	/**
+	 * GET /stock/{productId}
+	 * Responde ETag fuerte (versión de la fila). Con If-None-Match vigente devuelve 304 sin leer la base.
+	 */
 	@GetMapping("/{productId}")
-	public ResponseEntity<StockSnapshotDTO> getSnapshot(@PathVariable String productId) {
-		return ResponseEntity.ok(stockService.getSnapshot(productId));
+	public ResponseEntity<StockSnapshotDTO> getSnapshot(@PathVariable String productId,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		String current = stockService.matchNotModified(productId, ifNoneMatch);
+		if (current != null) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+		}
+		StockSnapshotDTO dto = stockService.getSnapshot(productId);
+		return ResponseEntity.ok().eTag(StockETagCache.eTagOf(dto.getVersion())).body(dto);
+	}
+
+	/**
+	 * POST /stock/availability
+	 * Ejemplo: {"productIds":["ABC-001","NOPE-999"]} → una entrada por SKU, en el mismo orden.
+	 */
+	@PostMapping("/availability")
+	public ResponseEntity<List<StockAvailabilityDTO>> availability(@Valid @RequestBody StockAvailabilityRequestDTO request) {
+		return ResponseEntity.ok(stockService.getAvailability(request.getProductIds()));
 	}
 
 	/**
@@ -39,11 +71,24 @@ public class StockController {
 	 * - Error 404: {"productId":"NOPE-999","delta":1}
 	 */
 	@PostMapping("/adjust")
-	public ResponseEntity<StockSnapshotDTO> adjust(@Valid @RequestBody StockAdjustRequestDTO request) {
-		StockSnapshotDTO dto = stockService.adjust(request.getProductId(), request.getDelta());
+	public ResponseEntity<StockSnapshotDTO> adjust(@Valid @RequestBody StockAdjustRequestDTO request,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		StockSnapshotDTO dto = stockService.adjust(idempotencyKey, request.getProductId(), request.getDelta());
 		return ResponseEntity.ok(dto);
 	}
 
+	/**
+	 * POST /stock/import
+	 * Conteo físico en bloque, valores absolutos. Content-Type text/csv ({@code productId,onHand}, cabecera opcional)
+	 * o application/x-ndjson ({@code {"productId":"ABC-001","onHand":12}} por línea). Responde 200 con errores por línea.
+	 */
+	@PostMapping(value = "/import", consumes = {"text/csv", "text/plain", "application/x-ndjson"})
+	public ResponseEntity<StockImportResultDTO> importCounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			HttpServletRequest request) throws IOException {
+		String format = StockImportService.formatOf(contentType);
+		return ResponseEntity.ok(stockImportService.importCounts(request.getInputStream(), format));
+	}
+
 	@PostMapping("/allocate")
 	public ResponseEntity<StockAllocationResponseDTO> allocate(@Valid @RequestBody StockAllocateRequestDTO request,
 			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
@@ -51,13 +96,42 @@ public class StockController {
 	}
 
 	@PostMapping("/commit")
-	public ResponseEntity<StockAllocationResponseDTO> commit(@Valid @RequestBody StockAllocateRequestDTO request) {
-		return ResponseEntity.ok(stockService.commit(request));
+	public ResponseEntity<StockAllocationResponseDTO> commit(@Valid @RequestBody StockAllocateRequestDTO request,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		return ResponseEntity.ok(stockService.commit(idempotencyKey, request));
 	}
 
 	@PostMapping("/release")
-	public ResponseEntity<StockAllocationResponseDTO> release(@Valid @RequestBody StockAllocateRequestDTO request) {
-		return ResponseEntity.ok(stockService.release(request));
+	public ResponseEntity<StockAllocationResponseDTO> release(@Valid @RequestBody StockAllocateRequestDTO request,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		return ResponseEntity.ok(stockService.release(idempotencyKey, request));
 	}
-}
 
+	/**
+	 * GET /stock/orders/{orderId}
+	 * Reservas registradas para la orden (HELD, COMMITTED o RELEASED por SKU).
+	 */
+	@GetMapping("/orders/{orderId}")
+	public ResponseEntity<OrderReservationsDTO> order(@PathVariable String orderId) {
+		return ResponseEntity.ok(stockService.getOrder(orderId));
+	}
+
+	/**
+	 * POST /stock/orders/{orderId}/commit
+	 * Confirma todas las reservas activas de la orden con las cantidades del libro. 404 si no hay ninguna.
+	 */
+	@PostMapping("/orders/{orderId}/commit")
+	public ResponseEntity<OrderReservationsDTO> commitOrder(@PathVariable String orderId,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		return ResponseEntity.ok(stockService.commitOrder(idempotencyKey, orderId));
+	}
+
+	/**
+	 * POST /stock/orders/{orderId}/release
+	 */
+	@PostMapping("/orders/{orderId}/release")
+	public ResponseEntity<OrderReservationsDTO> releaseOrder(@PathVariable String orderId,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		return ResponseEntity.ok(stockService.releaseOrder(idempotencyKey, orderId));
+	}
+}
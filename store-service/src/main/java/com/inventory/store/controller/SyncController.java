@@ -1,6 +1,10 @@
 package com.inventory.store.controller;
 
+import com.inventory.store.dto.CatalogSyncResultDTO;
+import com.inventory.store.dto.ReconcileResultDTO;
 import com.inventory.store.dto.SyncResultDTO;
+import com.inventory.store.service.CatalogSyncService;
+import com.inventory.store.service.ReconciliationService;
 import com.inventory.store.service.SyncPushService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,9 +15,14 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/sync")
 public class SyncController {
     private final SyncPushService syncPushService;
+    private final ReconciliationService reconciliationService;
+    private final CatalogSyncService catalogSyncService;
 
-    public SyncController(SyncPushService syncPushService) {
+    public SyncController(SyncPushService syncPushService, ReconciliationService reconciliationService,
+                          CatalogSyncService catalogSyncService) {
         this.syncPushService = syncPushService;
+        this.reconciliationService = reconciliationService;
+        this.catalogSyncService = catalogSyncService;
     }
 
     @PostMapping("/push")
@@ -21,6 +30,14 @@ public class SyncController {
         SyncResultDTO result = syncPushService.pushNow();
         return ResponseEntity.ok(result);
     }
-}
 
+    @PostMapping("/reconcile")
+    public ResponseEntity<ReconcileResultDTO> reconcile() {
+        return ResponseEntity.ok(reconciliationService.reconcile());
+    }
 
+    @PostMapping("/catalog")
+    public ResponseEntity<CatalogSyncResultDTO> pullCatalog() {
+        return ResponseEntity.ok(catalogSyncService.pullCatalog());
+    }
+}
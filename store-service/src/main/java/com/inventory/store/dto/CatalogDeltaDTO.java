@@ -0,0 +1,19 @@
+package com.inventory.store.dto;
+
+import com.inventory.store.entity.ProductEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogDeltaDTO {
+    private long lastVersion;
+    private boolean hasMore;
+    private List<ProductEntity> items;
+}
@@ -0,0 +1,18 @@
+package com.inventory.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSyncResultDTO {
+    private long fromVersion;
+    private long toVersion;
+    private int pages;
+    private int updated;
+    private int inserted;
+}
@@ -0,0 +1,19 @@
+package com.inventory.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Hash por SKU de los buckets pedidos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerkleBucketDTO {
+    private Map<String, Long> items;
+}
@@ -0,0 +1,17 @@
+package com.inventory.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerkleNodesDTO {
+    private int level;
+    private Map<Integer, Long> hashes;
+}
@@ -0,0 +1,18 @@
+package com.inventory.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservationsDTO {
+    private String orderId;
+    private String status;
+    private List<ReservationDTO> reservations;
+}
@@ -0,0 +1,25 @@
+package com.inventory.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una pasada de anti-entropía contra central.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconcileResultDTO {
+    /** true si no se corrió porque central está particionado (cada nodo tiene sólo su parte del árbol). */
+    private boolean partitioned;
+    private int roundTrips;
+    private int nodesCompared;
+    private int bucketsDiverged;
+    private int itemsDiverged;
+    private int missingLocally;
+    private int applied;
+    private int skipped;
+}
@@ -0,0 +1,24 @@
+package com.inventory.store.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReservationDTO {
+    private String productId;
+    private int quantity;
+    private String status;
+    private Integer onHand;
+    private Integer allocated;
+    private Instant expiresAt;
+    private Instant updatedAt;
+}
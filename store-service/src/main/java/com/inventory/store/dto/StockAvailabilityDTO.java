@@ -0,0 +1,23 @@
+package com.inventory.store.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Disponibilidad de un SKU en la consulta masiva. status=NOT_FOUND no trae cantidades.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockAvailabilityDTO {
+    private String productId;
+    private String status;
+    private Integer onHand;
+    private Integer allocated;
+    private Integer available;
+}
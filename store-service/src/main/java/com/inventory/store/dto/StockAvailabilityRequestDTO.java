@@ -0,0 +1,20 @@
+package com.inventory.store.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailabilityRequestDTO {
+    @NotEmpty(message = "productIds no puede ser vacío")
+    @Size(max = 500, message = "productIds admite hasta 500 elementos")
+    private List<String> productIds;
+}
@@ -0,0 +1,28 @@
+package com.inventory.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockImportResultDTO {
+    private String format;
+    private long lines;
+    private long applied;
+    private long unchanged;
+    private long rejected;
+    /** Líneas pisadas por una posterior del mismo SKU dentro del mismo lote. */
+    private long duplicates;
+    private int chunks;
+    private long durationMs;
+    /** Primeros errores por línea; rejected tiene el total. */
+    @Builder.Default
+    private List<StockImportErrorDTO> errors = new ArrayList<>();
+}
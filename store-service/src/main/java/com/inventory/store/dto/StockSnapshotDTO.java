@@ -1,5 +1,6 @@
 package com.inventory.store.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,5 +16,9 @@ public class StockSnapshotDTO {
 	private String productId;
 	private int quantity;
 	private Instant updatedAt;
+
+	/** Versión optimista de la fila; sólo se usa para derivar el ETag, no viaja en el JSON. */
+	@JsonIgnore
+	private Integer version;
 }
 
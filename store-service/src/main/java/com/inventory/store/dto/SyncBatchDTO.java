@@ -15,6 +15,10 @@ import java.util.List;
 public class SyncBatchDTO {
     @NotNull
     private List<StockSnapshotDTO> items;
+
+    /** Tienda emisora y número de lote; central descarta reenvíos del mismo par. */
+    private String storeId;
+    private Long batchSeq;
 }
 
 
@@ -0,0 +1,19 @@
+package com.inventory.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ítem que central no aplicó. index es relativo al sub-lote que recibió cada nodo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncItemRejectionDTO {
+    private int index;
+    private String productId;
+    private String reason;
+}
@@ -5,6 +5,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,6 +16,11 @@ public class SyncResultDTO {
     private int received;
     private int applied;
     private int skipped;
+    private int rejected;
+    private boolean duplicate;
+    /** Ítems que central rechazó con su motivo; todo lo demás quedó confirmado. */
+    @Builder.Default
+    private List<SyncItemRejectionDTO> rejections = new ArrayList<>();
 }
 
 
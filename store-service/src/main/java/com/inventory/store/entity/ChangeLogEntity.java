@@ -14,7 +14,10 @@ import java.time.Instant;
 import java.util.UUID;
 
 /**
- * Outbox mínimo para sincronización tienda→central
+ * Outbox mínimo para sincronización tienda→central.
+ * priority es el carril: los quiebres de stock y el stock bajo se envían antes que lo rutinario.
+ * rejectedReason se llena cuando central rechazó el ítem: la fila queda apartada de los carriles
+ * para revisión y no vuelve a enviarse.
  */
 @Data
 @Builder
@@ -22,9 +25,14 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name = "change_log", indexes = {
-		@Index(name = "idx_change_log_updated_at", columnList = "updated_at")
+		@Index(name = "idx_change_log_updated_at", columnList = "updated_at"),
+		@Index(name = "idx_change_log_lane", columnList = "priority, updated_at, id")
 })
 public class ChangeLogEntity {
+	public static final int PRIORITY_STOCKOUT = 0;
+	public static final int PRIORITY_LOW_STOCK = 1;
+	public static final int PRIORITY_ROUTINE = 2;
+
 	@Id
 	@Column(name = "id", nullable = false, updatable = false)
 	private UUID id;
@@ -34,6 +42,12 @@ public class ChangeLogEntity {
 
 	@Column(name = "updated_at", nullable = false)
 	private Instant updatedAt;
+
+	@Column(name = "priority", nullable = false)
+	private int priority;
+
+	@Column(name = "rejected_reason")
+	private String rejectedReason;
 }
 
 
@@ -4,6 +4,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -29,9 +30,17 @@ public class IdempotencyRequestEntity {
     @Column(name = "idempotency_key", nullable = false, length = 128)
     private String idempotencyKey;
 
+    @Column(name = "operation", nullable = false, length = 32)
+    private String operation;
+
     @Column(name = "request_hash", nullable = false, length = 128)
     private String requestHash;
 
+    /** Respuesta serializada (JSON) que se devuelve tal cual en los reintentos; sin tope: una orden puede tener muchas líneas. */
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 }
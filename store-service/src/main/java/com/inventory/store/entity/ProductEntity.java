@@ -31,5 +31,9 @@ public class ProductEntity {
 
 	@Column(name = "updated_at", nullable = false)
 	private Instant updatedAt;
+
+	// versión de catálogo de central con la que se aplicó el último cambio (null si es local)
+	@Column(name = "catalog_version")
+	private Long catalogVersion;
 }
 
@@ -0,0 +1,58 @@
+package com.inventory.store.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Libro de reservas: una fila por (orderId, productId). La suma de quantity de las filas HELD
+ * de un producto es igual a stock.allocated; ambos se mueven en la misma transacción.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "reservation", indexes = {
+		@Index(name = "idx_reservation_order_product", columnList = "order_id, product_id", unique = true)
+})
+public class ReservationEntity {
+	public static final String HELD = "HELD";
+	public static final String COMMITTED = "COMMITTED";
+	public static final String RELEASED = "RELEASED";
+	public static final String EXPIRED = "EXPIRED";
+
+	@Id
+	@Column(name = "id", nullable = false, updatable = false)
+	private UUID id;
+
+	@Column(name = "order_id", nullable = false, updatable = false, length = 64)
+	private String orderId;
+
+	@Column(name = "product_id", nullable = false, updatable = false, length = 64)
+	private String productId;
+
+	@Column(name = "quantity", nullable = false)
+	private int quantity;
+
+	@Column(name = "status", nullable = false, length = 16)
+	private String status;
+
+	@Column(name = "expires_at")
+	private Instant expiresAt;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private Instant updatedAt;
+}
@@ -0,0 +1,127 @@
+package com.inventory.store.init;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Siembra masiva desde archivo CSV {@code productId,price,quantity,name} (name puede tener comas).
+ * <p>
+ * Inserta productos y stock con JDBC batch, una transacción por lote, sin pasar por Hibernate.
+ * quantity se carga como onHand con allocated=0. catalogVersion queda vacío hasta el primer delta
+ * de catálogo de central.
+ */
+@Component
+public class BulkSeedLoader {
+    private static final Logger log = LoggerFactory.getLogger(BulkSeedLoader.class);
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (id, name, price, updated_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_STOCK =
+            "INSERT INTO stock (product_id, on_hand, allocated, updated_at, version) VALUES (?, ?, 0, ?, 0)";
+    // products y stock de la tienda solo tienen la PK; si se agregan índices secundarios van aquí
+    private static final Map<String, String> DEFERRED_INDEXES = Map.of();
+
+    private record SeedRow(String productId, BigDecimal price, int quantity, String name) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StartupTimings startupTimings;
+    private final int batchSize;
+
+    public BulkSeedLoader(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          StartupTimings startupTimings,
+                          @Value("${store.seed.batchSize:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.startupTimings = startupTimings;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public long load(Path file) throws IOException {
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.from(Instant.now());
+        long t = System.nanoTime();
+        DEFERRED_INDEXES.keySet().forEach(index -> jdbcTemplate.execute("DROP INDEX IF EXISTS " + index));
+        startupTimings.record("seed-drop-indexes", System.nanoTime() - t);
+
+        long rows = 0;
+        long insertNanos = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<SeedRow> batch = new ArrayList<>(batchSize);
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || (lineNo == 1 && line.startsWith("productId"))) {
+                    continue;
+                }
+                batch.add(parse(lineNo, line));
+                if (batch.size() == batchSize) {
+                    insertNanos += insert(batch, now);
+                    rows += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertNanos += insert(batch, now);
+                rows += batch.size();
+            }
+        } finally {
+            t = System.nanoTime();
+            DEFERRED_INDEXES.values().forEach(jdbcTemplate::execute);
+            startupTimings.record("seed-build-indexes", System.nanoTime() - t);
+        }
+        startupTimings.record("seed-insert", insertNanos);
+        startupTimings.record("seed-parse", System.nanoTime() - start - insertNanos);
+        log.info("siembra masiva: file={} rows={} durationMs={}", file, rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private long insert(List<SeedRow> batch, Timestamp now) {
+        long t = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT, batch, batch.size(), (ps, row) -> {
+                ps.setString(1, row.productId());
+                ps.setString(2, row.name());
+                ps.setBigDecimal(3, row.price());
+                ps.setTimestamp(4, now);
+            });
+            jdbcTemplate.batchUpdate(INSERT_STOCK, batch, batch.size(), (ps, row) -> {
+                ps.setString(1, row.productId());
+                ps.setInt(2, row.quantity());
+                ps.setTimestamp(3, now);
+            });
+        });
+        return System.nanoTime() - t;
+    }
+
+    private static SeedRow parse(long lineNo, String line) {
+        String[] parts = line.split(",", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Línea " + lineNo + " de la semilla: se esperaba productId,price,quantity,name");
+        }
+        try {
+            return new SeedRow(parts[0].trim(), new BigDecimal(parts[1].trim()), Integer.parseInt(parts[2].trim()), parts[3].trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Línea " + lineNo + " de la semilla: price/quantity inválidos");
+        }
+    }
+}
@@ -4,24 +4,76 @@ import com.inventory.store.entity.ProductEntity;
 import com.inventory.store.entity.StockEntity;
 import com.inventory.store.repository.ProductRepository;
 import com.inventory.store.repository.StockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.List;
 
+/**
+ * Siembra inicial. store.seed.mode: always (por defecto), if-empty (no toca una base con datos)
+ * o none. Con store.seed.file carga ese CSV en bloque; sin archivo, los tres productos de demo.
+ */
 @Component
 public class DataLoader {
+	private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
 	private final ProductRepository productRepository;
 	private final StockRepository stockRepository;
+	private final BulkSeedLoader bulkSeedLoader;
+	private final StartupTimings startupTimings;
+	private final String mode;
+	private final String seedFile;
 
-	public DataLoader(ProductRepository productRepository, StockRepository stockRepository) {
+	public DataLoader(ProductRepository productRepository,
+					  StockRepository stockRepository,
+					  BulkSeedLoader bulkSeedLoader,
+					  StartupTimings startupTimings,
+					  @Value("${store.seed.mode:always}") String mode,
+					  @Value("${store.seed.file:}") String seedFile) {
 		this.productRepository = productRepository;
 		this.stockRepository = stockRepository;
+		this.bulkSeedLoader = bulkSeedLoader;
+		this.startupTimings = startupTimings;
+		this.mode = mode;
+		this.seedFile = seedFile;
 	}
 
 	@PostConstruct
-	public void load() {
+	public void load() throws IOException {
+		long start = System.nanoTime();
+		switch (mode) {
+			case "none" -> {
+				log.info("siembra deshabilitada (store.seed.mode=none)");
+				return;
+			}
+			case "if-empty" -> {
+				if (productRepository.count() > 0) {
+					log.info("siembra omitida: la base ya tiene datos");
+					startupTimings.record("seed-skip-check", System.nanoTime() - start);
+					return;
+				}
+			}
+			case "always" -> {
+			}
+			default -> throw new IllegalArgumentException("store.seed.mode desconocido: " + mode);
+		}
+
+		if (!seedFile.isBlank()) {
+			bulkSeedLoader.load(Paths.get(seedFile));
+		} else {
+			seedDemo();
+		}
+		startupTimings.record("seed", System.nanoTime() - start);
+	}
+
+	private void seedDemo() {
 		Instant now = Instant.now();
 
 		ProductEntity p1 = ProductEntity.builder()
@@ -43,13 +95,11 @@ public class DataLoader {
 				.updatedAt(now)
 				.build();
 
-		productRepository.save(p1);
-		productRepository.save(p2);
-		productRepository.save(p3);
+		productRepository.saveAll(List.of(p1, p2, p3));
 
-		stockRepository.save(StockEntity.builder().productId("ABC-001").onHand(12).allocated(0).updatedAt(now).build());
-		stockRepository.save(StockEntity.builder().productId("ABC-002").onHand(30).allocated(0).updatedAt(now).build());
-		stockRepository.save(StockEntity.builder().productId("ABC-003").onHand(20).allocated(0).updatedAt(now).build());
+		stockRepository.saveAll(List.of(
+				StockEntity.builder().productId("ABC-001").onHand(12).allocated(0).updatedAt(now).build(),
+				StockEntity.builder().productId("ABC-002").onHand(30).allocated(0).updatedAt(now).build(),
+				StockEntity.builder().productId("ABC-003").onHand(20).allocated(0).updatedAt(now).build()));
 	}
 }
-
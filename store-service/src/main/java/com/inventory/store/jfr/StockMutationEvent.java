@@ -0,0 +1,32 @@
+package com.inventory.store.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Una mutación de stock (adjust, allocate, commit, release) con sus reintentos y resultado.
+ */
+@Name("inventory.StockMutation")
+@Label("Stock Mutation")
+@Category({"Inventory", "Store"})
+@StackTrace(false)
+public class StockMutationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Product Id")
+    public String productId;
+
+    @Label("Delta")
+    @Description("delta de adjust o cantidad de la reserva")
+    public int delta;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,35 @@
+package com.inventory.store.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Un POST /sync/pull a un nodo de central (un sub-lote si central está particionado).
+ */
+@Name("inventory.SyncPushBatch")
+@Label("Sync Push Batch")
+@Category({"Inventory", "Store"})
+@StackTrace(false)
+public class SyncPushBatchEvent extends jdk.jfr.Event {
+    @Label("Node")
+    public String node;
+
+    @Label("Store Id")
+    public String storeId;
+
+    @Label("Batch Sequence")
+    public long batchSeq;
+
+    @Label("Items")
+    public int items;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,84 @@
+package com.inventory.store.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Muestreo por categoría (nombre de logger) de los eventos INFO y menores; WARN y ERROR pasan
+ * siempre. rates es "categoria=fraccion,..." y aplica también a los loggers hijos (gana el
+ * prefijo más largo). La decisión se toma en cada llamada, incluida la de atInfo() de la API
+ * fluida, así que en una categoría muestreada no hay que envolver el log con isInfoEnabled().
+ * Los eventos que el nivel del logger descarta de todos modos no cuentan como muestreados.
+ */
+public class SampledLogFilter extends TurboFilter {
+    private static final LongAdder SAMPLED_OUT = new LongAdder();
+
+    private final Map<String, Double> resolved = new ConcurrentHashMap<>();
+    private Map<String, Double> rates = Map.of();
+
+    public static long sampledOut() {
+        return SAMPLED_OUT.sum();
+    }
+
+    public void setRates(String spec) {
+        Map<String, Double> parsed = new LinkedHashMap<>();
+        if (spec != null) {
+            for (String entry : spec.split(",")) {
+                if (entry.isBlank()) {
+                    continue;
+                }
+                int eq = entry.indexOf('=');
+                if (eq <= 0) {
+                    addError("muestreo inválido (se espera categoria=fraccion): " + entry.trim());
+                    continue;
+                }
+                try {
+                    double rate = Double.parseDouble(entry.substring(eq + 1).trim());
+                    parsed.put(entry.substring(0, eq).trim(), Math.max(0.0, Math.min(1.0, rate)));
+                } catch (NumberFormatException ex) {
+                    addError("muestreo inválido (se espera categoria=fraccion): " + entry.trim());
+                }
+            }
+        }
+        this.rates = Map.copyOf(parsed);
+        this.resolved.clear();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || rates.isEmpty() || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        // debajo del nivel del logger el evento no se emite igual: no se muestrea ni se cuenta
+        if (level.levelInt < logger.getEffectiveLevel().levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = resolved.computeIfAbsent(logger.getName(), this::rateFor);
+        if (rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return FilterReply.NEUTRAL;
+        }
+        SAMPLED_OUT.increment();
+        return FilterReply.DENY;
+    }
+
+    private double rateFor(String name) {
+        for (String category = name; ; category = category.substring(0, category.lastIndexOf('.'))) {
+            Double rate = rates.get(category);
+            if (rate != null) {
+                return rate;
+            }
+            if (category.indexOf('.') < 0) {
+                return 1.0;
+            }
+        }
+    }
+}
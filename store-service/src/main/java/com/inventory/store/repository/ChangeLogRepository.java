@@ -1,11 +1,27 @@
 package com.inventory.store.repository;
 
 import com.inventory.store.entity.ChangeLogEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface ChangeLogRepository extends JpaRepository<ChangeLogEntity, UUID> {
-}
+    List<ChangeLogEntity> findByPriorityAndRejectedReasonIsNullOrderByUpdatedAtAscIdAsc(int priority, Pageable pageable);
 
+    /**
+     * Pendientes de envío: excluye las filas que central rechazó.
+     */
+    long countByRejectedReasonIsNull();
 
+    /**
+     * Siguiente página de un carril del outbox después del cursor (updatedAt, id).
+     */
+    @Query("select c from ChangeLogEntity c where c.priority = :priority and c.rejectedReason is null"
+            + " and (c.updatedAt > :updatedAt or (c.updatedAt = :updatedAt and c.id > :id))"
+            + " order by c.updatedAt, c.id")
+    List<ChangeLogEntity> findAfter(int priority, Instant updatedAt, UUID id, Pageable pageable);
+}
@@ -2,7 +2,9 @@ package com.inventory.store.repository;
 
 import com.inventory.store.entity.ProductEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface ProductRepository extends JpaRepository<ProductEntity, String> {
+	@Query("select coalesce(max(p.catalogVersion), 0) from ProductEntity p")
+	long findMaxCatalogVersion();
 }
-
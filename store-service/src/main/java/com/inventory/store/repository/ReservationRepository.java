@@ -0,0 +1,20 @@
+package com.inventory.store.repository;
+
+import com.inventory.store.entity.ReservationEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ReservationRepository extends JpaRepository<ReservationEntity, UUID> {
+    Optional<ReservationEntity> findByOrderIdAndProductId(String orderId, String productId);
+
+    List<ReservationEntity> findByOrderId(String orderId);
+
+    List<ReservationEntity> findByOrderIdAndStatus(String orderId, String status);
+
+    Slice<ReservationEntity> findByStatus(String status, Pageable pageable);
+}
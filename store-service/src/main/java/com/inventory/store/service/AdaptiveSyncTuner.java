@@ -0,0 +1,169 @@
+package com.inventory.store.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Tamaño de lote y cadencia del push ajustados por AIMD.
+ * <p>
+ * Cada ack de un lote lleno con latencia bajo targetLatencyMs suma additiveStep; un timeout, un
+ * 429/5xx o una latencia sobre el objetivo multiplica por decreaseFactor. Cada lote lleva la
+ * época de tamaño con la que se pidió y solo la época vigente ajusta, así los lotes en vuelo que
+ * fallan juntos cuentan como un único recorte (como una ventana TCP por RTT). El intervalo
+ * entre pushes se acorta con el backlog del outbox y se duplica tras una sobrecarga; sin
+ * backlog vuelve a maxIntervalMs.
+ */
+@Component
+public class AdaptiveSyncTuner {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveSyncTuner.class);
+
+    /** Tamaño con el que se pidió un lote y la época en que regía. */
+    public record Sizing(int batchSize, long epoch) {
+    }
+
+    private final boolean enabled;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int additiveStep;
+    private final double decreaseFactor;
+    private final long targetLatencyMs;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final int window;
+
+    private int batchSize;
+    private long epoch;
+    private long intervalMs;
+    private Counter decreases;
+
+    @Autowired
+    public AdaptiveSyncTuner(@Value("${store.sync.adaptive.enabled:true}") boolean enabled,
+                             @Value("${store.sync.pipeline.batchSize:500}") int initialBatchSize,
+                             @Value("${store.sync.adaptive.minBatchSize:50}") int minBatchSize,
+                             @Value("${store.sync.adaptive.maxBatchSize:5000}") int maxBatchSize,
+                             @Value("${store.sync.adaptive.additiveStep:50}") int additiveStep,
+                             @Value("${store.sync.adaptive.decreaseFactor:0.5}") double decreaseFactor,
+                             @Value("${store.sync.adaptive.targetLatencyMs:500}") long targetLatencyMs,
+                             @Value("${store.sync.adaptive.minIntervalMs:5000}") long minIntervalMs,
+                             @Value("${store.sync.fixedDelayMs:900000}") long maxIntervalMs,
+                             @Value("${store.sync.pipeline.window:4}") int window,
+                             MeterRegistry meterRegistry) {
+        this(enabled, initialBatchSize, minBatchSize, maxBatchSize, additiveStep, decreaseFactor,
+                targetLatencyMs, minIntervalMs, maxIntervalMs, window);
+        this.decreases = Counter.builder("inventory_sync_push_batch_decrease_total").register(meterRegistry);
+        Gauge.builder("inventory_sync_push_batch_size", this, AdaptiveSyncTuner::batchSize).register(meterRegistry);
+        Gauge.builder("inventory_sync_push_interval_seconds", this, t -> t.intervalMs() / 1000.0).register(meterRegistry);
+    }
+
+    AdaptiveSyncTuner(boolean enabled, int initialBatchSize, int minBatchSize, int maxBatchSize, int additiveStep,
+                      double decreaseFactor, long targetLatencyMs, long minIntervalMs, long maxIntervalMs, int window) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("rango de lote inválido: min=" + minBatchSize + " max=" + maxBatchSize);
+        }
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("decreaseFactor debe estar en (0, 1)");
+        }
+        this.enabled = enabled;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.additiveStep = Math.max(1, additiveStep);
+        this.decreaseFactor = decreaseFactor;
+        this.targetLatencyMs = targetLatencyMs;
+        this.minIntervalMs = Math.min(minIntervalMs, maxIntervalMs);
+        this.maxIntervalMs = maxIntervalMs;
+        this.window = Math.max(1, window);
+        this.batchSize = enabled ? clamp(initialBatchSize) : Math.max(1, initialBatchSize);
+        this.intervalMs = maxIntervalMs;
+    }
+
+    public synchronized int batchSize() {
+        return batchSize;
+    }
+
+    public synchronized Sizing sizing() {
+        return new Sizing(batchSize, epoch);
+    }
+
+    public synchronized long intervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * Ack de un lote pedido con sizing que trajo rows filas del outbox y se confirmó en latencyMs.
+     * Solo crece si el lote iba lleno: con poco backlog el tamaño no se está probando.
+     */
+    public synchronized void onAck(Sizing sizing, int rows, long latencyMs) {
+        if (!enabled || sizing.epoch() != epoch) {
+            return;
+        }
+        if (latencyMs > targetLatencyMs) {
+            decrease("latencia " + latencyMs + "ms");
+        } else if (rows >= sizing.batchSize()) {
+            batchSize = clamp(batchSize + additiveStep);
+        }
+    }
+
+    /**
+     * Intento fallido de un lote pedido con sizing. Solo la sobrecarga recorta.
+     */
+    public synchronized void onFailure(Sizing sizing, Throwable error) {
+        if (enabled && sizing.epoch() == epoch && isOverload(error)) {
+            decrease(String.valueOf(error.getMessage()));
+        }
+    }
+
+    /**
+     * Recalcula el intervalo al terminar un push: backlog es lo que quedó en el outbox.
+     */
+    public synchronized void onPushFinished(long backlog, boolean overloaded) {
+        if (!enabled) {
+            return;
+        }
+        if (overloaded) {
+            intervalMs = Math.min(maxIntervalMs, Math.max(intervalMs, minIntervalMs) * 2);
+            return;
+        }
+        // una ventana completa pendiente ya justifica la cadencia mínima
+        double fill = Math.min(1.0, backlog / (double) ((long) batchSize * window));
+        intervalMs = Math.max(minIntervalMs, Math.round(maxIntervalMs - fill * (maxIntervalMs - minIntervalMs)));
+    }
+
+    /**
+     * Timeouts, 429 y 5xx de central son señal de congestión; otros 4xx no.
+     */
+    static boolean isOverload(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ResourceAccessException) {
+                return true;
+            }
+            if (t instanceof RestClientResponseException http) {
+                HttpStatusCode status = http.getStatusCode();
+                return status.value() == 429 || status.is5xxServerError();
+            }
+        }
+        return false;
+    }
+
+    private void decrease(String cause) {
+        int previous = batchSize;
+        batchSize = clamp((int) (batchSize * decreaseFactor));
+        epoch++;
+        if (decreases != null) {
+            decreases.increment();
+        }
+        log.info("lote de sync recortado: {} -> {} causa={}", previous, batchSize, cause);
+    }
+
+    private int clamp(int size) {
+        return Math.max(minBatchSize, Math.min(maxBatchSize, size));
+    }
+}
@@ -0,0 +1,114 @@
+package com.inventory.store.service;
+
+import com.inventory.store.dto.CatalogDeltaDTO;
+import com.inventory.store.dto.CatalogSyncResultDTO;
+import com.inventory.store.entity.ProductEntity;
+import com.inventory.store.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Distribución de catálogo central→tienda. La tienda pide sólo los cambios con catalogVersion
+ * mayor a la última que aplicó, en páginas, y los aplica con JDBC batch (UPDATE y luego INSERT
+ * de los que no existían), una transacción por página.
+ */
+@Service
+public class CatalogSyncService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogSyncService.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE products SET name = ?, price = ?, updated_at = ?, catalog_version = ? WHERE id = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO products (id, name, price, updated_at, catalog_version) VALUES (?, ?, ?, ?, ?)";
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final CentralSyncClient centralSyncClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+    private final DistributionSummary deltaItems;
+    private final Timer applyTimer;
+
+    public CatalogSyncService(ProductRepository productRepository,
+                              ProductService productService,
+                              CentralSyncClient centralSyncClient,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${store.sync.catalog.pageSize:500}") int pageSize,
+                              MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.centralSyncClient = centralSyncClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.pageSize = pageSize;
+        this.deltaItems = DistributionSummary.builder("inventory_catalog_delta_items").register(meterRegistry);
+        this.applyTimer = Timer.builder("inventory_catalog_delta_apply_duration_seconds").register(meterRegistry);
+    }
+
+    public CatalogSyncResultDTO pullCatalog() {
+        String traceId = MDC.get("traceId");
+        long from = productRepository.findMaxCatalogVersion();
+        CatalogSyncResultDTO result = CatalogSyncResultDTO.builder().fromVersion(from).toVersion(from).build();
+        CatalogDeltaDTO page;
+        do {
+            page = centralSyncClient.fetchCatalogDelta(result.getToVersion(), pageSize);
+            List<ProductEntity> items = page.getItems() == null ? List.of() : page.getItems();
+            deltaItems.record(items.size());
+            if (!items.isEmpty()) {
+                int[] counts = applyTimer.record(() -> transactionTemplate.execute(status -> applyPage(items)));
+                result.setUpdated(result.getUpdated() + counts[0]);
+                result.setInserted(result.getInserted() + counts[1]);
+                // cada página ya confirmó: el ETag no puede esperar al final del pull
+                if (counts[0] + counts[1] > 0) {
+                    productService.invalidateCatalogETag();
+                }
+            }
+            result.setPages(result.getPages() + 1);
+            result.setToVersion(Math.max(result.getToVersion(), page.getLastVersion()));
+        } while (page.isHasMore());
+
+        log.info("[traceId={}] catálogo sincronizado: versión {}→{} pages={} updated={} inserted={}",
+                traceId, result.getFromVersion(), result.getToVersion(), result.getPages(), result.getUpdated(), result.getInserted());
+        return result;
+    }
+
+    private int[] applyPage(List<ProductEntity> items) {
+        int[][] updateCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, items, items.size(), (ps, p) -> {
+            ps.setString(1, p.getName());
+            ps.setBigDecimal(2, p.getPrice());
+            ps.setTimestamp(3, Timestamp.from(p.getUpdatedAt()));
+            ps.setLong(4, p.getCatalogVersion());
+            ps.setString(5, p.getId());
+        });
+        List<ProductEntity> missing = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (updateCounts[0][i] == 0) {
+                missing.add(items.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, missing, missing.size(), (ps, p) -> {
+                ps.setString(1, p.getId());
+                ps.setString(2, p.getName());
+                ps.setBigDecimal(3, p.getPrice());
+                ps.setTimestamp(4, Timestamp.from(p.getUpdatedAt()));
+                ps.setLong(5, p.getCatalogVersion());
+            });
+        }
+        return new int[]{items.size() - missing.size(), missing.size()};
+    }
+}
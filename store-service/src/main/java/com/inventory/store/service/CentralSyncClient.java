@@ -1,34 +1,304 @@
 package com.inventory.store.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.store.dto.CatalogDeltaDTO;
+import com.inventory.store.dto.MerkleBucketDTO;
+import com.inventory.store.dto.MerkleNodesDTO;
+import com.inventory.store.dto.MerkleQueryDTO;
+import com.inventory.store.dto.PartitionMapDTO;
+import com.inventory.store.dto.StockSnapshotDTO;
 import com.inventory.store.dto.SyncBatchDTO;
 import com.inventory.store.dto.SyncResultDTO;
 import com.inventory.store.exception.SyncNetworkException;
+import com.inventory.store.jfr.SyncPushBatchEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 @Component
 public class CentralSyncClient {
+    private static final Logger log = LoggerFactory.getLogger(CentralSyncClient.class);
+
+    static final String PARTITION_EPOCH_HEADER = "X-Partition-Epoch";
+    // central limita la tasa por cliente; sin este header todas las tiendas detrás de un NAT comparten bucket
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final String DEFAULT_NODE = "central";
+    private static final ObjectMapper JSON = Jackson2ObjectMapperBuilder.json().build();
+
+    /** Topología vigente: mapa tal como lo sirve central y el anillo derivado. */
+    private record Partitions(PartitionMapDTO map, ConsistentHashRing ring) {
+        boolean partitioned() {
+            return map.getNodes() != null && map.getNodes().size() > 1;
+        }
+    }
+
+    private static final class WrongPartitionException extends RuntimeException {
+        WrongPartitionException(Throwable cause) {
+            super(cause);
+        }
+    }
+
     private final RestClient restClient;
+    private final Executor pushExecutor;
+    private final boolean partitionAware;
+    private final Map<String, RestClient> nodeClients = new ConcurrentHashMap<>();
+    private final Counter mapRefreshes;
+    private volatile Partitions partitions;
+
+    @Autowired
+    public CentralSyncClient(RestClient restClient,
+                             @Value("${store.sync.partition.enabled:true}") boolean partitionAware,
+                             MeterRegistry meterRegistry) {
+        this(restClient, Executors.newVirtualThreadPerTaskExecutor(), partitionAware, meterRegistry);
+    }
 
-    public CentralSyncClient(RestClient restClient) {
+    CentralSyncClient(RestClient restClient, Executor pushExecutor, boolean partitionAware, MeterRegistry meterRegistry) {
         this.restClient = restClient;
+        this.pushExecutor = pushExecutor;
+        this.partitionAware = partitionAware;
+        this.mapRefreshes = Counter.builder("inventory_sync_partition_map_refresh_total").register(meterRegistry);
+        Gauge.builder("inventory_sync_partition_nodes", this, c -> {
+            Partitions p = c.partitions;
+            return p == null || !p.partitioned() ? 1 : p.map().getNodes().size();
+        }).register(meterRegistry);
     }
 
+    /**
+     * Empuja un lote a central. Con central particionado lo reparte por dueño (anillo de hash
+     * consistente) y envía los sub-lotes en paralelo. Si un nodo rechaza con 409 el mapa quedó
+     * viejo: se vuelve a pedir y se reparte de nuevo una vez (LWW hace inocuo el reenvío).
+     */
     public SyncResultDTO pushBatch(SyncBatchDTO batch) {
+        if (!partitionAware) {
+            return pushTo(restClient, DEFAULT_NODE, batch, null);
+        }
         try {
-            return restClient.post()
+            return pushPartitioned(batch, currentPartitions());
+        } catch (WrongPartitionException ex) {
+            log.warn("mapa de particiones desactualizado, se refresca: {}", ex.getCause().getMessage());
+            partitions = null;
+            try {
+                return pushPartitioned(batch, currentPartitions());
+            } catch (WrongPartitionException again) {
+                partitions = null;
+                throw new SyncNetworkException("Central rechazó el reparto de particiones", again.getCause());
+            }
+        }
+    }
+
+    private SyncResultDTO pushPartitioned(SyncBatchDTO batch, Partitions p) {
+        if (!p.partitioned()) {
+            return pushTo(restClient, DEFAULT_NODE, batch, p);
+        }
+        Map<Integer, List<StockSnapshotDTO>> byOwner = new HashMap<>();
+        for (StockSnapshotDTO item : batch.getItems()) {
+            byOwner.computeIfAbsent(p.ring().owner(item.getProductId()), k -> new ArrayList<>()).add(item);
+        }
+        List<CompletableFuture<SyncResultDTO>> futures = new ArrayList<>(byOwner.size());
+        for (Map.Entry<Integer, List<StockSnapshotDTO>> e : byOwner.entrySet()) {
+            String url = p.map().getNodes().get(e.getKey());
+            RestClient node = nodeClient(url);
+            SyncBatchDTO sub = SyncBatchDTO.builder().items(e.getValue())
+                    .storeId(batch.getStoreId()).batchSeq(batch.getBatchSeq()).build();
+            futures.add(CompletableFuture.supplyAsync(() -> pushTo(node, url, sub, p), pushExecutor));
+        }
+
+        SyncResultDTO total = SyncResultDTO.builder().build();
+        RuntimeException failure = null;
+        for (CompletableFuture<SyncResultDTO> future : futures) {
+            try {
+                SyncResultDTO r = future.join();
+                total.setReceived(total.getReceived() + r.getReceived());
+                total.setApplied(total.getApplied() + r.getApplied());
+                total.setSkipped(total.getSkipped() + r.getSkipped());
+                total.setRejected(total.getRejected() + r.getRejected());
+                if (r.getRejections() != null) {
+                    total.getRejections().addAll(r.getRejections());
+                }
+            } catch (CompletionException ex) {
+                RuntimeException cause = ex.getCause() instanceof RuntimeException re ? re : ex;
+                // un 409 manda sobre otros errores: hay que repartir de nuevo
+                if (failure == null || cause instanceof WrongPartitionException) {
+                    failure = cause;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return total;
+    }
+
+    private SyncResultDTO pushTo(RestClient client, String node, SyncBatchDTO batch, Partitions known) {
+        SyncPushBatchEvent event = new SyncPushBatchEvent();
+        event.begin();
+        event.outcome = "error";
+        try {
+            // serializado acá para conocer los bytes del lote; mismo mapper que el conversor por defecto
+            byte[] body = JSON.writeValueAsBytes(batch);
+            event.bytes = body.length;
+            ResponseEntity<SyncResultDTO> response = client.post()
                     .uri("/sync/pull")
                     .contentType(MediaType.APPLICATION_JSON)
-                    .body(batch)
+                    .headers(h -> {
+                        if (batch.getStoreId() != null) {
+                            h.set(CLIENT_ID_HEADER, batch.getStoreId());
+                        }
+                    })
+                    .body(body)
                     .retrieve()
-                    .body(SyncResultDTO.class);
-        } catch (HttpClientErrorException | ResourceAccessException ex) {
+                    .toEntity(SyncResultDTO.class);
+            event.outcome = String.valueOf(response.getStatusCode().value());
+            String epoch = response.getHeaders().getFirst(PARTITION_EPOCH_HEADER);
+            if (known != null && epoch != null && !epoch.equals(String.valueOf(known.map().getEpoch()))) {
+                // cambió la topología: el próximo push usa un mapa nuevo
+                log.info("central informa epoch={} (conocido={}), se refresca el mapa", epoch, known.map().getEpoch());
+                partitions = null;
+            }
+            return response.getBody();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar el lote", ex);
+        } catch (HttpClientErrorException.Conflict ex) {
+            event.outcome = "409";
+            if (known != null) {
+                throw new WrongPartitionException(ex);
+            }
             throw new SyncNetworkException("Error al sincronizar con el servicio central", ex);
+        } catch (HttpClientErrorException | HttpServerErrorException ex) {
+            event.outcome = String.valueOf(ex.getStatusCode().value());
+            if (known != null && known.partitioned()) {
+                // un nodo caído puede ser un cambio de topología
+                partitions = null;
+            }
+            throw new SyncNetworkException("Error al sincronizar con el servicio central", ex);
+        } catch (ResourceAccessException ex) {
+            event.outcome = "io_error";
+            if (known != null && known.partitioned()) {
+                partitions = null;
+            }
+            throw new SyncNetworkException("Error al sincronizar con el servicio central", ex);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.node = node;
+                event.storeId = batch.getStoreId();
+                event.batchSeq = batch.getBatchSeq() == null ? 0 : batch.getBatchSeq();
+                event.items = batch.getItems() == null ? 0 : batch.getItems().size();
+                event.commit();
+            }
         }
     }
-}
 
+    private Partitions currentPartitions() {
+        Partitions p = partitions;
+        if (p == null) {
+            synchronized (this) {
+                p = partitions;
+                if (p == null) {
+                    p = fetchPartitions();
+                    partitions = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Pide el mapa a la URL configurada y, si no responde, a cualquiera de los nodos conocidos.
+     * Un central sin el endpoint (404) se trata como una sola partición.
+     */
+    private Partitions fetchPartitions() {
+        mapRefreshes.increment();
+        Set<RestClient> candidates = new LinkedHashSet<>();
+        candidates.add(restClient);
+        Partitions previous = partitions;
+        if (previous != null && previous.partitioned()) {
+            previous.map().getNodes().forEach(url -> candidates.add(nodeClient(url)));
+        }
+        RestClientException last = null;
+        for (RestClient client : candidates) {
+            try {
+                PartitionMapDTO map = client.get().uri("/sync/partitions").retrieve().body(PartitionMapDTO.class);
+                if (map == null || map.getNodes() == null) {
+                    map = PartitionMapDTO.builder().nodes(List.of()).build();
+                }
+                log.info("mapa de particiones: epoch={} nodes={}", map.getEpoch(), map.getNodes());
+                return new Partitions(map, new ConsistentHashRing(Math.max(1, map.getNodes().size()), Math.max(1, map.getVnodes())));
+            } catch (HttpClientErrorException.NotFound ex) {
+                return new Partitions(PartitionMapDTO.builder().nodes(List.of()).build(), new ConsistentHashRing(1, 1));
+            } catch (RestClientException ex) {
+                last = ex;
+            }
+        }
+        throw new SyncNetworkException("No se pudo obtener el mapa de particiones de central", last);
+    }
+
+    private RestClient nodeClient(String baseUrl) {
+        return nodeClients.computeIfAbsent(baseUrl, url -> restClient.mutate().baseUrl(url).build());
+    }
+
+    /**
+     * true si central está repartido en más de un nodo según el mapa vigente.
+     */
+    public boolean isPartitioned() {
+        return partitionAware && currentPartitions().partitioned();
+    }
+
+    public MerkleNodesDTO merkleNodes(MerkleQueryDTO query) {
+        return post("/sync/merkle/nodes", query, MerkleNodesDTO.class);
+    }
+
+    public MerkleBucketDTO merkleBuckets(MerkleQueryDTO query) {
+        return post("/sync/merkle/buckets", query, MerkleBucketDTO.class);
+    }
 
+    public CatalogDeltaDTO fetchCatalogDelta(long after, int limit) {
+        try {
+            return restClient.get()
+                    .uri("/products/changes?after={after}&limit={limit}", after, limit)
+                    .retrieve()
+                    .body(CatalogDeltaDTO.class);
+        } catch (HttpClientErrorException | ResourceAccessException ex) {
+            throw new SyncNetworkException("Error al obtener cambios de catálogo del servicio central", ex);
+        }
+    }
+
+    private <T> T post(String uri, Object body, Class<T> responseType) {
+        try {
+            return restClient.post()
+                    .uri(uri)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body)
+                    .retrieve()
+                    .body(responseType);
+        } catch (HttpClientErrorException | ResourceAccessException ex) {
+            throw new SyncNetworkException("Error al consultar el árbol de reconciliación en central", ex);
+        }
+    }
+}
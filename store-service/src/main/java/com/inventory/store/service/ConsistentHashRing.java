@@ -0,0 +1,77 @@
+package com.inventory.store.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Anillo de hash consistente sobre nodeCount nodos con vnodes puntos virtuales cada uno.
+ * <p>
+ * Un productId pertenece al primer punto del anillo con hash >= hash(productId). Los puntos
+ * dependen sólo del índice del nodo, así que agregar un nodo mueve ~1/N de las claves.
+ * Copia exacta del anillo de central: ambos lados deben calcular el mismo dueño.
+ */
+public final class ConsistentHashRing {
+    private final int nodeCount;
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(int nodeCount, int vnodes) {
+        if (nodeCount <= 0 || vnodes <= 0) {
+            throw new IllegalArgumentException("nodeCount y vnodes deben ser > 0");
+        }
+        this.nodeCount = nodeCount;
+        long[][] entries = new long[nodeCount * vnodes][];
+        int i = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int v = 0; v < vnodes; v++) {
+                entries[i++] = new long[]{hash("node-" + node + "#" + v), node};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[entries.length];
+        this.owners = new int[entries.length];
+        for (i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int owner(String productId) {
+        if (nodeCount == 1) {
+            return 0;
+        }
+        long h = hash(productId);
+        int lo = 0;
+        int hi = points.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(points[mid], h) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return owners[lo == points.length ? 0 : lo];
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre UTF-8 con el finalizador de murmur3 para repartir bien claves parecidas.
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
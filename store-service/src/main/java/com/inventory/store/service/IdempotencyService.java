@@ -0,0 +1,128 @@
+package com.inventory.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.inventory.store.entity.IdempotencyRequestEntity;
+import com.inventory.store.exception.ConflictException;
+import com.inventory.store.repository.IdempotencyRequestRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Registro de Idempotency-Key para las operaciones que mutan stock.
+ * <p>
+ * Cada clave guarda la operación, el hash del request y la respuesta serializada. Un reintento
+ * con el mismo request se responde desde el registro sin tocar stock; la misma clave con otro
+ * request (u otra operación) es un conflicto.
+ */
+@Component
+public class IdempotencyService {
+    private static final String KEY_INDEX = "idx_idem_key";
+
+    private final IdempotencyRequestRepository repository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter compactWriter;
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyService(IdempotencyRequestRepository repository, ObjectMapper objectMapper, Clock clock, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        // el mapper de la app indenta; lo guardado no se muestra, así que va compacto
+        this.compactWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static boolean hasKey(String idempotencyKey) {
+        return idempotencyKey != null && !idempotencyKey.isBlank();
+    }
+
+    /**
+     * Hash estable de los campos que identifican el request (SHA-256 en hex).
+     */
+    public static String requestHash(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (Object part : parts) {
+            sb.append(part).append('\u001f');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Respuesta guardada para la clave, si existe y corresponde al mismo request.
+     */
+    public <T> Optional<T> replay(String idempotencyKey, String operation, String requestHash, Class<T> type) {
+        Optional<IdempotencyRequestEntity> stored = repository.findByIdempotencyKey(idempotencyKey);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        IdempotencyRequestEntity entry = stored.get();
+        if (!operation.equals(entry.getOperation()) || !requestHash.equals(entry.getRequestHash())) {
+            count(operation, "conflict");
+            throw new ConflictException("Idempotency-Key ya usada con otro request: " + idempotencyKey);
+        }
+        count(operation, "replayed");
+        try {
+            return Optional.of(objectMapper.readValue(entry.getResponseBody(), type));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta idempotente ilegible para key=" + idempotencyKey, e);
+        }
+    }
+
+    /**
+     * Guarda la respuesta dentro de la transacción de la operación. Si otra petición con la misma
+     * clave ganó la carrera, el índice único hace fallar el flush y la operación se revierte.
+     */
+    public void record(String idempotencyKey, String operation, String requestHash, Object response) {
+        String body;
+        try {
+            body = compactWriter.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta idempotente", e);
+        }
+        repository.saveAndFlush(IdempotencyRequestEntity.builder()
+                .id(UUID.randomUUID())
+                .idempotencyKey(idempotencyKey)
+                .operation(operation)
+                .requestHash(requestHash)
+                .responseBody(body)
+                .createdAt(clock.instant())
+                .build());
+        count(operation, "stored");
+    }
+
+    /**
+     * true si la violación es la del índice único de la clave (otra petición la registró antes);
+     * cualquier otra violación de integridad es un error real de la operación.
+     */
+    public static boolean isKeyConflict(DataIntegrityViolationException ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().toLowerCase(Locale.ROOT).contains(KEY_INDEX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count(String operation, String result) {
+        meterRegistry.counter("inventory_idempotency_requests_total", "operation", operation, "result", result).increment();
+    }
+}
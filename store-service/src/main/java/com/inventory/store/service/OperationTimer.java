@@ -0,0 +1,169 @@
+package com.inventory.store.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Desglose por fases de una operación (carga, flush, outbox, esperas de reintento, HTTP...).
+ * <p>
+ * {@link #start} abre la operación en el hilo actual y {@link #phase} acumula nanos en ella; si
+ * no hay operación abierta la fase no hace nada, así los caminos internos (p. ej. vencimientos)
+ * no pagan nada. Al cerrar se registra inventory_operation_phase_seconds{operation,phase}, una
+ * vez por fase con el total acumulado, y lo no atribuido va a phase=other. Si la operación pasa
+ * de slowMs se escribe su desglose completo en el logger inventory.slow con el traceId.
+ * Las fases se pueden medir desde otros hilos con {@link Operation#phase}; con envíos en paralelo
+ * la suma de fases puede superar el total.
+ */
+@Component
+public class OperationTimer {
+    private static final Logger slowLog = LoggerFactory.getLogger("inventory.slow");
+
+    private static final Operation NOOP_OPERATION = new Operation(null, null, null, 0);
+    private static final Phase NOOP_PHASE = new Phase(null, null, 0);
+
+    private final ThreadLocal<Operation> current = new ThreadLocal<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long slowNanos;
+
+    public OperationTimer(@Value("${store.profiling.enabled:true}") boolean enabled,
+                          @Value("${store.profiling.slowMs:250}") long slowMs,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMs);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Abre una operación; si ya hay una abierta en el hilo, la anidada se suma a la de afuera.
+     */
+    public Operation start(String name) {
+        if (!enabled) {
+            return NOOP_OPERATION;
+        }
+        Operation active = current.get();
+        if (active != null) {
+            active.depth++;
+            return active;
+        }
+        Operation op = new Operation(this, name, MDC.get("traceId"), System.nanoTime());
+        current.set(op);
+        return op;
+    }
+
+    /**
+     * Fase de la operación abierta en este hilo (o nada si no hay).
+     */
+    public Phase phase(String name) {
+        Operation op = current.get();
+        return op == null ? NOOP_PHASE : op.phase(name);
+    }
+
+    private void finish(Operation op) {
+        current.remove();
+        long total = System.nanoTime() - op.startNanos;
+        Map<String, Long> phases;
+        synchronized (op.phases) {
+            phases = new LinkedHashMap<>(op.phases);
+        }
+        long attributed = 0;
+        for (Map.Entry<String, Long> e : phases.entrySet()) {
+            timer(op.name, e.getKey()).record(e.getValue(), TimeUnit.NANOSECONDS);
+            attributed += e.getValue();
+        }
+        if (total > attributed) {
+            phases.put("other", total - attributed);
+            timer(op.name, "other").record(total - attributed, TimeUnit.NANOSECONDS);
+        }
+        if (total >= slowNanos) {
+            StringBuilder breakdown = new StringBuilder();
+            for (Map.Entry<String, Long> e : phases.entrySet()) {
+                if (!breakdown.isEmpty()) {
+                    breakdown.append(' ');
+                }
+                breakdown.append(e.getKey()).append('=').append(String.format("%.1f", e.getValue() / 1e6)).append("ms");
+            }
+            slowLog.warn("[traceId={}] operación lenta: op={} totalMs={} fases=[{}]",
+                    op.traceId, op.name, String.format("%.1f", total / 1e6), breakdown);
+        }
+    }
+
+    private Timer timer(String operation, String phase) {
+        return timers.computeIfAbsent(operation + '\0' + phase, k -> Timer.builder("inventory_operation_phase_seconds")
+                .tag("operation", operation)
+                .tag("phase", phase)
+                .publishPercentileHistogram(true)
+                .register(meterRegistry));
+    }
+
+    public static final class Operation implements AutoCloseable {
+        private final OperationTimer owner;
+        private final String name;
+        private final String traceId;
+        private final long startNanos;
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+        private int depth;
+
+        private Operation(OperationTimer owner, String name, String traceId, long startNanos) {
+            this.owner = owner;
+            this.name = name;
+            this.traceId = traceId;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Fase sobre esta operación; se puede usar desde cualquier hilo.
+         */
+        public Phase phase(String phase) {
+            return owner == null ? NOOP_PHASE : new Phase(this, phase, System.nanoTime());
+        }
+
+        private void add(String phase, long nanos) {
+            synchronized (phases) {
+                phases.merge(phase, nanos, Long::sum);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (owner == null) {
+                return;
+            }
+            if (depth > 0) {
+                depth--;
+                return;
+            }
+            owner.finish(this);
+        }
+    }
+
+    public static final class Phase implements AutoCloseable {
+        private final Operation operation;
+        private final String name;
+        private final long startNanos;
+
+        private Phase(Operation operation, String name, long startNanos) {
+            this.operation = operation;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (operation != null) {
+                operation.add(name, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.inventory.store.service;
+
+import com.inventory.store.entity.ChangeLogEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carril del outbox según la disponibilidad (onHand - allocated) antes y después del cambio.
+ * <p>
+ * Quiebre de stock: quedó en cero o salió de cero (una reposición es igual de urgente para
+ * central, que cree que no hay). Stock bajo: antes o después está en o bajo lowStockThreshold.
+ * El resto es rutinario.
+ */
+@Component
+public class OutboxPriority {
+    private final int lowStockThreshold;
+
+    public OutboxPriority(@Value("${store.sync.lanes.lowStockThreshold:5}") int lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    public int classify(int availableBefore, int availableAfter) {
+        return Math.min(lane(availableBefore), lane(availableAfter));
+    }
+
+    private int lane(int available) {
+        if (available <= 0) {
+            return ChangeLogEntity.PRIORITY_STOCKOUT;
+        }
+        if (available <= lowStockThreshold) {
+            return ChangeLogEntity.PRIORITY_LOW_STOCK;
+        }
+        return ChangeLogEntity.PRIORITY_ROUTINE;
+    }
+}
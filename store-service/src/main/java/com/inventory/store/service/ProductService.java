@@ -2,20 +2,72 @@ package com.inventory.store.service;
 
 import com.inventory.store.entity.ProductEntity;
 import com.inventory.store.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class ProductService {
 	private final ProductRepository productRepository;
+	private final Counter notModified;
+	private final Counter full;
 
-	public ProductService(ProductRepository productRepository) {
+	/**
+	 * ETag del último catálogo servido y la generación del catálogo con la que se calculó.
+	 * Cada cambio sube la generación; un findAll que leyó antes del cambio ya no puede publicar.
+	 */
+	private record CatalogETag(long generation, String etag) {
+	}
+
+	// permite contestar 304 sin volver a leer la tabla
+	private final AtomicReference<CatalogETag> catalogETag = new AtomicReference<>(new CatalogETag(0, null));
+
+	public ProductService(ProductRepository productRepository, MeterRegistry meterRegistry) {
 		this.productRepository = productRepository;
+		this.notModified = Counter.builder("inventory_conditional_get_total")
+				.tag("resource", "products").tag("result", "not_modified").register(meterRegistry);
+		this.full = Counter.builder("inventory_conditional_get_total")
+				.tag("resource", "products").tag("result", "full").register(meterRegistry);
 	}
 
 	public List<ProductEntity> findAll() {
-		return productRepository.findAll();
+		long generation = catalogETag.get().generation();
+		List<ProductEntity> products = productRepository.findAll();
+		String etag = eTagOf(products);
+		// si un cambio confirmó mientras se leía, su invalidación gana: el ETag calculado puede ser viejo
+		catalogETag.updateAndGet(c -> c.generation() == generation ? new CatalogETag(generation, etag) : c);
+		return products;
+	}
+
+	/**
+	 * Descarta el ETag cacheado; llamar después de confirmar el cambio, no antes.
+	 */
+	public void invalidateCatalogETag() {
+		catalogETag.updateAndGet(c -> new CatalogETag(c.generation() + 1, null));
+	}
+
+	/**
+	 * Devuelve el ETag del catálogo si el cliente ya lo tiene (→ 304), o null si hay que servir la lista.
+	 */
+	public String matchNotModified(String ifNoneMatch) {
+		String etag = catalogETag.get().etag();
+		if (ETags.matches(ifNoneMatch, etag)) {
+			notModified.increment();
+			return etag;
+		}
+		full.increment();
+		return null;
 	}
-}
 
+	public static String eTagOf(List<ProductEntity> products) {
+		long hash = 1;
+		for (ProductEntity p : products) {
+			hash = 31 * hash + Objects.hash(p.getId(), p.getUpdatedAt());
+		}
+		return ETags.quote(products.size() + "-" + Long.toHexString(hash));
+	}
+}
@@ -0,0 +1,130 @@
+package com.inventory.store.service;
+
+import com.inventory.store.dto.MerkleQueryDTO;
+import com.inventory.store.dto.ReconcileResultDTO;
+import com.inventory.store.dto.StockSnapshotDTO;
+import com.inventory.store.dto.SyncBatchDTO;
+import com.inventory.store.dto.SyncResultDTO;
+import com.inventory.store.entity.StockEntity;
+import com.inventory.store.repository.StockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reconciliación anti-entropía tienda→central. Compara el árbol de hashes local con el de central
+ * nivel por nivel y sólo desciende por los nodos que difieren; al llegar a los buckets re-envía
+ * únicamente los SKUs divergentes. El costo escala con la divergencia, no con el catálogo.
+ * <p>
+ * Con central particionado no corre: el árbol de cada nodo cubre sólo su partición, así que contra
+ * un único nodo todo SKU ajeno parecería divergente y se re-enviaría en cada pasada.
+ */
+@Service
+public class ReconciliationService {
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private final StockMerkleTree merkleTree;
+    private final StockRepository stockRepository;
+    private final CentralSyncClient centralSyncClient;
+    private final MeterRegistry meterRegistry;
+    private final Counter reconcileRuns;
+    private final Counter itemsDiverged;
+    private final Counter reconcileSkipped;
+    private final Timer reconcileTimer;
+
+    public ReconciliationService(StockMerkleTree merkleTree,
+                                 StockRepository stockRepository,
+                                 CentralSyncClient centralSyncClient,
+                                 MeterRegistry meterRegistry) {
+        this.merkleTree = merkleTree;
+        this.stockRepository = stockRepository;
+        this.centralSyncClient = centralSyncClient;
+        this.meterRegistry = meterRegistry;
+        this.reconcileRuns = Counter.builder("inventory_sync_reconcile_runs_total").register(meterRegistry);
+        this.itemsDiverged = Counter.builder("inventory_sync_reconcile_items_diverged_total").register(meterRegistry);
+        this.reconcileSkipped = Counter.builder("inventory_sync_reconcile_skipped_total").register(meterRegistry);
+        this.reconcileTimer = Timer.builder("inventory_sync_reconcile_duration_seconds").register(meterRegistry);
+    }
+
+    public ReconcileResultDTO reconcile() {
+        String traceId = MDC.get("traceId");
+        if (centralSyncClient.isPartitioned()) {
+            reconcileSkipped.increment();
+            log.warn("[traceId={}] reconciliación omitida: central tiene más de un nodo y cada árbol cubre sólo su partición", traceId);
+            return ReconcileResultDTO.builder().partitioned(true).build();
+        }
+        reconcileRuns.increment();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ReconcileResultDTO result = ReconcileResultDTO.builder().build();
+
+        List<Integer> differing = List.of(0);
+        for (int level = 0; level <= StockMerkleTree.DEPTH && !differing.isEmpty(); level++) {
+            List<Integer> indexes = level == 0 ? differing : children(differing);
+            Map<Integer, Long> remote = centralSyncClient.merkleNodes(
+                    MerkleQueryDTO.builder().level(level).indexes(indexes).build()).getHashes();
+            Map<Integer, Long> local = merkleTree.nodes(level, indexes);
+            result.setRoundTrips(result.getRoundTrips() + 1);
+            result.setNodesCompared(result.getNodesCompared() + indexes.size());
+            differing = indexes.stream().filter(i -> !Objects.equals(local.get(i), remote.get(i))).toList();
+        }
+        if (differing.isEmpty()) {
+            sample.stop(reconcileTimer);
+            log.info("[traceId={}] reconciliación: árboles iguales, nodos={}", traceId, result.getNodesCompared());
+            return result;
+        }
+
+        result.setBucketsDiverged(differing.size());
+        Map<String, Long> remoteItems = centralSyncClient.merkleBuckets(
+                MerkleQueryDTO.builder().level(StockMerkleTree.DEPTH).indexes(differing).build()).getItems();
+        result.setRoundTrips(result.getRoundTrips() + 1);
+        Map<String, Long> localItems = merkleTree.bucketItems(differing);
+
+        List<String> divergent = new ArrayList<>();
+        localItems.forEach((productId, hash) -> {
+            if (!Objects.equals(hash, remoteItems.get(productId))) {
+                divergent.add(productId);
+            }
+        });
+        result.setMissingLocally((int) remoteItems.keySet().stream().filter(id -> !localItems.containsKey(id)).count());
+        result.setItemsDiverged(divergent.size());
+        itemsDiverged.increment(divergent.size());
+
+        if (!divergent.isEmpty()) {
+            List<StockSnapshotDTO> items = new ArrayList<>(divergent.size());
+            for (StockEntity st : stockRepository.findAllById(divergent)) {
+                items.add(StockSnapshotDTO.builder()
+                        .productId(st.getProductId())
+                        .quantity(st.getOnHand())
+                        .updatedAt(st.getUpdatedAt())
+                        .build());
+            }
+            SyncResultDTO pushed = centralSyncClient.pushBatch(SyncBatchDTO.builder().items(items).build());
+            result.setApplied(pushed.getApplied());
+            result.setSkipped(pushed.getSkipped());
+        }
+        sample.stop(reconcileTimer);
+        log.info("[traceId={}] reconciliación: buckets={} divergentes={} soloEnCentral={} applied={} skipped={} roundTrips={}",
+                traceId, result.getBucketsDiverged(), result.getItemsDiverged(), result.getMissingLocally(),
+                result.getApplied(), result.getSkipped(), result.getRoundTrips());
+        return result;
+    }
+
+    private static List<Integer> children(List<Integer> parents) {
+        List<Integer> children = new ArrayList<>(parents.size() * StockMerkleTree.FANOUT);
+        for (int parent : parents) {
+            for (int k = 0; k < StockMerkleTree.FANOUT; k++) {
+                children.add(parent * StockMerkleTree.FANOUT + k);
+            }
+        }
+        return children;
+    }
+}
@@ -0,0 +1,158 @@
+package com.inventory.store.service;
+
+import com.inventory.store.entity.ReservationEntity;
+import com.inventory.store.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Vence reservas HELD sin recorrer la tabla: en cada tick pregunta a la rueda qué ids vencieron
+ * y los libera en lotes, una transacción por lote. Si un lote falla se reintenta de a una reserva,
+ * así una reserva rota no frena a las demás: esa queda apartada y vuelve a probarse tras parkMs.
+ */
+@Component
+public class ReservationExpiryService {
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryService.class);
+
+    private static final int REBUILD_PAGE = 10_000;
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationTimingWheel timingWheel;
+    private final StockService stockService;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long parkMs;
+    private final Counter expiredCounter;
+    private final Counter failedBatches;
+    private final Counter parkedCounter;
+    private final Timer batchTimer;
+
+    public ReservationExpiryService(ReservationRepository reservationRepository,
+                                    ReservationTimingWheel timingWheel,
+                                    StockService stockService,
+                                    Clock clock,
+                                    @Value("${store.reservation.expiry.enabled:true}") boolean enabled,
+                                    @Value("${store.reservation.expiry.batchSize:200}") int batchSize,
+                                    @Value("${store.reservation.expiry.parkMs:60000}") long parkMs,
+                                    MeterRegistry meterRegistry) {
+        this.reservationRepository = reservationRepository;
+        this.timingWheel = timingWheel;
+        this.stockService = stockService;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.parkMs = Math.max(0, parkMs);
+        this.expiredCounter = Counter.builder("inventory_reservation_expired_total").register(meterRegistry);
+        this.failedBatches = Counter.builder("inventory_reservation_expiry_failed_batches_total").register(meterRegistry);
+        this.parkedCounter = Counter.builder("inventory_reservation_expiry_parked_total").register(meterRegistry);
+        this.batchTimer = Timer.builder("inventory_reservation_expiry_batch_duration_seconds").register(meterRegistry);
+    }
+
+    /**
+     * Recarga la rueda desde las reservas HELD persistidas. Las ya vencidas saltan en el primer tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        Slice<ReservationEntity> page = reservationRepository.findByStatus(ReservationEntity.HELD,
+                PageRequest.of(0, REBUILD_PAGE, Sort.by("id")));
+        while (true) {
+            for (ReservationEntity hold : page) {
+                if (hold.getExpiresAt() != null) {
+                    timingWheel.schedule(hold.getId(), hold.getExpiresAt());
+                    loaded++;
+                }
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = reservationRepository.findByStatus(ReservationEntity.HELD, page.nextPageable());
+        }
+        log.info("rueda de reservas reconstruida: holds={} durationMs={}", loaded, System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(fixedDelayString = "${store.reservation.expiry.tickMs:1000}")
+    public void scheduledExpiry() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            expireDue(clock.instant());
+        } catch (Exception ex) {
+            log.warn("scheduler reservation expiry error: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Libera todo lo vencido hasta now. Un lote que falla (p. ej. conflicto optimista o una reserva
+     * inconsistente) se deshace entero y se repasa de a una reserva en su propia transacción; el
+     * resto de los lotes sigue.
+     */
+    public int expireDue(Instant now) {
+        List<UUID> due = timingWheel.advance(now);
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<UUID> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                int released = batchTimer.record(() -> stockService.expireHolds(batch, now));
+                expired += released;
+                expiredCounter.increment(released);
+            } catch (RuntimeException ex) {
+                failedBatches.increment();
+                if (batch.size() == 1) {
+                    park(batch.get(0), now, ex);
+                    continue;
+                }
+                log.warn("lote de vencimientos fallido, se reintenta de a una: size={} error={}", batch.size(), ex.getMessage());
+                expired += expireOneByOne(batch, now);
+            }
+        }
+        if (expired > 0) {
+            log.info("reservas vencidas liberadas: count={} due={}", expired, due.size());
+        }
+        return expired;
+    }
+
+    /**
+     * Una transacción por reserva. La que vuelve a fallar se aparta: vuelve a la rueda con
+     * deadline now + parkMs en vez de reintentarse en cada tick.
+     */
+    private int expireOneByOne(List<UUID> batch, Instant now) {
+        int expired = 0;
+        for (UUID id : batch) {
+            try {
+                int released = stockService.expireHolds(List.of(id), now);
+                expired += released;
+                expiredCounter.increment(released);
+            } catch (RuntimeException ex) {
+                park(id, now, ex);
+            }
+        }
+        return expired;
+    }
+
+    private void park(UUID id, Instant now, RuntimeException cause) {
+        parkedCounter.increment();
+        Instant retryAt = now.plusMillis(parkMs);
+        log.warn("reserva apartada por error al vencer: id={} reintentoEn={} error={}", id, retryAt, cause.getMessage());
+        timingWheel.schedule(id, retryAt);
+    }
+}
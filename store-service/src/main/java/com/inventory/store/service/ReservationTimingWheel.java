@@ -0,0 +1,173 @@
+package com.inventory.store.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Rueda de tiempo jerárquica para los vencimientos de reservas.
+ * <p>
+ * LEVELS niveles de SLOTS ranuras; el nivel n cubre SLOTS^(n+1) ticks. Cada ranura es una lista
+ * doblemente enlazada, así que programar y cancelar son O(1). Al avanzar, cuando el nivel 0 da
+ * la vuelta se vuelca la ranura que toca del nivel superior (cascada), como en los timers de Linux.
+ * Vencimientos más allá del rango se aparcan en el último nivel y se reubican al llegar.
+ */
+@Component
+public class ReservationTimingWheel {
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private static final class Node {
+        final UUID id;
+        long expiry;
+        int level;
+        int slot;
+        Node prev;
+        Node next;
+
+        Node(UUID id) {
+            this.id = id;
+        }
+    }
+
+    private final long tickMs;
+    private final Node[][] slots = new Node[LEVELS][SLOTS];
+    private final Map<UUID, Node> byId = new HashMap<>();
+    private long currentTick;
+
+    @Autowired
+    public ReservationTimingWheel(@Value("${store.reservation.expiry.tickMs:1000}") long tickMs,
+                                  Clock clock,
+                                  MeterRegistry meterRegistry) {
+        this(tickMs, clock.instant());
+        Gauge.builder("inventory_reservation_wheel_pending", this, ReservationTimingWheel::size).register(meterRegistry);
+    }
+
+    ReservationTimingWheel(long tickMs, Instant start) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs debe ser > 0");
+        }
+        this.tickMs = tickMs;
+        this.currentTick = Math.floorDiv(start.toEpochMilli(), tickMs);
+    }
+
+    /**
+     * Programa (o reprograma) el vencimiento de una reserva. Nunca dispara antes del deadline:
+     * se redondea hacia arriba al tick siguiente.
+     */
+    public synchronized void schedule(UUID id, Instant deadline) {
+        Node node = byId.get(id);
+        if (node == null) {
+            node = new Node(id);
+            byId.put(id, node);
+        } else {
+            unlink(node);
+        }
+        long millis = deadline.toEpochMilli();
+        node.expiry = Math.max(Math.floorDiv(millis + tickMs - 1, tickMs), currentTick + 1);
+        place(node);
+    }
+
+    public synchronized boolean cancel(UUID id) {
+        Node node = byId.remove(id);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Avanza la rueda hasta now y devuelve los ids vencidos, ya quitados de la rueda.
+     */
+    public synchronized List<UUID> advance(Instant now) {
+        long target = Math.floorDiv(now.toEpochMilli(), tickMs);
+        List<UUID> expired = new ArrayList<>();
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            int index = (int) (currentTick & SLOT_MASK);
+            Node node = slots[0][index];
+            slots[0][index] = null;
+            while (node != null) {
+                Node next = node.next;
+                node.prev = null;
+                node.next = null;
+                if (node.expiry > currentTick) {
+                    place(node);
+                } else {
+                    byId.remove(node.id);
+                    expired.add(node.id);
+                }
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((currentTick >>> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            Node node = slots[level][index];
+            slots[level][index] = null;
+            while (node != null) {
+                Node next = node.next;
+                node.prev = null;
+                node.next = null;
+                place(node);
+                node = next;
+            }
+        }
+    }
+
+    private void place(Node node) {
+        long expiry = Math.min(node.expiry, currentTick + MAX_SPAN - 1);
+        long delta = Math.max(expiry - currentTick, 0);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((expiry >>> (SLOT_BITS * level)) & SLOT_MASK);
+        node.level = level;
+        node.slot = index;
+        node.prev = null;
+        node.next = slots[level][index];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        slots[level][index] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (slots[node.level][node.slot] == node) {
+            slots[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+}
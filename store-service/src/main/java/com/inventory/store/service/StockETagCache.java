@@ -0,0 +1,54 @@
+package com.inventory.store.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché productId → versión de stock para responder 304 sin leer la base ni armar el DTO.
+ * Las versiones sólo avanzan: una lectura vieja nunca pisa una escritura más nueva.
+ */
+@Component
+public class StockETagCache {
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+    private final Counter notModified;
+    private final Counter full;
+
+    public StockETagCache(MeterRegistry meterRegistry) {
+        this.notModified = Counter.builder("inventory_conditional_get_total")
+                .tag("resource", "stock").tag("result", "not_modified").register(meterRegistry);
+        this.full = Counter.builder("inventory_conditional_get_total")
+                .tag("resource", "stock").tag("result", "full").register(meterRegistry);
+    }
+
+    public static String eTagOf(Integer version) {
+        return version == null ? null : ETags.quote(Integer.toString(version));
+    }
+
+    public void update(String productId, Integer version) {
+        if (version != null) {
+            versions.merge(productId, version, Math::max);
+        }
+    }
+
+    public String current(String productId) {
+        return eTagOf(versions.get(productId));
+    }
+
+    /**
+     * Devuelve el ETag vigente si el cliente ya lo tiene (→ 304), o null si hay que servir el cuerpo.
+     * Registra el resultado para la métrica de ratio 304.
+     */
+    public String matchNotModified(String productId, String ifNoneMatch) {
+        String etag = current(productId);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            notModified.increment();
+            return etag;
+        }
+        full.increment();
+        return null;
+    }
+}
@@ -0,0 +1,293 @@
+package com.inventory.store.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.store.dto.StockImportErrorDTO;
+import com.inventory.store.dto.StockImportResultDTO;
+import com.inventory.store.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importación masiva de conteos físicos (valores absolutos de onHand).
+ * <p>
+ * Lee el cuerpo en streaming (CSV {@code productId,onHand} o NDJSON {@code {"productId":..,"onHand":..}})
+ * y lo aplica en lotes de chunkSize: un SELECT ... IN por lote, UPDATE en JDBC batch con control
+ * de versión y una sola fila de outbox por SKU modificado. Los errores se informan por línea y no
+ * abortan el archivo. Si un SKU se repite dentro del mismo lote gana la última línea y las
+ * anteriores se cuentan en duplicates, así que lines = applied + unchanged + rejected + duplicates.
+ */
+@Service
+public class StockImportService {
+    private static final Logger log = LoggerFactory.getLogger(StockImportService.class);
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final String SELECT_SQL =
+            "SELECT product_id, on_hand, allocated, version FROM stock WHERE product_id IN (:ids)";
+    private static final String UPDATE_SQL =
+            "UPDATE stock SET on_hand = ?, updated_at = ?, version = version + 1 WHERE product_id = ? AND version = ?";
+    private static final String OUTBOX_SQL =
+            "INSERT INTO change_log (id, product_id, updated_at, priority) VALUES (?, ?, ?, ?)";
+
+    private record Row(long line, String productId, int onHand) {
+    }
+
+    private record Current(int onHand, int allocated, int version) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final StockETagCache etagCache;
+    private final StockMerkleTree merkleTree;
+    private final OutboxPriority outboxPriority;
+    private final Clock clock;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Counter appliedCounter;
+    private final Counter unchangedCounter;
+    private final Counter rejectedCounter;
+    private final Counter duplicateCounter;
+    private final Timer importTimer;
+
+    public StockImportService(JdbcTemplate jdbcTemplate,
+                              NamedParameterJdbcTemplate namedJdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              StockETagCache etagCache,
+                              StockMerkleTree merkleTree,
+                              OutboxPriority outboxPriority,
+                              Clock clock,
+                              @Value("${store.import.chunkSize:1000}") int chunkSize,
+                              @Value("${store.import.maxErrors:100}") int maxErrors,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.etagCache = etagCache;
+        this.merkleTree = merkleTree;
+        this.outboxPriority = outboxPriority;
+        this.clock = clock;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxErrors = Math.max(0, maxErrors);
+        this.appliedCounter = Counter.builder("inventory_stock_import_rows_total").tag("result", "applied").register(meterRegistry);
+        this.unchangedCounter = Counter.builder("inventory_stock_import_rows_total").tag("result", "unchanged").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("inventory_stock_import_rows_total").tag("result", "rejected").register(meterRegistry);
+        this.duplicateCounter = Counter.builder("inventory_stock_import_rows_total").tag("result", "duplicate").register(meterRegistry);
+        this.importTimer = Timer.builder("inventory_stock_import_duration_seconds").register(meterRegistry);
+    }
+
+    /**
+     * Formato a partir del Content-Type: text/csv o application/x-ndjson.
+     */
+    public static String formatOf(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        if (type.contains("ndjson") || type.contains("jsonl")) {
+            return NDJSON;
+        }
+        if (type.contains("csv") || type.startsWith("text/plain")) {
+            return CSV;
+        }
+        throw new BadRequestException("Content-Type no soportado para importación: " + contentType);
+    }
+
+    public StockImportResultDTO importCounts(InputStream body, String format) throws IOException {
+        String traceId = MDC.get("traceId");
+        long start = System.nanoTime();
+        StockImportResultDTO result = StockImportResultDTO.builder().format(format).build();
+        Map<String, Row> chunk = new LinkedHashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String raw;
+            long lineNo = 0;
+            while ((raw = reader.readLine()) != null) {
+                lineNo++;
+                String line = lineNo == 1 && raw.startsWith("\uFEFF") ? raw.substring(1) : raw;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (lineNo == 1 && CSV.equals(format) && line.toLowerCase().startsWith("productid")) {
+                    continue;
+                }
+                result.setLines(result.getLines() + 1);
+                Row row;
+                try {
+                    row = CSV.equals(format) ? parseCsv(lineNo, line) : parseNdjson(lineNo, line);
+                } catch (IllegalArgumentException ex) {
+                    reject(result, lineNo, null, ex.getMessage());
+                    continue;
+                } catch (IOException ex) {
+                    reject(result, lineNo, null, "JSON inválido");
+                    continue;
+                }
+                if (chunk.put(row.productId(), row) != null) {
+                    // la línea anterior del mismo SKU en este lote queda pisada
+                    result.setDuplicates(result.getDuplicates() + 1);
+                    duplicateCounter.increment();
+                }
+                if (chunk.size() >= chunkSize) {
+                    applyChunk(chunk, result);
+                    chunk = new LinkedHashMap<>();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, result);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        importTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        result.setDurationMs(elapsed / 1_000_000);
+        log.info("[traceId={}] Importación de conteos: format={} lines={} applied={} unchanged={} rejected={} duplicates={} chunks={} durationMs={}",
+                traceId, format, result.getLines(), result.getApplied(), result.getUnchanged(), result.getRejected(),
+                result.getDuplicates(), result.getChunks(), result.getDurationMs());
+        return result;
+    }
+
+    private Row parseCsv(long lineNo, String line) {
+        String[] parts = line.split(",", -1);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("se esperaban 2 columnas (productId,onHand)");
+        }
+        return row(lineNo, parts[0].trim(), parts[1].trim());
+    }
+
+    private Row parseNdjson(long lineNo, String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        JsonNode onHand = node.get("onHand");
+        if (onHand == null || !onHand.canConvertToInt() || !onHand.isIntegralNumber()) {
+            throw new IllegalArgumentException("onHand debe ser un entero");
+        }
+        return row(lineNo, node.path("productId").asText(""), String.valueOf(onHand.intValue()));
+    }
+
+    private Row row(long lineNo, String productId, String onHand) {
+        if (productId.isEmpty() || productId.length() > 64) {
+            throw new IllegalArgumentException("productId inválido");
+        }
+        int value;
+        try {
+            value = Integer.parseInt(onHand);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("onHand debe ser un entero");
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("onHand no puede ser negativo");
+        }
+        return new Row(lineNo, productId, value);
+    }
+
+    private void applyChunk(Map<String, Row> chunk, StockImportResultDTO result) {
+        Instant now = clock.instant();
+        List<Row> applied = transactionTemplate.execute(status -> {
+            Map<String, Current> current = new HashMap<>();
+            namedJdbcTemplate.query(SELECT_SQL, Map.of("ids", chunk.keySet()), rs -> {
+                current.put(rs.getString(1), new Current(rs.getInt(2), rs.getInt(3), rs.getInt(4)));
+            });
+
+            List<Row> updates = new ArrayList<>(chunk.size());
+            for (Row row : chunk.values()) {
+                Current cur = current.get(row.productId());
+                if (cur == null) {
+                    reject(result, row.line(), row.productId(), "Stock not found for productId=" + row.productId());
+                } else if (row.onHand() < cur.allocated()) {
+                    reject(result, row.line(), row.productId(), "onHand menor que lo reservado (allocated=" + cur.allocated() + ")");
+                } else if (row.onHand() == cur.onHand()) {
+                    result.setUnchanged(result.getUnchanged() + 1);
+                    unchangedCounter.increment();
+                } else {
+                    updates.add(row);
+                }
+            }
+            if (updates.isEmpty()) {
+                return List.<Row>of();
+            }
+
+            Timestamp ts = Timestamp.from(now);
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, row) -> {
+                ps.setInt(1, row.onHand());
+                ps.setTimestamp(2, ts);
+                ps.setString(3, row.productId());
+                ps.setInt(4, current.get(row.productId()).version());
+            });
+            List<Row> done = new ArrayList<>(updates.size());
+            for (int i = 0; i < updates.size(); i++) {
+                Row row = updates.get(i);
+                if (counts[0][i] == 1) {
+                    done.add(row);
+                } else {
+                    reject(result, row.line(), row.productId(), "modificado concurrentemente; reintente la línea");
+                }
+            }
+            jdbcTemplate.batchUpdate(OUTBOX_SQL, done, done.size(), (ps, row) -> {
+                ps.setObject(1, UUID.randomUUID());
+                ps.setString(2, row.productId());
+                ps.setTimestamp(3, ts);
+                Current cur = current.get(row.productId());
+                ps.setInt(4, outboxPriority.classify(cur.onHand() - cur.allocated(), row.onHand() - cur.allocated()));
+            });
+            afterCommit(() -> {
+                for (Row row : done) {
+                    etagCache.update(row.productId(), current.get(row.productId()).version() + 1);
+                    merkleTree.update(row.productId(), row.onHand(), now);
+                }
+            });
+            return done;
+        });
+        result.setApplied(result.getApplied() + applied.size());
+        appliedCounter.increment(applied.size());
+        result.setChunks(result.getChunks() + 1);
+    }
+
+    private void reject(StockImportResultDTO result, long line, String productId, String message) {
+        result.setRejected(result.getRejected() + 1);
+        rejectedCounter.increment();
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(StockImportErrorDTO.builder().line(line).productId(productId).message(message).build());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
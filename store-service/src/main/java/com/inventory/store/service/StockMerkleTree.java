@@ -0,0 +1,158 @@
+package com.inventory.store.service;
+
+import com.inventory.store.entity.StockEntity;
+import com.inventory.store.repository.StockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Árbol de hashes sobre (productId, quantity, updatedAt) para reconciliación anti-entropía.
+ * <p>
+ * Las hojas son buckets por hash de SKU; cada nodo guarda la suma (mod 2^64) de los hashes de
+ * los ítems de su rango, así que un cambio se aplica en O(DEPTH) sin recalcular el árbol.
+ * Tienda y central usan exactamente la misma función de hash y el mismo bucketing.
+ */
+@Component
+public class StockMerkleTree {
+    private static final Logger log = LoggerFactory.getLogger(StockMerkleTree.class);
+
+    public static final int FANOUT = 16;
+    public static final int DEPTH = 3;
+    public static final int LEAVES = (int) Math.pow(FANOUT, DEPTH);
+
+    private final StockRepository stockRepository;
+    private final long[][] levels = new long[DEPTH + 1][];
+    private final Map<String, Long> itemHashes = new HashMap<>();
+    private final List<Set<String>> leafMembers;
+
+    public StockMerkleTree(StockRepository stockRepository) {
+        this.stockRepository = stockRepository;
+        for (int d = 0; d <= DEPTH; d++) {
+            levels[d] = new long[(int) Math.pow(FANOUT, d)];
+        }
+        this.leafMembers = new ArrayList<>(LEAVES);
+        for (int i = 0; i < LEAVES; i++) {
+            leafMembers.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Carga el árbol desde la base. No pisa ítems que ya llegaron por escrituras concurrentes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        for (StockEntity stock : stockRepository.findAll()) {
+            if (putIfAbsent(stock.getProductId(), itemHash(stock.getProductId(), stock.getOnHand(), stock.getUpdatedAt()))) {
+                loaded++;
+            }
+        }
+        log.info("merkle reconstruido: items={} durationMs={}", loaded, System.currentTimeMillis() - start);
+    }
+
+    public void update(String productId, int quantity, Instant updatedAt) {
+        put(productId, itemHash(productId, quantity, updatedAt));
+    }
+
+    public synchronized long root() {
+        return levels[0][0];
+    }
+
+    /**
+     * Hashes de los nodos pedidos en un nivel (0 = raíz, DEPTH = hojas/buckets).
+     */
+    public synchronized Map<Integer, Long> nodes(int level, List<Integer> indexes) {
+        if (level < 0 || level > DEPTH) {
+            throw new IllegalArgumentException("level fuera de rango: " + level);
+        }
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        for (Integer index : indexes) {
+            if (index == null || index < 0 || index >= levels[level].length) {
+                throw new IllegalArgumentException("index fuera de rango: " + index);
+            }
+            result.put(index, levels[level][index]);
+        }
+        return result;
+    }
+
+    /**
+     * Hash de cada SKU de los buckets pedidos.
+     */
+    public synchronized Map<String, Long> bucketItems(List<Integer> buckets) {
+        Map<String, Long> result = new HashMap<>();
+        for (Integer bucket : buckets) {
+            if (bucket == null || bucket < 0 || bucket >= LEAVES) {
+                throw new IllegalArgumentException("bucket fuera de rango: " + bucket);
+            }
+            for (String productId : leafMembers.get(bucket)) {
+                result.put(productId, itemHashes.get(productId));
+            }
+        }
+        return result;
+    }
+
+    private synchronized void put(String productId, long hash) {
+        Long old = itemHashes.put(productId, hash);
+        applyDelta(productId, hash - (old == null ? 0 : old));
+    }
+
+    private synchronized boolean putIfAbsent(String productId, long hash) {
+        if (itemHashes.putIfAbsent(productId, hash) != null) {
+            return false;
+        }
+        applyDelta(productId, hash);
+        return true;
+    }
+
+    private void applyDelta(String productId, long delta) {
+        int leaf = bucketOf(productId);
+        leafMembers.get(leaf).add(productId);
+        for (int d = DEPTH, index = leaf; d >= 0; d--, index /= FANOUT) {
+            levels[d][index] += delta;
+        }
+    }
+
+    public static int bucketOf(String productId) {
+        return (int) ((mix(fnv1a(productId)) >>> 1) % LEAVES);
+    }
+
+    /**
+     * updatedAt se normaliza a milisegundos: la base guarda menos precisión que el reloj.
+     */
+    public static long itemHash(String productId, int quantity, Instant updatedAt) {
+        long h = fnv1a(productId);
+        h = mix(h ^ quantity);
+        h = mix(h ^ (updatedAt == null ? 0 : updatedAt.toEpochMilli()));
+        return h;
+    }
+
+    private static long fnv1a(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // finalizador de splitmix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
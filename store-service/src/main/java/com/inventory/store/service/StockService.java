@@ -1,27 +1,44 @@
 package com.inventory.store.service;
 
+import com.inventory.store.dto.OrderReservationsDTO;
+import com.inventory.store.dto.ReservationDTO;
+import com.inventory.store.dto.StockAvailabilityDTO;
 import com.inventory.store.dto.StockSnapshotDTO;
 import com.inventory.store.dto.StockAllocateRequestDTO;
 import com.inventory.store.dto.StockAllocationResponseDTO;
 import com.inventory.store.entity.ChangeLogEntity;
-import com.inventory.store.entity.IdempotencyRequestEntity;
+import com.inventory.store.entity.ReservationEntity;
 import com.inventory.store.entity.StockEntity;
 import com.inventory.store.exception.BadRequestException;
 import com.inventory.store.exception.NotFoundException;
+import com.inventory.store.jfr.StockMutationEvent;
 import com.inventory.store.repository.ChangeLogRepository;
-import com.inventory.store.repository.IdempotencyRequestRepository;
+import com.inventory.store.repository.ReservationRepository;
 import com.inventory.store.repository.StockRepository;
 import jakarta.persistence.OptimisticLockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
@@ -29,52 +46,147 @@ import io.micrometer.core.instrument.Timer;
 @Service
 public class StockService {
 	private static final Logger log = LoggerFactory.getLogger(StockService.class);
+	// categorías de éxito de los caminos calientes, muestreables con store.logging.sampling
+	private static final Logger adjustLog = LoggerFactory.getLogger("inventory.stock.adjust");
+	private static final Map<String, Logger> mutationLogs = Map.of(
+			"allocate", LoggerFactory.getLogger("inventory.stock.allocate"),
+			"commit", LoggerFactory.getLogger("inventory.stock.commit"),
+			"release", LoggerFactory.getLogger("inventory.stock.release"));
 
 	private final StockRepository stockRepository;
 	private final ChangeLogRepository changeLogRepository;
-	private final IdempotencyRequestRepository idempotencyRequestRepository;
+	private final IdempotencyService idempotencyService;
+	private final ReservationRepository reservationRepository;
+	private final TransactionTemplate transactionTemplate;
 	private final Clock clock;
+	private final StockETagCache etagCache;
+	private final StockMerkleTree merkleTree;
+	private final ReservationTimingWheel timingWheel;
+	private final OutboxPriority outboxPriority;
+	private final OperationTimer operationTimer;
+	private final Duration reservationTtl;
 	private final MeterRegistry meterRegistry;
 	private final Counter adjustAttempts;
 	private final Counter adjustSuccess;
 	private final Counter adjustFailed;
 	private final Timer adjustTimer;
+	private final Timer orderCommitTimer;
+	private final Timer orderReleaseTimer;
 
-	public StockService(StockRepository stockRepository, ChangeLogRepository changeLogRepository, IdempotencyRequestRepository idempotencyRequestRepository, Clock clock, MeterRegistry meterRegistry) {
+	public StockService(StockRepository stockRepository, ChangeLogRepository changeLogRepository, IdempotencyService idempotencyService, ReservationRepository reservationRepository, TransactionTemplate transactionTemplate, Clock clock, StockETagCache etagCache, StockMerkleTree merkleTree, ReservationTimingWheel timingWheel, OutboxPriority outboxPriority, OperationTimer operationTimer, @Value("${store.reservation.ttlMs:900000}") long reservationTtlMs, MeterRegistry meterRegistry) {
 		this.stockRepository = stockRepository;
 		this.changeLogRepository = changeLogRepository;
-		this.idempotencyRequestRepository = idempotencyRequestRepository;
+		this.idempotencyService = idempotencyService;
+		this.reservationRepository = reservationRepository;
+		this.transactionTemplate = transactionTemplate;
 		this.clock = clock;
+		this.etagCache = etagCache;
+		this.merkleTree = merkleTree;
+		this.timingWheel = timingWheel;
+		this.outboxPriority = outboxPriority;
+		this.operationTimer = operationTimer;
+		this.reservationTtl = Duration.ofMillis(reservationTtlMs);
 		this.meterRegistry = meterRegistry;
 		this.adjustAttempts = Counter.builder("inventory_stock_adjust_attempts_total").register(meterRegistry);
 		this.adjustSuccess = Counter.builder("inventory_stock_adjust_success_total").register(meterRegistry);
 		this.adjustFailed = Counter.builder("inventory_stock_adjust_failed_total").register(meterRegistry);
 		this.adjustTimer = Timer.builder("inventory_stock_adjust_duration_seconds").publishPercentileHistogram(true).register(meterRegistry);
+		this.orderCommitTimer = Timer.builder("inventory_reservation_order_duration_seconds").tag("op", "commit").register(meterRegistry);
+		this.orderReleaseTimer = Timer.builder("inventory_reservation_order_duration_seconds").tag("op", "release").register(meterRegistry);
 	}
 
 	public StockSnapshotDTO getSnapshot(String productId) {
 		StockEntity stock = stockRepository.findById(productId)
 				.orElseThrow(() -> new NotFoundException("Stock not found for productId=" + productId));
+		etagCache.update(productId, stock.getVersion());
 		return StockSnapshotDTO.builder()
 				.productId(stock.getProductId())
 				.quantity(stock.getOnHand())
 				.updatedAt(stock.getUpdatedAt())
+				.version(stock.getVersion())
 				.build();
 	}
 
+	/**
+	 * Disponibilidad de varios SKUs con una sola consulta (IN). Respeta el orden de entrada y
+	 * devuelve NOT_FOUND por SKU en lugar de fallar toda la respuesta.
+	 */
+	public List<StockAvailabilityDTO> getAvailability(List<String> productIds) {
+		Map<String, StockEntity> byId = new HashMap<>();
+		for (StockEntity stock : stockRepository.findAllById(new LinkedHashSet<>(productIds))) {
+			byId.put(stock.getProductId(), stock);
+			etagCache.update(stock.getProductId(), stock.getVersion());
+		}
+		List<StockAvailabilityDTO> result = new ArrayList<>(productIds.size());
+		for (String productId : productIds) {
+			StockEntity stock = byId.get(productId);
+			if (stock == null) {
+				result.add(StockAvailabilityDTO.builder().productId(productId).status("NOT_FOUND").build());
+				continue;
+			}
+			result.add(StockAvailabilityDTO.builder()
+					.productId(productId)
+					.status("OK")
+					.onHand(stock.getOnHand())
+					.allocated(stock.getAllocated())
+					.available(stock.getOnHand() - stock.getAllocated())
+					.build());
+		}
+		return result;
+	}
+
+	/**
+	 * Resuelve If-None-Match contra la caché de versiones, sin tocar la base.
+	 * Devuelve el ETag vigente si el cliente ya lo tiene, o null si hay que leer el snapshot.
+	 */
+	public String matchNotModified(String productId, String ifNoneMatch) {
+		return etagCache.matchNotModified(productId, ifNoneMatch);
+	}
+
 	/**
 	 * Ajusta el stock de un producto aplicando un delta. Implementa bloqueo optimista con reintentos.
 	 */
 	public StockSnapshotDTO adjust(String productId, int delta) {
+		return adjust(null, productId, delta);
+	}
+
+	/**
+	 * Igual que {@link #adjust(String, int)}; con Idempotency-Key un reintento devuelve la respuesta
+	 * original sin volver a aplicar el delta.
+	 */
+	public StockSnapshotDTO adjust(String idempotencyKey, String productId, int delta) {
+		StockMutationEvent event = new StockMutationEvent();
+		event.begin();
+		String outcome = "error";
+		try (OperationTimer.Operation op = operationTimer.start("adjust")) {
+			StockSnapshotDTO result = timedAdjust(idempotencyKey, productId, delta, event);
+			outcome = event.attempts == 0 ? "replayed" : "ok";
+			return result;
+		} catch (RuntimeException ex) {
+			outcome = outcomeOf(ex);
+			throw ex;
+		} finally {
+			commitEvent(event, "adjust", productId, delta, outcome);
+		}
+	}
+
+	private StockSnapshotDTO timedAdjust(String idempotencyKey, String productId, int delta, StockMutationEvent event) {
+		String requestHash = hashIfKeyed(idempotencyKey, "adjust", productId, delta);
+		Optional<StockSnapshotDTO> replayed = replay(idempotencyKey, "adjust", requestHash, StockSnapshotDTO.class);
+		if (replayed.isPresent()) {
+			return replayed.get();
+		}
 		String traceId = MDC.get("traceId");
-		log.info("[traceId={}] Ajuste de stock iniciado: productId={}, delta={}", traceId, productId, delta);
+		adjustLog.atDebug().addKeyValue("traceId", traceId).addKeyValue("productId", productId).addKeyValue("delta", delta)
+				.log("Ajuste de stock iniciado");
 		adjustAttempts.increment();
 		Timer.Sample sample = Timer.start(meterRegistry);
 
 		int maxAttempts = 3;
 		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			event.attempts = attempt;
 			try {
-				StockSnapshotDTO result = doAdjust(productId, delta);
+				StockSnapshotDTO result = idempotent(idempotencyKey, "adjust", requestHash, StockSnapshotDTO.class, () -> doAdjust(productId, delta));
 				adjustSuccess.increment();
 				sample.stop(adjustTimer);
 				return result;
@@ -85,7 +197,7 @@ public class StockService {
 					sample.stop(adjustTimer);
 					throw new RuntimeException("No se pudo completar el ajuste por concurrencia. Intente nuevamente.", ole);
 				}
-				try {
+				try (OperationTimer.Phase wait = operationTimer.phase("retry_wait")) {
 					Thread.sleep(50L * attempt);
 				} catch (InterruptedException ie) {
 					Thread.currentThread().interrupt();
@@ -100,7 +212,7 @@ public class StockService {
 	protected StockSnapshotDTO doAdjust(String productId, int delta) {
 		String traceId = MDC.get("traceId");
 
-		StockEntity stock = stockRepository.findById(productId)
+		StockEntity stock = load(productId)
 				.orElseThrow(() -> new NotFoundException("Stock not found for productId=" + productId));
 
 		int newQty = stock.getOnHand() + delta;
@@ -110,23 +222,22 @@ public class StockService {
 		}
 
 		Instant now = clock.instant();
+		int availableBefore = available(stock);
 		stock.setOnHand(newQty);
 		stock.setUpdatedAt(now);
-		stockRepository.saveAndFlush(stock);
+		stock = flush(stock);
+		publishCommitted(stock);
 
-		ChangeLogEntity change = ChangeLogEntity.builder()
-				.id(UUID.randomUUID())
-				.productId(productId)
-				.updatedAt(now)
-				.build();
-		changeLogRepository.save(change);
+		recordChange(stock, availableBefore, now);
 
-		log.info("[traceId={}] Ajuste de stock exitoso: productId={}, newQty={}, updatedAt={}", traceId, productId, newQty, now);
+		adjustLog.atInfo().addKeyValue("traceId", traceId).addKeyValue("productId", productId).addKeyValue("newQty", newQty)
+				.addKeyValue("updatedAt", now).log("Ajuste de stock exitoso");
 
 		return StockSnapshotDTO.builder()
 				.productId(productId)
 				.quantity(newQty)
 				.updatedAt(now)
+				.version(stock.getVersion())
 				.build();
 	}
 
@@ -134,66 +245,44 @@ public class StockService {
 		if (request.getQuantity() <= 0) {
 			throw new BadRequestException("quantity debe ser > 0");
 		}
-		if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-			if (idempotencyRequestRepository.findByIdempotencyKey(idempotencyKey).isPresent()) {
-				StockEntity st = stockRepository.findById(request.getProductId())
-						.orElseThrow(() -> new NotFoundException("Stock not found for productId=" + request.getProductId()));
-				return StockAllocationResponseDTO.builder()
-						.status("ALLOCATED")
-						.productId(st.getProductId())
-						.onHand(st.getOnHand())
-						.allocated(st.getAllocated())
-						.updatedAt(st.getUpdatedAt())
-						.build();
-			}
-		}
-
-		int maxAttempts = 3;
-		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-			try {
-				return doAllocate(idempotencyKey, request);
-			} catch (OptimisticLockException | ObjectOptimisticLockingFailureException ole) {
-				if (attempt == maxAttempts) {
-					throw ole;
-				}
-				try {
-					Thread.sleep(50L * attempt);
-				} catch (InterruptedException ie) {
-					Thread.currentThread().interrupt();
-					throw new RuntimeException("Operación interrumpida durante reintento", ie);
-				}
-			}
-		}
-		throw new IllegalStateException("Unreachable");
+		return mutate(idempotencyKey, "allocate", request, () -> doAllocate(request));
 	}
 
 	@Transactional
-	protected StockAllocationResponseDTO doAllocate(String idempotencyKey, StockAllocateRequestDTO request) {
+	protected StockAllocationResponseDTO doAllocate(StockAllocateRequestDTO request) {
 		Instant now = clock.instant();
-		StockEntity stock = stockRepository.findById(request.getProductId())
+		StockEntity stock = load(request.getProductId())
 				.orElseThrow(() -> new NotFoundException("Stock not found for productId=" + request.getProductId()));
-		int available = stock.getOnHand() - stock.getAllocated();
+		int available = available(stock);
 		if (available < request.getQuantity()) {
 			throw new BadRequestException("No hay stock disponible para reservar");
 		}
 		stock.setAllocated(stock.getAllocated() + request.getQuantity());
 		stock.setUpdatedAt(now);
-		stockRepository.saveAndFlush(stock);
+		stock = flush(stock);
+		publishCommitted(stock);
 
-		changeLogRepository.save(ChangeLogEntity.builder()
-				.id(UUID.randomUUID())
-				.productId(stock.getProductId())
-				.updatedAt(now)
-				.build());
-
-		if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-			idempotencyRequestRepository.save(IdempotencyRequestEntity.builder()
-					.id(UUID.randomUUID())
-					.idempotencyKey(idempotencyKey)
-					.requestHash(request.getOrderId() + ":" + request.getProductId() + ":" + request.getQuantity())
-					.createdAt(now)
-					.build());
+		ReservationEntity hold = reservationRepository.findByOrderIdAndProductId(request.getOrderId(), request.getProductId())
+				.orElseGet(() -> ReservationEntity.builder()
+						.id(UUID.randomUUID())
+						.orderId(request.getOrderId())
+						.productId(request.getProductId())
+						.quantity(0)
+						.createdAt(now)
+						.build());
+		if (!ReservationEntity.HELD.equals(hold.getStatus())) {
+			hold.setQuantity(0);
+			hold.setStatus(ReservationEntity.HELD);
 		}
+		hold.setQuantity(hold.getQuantity() + request.getQuantity());
+		hold.setExpiresAt(now.plus(reservationTtl));
+		hold.setUpdatedAt(now);
+		reservationRepository.save(hold);
+		// si la transacción se revierte la entrada queda huérfana; al vencer se ignora porque ya no está HELD
+		timingWheel.schedule(hold.getId(), hold.getExpiresAt());
+
+		recordChange(stock, available, now);
+
 		return StockAllocationResponseDTO.builder()
 				.status("ALLOCATED")
 				.productId(stock.getProductId())
@@ -204,45 +293,33 @@ public class StockService {
 	}
 
 	public StockAllocationResponseDTO commit(StockAllocateRequestDTO request) {
+		return commit(null, request);
+	}
+
+	public StockAllocationResponseDTO commit(String idempotencyKey, StockAllocateRequestDTO request) {
 		if (request.getQuantity() <= 0) {
 			throw new BadRequestException("quantity debe ser > 0");
 		}
-		int maxAttempts = 3;
-		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-			try {
-				return doCommit(request);
-			} catch (OptimisticLockException | ObjectOptimisticLockingFailureException ole) {
-				if (attempt == maxAttempts) {
-					throw ole;
-				}
-				try {
-					Thread.sleep(50L * attempt);
-				} catch (InterruptedException ie) {
-					Thread.currentThread().interrupt();
-					throw new RuntimeException("Operación interrumpida durante reintento", ie);
-				}
-			}
-		}
-		throw new IllegalStateException("Unreachable");
+		return mutate(idempotencyKey, "commit", request, () -> doCommit(request));
 	}
 
 	@Transactional
 	protected StockAllocationResponseDTO doCommit(StockAllocateRequestDTO request) {
 		Instant now = clock.instant();
-		StockEntity stock = stockRepository.findById(request.getProductId())
+		ReservationEntity hold = heldFor(request, "Reserva insuficiente para commit");
+		StockEntity stock = load(request.getProductId())
 				.orElseThrow(() -> new NotFoundException("Stock not found for productId=" + request.getProductId()));
 		if (stock.getAllocated() < request.getQuantity()) {
 			throw new BadRequestException("Reserva insuficiente para commit");
 		}
+		int availableBefore = available(stock);
 		stock.setOnHand(stock.getOnHand() - request.getQuantity());
 		stock.setAllocated(stock.getAllocated() - request.getQuantity());
 		stock.setUpdatedAt(now);
-		stockRepository.saveAndFlush(stock);
-		changeLogRepository.save(ChangeLogEntity.builder()
-				.id(UUID.randomUUID())
-				.productId(stock.getProductId())
-				.updatedAt(now)
-				.build());
+		stock = flush(stock);
+		publishCommitted(stock);
+		consume(hold, request.getQuantity(), ReservationEntity.COMMITTED, now);
+		recordChange(stock, availableBefore, now);
 		return StockAllocationResponseDTO.builder()
 				.status("COMMITTED")
 				.productId(stock.getProductId())
@@ -253,44 +330,36 @@ public class StockService {
 	}
 
 	public StockAllocationResponseDTO release(StockAllocateRequestDTO request) {
+		return release(null, request);
+	}
+
+	public StockAllocationResponseDTO release(String idempotencyKey, StockAllocateRequestDTO request) {
 		if (request.getQuantity() <= 0) {
 			throw new BadRequestException("quantity debe ser > 0");
 		}
-		int maxAttempts = 3;
-		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-			try {
-				return doRelease(request);
-			} catch (OptimisticLockException | ObjectOptimisticLockingFailureException ole) {
-				if (attempt == maxAttempts) {
-					throw ole;
-				}
-				try {
-					Thread.sleep(50L * attempt);
-				} catch (InterruptedException ie) {
-					Thread.currentThread().interrupt();
-					throw new RuntimeException("Operación interrumpida durante reintento", ie);
-				}
-			}
-		}
-		throw new IllegalStateException("Unreachable");
+		return mutate(idempotencyKey, "release", request, () -> doRelease(request));
 	}
 
 	@Transactional
 	protected StockAllocationResponseDTO doRelease(StockAllocateRequestDTO request) {
+		return doRelease(request, ReservationEntity.RELEASED);
+	}
+
+	private StockAllocationResponseDTO doRelease(StockAllocateRequestDTO request, String finalStatus) {
 		Instant now = clock.instant();
-		StockEntity stock = stockRepository.findById(request.getProductId())
+		ReservationEntity hold = heldFor(request, "Reserva insuficiente para release");
+		StockEntity stock = load(request.getProductId())
 				.orElseThrow(() -> new NotFoundException("Stock not found for productId=" + request.getProductId()));
 		if (stock.getAllocated() < request.getQuantity()) {
 			throw new BadRequestException("Reserva insuficiente para release");
 		}
+		int availableBefore = available(stock);
 		stock.setAllocated(stock.getAllocated() - request.getQuantity());
 		stock.setUpdatedAt(now);
-		stockRepository.saveAndFlush(stock);
-		changeLogRepository.save(ChangeLogEntity.builder()
-				.id(UUID.randomUUID())
-				.productId(stock.getProductId())
-				.updatedAt(now)
-				.build());
+		stock = flush(stock);
+		publishCommitted(stock);
+		consume(hold, request.getQuantity(), finalStatus, now);
+		recordChange(stock, availableBefore, now);
 		return StockAllocationResponseDTO.builder()
 				.status("RELEASED")
 				.productId(stock.getProductId())
@@ -299,5 +368,388 @@ public class StockService {
 				.updatedAt(now)
 				.build();
 	}
-}
 
+	/**
+	 * Reservas de una orden, leídas por índice (orderId, productId) sin recorrer el stock.
+	 */
+	public OrderReservationsDTO getOrder(String orderId) {
+		List<ReservationEntity> rows = reservationRepository.findByOrderId(orderId);
+		if (rows.isEmpty()) {
+			throw new NotFoundException("No hay reservas para orderId=" + orderId);
+		}
+		List<ReservationDTO> lines = new ArrayList<>(rows.size());
+		for (ReservationEntity row : rows) {
+			lines.add(ReservationDTO.builder()
+					.productId(row.getProductId())
+					.quantity(row.getQuantity())
+					.status(row.getStatus())
+					.expiresAt(row.getExpiresAt())
+					.updatedAt(row.getUpdatedAt())
+					.build());
+		}
+		return OrderReservationsDTO.builder().orderId(orderId).reservations(lines).build();
+	}
+
+	/**
+	 * Confirma todas las reservas HELD de la orden en una sola transacción: descuenta onHand y
+	 * allocated por la cantidad registrada en el libro, no por la que informe el cliente.
+	 */
+	public OrderReservationsDTO commitOrder(String orderId) {
+		return commitOrder(null, orderId);
+	}
+
+	public OrderReservationsDTO commitOrder(String idempotencyKey, String orderId) {
+		return settleOrder(idempotencyKey, orderId, ReservationEntity.COMMITTED, orderCommitTimer);
+	}
+
+	/**
+	 * Libera todas las reservas HELD de la orden en una sola transacción.
+	 */
+	public OrderReservationsDTO releaseOrder(String orderId) {
+		return releaseOrder(null, orderId);
+	}
+
+	public OrderReservationsDTO releaseOrder(String idempotencyKey, String orderId) {
+		return settleOrder(idempotencyKey, orderId, ReservationEntity.RELEASED, orderReleaseTimer);
+	}
+
+	private OrderReservationsDTO settleOrder(String idempotencyKey, String orderId, String target, Timer timer) {
+		String operation = "order-" + target.toLowerCase();
+		try (OperationTimer.Operation op = operationTimer.start(operation)) {
+			return timedSettleOrder(idempotencyKey, orderId, target, timer, operation);
+		}
+	}
+
+	private OrderReservationsDTO timedSettleOrder(String idempotencyKey, String orderId, String target, Timer timer, String operation) {
+		String requestHash = hashIfKeyed(idempotencyKey, operation, orderId);
+		Optional<OrderReservationsDTO> replayed = replay(idempotencyKey, operation, requestHash, OrderReservationsDTO.class);
+		if (replayed.isPresent()) {
+			return replayed.get();
+		}
+		String traceId = MDC.get("traceId");
+		Timer.Sample sample = Timer.start(meterRegistry);
+		int maxAttempts = 3;
+		try {
+			for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+				try {
+					OrderReservationsDTO result = idempotent(idempotencyKey, operation, requestHash, OrderReservationsDTO.class, () -> doSettleOrder(orderId, target));
+					log.info("[traceId={}] Orden {}: orderId={}, lineas={}", traceId, target, orderId, result.getReservations().size());
+					return result;
+				} catch (OptimisticLockException | ObjectOptimisticLockingFailureException ole) {
+					if (attempt == maxAttempts) {
+						throw ole;
+					}
+					try (OperationTimer.Phase wait = operationTimer.phase("retry_wait")) {
+						Thread.sleep(50L * attempt);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Operación interrumpida durante reintento", ie);
+					}
+				}
+			}
+			throw new IllegalStateException("Unreachable");
+		} finally {
+			sample.stop(timer);
+		}
+	}
+
+	private OrderReservationsDTO doSettleOrder(String orderId, String target) {
+		Instant now = clock.instant();
+		List<ReservationEntity> holds = reservationRepository.findByOrderIdAndStatus(orderId, ReservationEntity.HELD);
+		if (holds.isEmpty()) {
+			throw new NotFoundException("No hay reservas activas para orderId=" + orderId);
+		}
+		Map<String, StockEntity> stocks = new HashMap<>();
+		try (OperationTimer.Phase load = operationTimer.phase("load")) {
+			for (StockEntity stock : stockRepository.findAllById(holds.stream().map(ReservationEntity::getProductId).toList())) {
+				stocks.put(stock.getProductId(), stock);
+			}
+		}
+
+		List<ReservationDTO> lines = new ArrayList<>(holds.size());
+		for (ReservationEntity hold : holds) {
+			StockEntity stock = stocks.get(hold.getProductId());
+			if (stock == null) {
+				throw new NotFoundException("Stock not found for productId=" + hold.getProductId());
+			}
+			if (stock.getAllocated() < hold.getQuantity()) {
+				throw new IllegalStateException("allocated inconsistente con el libro de reservas para productId=" + hold.getProductId());
+			}
+			int availableBefore = available(stock);
+			if (ReservationEntity.COMMITTED.equals(target)) {
+				stock.setOnHand(stock.getOnHand() - hold.getQuantity());
+			}
+			stock.setAllocated(stock.getAllocated() - hold.getQuantity());
+			stock.setUpdatedAt(now);
+			stock = flush(stock);
+			publishCommitted(stock);
+			recordChange(stock, availableBefore, now);
+
+			lines.add(ReservationDTO.builder()
+					.productId(hold.getProductId())
+					.quantity(hold.getQuantity())
+					.status(target)
+					.onHand(stock.getOnHand())
+					.allocated(stock.getAllocated())
+					.updatedAt(now)
+					.build());
+			hold.setStatus(target);
+			hold.setUpdatedAt(now);
+			UUID id = hold.getId();
+			afterCommit(() -> timingWheel.cancel(id));
+		}
+		reservationRepository.saveAll(holds);
+		return OrderReservationsDTO.builder().orderId(orderId).status(target).reservations(lines).build();
+	}
+
+	/**
+	 * Libera, en una sola transacción, las reservas vencidas del lote por el mismo camino que
+	 * release. Las que ya no están HELD se ignoran; las que se renovaron vuelven a la rueda.
+	 */
+	public int expireHolds(List<UUID> reservationIds, Instant now) {
+		return inTransaction(() -> {
+			int expired = 0;
+			for (ReservationEntity hold : reservationRepository.findAllById(reservationIds)) {
+				if (!ReservationEntity.HELD.equals(hold.getStatus()) || hold.getExpiresAt() == null) {
+					continue;
+				}
+				if (hold.getExpiresAt().isAfter(now)) {
+					timingWheel.schedule(hold.getId(), hold.getExpiresAt());
+					continue;
+				}
+				doRelease(StockAllocateRequestDTO.builder()
+						.orderId(hold.getOrderId())
+						.productId(hold.getProductId())
+						.quantity(hold.getQuantity())
+						.build(), ReservationEntity.EXPIRED);
+				expired++;
+			}
+			return expired;
+		});
+	}
+
+	private static int available(StockEntity stock) {
+		return stock.getOnHand() - stock.getAllocated();
+	}
+
+	/**
+	 * Fila de outbox en el carril que corresponde a la disponibilidad antes y después del cambio.
+	 */
+	private void recordChange(StockEntity stock, int availableBefore, Instant now) {
+		try (OperationTimer.Phase outbox = operationTimer.phase("outbox")) {
+			changeLogRepository.save(ChangeLogEntity.builder()
+					.id(UUID.randomUUID())
+					.productId(stock.getProductId())
+					.updatedAt(now)
+					.priority(outboxPriority.classify(availableBefore, available(stock)))
+					.build());
+		}
+	}
+
+	private Optional<StockEntity> load(String productId) {
+		try (OperationTimer.Phase load = operationTimer.phase("load")) {
+			return stockRepository.findById(productId);
+		}
+	}
+
+	private StockEntity flush(StockEntity stock) {
+		try (OperationTimer.Phase flush = operationTimer.phase("flush")) {
+			return stockRepository.saveAndFlush(stock);
+		}
+	}
+
+	private ReservationEntity heldFor(StockAllocateRequestDTO request, String insufficientMessage) {
+		ReservationEntity hold = reservationRepository.findByOrderIdAndProductId(request.getOrderId(), request.getProductId())
+				.filter(r -> ReservationEntity.HELD.equals(r.getStatus()))
+				.orElseThrow(() -> new BadRequestException(insufficientMessage));
+		if (hold.getQuantity() < request.getQuantity()) {
+			throw new BadRequestException(insufficientMessage);
+		}
+		return hold;
+	}
+
+	private void consume(ReservationEntity hold, int quantity, String finalStatus, Instant now) {
+		hold.setQuantity(hold.getQuantity() - quantity);
+		if (hold.getQuantity() == 0) {
+			hold.setStatus(finalStatus);
+			UUID id = hold.getId();
+			afterCommit(() -> timingWheel.cancel(id));
+		}
+		hold.setUpdatedAt(now);
+		reservationRepository.save(hold);
+	}
+
+	private StockAllocationResponseDTO mutate(String idempotencyKey, String operation, StockAllocateRequestDTO request,
+			Supplier<StockAllocationResponseDTO> work) {
+		StockMutationEvent event = new StockMutationEvent();
+		event.begin();
+		String outcome = "error";
+		try (OperationTimer.Operation op = operationTimer.start(operation)) {
+			StockAllocationResponseDTO result = timedMutate(idempotencyKey, operation, request, work, event);
+			outcome = event.attempts == 0 ? "replayed" : "ok";
+			mutationLogs.get(operation).atInfo().addKeyValue("traceId", MDC.get("traceId")).addKeyValue("orderId", request.getOrderId())
+					.addKeyValue("productId", request.getProductId()).addKeyValue("quantity", request.getQuantity())
+					.addKeyValue("outcome", outcome).log("Mutación de stock exitosa");
+			return result;
+		} catch (RuntimeException ex) {
+			outcome = outcomeOf(ex);
+			throw ex;
+		} finally {
+			commitEvent(event, operation, request.getProductId(), request.getQuantity(), outcome);
+		}
+	}
+
+	private StockAllocationResponseDTO timedMutate(String idempotencyKey, String operation, StockAllocateRequestDTO request,
+			Supplier<StockAllocationResponseDTO> work, StockMutationEvent event) {
+		String requestHash = hashIfKeyed(idempotencyKey, operation, request.getOrderId(), request.getProductId(), request.getQuantity());
+		Optional<StockAllocationResponseDTO> replayed = replay(idempotencyKey, operation, requestHash, StockAllocationResponseDTO.class);
+		if (replayed.isPresent()) {
+			return replayed.get();
+		}
+		int maxAttempts = 3;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			event.attempts = attempt;
+			try {
+				return idempotent(idempotencyKey, operation, requestHash, StockAllocationResponseDTO.class, work);
+			} catch (OptimisticLockException | ObjectOptimisticLockingFailureException ole) {
+				if (attempt == maxAttempts) {
+					throw ole;
+				}
+				try (OperationTimer.Phase wait = operationTimer.phase("retry_wait")) {
+					Thread.sleep(50L * attempt);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Operación interrumpida durante reintento", ie);
+				}
+			}
+		}
+		throw new IllegalStateException("Unreachable");
+	}
+
+	private static void commitEvent(StockMutationEvent event, String operation, String productId, int delta, String outcome) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.productId = productId;
+			event.delta = delta;
+			event.outcome = outcome;
+			event.commit();
+		}
+	}
+
+	private static String outcomeOf(RuntimeException ex) {
+		if (ex instanceof BadRequestException) {
+			return "bad_request";
+		}
+		if (ex instanceof NotFoundException) {
+			return "not_found";
+		}
+		if (ex instanceof OptimisticLockException || ex instanceof ObjectOptimisticLockingFailureException
+				|| ex.getCause() instanceof OptimisticLockException || ex.getCause() instanceof ObjectOptimisticLockingFailureException) {
+			return "conflict";
+		}
+		return "error";
+	}
+
+	private String hashIfKeyed(String idempotencyKey, String operation, Object... parts) {
+		if (!IdempotencyService.hasKey(idempotencyKey)) {
+			return null;
+		}
+		Object[] all = new Object[parts.length + 1];
+		all[0] = operation;
+		System.arraycopy(parts, 0, all, 1, parts.length);
+		return IdempotencyService.requestHash(all);
+	}
+
+	private <T> Optional<T> replay(String idempotencyKey, String operation, String requestHash, Class<T> type) {
+		if (!IdempotencyService.hasKey(idempotencyKey)) {
+			return Optional.empty();
+		}
+		try (OperationTimer.Phase lookup = operationTimer.phase("idempotency")) {
+			return idempotencyService.replay(idempotencyKey, operation, requestHash, type);
+		}
+	}
+
+	/**
+	 * Ejecuta la operación en una transacción y, con Idempotency-Key, guarda la respuesta en esa
+	 * misma transacción. Si otra petición con la misma clave ganó la carrera, se devuelve la suya.
+	 */
+	private <T> T idempotent(String idempotencyKey, String operation, String requestHash, Class<T> type, Supplier<T> work) {
+		if (!IdempotencyService.hasKey(idempotencyKey)) {
+			return inTransaction(work);
+		}
+		try {
+			return inTransaction(() -> {
+				T response = work.get();
+				idempotencyService.record(idempotencyKey, operation, requestHash, response);
+				return response;
+			});
+		} catch (DataIntegrityViolationException duplicate) {
+			if (!IdempotencyService.isKeyConflict(duplicate)) {
+				throw duplicate;
+			}
+			return idempotencyService.replay(idempotencyKey, operation, requestHash, type).orElseThrow(() -> duplicate);
+		}
+	}
+
+	/**
+	 * ETag y hoja Merkle sólo con lo confirmado: si la transacción vuelve atrás (carrera de
+	 * Idempotency-Key, línea posterior de una orden que falla) no quedan con un estado que nunca existió.
+	 */
+	private void publishCommitted(StockEntity stock) {
+		String productId = stock.getProductId();
+		Integer version = stock.getVersion();
+		int onHand = stock.getOnHand();
+		Instant updatedAt = stock.getUpdatedAt();
+		afterCommit(() -> {
+			etagCache.update(productId, version);
+			merkleTree.update(productId, onHand, updatedAt);
+		});
+	}
+
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	// los doX se invocan desde la misma clase, así que @Transactional no aplica: el libro y el stock se atan acá
+	private <T> T inTransaction(Supplier<T> work) {
+		return transactionTemplate.execute(status -> {
+			T result = work.get();
+			timeCommit();
+			return result;
+		});
+	}
+
+	/**
+	 * Fase commit: desde beforeCommit (incluye el flush final de Hibernate) hasta que cierra la transacción.
+	 */
+	private void timeCommit() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			private OperationTimer.Phase commit;
+
+			@Override
+			public void beforeCommit(boolean readOnly) {
+				commit = operationTimer.phase("commit");
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				if (commit != null) {
+					commit.close();
+				}
+			}
+		});
+	}
+}
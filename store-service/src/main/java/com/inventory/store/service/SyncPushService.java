@@ -2,6 +2,7 @@ package com.inventory.store.service;
 
 import com.inventory.store.dto.StockSnapshotDTO;
 import com.inventory.store.dto.SyncBatchDTO;
+import com.inventory.store.dto.SyncItemRejectionDTO;
 import com.inventory.store.dto.SyncResultDTO;
 import com.inventory.store.entity.ChangeLogEntity;
 import com.inventory.store.entity.StockEntity;
@@ -12,23 +13,70 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 
+/**
+ * Empuje del outbox a central en lotes secuenciados con hasta window lotes en vuelo.
+ * <p>
+ * Cada lote lleva (storeId, batchSeq). Al confirmarse se borran exactamente las filas de
+ * change_log que lo formaron, así que el outbox avanza lote a lote y lo que llegue durante el
+ * envío queda para la próxima vuelta. Un lote fallido se reintenta solo, con el mismo batchSeq:
+ * si central ya lo había aplicado responde el resultado guardado sin tocar stock.
+ * batchSeq arranca en millis*1000 al iniciar, así que sigue creciendo entre reinicios.
+ * Un lote que falla por cualquier motivo deja sus filas en change_log y hace fallar el push.
+ * Si central rechaza ítems puntuales (datos inválidos) el resto del lote se confirma igual y las
+ * filas de esos SKUs quedan en change_log con rejected_reason, fuera de los carriles.
+ * El tamaño de cada página lo decide {@link AdaptiveSyncTuner} con la latencia y los errores
+ * observados; al terminar se le informa el backlog para fijar la próxima cadencia.
+ * <p>
+ * El outbox tiene tres carriles (quiebre de stock, stock bajo, rutinario; ver {@link OutboxPriority}),
+ * cada uno con su cursor. El carril de cada lote sale de un round robin ponderado suave sobre los
+ * carriles con pendientes: los urgentes salen primero, pero mientras haya rutinarios se llevan al
+ * menos weight.routine de cada suma de pesos lotes, así que no quedan sin servicio.
+ */
 @Service
 public class SyncPushService {
     private static final Logger log = LoggerFactory.getLogger(SyncPushService.class);
 
+    private static final String[] LANES = {"stockout", "low", "routine"};
+
+    /** Filas del outbox que formaron un lote; se borran al confirmarse. */
+    private record OutboxBatch(SyncBatchDTO batch, int lane, List<ChangeLogEntity> changes, AdaptiveSyncTuner.Sizing sizing) {
+        List<UUID> changeIds() {
+            return changes.stream().map(ChangeLogEntity::getId).toList();
+        }
+    }
+
     private final ChangeLogRepository changeLogRepository;
     private final StockRepository stockRepository;
     private final CentralSyncClient centralSyncClient;
+    private final AdaptiveSyncTuner tuner;
+    private final OperationTimer operationTimer;
+    private final Clock clock;
 
+    private final String storeId;
+    private final int[] laneWeights;
+    private final int window;
     private final int maxRetries;
     private final long initialBackoffMs;
+    private final AtomicLong batchSeq;
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     private final MeterRegistry meterRegistry;
     private final Counter pushAttempts;
@@ -36,92 +84,276 @@ public class SyncPushService {
     private final Counter pushFailed;
     private final Counter pushItemsApplied;
     private final Counter pushItemsSkipped;
+    private final Counter pushItemsRejected;
+    private final Counter pushBatches;
+    private final Counter pushRetransmits;
     private final Timer pushTimer;
+    private final Timer[] laneLag = new Timer[LANES.length];
 
     public SyncPushService(ChangeLogRepository changeLogRepository,
                            StockRepository stockRepository,
                            CentralSyncClient centralSyncClient,
+                           AdaptiveSyncTuner tuner,
+                           OperationTimer operationTimer,
+                           Clock clock,
+                           @Value("${store.sync.storeId:store-1}") String storeId,
+                           @Value("${store.sync.pipeline.window:4}") int window,
                            @Value("${store.sync.maxRetries:3}") int maxRetries,
                            @Value("${store.sync.initialBackoffMs:200}") long initialBackoffMs,
+                           @Value("${store.sync.lanes.weight.stockout:8}") int stockoutWeight,
+                           @Value("${store.sync.lanes.weight.low:4}") int lowWeight,
+                           @Value("${store.sync.lanes.weight.routine:1}") int routineWeight,
                            MeterRegistry meterRegistry) {
         this.changeLogRepository = changeLogRepository;
         this.stockRepository = stockRepository;
         this.centralSyncClient = centralSyncClient;
+        this.tuner = tuner;
+        this.operationTimer = operationTimer;
+        this.clock = clock;
+        this.laneWeights = new int[]{Math.max(1, stockoutWeight), Math.max(1, lowWeight), Math.max(1, routineWeight)};
+        this.storeId = storeId;
+        this.window = Math.max(1, window);
         this.maxRetries = maxRetries;
         this.initialBackoffMs = initialBackoffMs;
+        this.batchSeq = new AtomicLong(clock.millis() * 1000);
         this.meterRegistry = meterRegistry;
         this.pushAttempts = Counter.builder("inventory_sync_push_attempts_total").register(meterRegistry);
         this.pushSuccess = Counter.builder("inventory_sync_push_success_total").register(meterRegistry);
         this.pushFailed = Counter.builder("inventory_sync_push_failed_total").register(meterRegistry);
         this.pushItemsApplied = Counter.builder("inventory_sync_push_items_applied_total").register(meterRegistry);
         this.pushItemsSkipped = Counter.builder("inventory_sync_push_items_skipped_total").register(meterRegistry);
+        this.pushItemsRejected = Counter.builder("inventory_sync_push_items_rejected_total").register(meterRegistry);
+        this.pushBatches = Counter.builder("inventory_sync_push_batches_total").register(meterRegistry);
+        this.pushRetransmits = Counter.builder("inventory_sync_push_retransmits_total").register(meterRegistry);
         this.pushTimer = Timer.builder("inventory_sync_push_duration_seconds").publishPercentileHistogram(true).register(meterRegistry);
+        Gauge.builder("inventory_sync_push_in_flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        for (int lane = 0; lane < LANES.length; lane++) {
+            laneLag[lane] = Timer.builder("inventory_sync_outbox_lag_seconds").tag("lane", LANES[lane])
+                    .publishPercentileHistogram(true).register(meterRegistry);
+        }
     }
 
-    public SyncBatchDTO buildBatchSinceLastPush() {
-        List<ChangeLogEntity> changes = changeLogRepository.findAll();
-        if (changes.isEmpty()) {
-            return SyncBatchDTO.builder().items(Collections.emptyList()).build();
-        }
-        // Obtener productIds únicos
-        Set<String> productIds = new HashSet<>();
-        for (ChangeLogEntity ch : changes) {
-            productIds.add(ch.getProductId());
-        }
-        List<StockSnapshotDTO> items = new ArrayList<>();
-        for (String productId : productIds) {
-            Optional<StockEntity> maybe = stockRepository.findById(productId);
-            if (maybe.isPresent()) {
-                StockEntity st = maybe.get();
-                items.add(StockSnapshotDTO.builder()
-                        .productId(st.getProductId())
-                        .quantity(st.getOnHand())
-                        .updatedAt(st.getUpdatedAt())
-                        .build());
-            }
+    /**
+     * Fases: load (página del outbox y snapshot de stock), window_wait (esperando lugar en la
+     * ventana), http y retry_wait por lote (suman entre lotes en vuelo) y outbox (borrado al ack).
+     */
+    public SyncResultDTO pushNow() {
+        try (OperationTimer.Operation op = operationTimer.start("sync_push")) {
+            return timedPush(op);
         }
-        return SyncBatchDTO.builder().items(items).build();
     }
 
-    public SyncResultDTO pushNow() {
+    private SyncResultDTO timedPush(OperationTimer.Operation op) {
         long start = System.currentTimeMillis();
         pushAttempts.increment();
         Timer.Sample sample = Timer.start(meterRegistry);
-        SyncBatchDTO batch = buildBatchSinceLastPush();
         String traceId = MDC.get("traceId");
-        int toPush = batch.getItems() == null ? 0 : batch.getItems().size();
-        log.info("[traceId={}] sync push inicio: items={} ", traceId, toPush);
+        log.info("[traceId={}] sync push inicio: window={} batchSize={}", traceId, window, tuner.batchSize());
 
-        if (toPush == 0) {
+        SyncResultDTO total = SyncResultDTO.builder().build();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore slots = new Semaphore(window);
+        int batches = 0;
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            ChangeLogEntity[] cursors = new ChangeLogEntity[LANES.length];
+            boolean[] drained = new boolean[LANES.length];
+            int[] credit = new int[LANES.length];
+            while (failure.get() == null) {
+                int lane = nextLane(credit, drained);
+                if (lane < 0) {
+                    break;
+                }
+                AdaptiveSyncTuner.Sizing sizing = tuner.sizing();
+                PageRequest pageRequest = PageRequest.of(0, sizing.batchSize());
+                ChangeLogEntity cursor = cursors[lane];
+                List<ChangeLogEntity> page;
+                try (OperationTimer.Phase load = op.phase("load")) {
+                    page = cursor == null
+                            ? changeLogRepository.findByPriorityAndRejectedReasonIsNullOrderByUpdatedAtAscIdAsc(lane, pageRequest)
+                            : changeLogRepository.findAfter(lane, cursor.getUpdatedAt(), cursor.getId(), pageRequest);
+                }
+                // página incompleta: el carril quedó vacío por esta vuelta
+                drained[lane] = page.size() < sizing.batchSize();
+                if (page.isEmpty()) {
+                    continue;
+                }
+                cursors[lane] = page.get(page.size() - 1);
+                OutboxBatch next;
+                try (OperationTimer.Phase load = op.phase("load")) {
+                    next = buildBatch(lane, page, sizing);
+                }
+                if (next.batch().getItems().isEmpty()) {
+                    // cambios de SKUs que ya no tienen stock: no hay nada que empujar
+                    changeLogRepository.deleteAllByIdInBatch(next.changeIds());
+                    continue;
+                }
+                try (OperationTimer.Phase wait = op.phase("window_wait")) {
+                    acquire(slots);
+                }
+                batches++;
+                inFlight.incrementAndGet();
+                senders.submit(() -> {
+                    try {
+                        SyncResultDTO result = sendWithRetry(next, traceId, op);
+                        try (OperationTimer.Phase outbox = op.phase("outbox")) {
+                            acknowledge(next, result, traceId);
+                        }
+                        recordLag(next);
+                        synchronized (total) {
+                            total.setReceived(total.getReceived() + result.getReceived());
+                            total.setApplied(total.getApplied() + result.getApplied());
+                            total.setSkipped(total.getSkipped() + result.getSkipped());
+                            total.setRejected(total.getRejected() + result.getRejected());
+                        }
+                        pushBatches.increment();
+                    } catch (SyncNetworkException ex) {
+                        failure.compareAndSet(null, ex);
+                    } catch (RuntimeException ex) {
+                        // cualquier otra falla (respuesta ilegible, error al confirmar) también corta el
+                        // push: si quedara en el Future el lote se daría por enviado sin ack
+                        log.error("[traceId={}] sync push falla inesperada: batchSeq={}",
+                                traceId, next.batch().getBatchSeq(), ex);
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        slots.release();
+                    }
+                });
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        tuner.onPushFinished(changeLogRepository.countByRejectedReasonIsNull(),
+                failure.get() != null && AdaptiveSyncTuner.isOverload(failure.get()));
+        if (failure.get() != null) {
+            log.error("[traceId={}] sync push error final: lotes={} confirmados={} durationMs={} causa={}",
+                    traceId, batches, total.getReceived(), duration, failure.get().getMessage());
+            pushFailed.increment();
+            sample.stop(pushTimer);
+            throw failure.get();
+        }
+        if (batches == 0) {
             log.info("[traceId={}] sync push no-op (sin cambios)", traceId);
-            return SyncResultDTO.builder().received(0).applied(0).skipped(0).build();
+            return total;
+        }
+        log.info("[traceId={}] sync push ok: lotes={} received={} applied={} skipped={} rejected={} durationMs={}",
+                traceId, batches, total.getReceived(), total.getApplied(), total.getSkipped(), total.getRejected(), duration);
+        pushSuccess.increment();
+        pushItemsApplied.increment(total.getApplied());
+        pushItemsSkipped.increment(total.getSkipped());
+        pushItemsRejected.increment(total.getRejected());
+        sample.stop(pushTimer);
+        return total;
+    }
+
+    /**
+     * Round robin ponderado suave (como nginx) sobre los carriles no vacíos; -1 si no queda ninguno.
+     */
+    private int nextLane(int[] credit, boolean[] drained) {
+        int best = -1;
+        int total = 0;
+        for (int lane = 0; lane < LANES.length; lane++) {
+            if (drained[lane]) {
+                continue;
+            }
+            credit[lane] += laneWeights[lane];
+            total += laneWeights[lane];
+            if (best < 0 || credit[lane] > credit[best]) {
+                best = lane;
+            }
+        }
+        if (best >= 0) {
+            credit[best] -= total;
+        }
+        return best;
+    }
+
+    /**
+     * Borra las filas confirmadas del lote. Las de SKUs rechazados por central se apartan con su
+     * motivo: reenviarlas daría el mismo rechazo.
+     */
+    private void acknowledge(OutboxBatch acked, SyncResultDTO result, String traceId) {
+        Map<String, String> rejected = new HashMap<>();
+        if (result.getRejections() != null) {
+            for (SyncItemRejectionDTO r : result.getRejections()) {
+                rejected.putIfAbsent(r.getProductId(), r.getReason());
+            }
+        }
+        if (rejected.isEmpty()) {
+            changeLogRepository.deleteAllByIdInBatch(acked.changeIds());
+            return;
         }
+        List<UUID> done = new ArrayList<>(acked.changes().size());
+        List<ChangeLogEntity> parked = new ArrayList<>();
+        for (ChangeLogEntity ch : acked.changes()) {
+            String reason = rejected.get(ch.getProductId());
+            if (reason == null) {
+                done.add(ch.getId());
+            } else {
+                ch.setRejectedReason(reason.length() > 255 ? reason.substring(0, 255) : reason);
+                parked.add(ch);
+            }
+        }
+        changeLogRepository.deleteAllByIdInBatch(done);
+        changeLogRepository.saveAll(parked);
+        log.warn("[traceId={}] central rechazó ítems: batchSeq={} skus={} filasApartadas={} motivos={}",
+                traceId, acked.batch().getBatchSeq(), rejected.size(), parked.size(), rejected);
+    }
+
+    private void recordLag(OutboxBatch acked) {
+        Instant now = clock.instant();
+        for (ChangeLogEntity ch : acked.changes()) {
+            laneLag[acked.lane()].record(Duration.between(ch.getUpdatedAt(), now));
+        }
+    }
 
+    private OutboxBatch buildBatch(int lane, List<ChangeLogEntity> page, AdaptiveSyncTuner.Sizing sizing) {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (ChangeLogEntity ch : page) {
+            productIds.add(ch.getProductId());
+        }
+        List<StockSnapshotDTO> items = new ArrayList<>(productIds.size());
+        for (StockEntity st : stockRepository.findAllById(productIds)) {
+            items.add(StockSnapshotDTO.builder()
+                    .productId(st.getProductId())
+                    .quantity(st.getOnHand())
+                    .updatedAt(st.getUpdatedAt())
+                    .build());
+        }
+        SyncBatchDTO batch = SyncBatchDTO.builder()
+                .items(items)
+                .storeId(storeId)
+                .batchSeq(items.isEmpty() ? null : batchSeq.incrementAndGet())
+                .build();
+        return new OutboxBatch(batch, lane, page, sizing);
+    }
+
+    private SyncResultDTO sendWithRetry(OutboxBatch outbox, String traceId, OperationTimer.Operation op) {
+        SyncBatchDTO batch = outbox.batch();
         int attempt = 0;
         while (true) {
             attempt++;
+            long sentAt = System.nanoTime();
             try {
-                SyncResultDTO result = centralSyncClient.pushBatch(batch);
-                changeLogRepository.deleteAll();
-                long duration = System.currentTimeMillis() - start;
-                log.info("[traceId={}] sync push ok: received={} applied={} skipped={} durationMs={}",
-                        traceId, result.getReceived(), result.getApplied(), result.getSkipped(), duration);
-                pushSuccess.increment();
-                pushItemsApplied.increment(result.getApplied());
-                pushItemsSkipped.increment(result.getSkipped());
-                sample.stop(pushTimer);
+                SyncResultDTO result;
+                try (OperationTimer.Phase http = op.phase("http")) {
+                    result = centralSyncClient.pushBatch(batch);
+                }
+                tuner.onAck(outbox.sizing(), outbox.changes().size(), (System.nanoTime() - sentAt) / 1_000_000);
+                if (result.isDuplicate()) {
+                    log.info("[traceId={}] lote ya aplicado en central: batchSeq={}", traceId, batch.getBatchSeq());
+                }
                 return result;
             } catch (SyncNetworkException ex) {
+                tuner.onFailure(outbox.sizing(), ex);
                 if (attempt >= maxRetries) {
-                    long duration = System.currentTimeMillis() - start;
-                    log.error("[traceId={}] sync push error final: intentos={} durationMs={} causa={}", traceId, attempt, duration, ex.getMessage());
-                    pushFailed.increment();
-                    sample.stop(pushTimer);
                     throw ex;
                 }
                 long sleepMs = initialBackoffMs * attempt;
-                log.warn("[traceId={}] sync push error: intento={} backoffMs={} causa={}", traceId, attempt, sleepMs, ex.getMessage());
-                try {
+                pushRetransmits.increment();
+                log.warn("[traceId={}] sync push error: batchSeq={} intento={} backoffMs={} causa={}",
+                        traceId, batch.getBatchSeq(), attempt, sleepMs, ex.getMessage());
+                try (OperationTimer.Phase wait = op.phase("retry_wait")) {
                     Thread.sleep(sleepMs);
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
@@ -130,6 +362,13 @@ public class SyncPushService {
             }
         }
     }
-}
-
 
+    private static void acquire(Semaphore slots) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SyncNetworkException("Interrumpido esperando lugar en la ventana de envío", ie);
+        }
+    }
+}
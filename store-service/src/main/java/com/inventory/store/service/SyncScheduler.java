@@ -5,24 +5,53 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @Component
-public class SyncScheduler {
+public class SyncScheduler implements SchedulingConfigurer {
     private static final Logger log = LoggerFactory.getLogger(SyncScheduler.class);
 
     private final SyncPushService syncPushService;
+    private final ReconciliationService reconciliationService;
+    private final CatalogSyncService catalogSyncService;
+    private final AdaptiveSyncTuner tuner;
     private final boolean enabled;
+    private final boolean reconcileEnabled;
+    private final boolean catalogEnabled;
 
     public SyncScheduler(SyncPushService syncPushService,
-                         @Value("${store.sync.enabled:true}") boolean enabled) {
+                         ReconciliationService reconciliationService,
+                         CatalogSyncService catalogSyncService,
+                         AdaptiveSyncTuner tuner,
+                         @Value("${store.sync.enabled:true}") boolean enabled,
+                         @Value("${store.sync.reconcile.enabled:true}") boolean reconcileEnabled,
+                         @Value("${store.sync.catalog.enabled:true}") boolean catalogEnabled) {
         this.syncPushService = syncPushService;
+        this.reconciliationService = reconciliationService;
+        this.catalogSyncService = catalogSyncService;
+        this.tuner = tuner;
         this.enabled = enabled;
+        this.reconcileEnabled = reconcileEnabled;
+        this.catalogEnabled = catalogEnabled;
+    }
+
+    /**
+     * El push no usa un fixedDelay fijo: tras cada corrida espera lo que indique el tuner según
+     * el backlog (store.sync.fixedDelayMs es el máximo, sin backlog).
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addTriggerTask(this::scheduledPush, ctx -> {
+            Instant last = ctx.lastCompletion();
+            return last == null ? ctx.getClock().instant() : last.plusMillis(tuner.intervalMs());
+        });
     }
 
-    @Scheduled(fixedDelayString = "${store.sync.fixedDelayMs:900000}")
     public void scheduledPush() {
         if (!enabled) {
             return;
@@ -37,6 +66,38 @@ public class SyncScheduler {
             MDC.remove("traceId");
         }
     }
-}
 
+    @Scheduled(initialDelayString = "${store.sync.reconcile.fixedDelayMs:3600000}",
+            fixedDelayString = "${store.sync.reconcile.fixedDelayMs:3600000}")
+    public void scheduledReconcile() {
+        if (!enabled || !reconcileEnabled) {
+            return;
+        }
+        String traceId = UUID.randomUUID().toString();
+        MDC.put("traceId", traceId);
+        try {
+            reconciliationService.reconcile();
+        } catch (Exception ex) {
+            log.warn("scheduler reconcile error: {}", ex.getMessage());
+        } finally {
+            MDC.remove("traceId");
+        }
+    }
 
+    @Scheduled(initialDelayString = "${store.sync.catalog.initialDelayMs:10000}",
+            fixedDelayString = "${store.sync.catalog.fixedDelayMs:300000}")
+    public void scheduledCatalogPull() {
+        if (!enabled || !catalogEnabled) {
+            return;
+        }
+        String traceId = UUID.randomUUID().toString();
+        MDC.put("traceId", traceId);
+        try {
+            catalogSyncService.pullCatalog();
+        } catch (Exception ex) {
+            log.warn("scheduler catalog pull error: {}", ex.getMessage());
+        } finally {
+            MDC.remove("traceId");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.inventory.store.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static FilterChain handler(String pattern, int status, int allocate) {
+        return (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+            ((MockHttpServletResponse) res).setStatus(status);
+            byte[] garbage = new byte[allocate];
+            res.setContentLength(garbage.length);
+        };
+    }
+
+    private DistributionSummary summary(String name, String uri, String status) {
+        return registry.find(name).tag("method", "GET").tag("uri", uri).tag("status", status).summary();
+    }
+
+    @Test
+    void records_cpu_and_allocation_per_route_template() throws Exception {
+        TraceFilter filter = new TraceFilter(true, registry);
+        filter.doFilter(new MockHttpServletRequest("GET", "/stock/ABC-001"), new MockHttpServletResponse(),
+                handler("/stock/{productId}", 200, 1 << 20));
+        filter.doFilter(new MockHttpServletRequest("GET", "/stock/ABC-002"), new MockHttpServletResponse(),
+                handler("/stock/{productId}", 200, 1 << 20));
+        filter.doFilter(new MockHttpServletRequest("GET", "/stock/NOPE"), new MockHttpServletResponse(),
+                handler("/stock/{productId}", 404, 0));
+
+        DistributionSummary allocated = summary("inventory_http_server_allocated_bytes", "/stock/{productId}", "200");
+        assertThat(allocated.count()).isEqualTo(2);
+        assertThat(allocated.totalAmount()).isGreaterThanOrEqualTo(2.0 * (1 << 20));
+        assertThat(summary("inventory_http_server_cpu_seconds", "/stock/{productId}", "200").count()).isEqualTo(2);
+        assertThat(summary("inventory_http_server_cpu_seconds", "/stock/{productId}", "404").count()).isEqualTo(1);
+    }
+
+    @Test
+    void requests_without_route_share_one_series() throws Exception {
+        TraceFilter filter = new TraceFilter(true, registry);
+        FilterChain notFound = (req, res) -> ((MockHttpServletResponse) res).setStatus(404);
+        filter.doFilter(new MockHttpServletRequest("GET", "/a"), new MockHttpServletResponse(), notFound);
+        filter.doFilter(new MockHttpServletRequest("GET", "/b"), new MockHttpServletResponse(), notFound);
+
+        assertThat(summary("inventory_http_server_cpu_seconds", "UNKNOWN", "404").count()).isEqualTo(2);
+        assertThat(registry.find("inventory_http_server_cpu_seconds").summaries()).hasSize(1);
+    }
+
+    @Test
+    void disabled_records_nothing() throws Exception {
+        TraceFilter filter = new TraceFilter(false, registry);
+        filter.doFilter(new MockHttpServletRequest("GET", "/stock/ABC-001"), new MockHttpServletResponse(),
+                handler("/stock/{productId}", 200, 1024));
+
+        assertThat(registry.getMeters()).isEmpty();
+    }
+}
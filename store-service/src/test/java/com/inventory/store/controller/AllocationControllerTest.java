@@ -1,7 +1,12 @@
 package com.inventory.store.controller;
 
+import com.inventory.store.dto.OrderReservationsDTO;
+import com.inventory.store.dto.ReservationDTO;
 import com.inventory.store.dto.StockAllocateRequestDTO;
 import com.inventory.store.dto.StockAllocationResponseDTO;
+import com.inventory.store.exception.ConflictException;
+import com.inventory.store.exception.NotFoundException;
+import com.inventory.store.service.StockImportService;
 import com.inventory.store.service.StockService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +15,10 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -24,6 +32,9 @@ class AllocationControllerTest {
     @MockBean
     private StockService stockService;
 
+    @MockBean
+    private StockImportService stockImportService;
+
     @Test
     void allocate_ok() throws Exception {
         when(stockService.allocate(nullable(String.class), any(StockAllocateRequestDTO.class)))
@@ -40,7 +51,7 @@ class AllocationControllerTest {
 
     @Test
     void commit_ok() throws Exception {
-        when(stockService.commit(any(StockAllocateRequestDTO.class)))
+        when(stockService.commit(nullable(String.class), any(StockAllocateRequestDTO.class)))
                 .thenReturn(StockAllocationResponseDTO.builder().status("COMMITTED").productId("ABC-001").onHand(9).allocated(1).build());
 
         mockMvc.perform(post("/stock/commit")
@@ -53,7 +64,7 @@ class AllocationControllerTest {
 
     @Test
     void release_ok() throws Exception {
-        when(stockService.release(any(StockAllocateRequestDTO.class)))
+        when(stockService.release(nullable(String.class), any(StockAllocateRequestDTO.class)))
                 .thenReturn(StockAllocationResponseDTO.builder().status("RELEASED").productId("ABC-001").onHand(10).allocated(0).build());
 
         mockMvc.perform(post("/stock/release")
@@ -63,6 +74,52 @@ class AllocationControllerTest {
                 .andExpect(content().contentType("application/json"))
                 .andExpect(jsonPath("$.status").value("RELEASED"));
     }
-}
 
+    @Test
+    void commit_order_ok() throws Exception {
+        when(stockService.commitOrder(nullable(String.class), eq("o-1")))
+                .thenReturn(OrderReservationsDTO.builder().orderId("o-1").status("COMMITTED")
+                        .reservations(List.of(ReservationDTO.builder().productId("ABC-001").quantity(2).status("COMMITTED").onHand(8).allocated(0).build()))
+                        .build());
+
+        mockMvc.perform(post("/stock/orders/o-1/commit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMMITTED"))
+                .andExpect(jsonPath("$.reservations[0].productId").value("ABC-001"))
+                .andExpect(jsonPath("$.reservations[0].quantity").value(2));
+    }
+
+    @Test
+    void release_order_without_holds_is_404() throws Exception {
+        when(stockService.releaseOrder(nullable(String.class), eq("o-404"))).thenThrow(new NotFoundException("No hay reservas activas para orderId=o-404"));
+
+        mockMvc.perform(post("/stock/orders/o-404/release"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void commit_forwards_idempotency_key() throws Exception {
+        when(stockService.commit(eq("k-1"), any(StockAllocateRequestDTO.class)))
+                .thenReturn(StockAllocationResponseDTO.builder().status("COMMITTED").productId("ABC-001").onHand(9).allocated(1).build());
 
+        mockMvc.perform(post("/stock/commit")
+                        .header("Idempotency-Key", "k-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\n  \"orderId\": \"o-1\",\n  \"productId\": \"ABC-001\",\n  \"quantity\": 1\n}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMMITTED"));
+    }
+
+    @Test
+    void reused_key_with_other_request_is_409() throws Exception {
+        when(stockService.release(eq("k-2"), any(StockAllocateRequestDTO.class)))
+                .thenThrow(new ConflictException("Idempotency-Key ya usada con otro request: k-2"));
+
+        mockMvc.perform(post("/stock/release")
+                        .header("Idempotency-Key", "k-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\n  \"orderId\": \"o-1\",\n  \"productId\": \"ABC-001\",\n  \"quantity\": 1\n}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("CONFLICT"));
+    }
+}
@@ -1,18 +1,28 @@
 package com.inventory.store.controller;
 
+import com.inventory.store.dto.StockAvailabilityDTO;
+import com.inventory.store.dto.StockImportResultDTO;
 import com.inventory.store.dto.StockSnapshotDTO;
 import com.inventory.store.exception.NotFoundException;
+import com.inventory.store.service.StockImportService;
 import com.inventory.store.service.StockService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
+import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = { StockController.class })
@@ -23,6 +33,9 @@ class StockControllerTest {
     @MockBean
     private StockService stockService;
 
+    @MockBean
+    private StockImportService stockImportService;
+
     @Test
     void get_snapshot_ok() throws Exception {
         when(stockService.getSnapshot("ABC-001")).thenReturn(StockSnapshotDTO.builder()
@@ -45,6 +58,71 @@ class StockControllerTest {
                 .andExpect(jsonPath("$.code").value("NOT_FOUND"))
                 .andExpect(jsonPath("$.path").value("/stock/NOPE-999"));
     }
-}
 
+    @Test
+    void get_snapshot_sets_etag_from_version() throws Exception {
+        when(stockService.getSnapshot("ABC-001")).thenReturn(StockSnapshotDTO.builder()
+                .productId("ABC-001").quantity(10).updatedAt(Instant.now()).version(3).build());
+
+        mockMvc.perform(get("/stock/ABC-001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void get_snapshot_not_modified_skips_read() throws Exception {
+        when(stockService.matchNotModified("ABC-001", "\"3\"")).thenReturn("\"3\"");
+
+        mockMvc.perform(get("/stock/ABC-001").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+        verify(stockService, never()).getSnapshot(any());
+    }
+
+    @Test
+    void availability_returns_entry_per_sku() throws Exception {
+        when(stockService.getAvailability(List.of("ABC-001", "NOPE-999"))).thenReturn(List.of(
+                StockAvailabilityDTO.builder().productId("ABC-001").status("OK").onHand(10).allocated(2).available(8).build(),
+                StockAvailabilityDTO.builder().productId("NOPE-999").status("NOT_FOUND").build()));
 
+        mockMvc.perform(post("/stock/availability")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productIds\":[\"ABC-001\",\"NOPE-999\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].available").value(8))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[1].onHand").doesNotExist());
+    }
+
+    @Test
+    void availability_empty_is_bad_request() throws Exception {
+        mockMvc.perform(post("/stock/availability")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productIds\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("BAD_REQUEST"));
+    }
+
+    @Test
+    void import_csv_returns_summary() throws Exception {
+        when(stockImportService.importCounts(any(), eq(StockImportService.CSV)))
+                .thenReturn(StockImportResultDTO.builder().format("csv").lines(2).applied(2).chunks(1).build());
+
+        mockMvc.perform(post("/stock/import")
+                        .contentType("text/csv")
+                        .content("productId,onHand\nABC-001,5\nABC-002,7\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+
+    @Test
+    void import_with_json_content_type_is_415() throws Exception {
+        mockMvc.perform(post("/stock/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
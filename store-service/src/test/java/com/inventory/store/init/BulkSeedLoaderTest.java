@@ -0,0 +1,63 @@
+package com.inventory.store.init;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class BulkSeedLoaderTest {
+
+    @Autowired
+    private BulkSeedLoader bulkSeedLoader;
+
+    @Autowired
+    private StartupTimings startupTimings;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loads_products_and_stock_in_batches() throws IOException {
+        Path file = dir.resolve("seed.csv");
+        Files.writeString(file, "productId,price,quantity,name\n"
+                + "SEED-001,10.50,7,Cable USB-C, 2 m\n"
+                + "\n"
+                + "SEED-002,3.00,0,Adaptador\n", StandardCharsets.UTF_8);
+
+        long rows = bulkSeedLoader.load(file);
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM products WHERE id = 'SEED-001'", String.class))
+                .isEqualTo("Cable USB-C, 2 m");
+        assertThat(jdbcTemplate.queryForObject("SELECT on_hand FROM stock WHERE product_id = 'SEED-001'", Integer.class))
+                .isEqualTo(7);
+        assertThat(jdbcTemplate.queryForObject("SELECT allocated FROM stock WHERE product_id = 'SEED-002'", Integer.class))
+                .isZero();
+        assertThat(startupTimings.phasesMs()).containsKeys("seed-insert", "seed-parse");
+    }
+
+    @Test
+    void rejects_malformed_line_with_its_number() throws IOException {
+        Path file = dir.resolve("bad.csv");
+        Files.writeString(file, "productId,price,quantity,name\nSEED-003,abc,1,Roto\n", StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> bulkSeedLoader.load(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Línea 2");
+    }
+}
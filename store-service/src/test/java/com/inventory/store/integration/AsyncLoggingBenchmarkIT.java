@@ -0,0 +1,103 @@
+package com.inventory.store.integration;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.inventory.store.logging.CountingAsyncAppender;
+import com.inventory.store.logging.SampledLogFilter;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * Costo en el hilo que loguea: consola síncrona con mensaje formateado vs cola asíncrona con
+ * pares clave/valor, con y sin muestreo (no corre en surefire).
+ * mvn -Dtest=AsyncLoggingBenchmarkIT -Dbench.lines=500000 test
+ */
+class AsyncLoggingBenchmarkIT {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%15.15t] %-40.40logger{39} : %m%replace( %kvp{NONE}){'^ $', ''}%n";
+
+    private static Logger logger(boolean async, String sampling) {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+        Appender<ILoggingEvent> appender = sink;
+        if (async) {
+            CountingAsyncAppender queue = new CountingAsyncAppender();
+            queue.setContext(context);
+            queue.setQueueSize(8192);
+            queue.setDiscardingThreshold(1638);
+            queue.addAppender(sink);
+            queue.start();
+            appender = queue;
+        }
+        if (sampling != null) {
+            SampledLogFilter filter = new SampledLogFilter();
+            filter.setContext(context);
+            filter.setRates(sampling);
+            filter.start();
+            context.addTurboFilter(filter);
+        }
+        Logger logger = context.getLogger("inventory.stock.adjust");
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        return logger;
+    }
+
+    private static long classic(Logger logger, int lines) {
+        Instant now = Instant.now();
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            logger.info("[traceId={}] Ajuste de stock exitoso: productId={}, newQty={}, updatedAt={}", "t-1", "ABC-001", i, now);
+        }
+        return (System.nanoTime() - start) / lines;
+    }
+
+    private static long structured(Logger logger, int lines) {
+        Instant now = Instant.now();
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            logger.atInfo().addKeyValue("traceId", "t-1").addKeyValue("productId", "ABC-001").addKeyValue("newQty", i)
+                    .addKeyValue("updatedAt", now).log("Ajuste de stock exitoso");
+        }
+        return (System.nanoTime() - start) / lines;
+    }
+
+    @Test
+    void caller_cost_per_line() {
+        int lines = Integer.getInteger("bench.lines", 500_000);
+        Logger sync = logger(false, null);
+        Logger async = logger(true, null);
+        Logger sampled = logger(true, "inventory.stock=0.1");
+        for (int warm = 0; warm < 2; warm++) {
+            classic(sync, lines);
+            structured(async, lines);
+            structured(sampled, lines);
+        }
+        long syncNs = classic(sync, lines);
+        long dropped = CountingAsyncAppender.dropped();
+        long asyncNs = structured(async, lines);
+        long asyncDropped = CountingAsyncAppender.dropped() - dropped;
+        dropped = CountingAsyncAppender.dropped();
+        long sampledNs = structured(sampled, lines);
+        long sampledDropped = CountingAsyncAppender.dropped() - dropped;
+
+        // en un bucle cerrado la cola se llena: lo descartado también cuenta en el costo del llamador
+        System.out.printf("lines=%d sync=%d ns/línea async=%d ns/línea (descartadas=%d) async+muestreo(0.1)=%d ns/línea (descartadas=%d)%n",
+                lines, syncNs, asyncNs, asyncDropped, sampledNs, sampledDropped);
+    }
+}
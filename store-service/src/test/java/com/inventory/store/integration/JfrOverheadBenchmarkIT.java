@@ -0,0 +1,58 @@
+package com.inventory.store.integration;
+
+import com.inventory.store.repository.ChangeLogRepository;
+import com.inventory.store.service.StockService;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+/**
+ * Costo de los eventos inventory.* de JFR sobre adjust (no corre en surefire).
+ * mvn -Dtest=JfrOverheadBenchmarkIT -Dbench.rounds=10 test
+ */
+@SpringBootTest(properties = "store.sync.enabled=false")
+class JfrOverheadBenchmarkIT {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    private long adjustNanos(int ops) {
+        // sin push el outbox solo crece; se vacía para que cada tanda arranque igual
+        changeLogRepository.deleteAllInBatch();
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            stockService.adjust("ABC-001", (i & 1) == 0 ? 1 : -1);
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    void adjust_with_and_without_recording() {
+        int ops = Integer.getInteger("bench.ops", 3_000);
+        int rounds = Integer.getInteger("bench.rounds", 10);
+        adjustNanos(ops);
+
+        // tandas alternadas para que la deriva del heap y de H2 caiga igual en ambos lados
+        long without = 0;
+        long with = 0;
+        for (int round = 0; round < rounds; round++) {
+            without += adjustNanos(ops);
+            try (Recording recording = new Recording()) {
+                recording.enable("inventory.StockMutation").withThreshold(Duration.ZERO);
+                recording.start();
+                with += adjustNanos(ops);
+                recording.stop();
+            }
+        }
+
+        double total = (double) ops * rounds;
+        System.out.printf("ops=%d rounds=%d sin=%.0f ops/s con=%.0f ops/s overhead=%.1f%%%n",
+                ops, rounds, total / (without / 1e9), total / (with / 1e9), 100.0 * (with - without) / without);
+    }
+}
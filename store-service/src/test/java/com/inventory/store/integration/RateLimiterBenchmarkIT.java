@@ -0,0 +1,53 @@
+package com.inventory.store.integration;
+
+import com.inventory.store.ratelimit.TokenBucketLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Costo por request del limitador: clave cliente+ruta y CAS sobre el bucket, con muchos
+ * clientes repartidos y con todos los hilos sobre un mismo bucket (no corre en surefire).
+ * mvn -Dtest=RateLimiterBenchmarkIT -Dbench.ops=2000000 -Dbench.threads=8 test
+ */
+class RateLimiterBenchmarkIT {
+
+    private static final String ROUTE = "POST /stock/adjust";
+    // tasa alta: se mide el camino de admisión, que es el de todos los requests normales
+    private static final TokenBucketLimiter.Limit LIMIT = new TokenBucketLimiter.Limit(1e9, 1_000_000);
+
+    private static double nanosPerOp(TokenBucketLimiter limiter, int threads, int ops, int clients) throws Exception {
+        AtomicLong rejected = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            workers[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < ops; i++) {
+                    String client = "store-" + ((i * 31 + offset) % clients);
+                    if (limiter.tryAcquire(client + ' ' + ROUTE, LIMIT) != 0) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (System.nanoTime() - start) / ((double) ops * threads);
+    }
+
+    @Test
+    void acquire_cost() throws Exception {
+        int ops = Integer.getInteger("bench.ops", 2_000_000);
+        int threads = Integer.getInteger("bench.threads", 8);
+        nanosPerOp(new TokenBucketLimiter(10_000), threads, ops / 4, 1_000);
+
+        System.out.printf("ops=%d 1 hilo/1000 clientes=%.0f ns/op %d hilos/1000 clientes=%.0f ns/op %d hilos/1 cliente=%.0f ns/op 50000 clientes (tope 10000)=%.0f ns/op%n",
+                ops,
+                nanosPerOp(new TokenBucketLimiter(10_000), 1, ops, 1_000),
+                threads, nanosPerOp(new TokenBucketLimiter(10_000), threads, ops, 1_000),
+                threads, nanosPerOp(new TokenBucketLimiter(10_000), threads, ops, 1),
+                nanosPerOp(new TokenBucketLimiter(10_000), 1, ops, 50_000));
+    }
+}
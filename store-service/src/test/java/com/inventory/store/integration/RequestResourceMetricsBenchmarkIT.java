@@ -0,0 +1,57 @@
+package com.inventory.store.integration;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.inventory.store.config.TraceFilter;
+import com.inventory.store.dto.StockSnapshotDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Instant;
+
+/**
+ * Costo por request de medir CPU y asignación en TraceFilter (no corre en surefire).
+ * mvn -Dtest=RequestResourceMetricsBenchmarkIT -Dbench.requests=200000 test
+ */
+class RequestResourceMetricsBenchmarkIT {
+
+    private static final FilterChain HANDLER = (req, res) -> {
+        req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/stock/{productId}");
+        StockSnapshotDTO dto = StockSnapshotDTO.builder().productId("ABC-001").quantity(10).updatedAt(Instant.now()).build();
+        res.setContentLength(dto.getProductId().length());
+    };
+
+    private static long nanosPerRequest(TraceFilter filter, int requests) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/stock/ABC-001"), new MockHttpServletResponse(), HANDLER);
+        }
+        return (System.nanoTime() - start) / requests;
+    }
+
+    @Test
+    void filter_with_and_without_resource_metrics() throws Exception {
+        int requests = Integer.getInteger("bench.requests", 200_000);
+        int rounds = Integer.getInteger("bench.rounds", 5);
+        // el log de acceso costaría igual en ambos lados y taparía la diferencia
+        ((Logger) LoggerFactory.getLogger("inventory.access")).setLevel(Level.WARN);
+        TraceFilter off = new TraceFilter(false, new SimpleMeterRegistry());
+        TraceFilter on = new TraceFilter(true, new SimpleMeterRegistry());
+        nanosPerRequest(off, requests);
+        nanosPerRequest(on, requests);
+
+        long without = 0;
+        long with = 0;
+        for (int round = 0; round < rounds; round++) {
+            without += nanosPerRequest(off, requests);
+            with += nanosPerRequest(on, requests);
+        }
+        System.out.printf("requests=%d rounds=%d sin=%d ns/req con=%d ns/req delta=%d ns/req%n",
+                requests, rounds, without / rounds, with / rounds, (with - without) / rounds);
+    }
+}
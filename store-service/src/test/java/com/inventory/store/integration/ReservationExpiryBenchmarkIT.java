@@ -0,0 +1,136 @@
+package com.inventory.store.integration;
+
+import com.inventory.store.entity.ReservationEntity;
+import com.inventory.store.repository.ReservationRepository;
+import com.inventory.store.service.ReservationExpiryService;
+import com.inventory.store.service.ReservationTimingWheel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput de la rueda con millones de reservas pendientes y liberación de punta a punta contra
+ * la H2 embebida, con una reserva envenenada (no corre en surefire).
+ * mvn -Dtest=ReservationExpiryBenchmarkIT -Dbench.holds=2000000 -Dbench.releaseHolds=20000 test
+ */
+@SpringBootTest(properties = {"store.sync.enabled=false", "store.reservation.expiry.enabled=false"})
+class ReservationExpiryBenchmarkIT {
+
+    private static final int SKUS = 200;
+
+    @Autowired
+    private ReservationExpiryService reservationExpiryService;
+
+    @Autowired
+    private ReservationTimingWheel timingWheel;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void millions_of_outstanding_holds() {
+        int holds = Integer.getInteger("bench.holds", 2_000_000);
+        Instant t0 = Instant.parse("2030-01-01T00:00:00Z");
+        ReservationTimingWheel wheel = new ReservationTimingWheel(1000, Clock.fixed(t0, ZoneOffset.UTC), new SimpleMeterRegistry());
+        SplittableRandom random = new SplittableRandom(42);
+        UUID[] ids = new UUID[holds];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < holds; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+            wheel.schedule(ids[i], t0.plusMillis(random.nextLong(1, 3_600_000)));
+        }
+        long scheduled = System.nanoTime();
+        int cancelled = 0;
+        for (int i = 0; i < holds; i += 10) {
+            if (wheel.cancel(ids[i])) {
+                cancelled++;
+            }
+        }
+        long cancelledAt = System.nanoTime();
+        int fired = 0;
+        for (int second = 1; second <= 3_600; second++) {
+            fired += wheel.advance(t0.plusSeconds(second)).size();
+        }
+        long end = System.nanoTime();
+
+        System.out.printf("holds=%d schedule=%.0f ops/s cancel=%.0f ops/s expire=%.0f holds/s%n",
+                holds,
+                holds / ((scheduled - start) / 1e9),
+                cancelled / ((cancelledAt - scheduled) / 1e9),
+                fired / ((end - cancelledAt) / 1e9));
+        assertThat(fired).isEqualTo(holds - cancelled);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void end_to_end_release_with_a_poisoned_hold() {
+        int holds = Integer.getInteger("bench.releaseHolds", 20_000);
+        Instant now = clock.instant();
+        Instant expiresAt = now.plusSeconds(60);
+        // cada SKU con tantas unidades reservadas como holds tiene; BENCH-POISON dice 0 y su release falla
+        List<Object[]> stock = new ArrayList<>(SKUS + 1);
+        for (int sku = 0; sku < SKUS; sku++) {
+            int held = holds / SKUS + (sku < holds % SKUS ? 1 : 0);
+            stock.add(new Object[]{"BENCH-" + sku, held, held, Timestamp.from(now)});
+        }
+        stock.add(new Object[]{"BENCH-POISON", 1, 0, Timestamp.from(now)});
+        jdbcTemplate.batchUpdate("INSERT INTO stock (product_id, on_hand, allocated, updated_at, version) VALUES (?, ?, ?, ?, 0)", stock);
+
+        List<ReservationEntity> rows = new ArrayList<>(holds + 1);
+        for (int i = 0; i < holds; i++) {
+            rows.add(hold("bench-o-" + i, "BENCH-" + (i % SKUS), now, expiresAt));
+            if (i == holds / 2) {
+                rows.add(hold("bench-poison", "BENCH-POISON", now, expiresAt));
+            }
+        }
+        for (int from = 0; from < rows.size(); from += 5_000) {
+            reservationRepository.saveAll(rows.subList(from, Math.min(from + 5_000, rows.size())));
+        }
+        rows.forEach(r -> timingWheel.schedule(r.getId(), r.getExpiresAt()));
+
+        long start = System.nanoTime();
+        int expired = reservationExpiryService.expireDue(expiresAt.plusSeconds(1));
+        long end = System.nanoTime();
+
+        System.out.printf("releaseHolds=%d expired=%d durationMs=%d (%.0f holds/s) failedBatches=%.0f parked=%.0f%n",
+                holds, expired, (end - start) / 1_000_000, expired / ((end - start) / 1e9),
+                meterRegistry.counter("inventory_reservation_expiry_failed_batches_total").count(),
+                meterRegistry.counter("inventory_reservation_expiry_parked_total").count());
+        assertThat(expired).isEqualTo(holds);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(allocated), 0) FROM stock WHERE product_id LIKE 'BENCH-%' AND product_id <> 'BENCH-POISON'",
+                Long.class)).isZero();
+        assertThat(reservationRepository.findById(rows.get(holds / 2 + 1).getId()).orElseThrow().getStatus())
+                .isEqualTo(ReservationEntity.HELD);
+        assertThat(meterRegistry.counter("inventory_reservation_expiry_parked_total").count()).isEqualTo(1);
+    }
+
+    private static ReservationEntity hold(String orderId, String productId, Instant now, Instant expiresAt) {
+        return ReservationEntity.builder().id(UUID.randomUUID()).orderId(orderId).productId(productId).quantity(1)
+                .status(ReservationEntity.HELD).expiresAt(expiresAt).createdAt(now).updatedAt(now).build();
+    }
+}
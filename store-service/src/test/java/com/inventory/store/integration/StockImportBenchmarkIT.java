@@ -0,0 +1,55 @@
+package com.inventory.store.integration;
+
+import com.inventory.store.dto.StockImportResultDTO;
+import com.inventory.store.service.StockImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conteo de 100k filas contra la H2 embebida (no corre en surefire).
+ * mvn -Dtest=StockImportBenchmarkIT -Dbench.rows=100000 test
+ */
+@SpringBootTest(properties = "store.sync.enabled=false")
+class StockImportBenchmarkIT {
+
+    @Autowired
+    private StockImportService stockImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void hundred_thousand_rows() throws Exception {
+        int rows = Integer.getInteger("bench.rows", 100_000);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> seed = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            seed.add(new Object[]{"BULK-" + i, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stock (product_id, on_hand, allocated, updated_at, version) VALUES (?, 0, 0, ?, 0)", seed);
+
+        StringBuilder csv = new StringBuilder("productId,onHand\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("BULK-").append(i).append(',').append(i % 500 + 1).append('\n');
+        }
+
+        StockImportResultDTO result = stockImportService.importCounts(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), StockImportService.CSV);
+
+        System.out.printf("rows=%d applied=%d chunks=%d durationMs=%d (%.0f rows/s)%n",
+                rows, result.getApplied(), result.getChunks(), result.getDurationMs(),
+                rows / Math.max(result.getDurationMs() / 1000.0, 0.001));
+        assertThat(result.getApplied()).isEqualTo(rows);
+    }
+}
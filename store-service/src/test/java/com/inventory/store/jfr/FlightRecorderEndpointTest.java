@@ -0,0 +1,82 @@
+package com.inventory.store.jfr;
+
+import com.inventory.store.service.StockService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class FlightRecorderEndpointTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @TempDir
+    Path dir;
+
+    private FlightRecorderEndpoint endpoint(Instant now) {
+        return new FlightRecorderEndpoint(dir.toString(), 60, 10, 2, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void records_stock_mutations_and_dumps_on_stop() throws Exception {
+        FlightRecorderEndpoint endpoint = endpoint(Instant.parse("2030-01-01T00:00:00Z"));
+        assertThat(endpoint.start(600L, null, null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(endpoint.start(null, null, null).getStatus()).as("una sola grabación a la vez")
+                .isEqualTo(HttpStatus.CONFLICT.value());
+
+        stockService.adjust("ABC-002", 1);
+        stockService.adjust("ABC-002", -1);
+
+        WebEndpointResponse<Map<String, Object>> stopped = endpoint.stop();
+        assertThat(stopped.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(stopped.getBody().get("durationSeconds")).as("duración acotada a maxDurationSeconds").isEqualTo(60L);
+        Path file = Path.of((String) stopped.getBody().get("file"));
+        assertThat(file).exists().hasParent(dir);
+
+        List<RecordedEvent> mutations = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("inventory.StockMutation"))
+                .filter(e -> "ABC-002".equals(e.getString("productId")))
+                .toList();
+        assertThat(mutations).hasSize(2);
+        assertThat(mutations).allSatisfy(e -> {
+            assertThat(e.getString("operation")).isEqualTo("adjust");
+            assertThat(e.getString("outcome")).isEqualTo("ok");
+            assertThat(e.getInt("attempts")).isEqualTo(1);
+        });
+        assertThat(endpoint.stop().getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    void keeps_only_the_last_max_files() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            FlightRecorderEndpoint endpoint = endpoint(Instant.parse("2030-01-01T00:00:00Z").plusSeconds(i));
+            endpoint.start(5L, 1L, "default");
+            endpoint.stop();
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files.map(p -> p.getFileName().toString()).sorted().toList())
+                    .containsExactly("store-20300101-000002.jfr", "store-20300101-000003.jfr");
+        }
+    }
+
+    @Test
+    void rejects_unknown_settings() throws Exception {
+        assertThat(endpoint(Instant.now()).start(null, null, "nope").getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+    }
+}
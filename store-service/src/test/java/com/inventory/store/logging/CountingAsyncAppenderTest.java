@@ -0,0 +1,59 @@
+package com.inventory.store.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountingAsyncAppenderTest {
+
+    @Test
+    void full_queue_drops_and_counts_info_but_keeps_errors() throws Exception {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.add(event.getFormattedMessage());
+            }
+        };
+        slow.setContext(context);
+        slow.start();
+        CountingAsyncAppender async = new CountingAsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(4);
+        async.setDiscardingThreshold(2);
+        async.addAppender(slow);
+        async.start();
+        Logger logger = context.getLogger("inventory.stock.adjust");
+        logger.addAppender(async);
+        long before = CountingAsyncAppender.dropped();
+
+        for (int i = 0; i < 20; i++) {
+            logger.info("info {}", i);
+        }
+        logger.error("error");
+        long dropped = CountingAsyncAppender.dropped() - before;
+        release.countDown();
+        async.stop();
+
+        assertThat(dropped).isGreaterThan(0);
+        assertThat(delivered).contains("error");
+        assertThat(delivered.size() - 1 + dropped).isEqualTo(20);
+    }
+}
@@ -0,0 +1,85 @@
+package com.inventory.store.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledLogFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final ListAppender<ILoggingEvent> out = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        out.setContext(context);
+        out.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(out);
+    }
+
+    private void sample(String rates) {
+        SampledLogFilter filter = new SampledLogFilter();
+        filter.setContext(context);
+        filter.setRates(rates);
+        filter.start();
+        context.addTurboFilter(filter);
+    }
+
+    @Test
+    void sampled_category_drops_info_but_keeps_warnings_and_errors() {
+        sample("inventory.stock=0.0");
+        Logger adjust = context.getLogger("inventory.stock.adjust");
+        long before = SampledLogFilter.sampledOut();
+
+        adjust.info("classic {}", 1);
+        adjust.atInfo().addKeyValue("productId", "ABC-001").log("fluent");
+        adjust.warn("warn");
+        adjust.atError().addKeyValue("productId", "ABC-001").log("error");
+        context.getLogger("inventory.access").info("otra categoría");
+
+        assertThat(out.list).extracting(ILoggingEvent::getMessage).containsExactly("warn", "error", "otra categoría");
+        assertThat(out.list.get(1).getKeyValuePairs()).extracting(kv -> kv.key).containsExactly("productId");
+        assertThat(SampledLogFilter.sampledOut() - before).isEqualTo(2);
+    }
+
+    @Test
+    void events_below_logger_level_are_not_counted() {
+        sample("inventory.stock=0.0");
+        Logger adjust = context.getLogger("inventory.stock.adjust");
+        adjust.setLevel(Level.INFO);
+        long before = SampledLogFilter.sampledOut();
+
+        adjust.debug("debug {}", 1);
+        adjust.atDebug().addKeyValue("productId", "ABC-001").log("fluent");
+
+        assertThat(out.list).isEmpty();
+        assertThat(SampledLogFilter.sampledOut() - before).isZero();
+    }
+
+    @Test
+    void longest_prefix_wins_and_fraction_keeps_roughly_that_share() {
+        sample("inventory.stock=0.0, inventory.stock.adjust=0.25");
+        Logger adjust = context.getLogger("inventory.stock.adjust");
+        for (int i = 0; i < 4000; i++) {
+            adjust.info("ok");
+        }
+        context.getLogger("inventory.stock.allocate").info("allocate");
+
+        assertThat(out.list).hasSizeBetween(800, 1200);
+        assertThat(out.list).extracting(ILoggingEvent::getMessage).doesNotContain("allocate");
+    }
+
+    @Test
+    void empty_or_invalid_spec_keeps_everything() {
+        sample("inventory.stock, =0.5, inventory.access=abc");
+        context.getLogger("inventory.stock.adjust").info("a");
+        context.getLogger("inventory.access").info("b");
+
+        assertThat(out.list).hasSize(2);
+    }
+}
@@ -0,0 +1,88 @@
+package com.inventory.store.ratelimit;
+
+import com.inventory.store.controller.StockController;
+import com.inventory.store.dto.StockSnapshotDTO;
+import com.inventory.store.service.StockImportService;
+import com.inventory.store.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = { StockController.class }, properties = {
+        "store.ratelimit.limits=POST /stock/adjust=0.01:2",
+        "store.ratelimit.trustedProxies=10.0.0.9"
+})
+class RateLimitInterceptorTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StockService stockService;
+
+    @MockBean
+    private StockImportService stockImportService;
+
+    private static MockHttpServletRequestBuilder adjust(String remoteAddr, String client) {
+        return post("/stock/adjust")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddr);
+                    return request;
+                })
+                .header(RateLimitInterceptor.CLIENT_ID_HEADER, client)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\":\"ABC-001\",\"delta\":1}");
+    }
+
+    @Test
+    void over_limit_answers_429_with_retry_after_per_remote_address() throws Exception {
+        stubAdjust();
+
+        mockMvc.perform(adjust("10.0.0.1", "pos-1")).andExpect(status().isOk());
+        mockMvc.perform(adjust("10.0.0.1", "pos-1")).andExpect(status().isOk());
+        mockMvc.perform(adjust("10.0.0.1", "pos-1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"))
+                .andExpect(jsonPath("$.code").value("TOO_MANY_REQUESTS"));
+        // rotar el header desde la misma dirección no da un bucket nuevo
+        mockMvc.perform(adjust("10.0.0.1", "pos-2")).andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(adjust("10.0.0.2", "pos-1")).andExpect(status().isOk());
+        mockMvc.perform(get("/stock/ABC-001").with(request -> {
+                    request.setRemoteAddr("10.0.0.1");
+                    return request;
+                }))
+                .andExpect(status().is(not(429)));
+    }
+
+    @Test
+    void trusted_proxy_limits_each_client_id_separately() throws Exception {
+        stubAdjust();
+
+        mockMvc.perform(adjust("10.0.0.9", "pos-7")).andExpect(status().isOk());
+        mockMvc.perform(adjust("10.0.0.9", "pos-7")).andExpect(status().isOk());
+        mockMvc.perform(adjust("10.0.0.9", "pos-7")).andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(adjust("10.0.0.9", "pos-8")).andExpect(status().isOk());
+    }
+
+    private void stubAdjust() {
+        when(stockService.adjust(any(), anyString(), anyInt())).thenReturn(StockSnapshotDTO.builder()
+                .productId("ABC-001").quantity(11).updatedAt(Instant.now()).build());
+    }
+}
@@ -0,0 +1,87 @@
+package com.inventory.store.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final TokenBucketLimiter.Limit tenPerSecondBurstThree = new TokenBucketLimiter.Limit(10, 3);
+
+    @Test
+    void burst_then_refill_at_rate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(100, now::get);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("a", tenPerSecondBurstThree)).isZero();
+        }
+        long wait = limiter.tryAcquire("a", tenPerSecondBurstThree);
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limiter.tryAcquire("a", tenPerSecondBurstThree)).isZero();
+        assertThat(limiter.tryAcquire("a", tenPerSecondBurstThree)).isPositive();
+
+        // otro cliente tiene su propio bucket
+        assertThat(limiter.tryAcquire("b", tenPerSecondBurstThree)).isZero();
+
+        // tras un rato sin pedidos el bucket vuelve a estar lleno, no acumula más que burst
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("a", tenPerSecondBurstThree)).isZero();
+        }
+        assertThat(limiter.tryAcquire("a", tenPerSecondBurstThree)).isPositive();
+    }
+
+    @Test
+    void over_capacity_evicts_full_buckets_first() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, now::get);
+        limiter.tryAcquire("idle", tenPerSecondBurstThree);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("busy", tenPerSecondBurstThree);
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.tryAcquire("busy", tenPerSecondBurstThree);
+        limiter.tryAcquire("busy", tenPerSecondBurstThree);
+        limiter.tryAcquire("busy", tenPerSecondBurstThree);
+
+        limiter.tryAcquire("new", tenPerSecondBurstThree);
+
+        assertThat(limiter.size()).isEqualTo(2);
+        assertThat(limiter.evicted()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("busy", tenPerSecondBurstThree)).as("conserva el estado del activo").isPositive();
+    }
+
+    @Test
+    void concurrent_acquires_never_exceed_burst() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(100, now::get);
+        TokenBucketLimiter.Limit limit = new TokenBucketLimiter.Limit(1, 50);
+        AtomicLong admitted = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("shared", limit) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(admitted.get()).isEqualTo(50);
+    }
+
+    @Test
+    void rejects_invalid_limits() {
+        assertThatThrownBy(() -> new TokenBucketLimiter.Limit(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateLimitInterceptor.parse("POST /stock/adjust=10")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(RateLimitInterceptor.parse("POST  /stock/adjust=10:20, PUT /products/{id}=0.5:1"))
+                .containsOnlyKeys("POST /stock/adjust", "PUT /products/{id}");
+    }
+}
@@ -0,0 +1,111 @@
+package com.inventory.store.service;
+
+import com.inventory.store.exception.SyncNetworkException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveSyncTunerTest {
+
+    // lote 100..1000, +50 por ack, x0.5 al recortar, objetivo 200ms, intervalo 1s..60s, ventana 2
+    private static AdaptiveSyncTuner tuner() {
+        return new AdaptiveSyncTuner(true, 200, 100, 1000, 50, 0.5, 200, 1000, 60000, 2);
+    }
+
+    private static SyncNetworkException wrap(Exception cause) {
+        return new SyncNetworkException("Error al sincronizar con el servicio central", cause);
+    }
+
+    @Test
+    void grows_additively_on_fast_full_batches_only() {
+        AdaptiveSyncTuner t = tuner();
+        t.onAck(t.sizing(), 200, 50);
+        t.onAck(t.sizing(), 250, 50);
+        assertThat(t.batchSize()).isEqualTo(300);
+
+        // lote incompleto: con poco backlog no se prueba un tamaño mayor
+        t.onAck(t.sizing(), 10, 50);
+        assertThat(t.batchSize()).isEqualTo(300);
+
+        for (int i = 0; i < 100; i++) {
+            t.onAck(t.sizing(), t.batchSize(), 50);
+        }
+        assertThat(t.batchSize()).isEqualTo(1000);
+    }
+
+    @Test
+    void shrinks_multiplicatively_on_overload_and_slow_acks() {
+        AdaptiveSyncTuner t = tuner();
+        t.onAck(t.sizing(), 200, 50);
+        t.onAck(t.sizing(), 250, 50);
+        t.onAck(t.sizing(), 300, 50);
+        t.onAck(t.sizing(), 350, 50);
+        assertThat(t.batchSize()).isEqualTo(400);
+
+        t.onFailure(t.sizing(), wrap(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+        assertThat(t.batchSize()).isEqualTo(200);
+
+        t.onAck(t.sizing(), 200, 900);
+        assertThat(t.batchSize()).isEqualTo(100);
+
+        t.onFailure(t.sizing(), wrap(new ResourceAccessException("Read timed out")));
+        assertThat(t.batchSize()).as("no baja del mínimo").isEqualTo(100);
+    }
+
+    @Test
+    void in_flight_batches_failing_together_cut_once() {
+        AdaptiveSyncTuner t = tuner();
+        AdaptiveSyncTuner.Sizing a = t.sizing();
+        AdaptiveSyncTuner.Sizing b = t.sizing();
+        AdaptiveSyncTuner.Sizing c = t.sizing();
+
+        t.onFailure(a, wrap(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+        t.onFailure(b, wrap(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+        t.onAck(c, 200, 900);
+
+        assertThat(t.batchSize()).isEqualTo(100);
+    }
+
+    @Test
+    void client_errors_are_not_congestion() {
+        AdaptiveSyncTuner t = tuner();
+        t.onFailure(t.sizing(), wrap(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+        assertThat(t.batchSize()).isEqualTo(200);
+    }
+
+    @Test
+    void interval_follows_backlog_and_backs_off_on_overload() {
+        AdaptiveSyncTuner t = tuner();
+        assertThat(t.intervalMs()).isEqualTo(60000);
+
+        // ventana completa pendiente (2 x 200): cadencia mínima
+        t.onPushFinished(400, false);
+        assertThat(t.intervalMs()).isEqualTo(1000);
+
+        t.onPushFinished(200, false);
+        assertThat(t.intervalMs()).isEqualTo(30500);
+
+        t.onPushFinished(0, false);
+        assertThat(t.intervalMs()).isEqualTo(60000);
+
+        t.onPushFinished(400, false);
+        t.onPushFinished(400, true);
+        t.onPushFinished(400, true);
+        assertThat(t.intervalMs()).isEqualTo(4000);
+    }
+
+    @Test
+    void disabled_keeps_configured_size_and_interval() {
+        AdaptiveSyncTuner t = new AdaptiveSyncTuner(false, 1, 100, 1000, 50, 0.5, 200, 1000, 60000, 2);
+        t.onAck(t.sizing(), 1, 5000);
+        t.onFailure(t.sizing(), wrap(new ResourceAccessException("Read timed out")));
+        t.onPushFinished(1_000_000, false);
+
+        assertThat(t.batchSize()).isEqualTo(1);
+        assertThat(t.intervalMs()).isEqualTo(60000);
+    }
+}
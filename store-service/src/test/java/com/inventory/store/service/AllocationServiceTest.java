@@ -2,17 +2,28 @@ package com.inventory.store.service;
 
 import com.inventory.store.TestClockConfig;
 import com.inventory.store.dto.StockAllocateRequestDTO;
+import com.inventory.store.dto.OrderReservationsDTO;
+import com.inventory.store.dto.ReservationDTO;
 import com.inventory.store.dto.StockAllocationResponseDTO;
+import com.inventory.store.dto.StockSnapshotDTO;
 import com.inventory.store.exception.BadRequestException;
+import com.inventory.store.exception.ConflictException;
+import com.inventory.store.exception.NotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(SpringExtension.class)
@@ -24,6 +35,15 @@ class AllocationServiceTest {
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private ReservationExpiryService reservationExpiryService;
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Test
     void allocate_success_then_commit_reduces_onhand_and_allocated() {
         String productId = "ABC-001";
@@ -72,6 +92,98 @@ class AllocationServiceTest {
         StockAllocateRequestDTO req = StockAllocateRequestDTO.builder().orderId("o-5").productId(productId).quantity(1_000).build();
         assertThrows(BadRequestException.class, () -> stockService.release(req));
     }
-}
 
+    @Test
+    void commit_with_other_order_id_throws_409() {
+        stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-6").productId("ABC-002").quantity(2).build());
+        StockAllocateRequestDTO other = StockAllocateRequestDTO.builder().orderId("o-7").productId("ABC-002").quantity(2).build();
+        assertThrows(BadRequestException.class, () -> stockService.commit(other));
+    }
+
+    @Test
+    void commit_order_settles_every_held_line_with_ledger_quantities() {
+        StockSnapshotDTO before1 = stockService.getSnapshot("ABC-001");
+        StockSnapshotDTO before3 = stockService.getSnapshot("ABC-003");
+        stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-8").productId("ABC-001").quantity(1).build());
+        stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-8").productId("ABC-001").quantity(2).build());
+        StockAllocationResponseDTO alloc3 = stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-8").productId("ABC-003").quantity(4).build());
+
+        OrderReservationsDTO committed = stockService.commitOrder("o-8");
+
+        assertThat(committed.getStatus()).isEqualTo("COMMITTED");
+        assertThat(committed.getReservations()).extracting(ReservationDTO::getProductId, ReservationDTO::getQuantity)
+                .containsExactlyInAnyOrder(tuple("ABC-001", 3), tuple("ABC-003", 4));
+        assertThat(stockService.getSnapshot("ABC-001").getQuantity()).isEqualTo(before1.getQuantity() - 3);
+        assertThat(stockService.getSnapshot("ABC-003").getQuantity()).isEqualTo(before3.getQuantity() - 4);
+        ReservationDTO line3 = committed.getReservations().stream().filter(r -> r.getProductId().equals("ABC-003")).findFirst().orElseThrow();
+        assertThat(line3.getAllocated()).isEqualTo(alloc3.getAllocated() - 4);
+
+        assertThrows(NotFoundException.class, () -> stockService.commitOrder("o-8"));
+    }
+
+    @Test
+    void release_order_keeps_onhand_and_marks_ledger() {
+        StockAllocationResponseDTO alloc = stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-9").productId("ABC-002").quantity(3).build());
+
+        OrderReservationsDTO released = stockService.releaseOrder("o-9");
 
+        assertThat(released.getReservations()).singleElement().satisfies(line -> {
+            assertThat(line.getOnHand()).isEqualTo(alloc.getOnHand());
+            assertThat(line.getAllocated()).isEqualTo(alloc.getAllocated() - 3);
+        });
+        assertThat(stockService.getOrder("o-9").getReservations()).singleElement()
+                .extracting(ReservationDTO::getStatus).isEqualTo("RELEASED");
+    }
+
+    @Test
+    void expired_hold_is_released_by_the_wheel() {
+        StockAllocationResponseDTO alloc = stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-10").productId("ABC-003").quantity(2).build());
+        assertThat(stockService.getOrder("o-10").getReservations()).singleElement()
+                .extracting(ReservationDTO::getExpiresAt).isEqualTo(clock.instant().plusMillis(900_000));
+
+        assertThat(reservationExpiryService.expireDue(clock.instant().plusSeconds(60))).isZero();
+        assertThat(reservationExpiryService.expireDue(clock.instant().plusSeconds(16 * 60))).isEqualTo(1);
+
+        assertThat(stockService.getOrder("o-10").getReservations()).singleElement()
+                .extracting(ReservationDTO::getStatus).isEqualTo("EXPIRED");
+        assertThat(stockService.getAvailability(List.of("ABC-003")).get(0).getAllocated()).isEqualTo(alloc.getAllocated() - 2);
+    }
+
+    @Test
+    void commit_replay_returns_stored_response_without_touching_stock() {
+        StockAllocateRequestDTO req = StockAllocateRequestDTO.builder().orderId("o-11").productId("ABC-002").quantity(2).build();
+        stockService.allocate("alloc-11", req);
+        StockAllocationResponseDTO first = stockService.commit("commit-11", req);
+        StockSnapshotDTO afterFirst = stockService.getSnapshot("ABC-002");
+
+        StockAllocationResponseDTO replayed = stockService.commit("commit-11", req);
+
+        assertThat(replayed).isEqualTo(first);
+        assertThat(stockService.getSnapshot("ABC-002").getVersion()).isEqualTo(afterFirst.getVersion());
+        assertThat(stockService.allocate("alloc-11", req)).extracting(StockAllocationResponseDTO::getStatus).isEqualTo("ALLOCATED");
+    }
+
+    @Test
+    void same_key_with_other_request_conflicts() {
+        stockService.adjust("adj-12", "ABC-001", 1);
+
+        assertThrows(ConflictException.class, () -> stockService.adjust("adj-12", "ABC-001", 2));
+        assertThrows(ConflictException.class, () -> stockService.release("adj-12",
+                StockAllocateRequestDTO.builder().orderId("o-12").productId("ABC-001").quantity(1).build()));
+    }
+
+    @Test
+    void large_stored_response_replays() {
+        List<ReservationDTO> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lines.add(ReservationDTO.builder().productId("SKU-" + i).quantity(i).status("COMMITTED").onHand(i).allocated(0).updatedAt(clock.instant()).build());
+        }
+        OrderReservationsDTO response = OrderReservationsDTO.builder().orderId("o-13").reservations(lines).build();
+        idempotencyService.record("order-13", "commit_order", "h", response);
+
+        assertThat(idempotencyService.replay("order-13", "commit_order", "h", OrderReservationsDTO.class)).contains(response);
+        DataIntegrityViolationException duplicate = assertThrows(DataIntegrityViolationException.class,
+                () -> idempotencyService.record("order-13", "commit_order", "h", response));
+        assertThat(IdempotencyService.isKeyConflict(duplicate)).isTrue();
+    }
+}
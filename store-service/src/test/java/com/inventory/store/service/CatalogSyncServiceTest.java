@@ -0,0 +1,63 @@
+package com.inventory.store.service;
+
+import com.inventory.store.dto.CatalogDeltaDTO;
+import com.inventory.store.dto.CatalogSyncResultDTO;
+import com.inventory.store.entity.ProductEntity;
+import com.inventory.store.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@Transactional
+class CatalogSyncServiceTest {
+
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private CentralSyncClient centralSyncClient;
+
+    @Test
+    void pull_applies_updates_and_inserts_from_last_seen_version() {
+        Instant changedAt = Instant.parse("2030-01-01T00:00:00Z");
+        when(centralSyncClient.fetchCatalogDelta(eq(0L), anyInt())).thenReturn(CatalogDeltaDTO.builder()
+                .lastVersion(8).hasMore(false).items(List.of(
+                        ProductEntity.builder().id("ABC-001").name("Laptop Lenovo ThinkPad X1 Gen 12")
+                                .price(new BigDecimal("1399.00")).updatedAt(changedAt).catalogVersion(7L).build(),
+                        ProductEntity.builder().id("ABC-010").name("Monitor Dell U2723QE")
+                                .price(new BigDecimal("579.90")).updatedAt(changedAt).catalogVersion(8L).build()))
+                .build());
+        when(centralSyncClient.fetchCatalogDelta(eq(8L), anyInt())).thenReturn(CatalogDeltaDTO.builder()
+                .lastVersion(8).hasMore(false).items(List.of()).build());
+
+        CatalogSyncResultDTO result = catalogSyncService.pullCatalog();
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getToVersion()).isEqualTo(8);
+        ProductEntity updated = productRepository.findById("ABC-001").orElseThrow();
+        assertThat(updated.getPrice()).isEqualByComparingTo("1399.00");
+        assertThat(updated.getUpdatedAt()).isEqualTo(changedAt);
+        assertThat(productRepository.findById("ABC-010")).isPresent();
+
+        // la siguiente pasada arranca desde la última versión aplicada
+        catalogSyncService.pullCatalog();
+        verify(centralSyncClient).fetchCatalogDelta(eq(8L), anyInt());
+    }
+}
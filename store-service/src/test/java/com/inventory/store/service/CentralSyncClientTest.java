@@ -0,0 +1,103 @@
+package com.inventory.store.service;
+
+import com.inventory.store.dto.StockSnapshotDTO;
+import com.inventory.store.dto.SyncBatchDTO;
+import com.inventory.store.dto.SyncResultDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class CentralSyncClientTest {
+    private static final String TWO_NODES =
+            "{\"epoch\":7,\"vnodes\":128,\"self\":0,\"nodes\":[\"http://c0\",\"http://c1\"]}";
+    private static final String THREE_NODES =
+            "{\"epoch\":8,\"vnodes\":128,\"self\":0,\"nodes\":[\"http://c0\",\"http://c1\",\"http://c2\"]}";
+
+    private MockRestServiceServer server;
+    private CentralSyncClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://central");
+        server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        // ejecutor directo: los sub-lotes salen en el hilo del test
+        client = new CentralSyncClient(builder.build(), Runnable::run, true, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void splits_batch_by_owner_and_sums_results() {
+        // ABC-001 y ABC-002 caen en nodos distintos con 2 nodos
+        ConsistentHashRing ring = new ConsistentHashRing(2, 128);
+        String node0 = ring.owner("ABC-001") == 0 ? "http://c0" : "http://c1";
+        String node1 = node0.equals("http://c0") ? "http://c1" : "http://c0";
+        assertThat(ring.owner("ABC-002")).isNotEqualTo(ring.owner("ABC-001"));
+
+        server.expect(once(), requestTo("http://central/sync/partitions")).andRespond(withSuccess(TWO_NODES, MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(node0 + "/sync/pull")).andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.items[0].productId").value("ABC-001"))
+                .andRespond(withSuccess("{\"received\":1,\"applied\":1,\"skipped\":0}", MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(node1 + "/sync/pull")).andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.items[0].productId").value("ABC-002"))
+                .andRespond(withSuccess("{\"received\":1,\"applied\":0,\"skipped\":1}", MediaType.APPLICATION_JSON));
+
+        SyncResultDTO result = client.pushBatch(batch("ABC-001", "ABC-002"));
+
+        assertThat(result.getReceived()).isEqualTo(2);
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(client.isPartitioned()).isTrue();
+        server.verify();
+    }
+
+    @Test
+    void single_node_central_gets_the_whole_batch() {
+        server.expect(once(), requestTo("http://central/sync/partitions"))
+                .andRespond(withSuccess("{\"epoch\":1,\"vnodes\":128,\"self\":0,\"nodes\":[]}", MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo("http://central/sync/pull"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andRespond(withSuccess("{\"received\":2,\"applied\":2,\"skipped\":0}", MediaType.APPLICATION_JSON));
+
+        assertThat(client.pushBatch(batch("ABC-001", "ABC-002")).getApplied()).isEqualTo(2);
+        assertThat(client.isPartitioned()).isFalse();
+        server.verify();
+    }
+
+    @Test
+    void conflict_refreshes_map_and_resplits() {
+        ConsistentHashRing three = new ConsistentHashRing(3, 128);
+        String owner = "http://c" + three.owner("ABC-003");
+
+        server.expect(once(), requestTo("http://central/sync/partitions")).andRespond(withSuccess(TWO_NODES, MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo("http://c" + new ConsistentHashRing(2, 128).owner("ABC-003") + "/sync/pull"))
+                .andRespond(withStatus(HttpStatus.CONFLICT));
+        server.expect(once(), requestTo("http://central/sync/partitions")).andRespond(withSuccess(THREE_NODES, MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(owner + "/sync/pull"))
+                .andRespond(withSuccess("{\"received\":1,\"applied\":1,\"skipped\":0}", MediaType.APPLICATION_JSON));
+
+        assertThat(client.pushBatch(batch("ABC-003")).getApplied()).isEqualTo(1);
+        server.verify();
+    }
+
+    private static SyncBatchDTO batch(String... productIds) {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+        return SyncBatchDTO.builder().items(Arrays.stream(productIds)
+                .map(id -> StockSnapshotDTO.builder().productId(id).quantity(1).updatedAt(now).build())
+                .toList()).build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.inventory.store.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void owners_match_central_ring() {
+        // mismos valores en PartitionMapTest de central-service: tienda y central deben coincidir
+        ConsistentHashRing ring = new ConsistentHashRing(3, 128);
+        assertThat(ConsistentHashRing.hash("ABC-001")).isEqualTo(2889839452061967526L);
+        assertThat(new int[]{ring.owner("ABC-001"), ring.owner("ABC-002"), ring.owner("ABC-003"), ring.owner("SKU-42")})
+                .containsExactly(0, 1, 2, 0);
+    }
+
+    @Test
+    void single_node_owns_everything() {
+        ConsistentHashRing ring = new ConsistentHashRing(1, 128);
+        assertThat(ring.owner("ABC-001")).isZero();
+        assertThat(ring.owner("anything")).isZero();
+    }
+}
@@ -0,0 +1,89 @@
+package com.inventory.store.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OperationTimerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private Timer phase(String operation, String phase) {
+        return registry.find("inventory_operation_phase_seconds").tag("operation", operation).tag("phase", phase).timer();
+    }
+
+    @Test
+    void phases_accumulate_once_per_operation_and_rest_goes_to_other() throws Exception {
+        OperationTimer timer = new OperationTimer(true, 10_000, registry);
+        try (OperationTimer.Operation op = timer.start("adjust")) {
+            try (OperationTimer.Phase wait = timer.phase("retry_wait")) {
+                Thread.sleep(20);
+            }
+            try (OperationTimer.Phase wait = timer.phase("retry_wait")) {
+                Thread.sleep(20);
+            }
+            try (OperationTimer.Phase load = timer.phase("load")) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(5);
+        }
+
+        assertThat(phase("adjust", "retry_wait").count()).isEqualTo(1);
+        assertThat(phase("adjust", "retry_wait").totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(40);
+        assertThat(phase("adjust", "load").count()).isEqualTo(1);
+        assertThat(phase("adjust", "other").totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void nested_start_joins_outer_operation() {
+        OperationTimer timer = new OperationTimer(true, 10_000, registry);
+        try (OperationTimer.Operation outer = timer.start("order-committed")) {
+            try (OperationTimer.Operation inner = timer.start("commit")) {
+                try (OperationTimer.Phase flush = timer.phase("flush")) {
+                    // nada
+                }
+            }
+            try (OperationTimer.Phase outbox = timer.phase("outbox")) {
+                // nada
+            }
+        }
+
+        assertThat(phase("order-committed", "flush").count()).isEqualTo(1);
+        assertThat(phase("order-committed", "outbox").count()).isEqualTo(1);
+        assertThat(registry.find("inventory_operation_phase_seconds").tag("operation", "commit").timer()).isNull();
+    }
+
+    @Test
+    void phases_from_other_threads_count_and_outside_operation_are_ignored() {
+        OperationTimer timer = new OperationTimer(true, 0, registry);
+        try (OperationTimer.Phase stray = timer.phase("load")) {
+            // sin operación abierta
+        }
+        try (OperationTimer.Operation op = timer.start("sync_push")) {
+            CompletableFuture.runAsync(() -> {
+                try (OperationTimer.Phase http = op.phase("http")) {
+                    // envío en otro hilo
+                }
+            }).join();
+        }
+
+        assertThat(phase("sync_push", "http").count()).isEqualTo(1);
+        assertThat(registry.find("inventory_operation_phase_seconds").tag("phase", "load").timer()).isNull();
+    }
+
+    @Test
+    void disabled_records_nothing() {
+        OperationTimer timer = new OperationTimer(false, 0, registry);
+        try (OperationTimer.Operation op = timer.start("adjust")) {
+            try (OperationTimer.Phase load = timer.phase("load")) {
+                // nada
+            }
+        }
+        assertThat(registry.find("inventory_operation_phase_seconds").timers()).isEmpty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.inventory.store.service;
+
+import com.inventory.store.entity.ProductEntity;
+import com.inventory.store.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final ProductService productService = new ProductService(repository, new SimpleMeterRegistry());
+    private final List<ProductEntity> catalog = List.of(
+            ProductEntity.builder().id("ABC-001").updatedAt(Instant.parse("2025-01-01T00:00:00Z")).build());
+
+    @Test
+    void served_catalog_etag_answers_not_modified() {
+        when(repository.findAll()).thenReturn(catalog);
+
+        productService.findAll();
+
+        String etag = ProductService.eTagOf(catalog);
+        assertThat(productService.matchNotModified(etag)).isEqualTo(etag);
+    }
+
+    @Test
+    void catalog_pull_during_a_read_is_not_masked_by_a_stale_etag() {
+        // la lectura ve el catálogo viejo y el pull confirma e invalida antes de que findAll publique
+        when(repository.findAll()).thenAnswer(inv -> {
+            productService.invalidateCatalogETag();
+            return catalog;
+        });
+
+        productService.findAll();
+
+        assertThat(productService.matchNotModified(ProductService.eTagOf(catalog))).isNull();
+    }
+}
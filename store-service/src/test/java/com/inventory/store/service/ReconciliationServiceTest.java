@@ -0,0 +1,130 @@
+package com.inventory.store.service;
+
+import com.inventory.store.dto.MerkleBucketDTO;
+import com.inventory.store.dto.StockAllocateRequestDTO;
+import com.inventory.store.dto.MerkleNodesDTO;
+import com.inventory.store.dto.MerkleQueryDTO;
+import com.inventory.store.dto.ReconcileResultDTO;
+import com.inventory.store.dto.SyncBatchDTO;
+import com.inventory.store.dto.SyncResultDTO;
+import com.inventory.store.entity.StockEntity;
+import com.inventory.store.repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// contexto propio: la H2 en memoria se comparte entre contextos y otro arranque la re-siembra
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class ReconciliationServiceTest {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private CentralSyncClient centralSyncClient;
+
+    // árbol que hace de central
+    private StockMerkleTree remote;
+
+    @BeforeEach
+    void setup() {
+        remote = new StockMerkleTree(mock(StockRepository.class));
+        for (StockEntity st : stockRepository.findAll()) {
+            remote.update(st.getProductId(), st.getOnHand(), st.getUpdatedAt());
+        }
+        when(centralSyncClient.merkleNodes(any())).thenAnswer(inv -> {
+            MerkleQueryDTO q = inv.getArgument(0);
+            return MerkleNodesDTO.builder().level(q.getLevel()).hashes(remote.nodes(q.getLevel(), q.getIndexes())).build();
+        });
+        when(centralSyncClient.merkleBuckets(any())).thenAnswer(inv -> {
+            MerkleQueryDTO q = inv.getArgument(0);
+            return MerkleBucketDTO.builder().items(remote.bucketItems(q.getIndexes())).build();
+        });
+        when(centralSyncClient.pushBatch(any())).thenAnswer(inv -> {
+            SyncBatchDTO b = inv.getArgument(0);
+            return SyncResultDTO.builder().received(b.getItems().size()).applied(b.getItems().size()).build();
+        });
+    }
+
+    @Test
+    void partitioned_central_skips_reconciliation() {
+        when(centralSyncClient.isPartitioned()).thenReturn(true);
+
+        ReconcileResultDTO result = reconciliationService.reconcile();
+
+        assertThat(result.isPartitioned()).isTrue();
+        verify(centralSyncClient, never()).merkleNodes(any());
+        verify(centralSyncClient, never()).pushBatch(any());
+    }
+
+    @Test
+    void equal_trees_stop_at_root() {
+        ReconcileResultDTO result = reconciliationService.reconcile();
+        assertThat(result.getRoundTrips()).isEqualTo(1);
+        assertThat(result.getItemsDiverged()).isZero();
+        verify(centralSyncClient, never()).pushBatch(any());
+    }
+
+    @Test
+    void only_divergent_sku_is_pushed() {
+        StockEntity drifted = stockRepository.findById("ABC-002").orElseThrow();
+        remote.update("ABC-002", drifted.getOnHand() + 5, drifted.getUpdatedAt());
+
+        ReconcileResultDTO result = reconciliationService.reconcile();
+
+        assertThat(result.getBucketsDiverged()).isEqualTo(1);
+        assertThat(result.getItemsDiverged()).isEqualTo(1);
+        assertThat(result.getRoundTrips()).isEqualTo(StockMerkleTree.DEPTH + 2);
+        ArgumentCaptor<SyncBatchDTO> pushed = ArgumentCaptor.forClass(SyncBatchDTO.class);
+        verify(centralSyncClient).pushBatch(pushed.capture());
+        assertThat(pushed.getValue().getItems()).singleElement()
+                .satisfies(item -> assertThat(item.getProductId()).isEqualTo("ABC-002"));
+    }
+
+    @Test
+    void rolled_back_order_commit_does_not_diverge_from_central() {
+        for (String sku : List.of("ABC-001", "ABC-003")) {
+            stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-merkle").productId(sku).quantity(1).build());
+        }
+        for (StockEntity st : stockRepository.findAll()) {
+            remote.update(st.getProductId(), st.getOnHand(), st.getUpdatedAt());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                stockService.commitOrder("o-merkle");
+                status.setRollbackOnly();
+            });
+
+            ReconcileResultDTO result = reconciliationService.reconcile();
+
+            assertThat(result.getItemsDiverged()).isZero();
+            verify(centralSyncClient, never()).pushBatch(any());
+        } finally {
+            stockService.releaseOrder("o-merkle");
+        }
+    }
+}
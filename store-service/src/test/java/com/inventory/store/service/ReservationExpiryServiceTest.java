@@ -0,0 +1,75 @@
+package com.inventory.store.service;
+
+import com.inventory.store.exception.BadRequestException;
+import com.inventory.store.repository.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationExpiryServiceTest {
+
+    private static final Instant T0 = Instant.parse("2030-01-01T00:00:00Z");
+
+    private final ReservationTimingWheel wheel = new ReservationTimingWheel(1000, T0);
+    private final StockService stockService = mock(StockService.class);
+    private final ReservationExpiryService expiry = new ReservationExpiryService(mock(ReservationRepository.class), wheel,
+            stockService, Clock.fixed(T0, ZoneOffset.UTC), true, 10, 60_000, new SimpleMeterRegistry());
+
+    @Test
+    void a_poisoned_hold_is_parked_and_the_rest_of_its_batch_is_released() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(UUID.randomUUID());
+            wheel.schedule(ids.get(i), T0.plusSeconds(1));
+        }
+        UUID poisoned = ids.get(2);
+        List<List<UUID>> calls = new ArrayList<>();
+        when(stockService.expireHolds(anyList(), any())).thenAnswer(inv -> {
+            List<UUID> batch = List.copyOf(inv.getArgument(0));
+            calls.add(batch);
+            if (batch.contains(poisoned)) {
+                throw new BadRequestException("Reserva insuficiente para release");
+            }
+            return batch.size();
+        });
+
+        assertThat(expiry.expireDue(T0.plusSeconds(2))).isEqualTo(4);
+        // el lote entero y después una transacción por reserva
+        assertThat(calls).hasSize(6);
+        assertThat(calls.subList(1, 6)).allSatisfy(batch -> assertThat(batch).hasSize(1));
+        assertThat(wheel.size()).isEqualTo(1);
+
+        // apartada: no se reintenta en cada tick
+        calls.clear();
+        assertThat(expiry.expireDue(T0.plusSeconds(30))).isZero();
+        assertThat(calls).isEmpty();
+
+        assertThat(expiry.expireDue(T0.plusSeconds(62))).isZero();
+        assertThat(calls).containsExactly(List.of(poisoned));
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void a_healthy_batch_is_released_in_one_transaction() {
+        wheel.schedule(UUID.randomUUID(), T0.plusSeconds(1));
+        wheel.schedule(UUID.randomUUID(), T0.plusSeconds(1));
+        when(stockService.expireHolds(anyList(), any())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        assertThat(expiry.expireDue(T0.plusSeconds(2))).isEqualTo(2);
+        verify(stockService).expireHolds(anyList(), any());
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,69 @@
+package com.inventory.store.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationTimingWheelTest {
+
+    private static final Instant T0 = Instant.parse("2030-01-01T00:00:00Z");
+
+    @Test
+    void fires_at_deadline_never_before() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(1000, T0);
+        UUID id = UUID.randomUUID();
+        wheel.schedule(id, T0.plusMillis(2500));
+
+        assertThat(wheel.advance(T0.plusSeconds(2))).isEmpty();
+        assertThat(wheel.advance(T0.plusSeconds(3))).containsExactly(id);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancel_and_reschedule_are_honoured() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(1000, T0);
+        UUID cancelled = UUID.randomUUID();
+        UUID moved = UUID.randomUUID();
+        wheel.schedule(cancelled, T0.plusSeconds(5));
+        wheel.schedule(moved, T0.plusSeconds(5));
+        wheel.schedule(moved, T0.plusSeconds(500));
+
+        assertThat(wheel.cancel(cancelled)).isTrue();
+        assertThat(wheel.cancel(cancelled)).isFalse();
+        assertThat(wheel.advance(T0.plusSeconds(499))).isEmpty();
+        assertThat(wheel.advance(T0.plusSeconds(500))).containsExactly(moved);
+    }
+
+    @Test
+    void far_deadlines_cascade_down_to_their_exact_tick() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(1000, T0.plusSeconds(123_456));
+        Instant base = T0.plusSeconds(123_456);
+        long[] offsets = {1, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 300_000, 17_000_000, 20_000_000};
+        List<UUID> ids = new ArrayList<>();
+        for (long offset : offsets) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            wheel.schedule(id, base.plusSeconds(offset));
+        }
+
+        for (int i = 0; i < offsets.length; i++) {
+            assertThat(wheel.advance(base.plusSeconds(offsets[i] - 1))).as("antes de %s", offsets[i]).isEmpty();
+            assertThat(wheel.advance(base.plusSeconds(offsets[i]))).as("en %s", offsets[i]).containsExactly(ids.get(i));
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void past_deadlines_fire_on_next_tick() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(1000, T0);
+        UUID id = UUID.randomUUID();
+        wheel.schedule(id, T0.minusSeconds(30));
+
+        assertThat(wheel.advance(T0.plusSeconds(1))).containsExactly(id);
+    }
+}
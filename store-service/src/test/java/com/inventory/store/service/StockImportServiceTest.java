@@ -0,0 +1,78 @@
+package com.inventory.store.service;
+
+import com.inventory.store.dto.StockImportErrorDTO;
+import com.inventory.store.dto.StockImportResultDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class StockImportServiceTest {
+
+    @Autowired
+    private StockImportService stockImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void csv_applies_counts_and_reports_bad_lines() throws IOException {
+        int outboxBefore = outboxRows();
+        int onHand2 = onHand("ABC-002");
+        String csv = "productId,onHand\n"
+                + "ABC-001,40\n"
+                + "ABC-002," + onHand2 + "\n"
+                + "NOPE-999,3\n"
+                + "ABC-003,-1\n"
+                + "ABC-003\n"
+                + "ABC-001,41\n";
+
+        StockImportResultDTO result = stockImportService.importCounts(stream(csv), StockImportService.CSV);
+
+        assertThat(result.getLines()).isEqualTo(6);
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getDuplicates()).as("ABC-001,40 pisada por ABC-001,41").isEqualTo(1);
+        assertThat(result.getApplied() + result.getUnchanged() + result.getRejected() + result.getDuplicates())
+                .isEqualTo(result.getLines());
+        assertThat(result.getErrors()).extracting(StockImportErrorDTO::getLine).containsExactlyInAnyOrder(4L, 5L, 6L);
+        assertThat(onHand("ABC-001")).isEqualTo(41);
+        assertThat(outboxRows()).isEqualTo(outboxBefore + 1);
+    }
+
+    @Test
+    void ndjson_in_several_chunks() throws IOException {
+        String ndjson = "{\"productId\":\"ABC-002\",\"onHand\":55}\n"
+                + "not json\n"
+                + "{\"productId\":\"ABC-003\",\"onHand\":66}\n";
+
+        StockImportResultDTO result = stockImportService.importCounts(stream(ndjson), StockImportService.NDJSON);
+
+        assertThat(result.getApplied()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(onHand("ABC-002")).isEqualTo(55);
+        assertThat(onHand("ABC-003")).isEqualTo(66);
+    }
+
+    private int onHand(String productId) {
+        return jdbcTemplate.queryForObject("SELECT on_hand FROM stock WHERE product_id = ?", Integer.class, productId);
+    }
+
+    private int outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_log", Integer.class);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,18 +1,24 @@
 package com.inventory.store.service;
 
 import com.inventory.store.TestClockConfig;
+import com.inventory.store.dto.StockAllocateRequestDTO;
+import com.inventory.store.dto.StockAvailabilityDTO;
 import com.inventory.store.dto.StockSnapshotDTO;
 import com.inventory.store.exception.BadRequestException;
 import com.inventory.store.exception.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -26,6 +32,18 @@ class StockServiceTest {
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StockMerkleTree merkleTree;
+
+    @Autowired
+    private StockETagCache etagCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Test
     void adjust_positive_increments_and_updates_timestamp() {
         StockSnapshotDTO before = stockService.getSnapshot("ABC-001");
@@ -34,6 +52,59 @@ class StockServiceTest {
         assertThat(after.getUpdatedAt()).isEqualTo(Instant.parse("2030-01-01T00:00:00Z"));
     }
 
+    @Test
+    void adjust_records_phase_breakdown() {
+        long before = phaseCount("flush");
+        stockService.adjust("ABC-002", 1);
+        assertThat(phaseCount("flush")).isEqualTo(before + 1);
+        assertThat(phaseCount("load")).isPositive();
+        assertThat(phaseCount("outbox")).isPositive();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void rolled_back_adjust_leaves_merkle_and_etag_untouched() {
+        stockService.getSnapshot("ABC-003");
+        long root = merkleTree.root();
+        String etag = etagCache.current("ABC-003");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            stockService.adjust("ABC-003", 5);
+            status.setRollbackOnly();
+        });
+
+        assertThat(merkleTree.root()).isEqualTo(root);
+        assertThat(etagCache.current("ABC-003")).isEqualTo(etag);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void rolled_back_order_settle_keeps_every_line_etag_until_commit() {
+        for (String sku : List.of("ABC-001", "ABC-002")) {
+            stockService.allocate(null, StockAllocateRequestDTO.builder().orderId("o-etag").productId(sku).quantity(1).build());
+        }
+        String etag1 = etagCache.current("ABC-001");
+        String etag2 = etagCache.current("ABC-002");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            stockService.releaseOrder("o-etag");
+            status.setRollbackOnly();
+        });
+
+        // el cliente que tenía los ETags sigue recibiendo 304
+        assertThat(stockService.matchNotModified("ABC-001", etag1)).isEqualTo(etag1);
+        assertThat(stockService.matchNotModified("ABC-002", etag2)).isEqualTo(etag2);
+
+        stockService.releaseOrder("o-etag");
+        assertThat(stockService.matchNotModified("ABC-001", etag1)).isNull();
+        assertThat(stockService.matchNotModified("ABC-002", etag2)).isNull();
+    }
+
+    private long phaseCount(String phase) {
+        var timer = meterRegistry.find("inventory_operation_phase_seconds").tag("operation", "adjust").tag("phase", phase).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
     @Test
     void adjust_negative_valid_decrements() {
         StockSnapshotDTO before = stockService.getSnapshot("ABC-001");
@@ -51,6 +122,15 @@ class StockServiceTest {
     void adjust_non_existing_product_throws_not_found() {
         assertThrows(NotFoundException.class, () -> stockService.adjust("NOPE-999", 1));
     }
-}
-
 
+    @Test
+    void availability_keeps_input_order_and_reports_missing() {
+        List<StockAvailabilityDTO> result = stockService.getAvailability(List.of("ABC-002", "NOPE-999", "ABC-001"));
+        assertThat(result).extracting(StockAvailabilityDTO::getProductId).containsExactly("ABC-002", "NOPE-999", "ABC-001");
+        assertThat(result.get(1).getStatus()).isEqualTo("NOT_FOUND");
+        assertThat(result.get(1).getOnHand()).isNull();
+        StockAvailabilityDTO first = result.get(0);
+        assertThat(first.getStatus()).isEqualTo("OK");
+        assertThat(first.getAvailable()).isEqualTo(first.getOnHand() - first.getAllocated());
+    }
+}
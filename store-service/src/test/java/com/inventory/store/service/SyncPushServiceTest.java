@@ -0,0 +1,224 @@
+package com.inventory.store.service;
+
+import com.inventory.store.dto.SyncBatchDTO;
+import com.inventory.store.dto.SyncItemRejectionDTO;
+import com.inventory.store.dto.SyncResultDTO;
+import com.inventory.store.entity.ChangeLogEntity;
+import com.inventory.store.exception.SyncNetworkException;
+import com.inventory.store.repository.ChangeLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// contexto propio: la H2 en memoria se comparte entre contextos y otro arranque la re-siembra
+@SpringBootTest(properties = {
+        "store.sync.enabled=false",
+        "store.sync.pipeline.window=2",
+        "store.sync.pipeline.batchSize=1",
+        "store.sync.adaptive.enabled=false",
+        "store.sync.initialBackoffMs=1"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class SyncPushServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private SyncPushService syncPushService;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @MockBean
+    private CentralSyncClient centralSyncClient;
+
+    @BeforeEach
+    void setup() {
+        changeLogRepository.deleteAll();
+        List<String> skus = List.of("ABC-001", "ABC-002", "ABC-003");
+        for (int i = 0; i < skus.size(); i++) {
+            change(skus.get(i), i, ChangeLogEntity.PRIORITY_ROUTINE);
+        }
+    }
+
+    private void change(String productId, int second, int priority) {
+        changeLogRepository.save(ChangeLogEntity.builder().id(UUID.randomUUID()).productId(productId)
+                .updatedAt(T0.plusSeconds(second)).priority(priority).build());
+    }
+
+    private static SyncResultDTO ok(SyncBatchDTO b) {
+        return SyncResultDTO.builder().received(b.getItems().size()).applied(b.getItems().size()).build();
+    }
+
+    @Test
+    void keeps_up_to_window_batches_in_flight_and_acks_drain_outbox() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(centralSyncClient.pushBatch(any())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            inFlight.decrementAndGet();
+            return ok(inv.getArgument(0));
+        });
+
+        SyncResultDTO result = syncPushService.pushNow();
+
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(result.getApplied()).isEqualTo(3);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        assertThat(changeLogRepository.count()).isZero();
+    }
+
+    @Test
+    void failed_batch_is_retransmitted_with_same_seq_while_others_are_acked() {
+        Map<String, List<Long>> seqsBySku = new ConcurrentHashMap<>();
+        AtomicInteger failures = new AtomicInteger();
+        when(centralSyncClient.pushBatch(any())).thenAnswer(inv -> {
+            SyncBatchDTO b = inv.getArgument(0);
+            String sku = b.getItems().get(0).getProductId();
+            seqsBySku.computeIfAbsent(sku, k -> new CopyOnWriteArrayList<>()).add(b.getBatchSeq());
+            if (sku.equals("ABC-002") && failures.getAndIncrement() == 0) {
+                throw new SyncNetworkException("timeout", null);
+            }
+            return ok(b);
+        });
+
+        SyncResultDTO result = syncPushService.pushNow();
+
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(seqsBySku.get("ABC-002")).hasSize(2);
+        assertThat(seqsBySku.get("ABC-002").get(0)).isEqualTo(seqsBySku.get("ABC-002").get(1));
+        assertThat(seqsBySku.get("ABC-001")).hasSize(1);
+        assertThat(seqsBySku.get("ABC-001").get(0)).isLessThan(seqsBySku.get("ABC-002").get(0));
+        assertThat(changeLogRepository.count()).isZero();
+    }
+
+    @Test
+    void exhausted_batch_stays_in_outbox_and_push_fails() {
+        when(centralSyncClient.pushBatch(any())).thenAnswer(inv -> {
+            SyncBatchDTO b = inv.getArgument(0);
+            if (b.getItems().get(0).getProductId().equals("ABC-002")) {
+                throw new SyncNetworkException("central caída", null);
+            }
+            return ok(b);
+        });
+
+        assertThatThrownBy(() -> syncPushService.pushNow()).isInstanceOf(SyncNetworkException.class);
+
+        List<String> pending = changeLogRepository.findAll().stream().map(ChangeLogEntity::getProductId).toList();
+        assertThat(pending).contains("ABC-002").doesNotContain("ABC-001");
+    }
+
+    @Test
+    void unexpected_failure_in_a_sender_leaves_the_batch_unacked_and_fails_the_push() {
+        when(centralSyncClient.pushBatch(any())).thenAnswer(inv -> {
+            SyncBatchDTO b = inv.getArgument(0);
+            if (b.getItems().get(0).getProductId().equals("ABC-002")) {
+                throw new IllegalStateException("respuesta ilegible");
+            }
+            return ok(b);
+        });
+
+        assertThatThrownBy(() -> syncPushService.pushNow())
+                .isInstanceOf(IllegalStateException.class).hasMessage("respuesta ilegible");
+
+        List<String> pending = changeLogRepository.findAll().stream().map(ChangeLogEntity::getProductId).toList();
+        assertThat(pending).contains("ABC-002").doesNotContain("ABC-001");
+    }
+
+    @Test
+    void rejected_items_are_parked_and_the_rest_of_the_batch_is_acked() {
+        when(centralSyncClient.pushBatch(any())).thenAnswer(inv -> {
+            SyncBatchDTO b = inv.getArgument(0);
+            if (b.getItems().get(0).getProductId().equals("ABC-002")) {
+                return SyncResultDTO.builder().received(1).rejected(1).rejections(List.of(SyncItemRejectionDTO.builder()
+                        .index(0).productId("ABC-002").reason("quantity no puede ser negativa").build())).build();
+            }
+            return ok(b);
+        });
+
+        SyncResultDTO result = syncPushService.pushNow();
+
+        assertThat(result.getApplied()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(1);
+        List<ChangeLogEntity> left = changeLogRepository.findAll();
+        assertThat(left).singleElement().satisfies(ch -> {
+            assertThat(ch.getProductId()).isEqualTo("ABC-002");
+            assertThat(ch.getRejectedReason()).isEqualTo("quantity no puede ser negativa");
+        });
+
+        // apartada: no vuelve a enviarse
+        clearInvocations(centralSyncClient);
+        syncPushService.pushNow();
+        verify(centralSyncClient, never()).pushBatch(any());
+    }
+
+    @Test
+    void urgent_lanes_go_first_but_routine_is_not_starved() {
+        // 3 rutinarios (ABC-001) más viejos que 12 quiebres (ABC-002/003); pesos por defecto 8/4/1
+        changeLogRepository.deleteAll();
+        for (int i = 0; i < 3; i++) {
+            change("ABC-001", i, ChangeLogEntity.PRIORITY_ROUTINE);
+        }
+        for (int i = 0; i < 12; i++) {
+            change(i % 2 == 0 ? "ABC-002" : "ABC-003", 100 + i, ChangeLogEntity.PRIORITY_STOCKOUT);
+        }
+        Map<Long, String> skuBySeq = new ConcurrentHashMap<>();
+        when(centralSyncClient.pushBatch(any())).thenAnswer(inv -> {
+            SyncBatchDTO b = inv.getArgument(0);
+            skuBySeq.put(b.getBatchSeq(), b.getItems().get(0).getProductId());
+            return ok(b);
+        });
+
+        syncPushService.pushNow();
+
+        List<String> order = skuBySeq.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey()).map(Map.Entry::getValue).toList();
+        assertThat(order).hasSize(15);
+        assertThat(order.get(0)).isNotEqualTo("ABC-001");
+        List<String> firstRound = order.subList(0, 9);
+        assertThat(firstRound.stream().filter("ABC-001"::equals).count()).as("un rutinario cada 9 lotes").isEqualTo(1);
+        assertThat(changeLogRepository.count()).isZero();
+    }
+
+    @Test
+    void stock_changes_are_classified_into_lanes() {
+        int onHand = stockService.getSnapshot("ABC-003").getQuantity();
+
+        assertThat(priorityOf(() -> stockService.adjust("ABC-003", 20 - onHand))).isEqualTo(ChangeLogEntity.PRIORITY_ROUTINE);
+        assertThat(priorityOf(() -> stockService.adjust("ABC-003", -17))).isEqualTo(ChangeLogEntity.PRIORITY_LOW_STOCK);
+        assertThat(priorityOf(() -> stockService.adjust("ABC-003", -3))).isEqualTo(ChangeLogEntity.PRIORITY_STOCKOUT);
+        // reponer desde cero también es urgente: central cree que no hay
+        assertThat(priorityOf(() -> stockService.adjust("ABC-003", 10))).isEqualTo(ChangeLogEntity.PRIORITY_STOCKOUT);
+    }
+
+    private int priorityOf(Runnable change) {
+        changeLogRepository.deleteAll();
+        change.run();
+        List<ChangeLogEntity> rows = changeLogRepository.findAll();
+        assertThat(rows).hasSize(1);
+        return rows.get(0).getPriority();
+    }
+}